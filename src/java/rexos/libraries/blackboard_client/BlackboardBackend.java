@@ -0,0 +1,111 @@
+/**
+ * @file rexos/libraries/blackboard_client/BlackboardBackend.java
+ * @brief Storage backend that can replace the MongoDB server underneath a BlackboardClient.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+import java.util.List;
+
+import com.mongodb.DBObject;
+
+/**
+ * Storage underneath a {@link BlackboardClient} that takes the place of a MongoDB server, see
+ * {@link BlackboardClient#BlackboardClient(BlackboardBackend)}. Clients sharing a backend instance see each other's
+ * documents and changes.
+ * 
+ * Collections are identified by their namespace (database.collection). Queries and updates use the MongoDB syntax;
+ * backends may support only part of it and throw a GeneralMongoException for anything else. Subscribers are notified
+ * of changes with {@link OplogEntry} objects shaped like the entries MongoDB writes to its oplog, so existing
+ * subscriptions match them as they would match entries read from the oplog.
+ **/
+public interface BlackboardBackend {
+	/**
+	 * Inserts a document. If the document has no _id, a new ObjectId is assigned to it.
+	 * @param namespace The namespace of the collection.
+	 * @param document The document to insert.
+	 * @throws GeneralMongoException The document could not be inserted.
+	 **/
+	public void insert(String namespace, DBObject document) throws GeneralMongoException;
+	
+	/**
+	 * Updates all documents matching the search query.
+	 * @param namespace The namespace of the collection.
+	 * @param searchQuery The query that should be used to select the target documents.
+	 * @param updateQuery The query that should be used to update the target documents.
+	 * @return The amount of documents that have been updated.
+	 * @throws GeneralMongoException The query is not supported or the documents could not be updated.
+	 **/
+	public int update(String namespace, DBObject searchQuery, DBObject updateQuery) throws GeneralMongoException;
+	
+	/**
+	 * Removes all documents matching the query.
+	 * @param namespace The namespace of the collection.
+	 * @param query The query used for removing documents.
+	 * @return The amount of documents that have been removed.
+	 * @throws GeneralMongoException The query is not supported or the documents could not be removed.
+	 **/
+	public int remove(String namespace, DBObject query) throws GeneralMongoException;
+	
+	/**
+	 * Retrieves the documents matching the query. The query may be wrapped as { $query : ..., $orderby : ... }.
+	 * @param namespace The namespace of the collection.
+	 * @param query The query selecting the documents.
+	 * @param fields The projection, or null to return complete documents.
+	 * @param orderBy The sort order, or null for insertion order.
+	 * @param skip The amount of results that are skipped.
+	 * @param limit The maximum amount of results, 0 for no limit.
+	 * @return Copies of the matching documents.
+	 * @throws GeneralMongoException The query is not supported.
+	 **/
+	public List<DBObject> find(String namespace, DBObject query, DBObject fields, DBObject orderBy, int skip, int limit)
+			throws GeneralMongoException;
+	
+	/**
+	 * Finds the distinct values of a field across the documents matching the query.
+	 * @param namespace The namespace of the collection.
+	 * @param field The field for which to return the distinct values.
+	 * @param query The query selecting the documents, or null for all documents.
+	 * @return The distinct values of the field.
+	 * @throws GeneralMongoException The query is not supported.
+	 **/
+	public List<Object> distinct(String namespace, String field, DBObject query) throws GeneralMongoException;
+	
+	/**
+	 * Subscribes to changes in a collection.
+	 * @param namespace The namespace of the collection.
+	 * @param subscription The subscription.
+	 **/
+	public void subscribe(String namespace, BlackboardSubscription subscription);
+	
+	/**
+	 * Removes a subscription made with {@link #subscribe(String, BlackboardSubscription)}.
+	 * @param namespace The namespace of the collection.
+	 * @param subscription The subscription.
+	 **/
+	public void unsubscribe(String namespace, BlackboardSubscription subscription);
+}
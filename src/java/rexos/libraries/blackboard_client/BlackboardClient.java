@@ -35,18 +35,23 @@ package rexos.libraries.blackboard_client;
 
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 import org.bson.types.ObjectId;
 
+import com.mongodb.BasicDBObject;
 import com.mongodb.DB;
 import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
 import com.mongodb.Mongo;
 import com.mongodb.MongoException;
 import com.mongodb.QueryBuilder;
+import com.mongodb.ReadPreference;
 import com.mongodb.ServerAddress;
-import com.mongodb.WriteConcern;
 import com.mongodb.WriteResult;
 import com.mongodb.util.JSON;
 import com.mongodb.util.JSONParseException;
@@ -56,40 +61,28 @@ import com.mongodb.util.JSONParseException;
  **/
 public class BlackboardClient {
 	/**
-	 * @var String OPLOG_COLLECTION_NAME
-	 * Operation log collection name of MongoDB.
-	 **/
-	private static final String OPLOG_COLLECTION_NAME = "oplog.rs";
-
-	/**
-	 * @var String OPLOG_DATABASE_NAME
-	 * Local database name of MongoDB.
-	 **/
-	private static final String OPLOG_DATABASE_NAME = "local";
-
-	/**
-	 * @var String oplogUser
-	 * The username for the oplog database.
+	 * @var Mongo mongo
+	 * Connection object to MongoDB.
 	 **/
-	private String oplogUser = null;
+	private Mongo mongo;
 	
 	/**
-	 * @var String oplogPassword
-	 * The password to be used for the oplog database.
+	 * @var MongoDBConnection connection
+	 * The connection whose pool provides the connections for the operations, or null when a backend is used.
 	 **/
-	private String oplogPassword = null;
+	private MongoDBConnection connection;
 	
 	/**
-	 * @var Mongo mongo
-	 * Connection object to MongoDB.
+	 * @var OplogMultiplexer oplogMultiplexer
+	 * The multiplexer sharing the tailed oplog cursor of the server between all clients in this process.
 	 **/
-	private Mongo mongo;
+	private OplogMultiplexer oplogMultiplexer;
 
 	/**
-	 * @var ArrayList<BlackboardSubscription> subscriptions
-	 * ArrayList containing all the subscriptions for this blackboard.
+	 * @var ArrayList<OplogMultiplexer.Registration> registrations
+	 * ArrayList containing all the subscriptions for this blackboard and the namespace they were made for.
 	 **/
-	private ArrayList<BlackboardSubscription> subscriptions;
+	private ArrayList<OplogMultiplexer.Registration> registrations;
 
 	/**
 	 * @var DB currentDatabase
@@ -102,12 +95,61 @@ public class BlackboardClient {
 	 * DBCollection object of the currently used collection
 	 **/
 	private DBCollection currentCollection;
+	
+	/**
+	 * @var String currentDatabaseName
+	 * The name of the currently selected database.
+	 **/
+	private String currentDatabaseName;
+	
+	/**
+	 * @var String currentNamespace
+	 * The namespace (database.collection) of the currently selected collection.
+	 **/
+	private String currentNamespace;
+	
+	/**
+	 * @var BlackboardBackend backend
+	 * The backend storing the documents instead of a MongoDB server, or null when connected to MongoDB.
+	 **/
+	private BlackboardBackend backend;
+	
+	/**
+	 * @var HashMap<String, ReadPreference> readPreferences
+	 * The read preferences set for collections of this client, by collection name.
+	 **/
+	private HashMap<String, ReadPreference> readPreferences;
+	
+	/**
+	 * @var ReadPreference currentReadPreference
+	 * The read preference of the currently selected collection, or null to read from the primary.
+	 **/
+	private ReadPreference currentReadPreference;
 
 	/**
-	 * @var OplogMonitorThread oplogMonitorThread
-	 * Thread for tracking tailable cursor on operation log of MongoDB
+	 * @var OplogCallbackDispatcher callbackDispatcher
+	 * Dispatcher delivering the callbacks of this client's subscriptions, created by the first subscription on the
+	 * oplog. Null for clients using a backend, which notifies the subscribers itself.
 	 **/
-	private OplogMonitorThread oplogMonitorThread;
+	private OplogCallbackDispatcher callbackDispatcher;
+	
+	/**
+	 * @var HashMap<String, OplogMultiplexer.CacheRegistration> caches
+	 * The registered document caches by the namespace of their collection.
+	 **/
+	private HashMap<String, OplogMultiplexer.CacheRegistration> caches;
+	
+	/**
+	 * @var Executor asyncExecutor
+	 * The executor running the asynchronous operations of this client.
+	 **/
+	private Executor asyncExecutor;
+	
+	/**
+	 * @var BlackboardClientMetrics metrics
+	 * The oplog and callback dispatch metrics of this client.
+	 **/
+	private BlackboardClientMetrics metrics;
 	
 	/**
 	 * Constructs a BlackboardClient for the server at the specified host.
@@ -117,8 +159,7 @@ public class BlackboardClient {
 	 * @throws UnknownHostException The IP address of a host could not be determined.
 	 **/
 	public BlackboardClient(String host) throws UnknownHostException, GeneralMongoException {
-		this.subscriptions = new ArrayList<BlackboardSubscription>();
-		this.mongo = MongoDBConnection.getInstanceForHost(new ServerAddress(host)).getMongoClient();
+		this(MongoDBConnection.getInstanceForHost(new ServerAddress(host)));
 	}
 
 	/**
@@ -130,22 +171,212 @@ public class BlackboardClient {
 	 * @throws UnknownHostException The IP address of a host could not be determined.
 	 **/
 	public BlackboardClient(String host, int port) throws UnknownHostException, GeneralMongoException {
-		this.subscriptions = new ArrayList<BlackboardSubscription>();
-		this.mongo = MongoDBConnection.getInstanceForHost(new ServerAddress(host, port)).getMongoClient();
+		this(MongoDBConnection.getInstanceForHost(new ServerAddress(host, port)));
+	}
+	
+	/**
+	 * Constructs a BlackboardClient for the replica set with the specified seed list. Writes always go to the primary,
+	 * reads go to the members selected by the read preference of the collection.
+	 *
+	 * @param seeds The addresses of one or more members of the replica set.
+	 * @throws GeneralMongoException Connecting to the replica set failed.
+	 **/
+	public BlackboardClient(List<ServerAddress> seeds) throws GeneralMongoException {
+		this(MongoDBConnection.getInstanceForReplicaSet(seeds));
+	}
+	
+	/**
+	 * Constructs a BlackboardClient storing its documents in the given backend instead of a MongoDB server, e.g. a
+	 * {@link MemoryBlackboardBackend} shared by agents running in the same process. Subscribers are notified by the
+	 * backend instead of through the oplog. The document cache, oplog settings and callback dispatcher do not apply to
+	 * such clients, and asynchronous operations are executed right away on the calling thread. Write profiles are
+	 * ignored as well: the backend applies every write before returning, so writes are always acknowledged and report
+	 * the exact amount of affected documents.
+	 * 
+	 * @param backend The backend storing the documents.
+	 **/
+	public BlackboardClient(BlackboardBackend backend) {
+		this.registrations = new ArrayList<OplogMultiplexer.Registration>();
+		this.caches = new HashMap<String, OplogMultiplexer.CacheRegistration>();
+		this.readPreferences = new HashMap<String, ReadPreference>();
+		this.backend = backend;
+		this.asyncExecutor = new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				command.run();
+			}
+		};
+		this.metrics = new BlackboardClientMetrics();
+	}
+	
+	/**
+	 * Constructs a BlackboardClient using the specified connection.
+	 * 
+	 * @param connection The connection to the MongoDB server.
+	 **/
+	private BlackboardClient(MongoDBConnection connection) {
+		this.registrations = new ArrayList<OplogMultiplexer.Registration>();
+		this.caches = new HashMap<String, OplogMultiplexer.CacheRegistration>();
+		this.readPreferences = new HashMap<String, ReadPreference>();
+		this.connection = connection;
+		this.mongo = connection.getMongoClient();
+		this.oplogMultiplexer = connection.getOplogMultiplexer();
+		this.asyncExecutor = connection.getAsyncExecutor();
+		this.metrics = new BlackboardClientMetrics();
 	}
 	
 	/**
 	 * Sets the username and password that will be used for connecting to the Oplog database.
 	 * If authentication is required, these credentials should be set before any subscriptions are added.
 	 * The client defaults to no authentication, in which case both username and password are set to null.
+	 * The oplog cursor is shared by all clients connected to the same server, so the credentials apply to all of them.
 	 * @param username Username for the oplog database.
 	 * @param password Password for the oplog database.
 	 **/
 	public void setOplogCredentials(String username, String password) {
-		this.oplogUser = username;
-		this.oplogPassword = password;
+		if (oplogMultiplexer == null) {
+			return;
+		}
+		oplogMultiplexer.setOplogCredentials(username, password);
 	}
 
+	/**
+	 * Sets the store used to persist the position in the oplog. When the shared oplog monitor of the server is
+	 * (re)started and the store holds a checkpoint, tailing resumes after that checkpoint instead of at the latest entry.
+	 * The monitor is shared by all clients connected to the same server, so the store applies to all of them and should
+	 * be set before the first subscription is made.
+	 * @param checkpointStore The store to use, or null to disable checkpointing.
+	 **/
+	public void setOplogCheckpointStore(OplogCheckpointStore checkpointStore) {
+		if (oplogMultiplexer == null) {
+			return;
+		}
+		oplogMultiplexer.setCheckpointStore(checkpointStore);
+	}
+	
+	/**
+	 * Replaces the dispatcher that delivers the callbacks of this client's subscriptions.
+	 * This should be done before any subscriptions are added; callbacks still queued in the current dispatcher are discarded.
+	 * Clients using a {@link BlackboardBackend} have no dispatcher, so this has no effect on them.
+	 * 
+	 * @param workerCount The amount of worker threads used for delivering callbacks.
+	 * @param capacity The maximum amount of callbacks waiting for a worker.
+	 * @param policy The policy applied when a callback is added while the queue is full.
+	 * @param orderingMode Determines which callbacks are guaranteed to be delivered in order.
+	 **/
+	public void configureCallbackDispatcher(int workerCount, int capacity,
+			OplogCallbackDispatcher.BackpressurePolicy policy, OplogCallbackDispatcher.OrderingMode orderingMode) {
+		if (backend != null) {
+			return;
+		}
+		OplogCallbackDispatcher oldDispatcher = callbackDispatcher;
+		callbackDispatcher = new OplogCallbackDispatcher(workerCount, capacity, policy, orderingMode);
+		callbackDispatcher.setMetrics(metrics);
+		metrics.setDispatcher(callbackDispatcher);
+		for (OplogMultiplexer.Registration registration : registrations) {
+			registration.setDispatcher(callbackDispatcher);
+		}
+		if (oldDispatcher != null) {
+			oldDispatcher.shutdown();
+		}
+	}
+	
+	/**
+	 * Returns the dispatcher delivering the callbacks of this client's subscriptions, creating the default dispatcher
+	 * if none has been configured yet.
+	 * @return The callback dispatcher of this client.
+	 **/
+	private OplogCallbackDispatcher getCallbackDispatcher() {
+		if (callbackDispatcher == null) {
+			callbackDispatcher = new OplogCallbackDispatcher();
+			callbackDispatcher.setMetrics(metrics);
+			metrics.setDispatcher(callbackDispatcher);
+		}
+		return callbackDispatcher;
+	}
+	
+	/**
+	 * Enables the document cache for the currently selected collection.
+	 * Documents read from the collection are kept in memory and updated by this client's own writes and by the oplog,
+	 * so repeated lookups by _id are served without contacting the server. Changes made by other clients are only seen
+	 * once the oplog monitor has read them, so the cache should only be enabled for collections that no other client
+	 * writes to. See {@link DocumentCache} for the details.
+	 * 
+	 * @return true if the cache is enabled, false if the oplog could not be tailed to keep it coherent or the client uses
+	 * a {@link BlackboardBackend}, which needs no cache.
+	 * @throws InvalidDBNamespaceException No collection has been selected.
+	 **/
+	public boolean enableCache() throws InvalidDBNamespaceException {
+		if (currentNamespace == null) {
+			throw new InvalidDBNamespaceException("No collection selected");
+		}
+		if (backend != null) {
+			return false;
+		}
+		String namespace = currentNamespace;
+		if (caches.containsKey(namespace)) {
+			return true;
+		}
+		
+		OplogMultiplexer.CacheRegistration registration =
+				new OplogMultiplexer.CacheRegistration(new DocumentCache(namespace));
+		if (!oplogMultiplexer.register(registration)) {
+			return false;
+		}
+		caches.put(namespace, registration);
+		return true;
+	}
+	
+	/**
+	 * Disables the document cache for the currently selected collection and discards its contents.
+	 * 
+	 * @throws InvalidDBNamespaceException No collection has been selected.
+	 **/
+	public void disableCache() throws InvalidDBNamespaceException {
+		if (currentNamespace == null) {
+			throw new InvalidDBNamespaceException("No collection selected");
+		}
+		OplogMultiplexer.CacheRegistration registration = caches.remove(currentNamespace);
+		if (registration != null) {
+			oplogMultiplexer.unregister(registration);
+		}
+	}
+	
+	/**
+	 * Returns the document cache of the currently selected collection, which provides the hit and miss counts.
+	 * 
+	 * @return The document cache of the currently selected collection, or null if it is not enabled.
+	 **/
+	public DocumentCache getCache() {
+		if (currentCollection == null || caches.isEmpty()) {
+			return null;
+		}
+		OplogMultiplexer.CacheRegistration registration = caches.get(currentNamespace);
+		return registration == null ? null : registration.getCache();
+	}
+	
+	/**
+	 * Returns the oplog lag and callback dispatch metrics of this client and its subscribers.
+	 * While the client has subscriptions, the same metrics are registered in JMX, see {@link BlackboardClientMetrics}.
+	 * 
+	 * @return The metrics of this client.
+	 **/
+	public BlackboardClientMetrics getMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * Submits an asynchronous operation to the I/O executor of the connection. When all of its threads are busy and its
+	 * queue is full, the calling thread executes the operation instead.
+	 * @param operation The operation to execute.
+	 * @return The pending result of the operation.
+	 **/
+	private <V> BlackboardFuture<V> submit(Callable<V> operation) {
+		BlackboardFuture<V> future = new BlackboardFuture<V>(operation);
+		asyncExecutor.execute(future);
+		return future;
+	}
+	
 	/**
 	 * Utility function for parsing JSON that catches the runtime JSON exception and throws an InvalidJSONException instead.
 	 * @param jsonString The JSON string that needs to be parsed to a DBObject.
@@ -174,7 +405,12 @@ public class BlackboardClient {
 			throw new InvalidDBNamespaceException("Database name cannot be empty.");
 		}
 		currentCollection = null;
-		currentDatabase = mongo.getDB(database);
+		currentNamespace = null;
+		currentReadPreference = null;
+		currentDatabaseName = database;
+		if (backend == null) {
+			currentDatabase = mongo.getDB(database);
+		}
 	}
 	
 	/**
@@ -188,6 +424,10 @@ public class BlackboardClient {
 	 **/
 	public void setDatabase(String database, String user, String password) throws InvalidDBNamespaceException, DBAuthException, GeneralMongoException {
 		setDatabase(database);
+		if (backend != null) {
+			// Backends do not authenticate.
+			return;
+		}
 		try {
 			if (!currentDatabase.authenticate(user, password.toCharArray())) {
 				throw new DBAuthException("The provided username and password combination is incorrect.");
@@ -198,16 +438,43 @@ public class BlackboardClient {
 	}
 
 	/**
-	 * Sets the collection to use.
+	 * Sets the collection to use. The indexes declared for the collection in {@link BlackboardIndexes} are created if
+	 * they do not exist yet.
 	 *
 	 * @param collection The collection to load from MongoDB.
 	 * @throws InvalidDBNamespaceException No database has been selected.
 	 **/
 	public void setCollection(String collection) throws InvalidDBNamespaceException {
-		if (currentDatabase == null) {
+		if (currentDatabaseName == null) {
 			throw new InvalidDBNamespaceException("No database selected");
 		}
-		currentCollection = currentDatabase.getCollection(collection);
+		currentNamespace = currentDatabaseName + "." + collection;
+		currentReadPreference = readPreferences.get(collection);
+		if (backend == null) {
+			currentCollection = currentDatabase.getCollection(collection);
+			BlackboardIndexes.ensure(currentCollection);
+		}
+		metrics.setNamespace(currentNamespace);
+	}
+
+	/**
+	 * Sets the read preference for reads of this client from the collection with the given name, in any database.
+	 * Rarely written collections that are read by many agents can be read from secondaries this way, while
+	 * collections whose state must be current are read from the primary. Reads served by the document cache, and
+	 * the reads filling it, always use the primary. Writes and subscriptions are not affected.
+	 *
+	 * @param collection The name of the collection.
+	 * @param readPreference The read preference for the collection, or null to read from the primary.
+	 **/
+	public void setReadPreference(String collection, ReadPreference readPreference) {
+		if (readPreference == null) {
+			readPreferences.remove(collection);
+		} else {
+			readPreferences.put(collection, readPreference);
+		}
+		if (currentNamespace != null && currentNamespace.equals(currentDatabaseName + "." + collection)) {
+			currentReadPreference = readPreference;
+		}
 	}
 
 	/**
@@ -219,20 +486,95 @@ public class BlackboardClient {
 	 * @throws GeneralMongoException A MongoException occurred.
 	 **/
 	public ObjectId insertDocument(DBObject obj) throws InvalidDBNamespaceException, GeneralMongoException {
-		if (currentCollection == null) {
+		return insertDocument(obj, WriteProfile.ACKNOWLEDGED);
+	}
+	
+	/**
+	 * Inserts a document into the currently selected collection, using the write concern of the given profile.
+	 * 
+	 * @param obj DBObject representing the document to be inserted.
+	 * @param profile The write profile used for this insert, ignored by clients using a {@link BlackboardBackend}.
+	 * @return ObjectId of the inserted object.
+	 * @throws InvalidDBNamespaceException No collection has been selected.
+	 * @throws GeneralMongoException A MongoException occurred.
+	 **/
+	public ObjectId insertDocument(DBObject obj, WriteProfile profile) throws InvalidDBNamespaceException, GeneralMongoException {
+		if (currentNamespace == null) {
 			throw new InvalidDBNamespaceException("No collection has been selected.");
 		}
+		if (backend != null) {
+			backend.insert(currentNamespace, obj);
+			return ObjectId.massageToObjectId(obj.get("_id"));
+		}
+		return insertDocument(connection, currentCollection, getCache(), obj, profile);
+	}
+	
+	/**
+	 * Implementation of {@link #insertDocument(DBObject, WriteProfile)} for the given collection, shared with the
+	 * asynchronous variant.
+	 **/
+	private static ObjectId insertDocument(MongoDBConnection connection, DBCollection collection, DocumentCache cache, DBObject obj, WriteProfile profile) throws GeneralMongoException {
+		insertDocuments(connection, collection, cache, new DBObject[] { obj }, profile);
+		return ObjectId.massageToObjectId(obj.get("_id"));
+	}
+	
+	/**
+	 * Implementation of {@link #insertDocuments(WriteProfile, DBObject...)} for the given collection.
+	 **/
+	private static void insertDocuments(MongoDBConnection connection, DBCollection collection, DocumentCache cache, DBObject[] objs, WriteProfile profile) throws GeneralMongoException {
 		try {
-			currentCollection.insert(obj);
+			connection.acquireConnection(collection.getDB(), null);
+			collection.insert(objs, profile.getWriteConcern());
 		} catch (MongoException mongoException) {
 			throw new GeneralMongoException("An error occurred attempting to insert.", mongoException);
+		} finally {
+			connection.releaseConnection(collection.getDB());
 		}
-		return ObjectId.massageToObjectId(obj.get("_id"));
+		if (cache == null) {
+			return;
+		}
+		if (profile.isAcknowledged()) {
+			cache.inserted(objs);
+		} else {
+			for (DBObject obj : objs) {
+				cache.invalidate(new BasicDBObject("_id", obj.get("_id")));
+			}
+		}
+	}
+	
+	/**
+	 * Asynchronously inserts a document into the currently selected collection.
+	 *
+	 * @param obj DBObject representing the document to be inserted.
+	 * @return The pending result of the operation.
+	 * @throws InvalidDBNamespaceException No collection has been selected.
+	 **/
+	public BlackboardFuture<ObjectId> insertDocumentAsync(final DBObject obj) throws InvalidDBNamespaceException {
+		if (currentNamespace == null) {
+			throw new InvalidDBNamespaceException("No collection has been selected.");
+		}
+		if (backend != null) {
+			return submit(new Callable<ObjectId>() {
+				@Override
+				public ObjectId call() throws InvalidDBNamespaceException, GeneralMongoException {
+					return insertDocument(obj);
+				}
+			});
+		}
+		final DBCollection collection = currentCollection;
+		final DocumentCache cache = getCache();
+		return submit(new Callable<ObjectId>() {
+			@Override
+			public ObjectId call() throws GeneralMongoException {
+				return insertDocument(connection, collection, cache, obj, WriteProfile.ACKNOWLEDGED);
+			}
+		});
 	}
 	
 	/**
 	 * Inserts a document into the currently selected collection.
 	 * Does not wait for the server to perform write to disk, nor does it check for errors other than networks errors.
+	 * Equivalent to {@link #insertDocument(DBObject, WriteProfile)} with {@link WriteProfile#FIRE_AND_FORGET}.
 	 * 
 	 * @param obj DBObject representing the document to be inserted.
 	 * @return ObjectId of the inserted object.
@@ -240,18 +582,7 @@ public class BlackboardClient {
 	 * @throws GeneralMongoException A MongoException occurred.
 	 **/
 	public ObjectId insertDocumentUnsafe(DBObject obj) throws InvalidDBNamespaceException, GeneralMongoException {
-		if (currentCollection == null) {
-			throw new InvalidDBNamespaceException("No collection has been selected.");
-		}
-		try {
-			WriteConcern oldConcern = currentCollection.getWriteConcern();
-			currentCollection.setWriteConcern(WriteConcern.NORMAL);
-			currentCollection.insert(obj);
-			currentCollection.setWriteConcern(oldConcern);
-		} catch (MongoException mongoException) {
-			throw new GeneralMongoException("An error occurred attempting to insert.", mongoException);
-		}
-		return ObjectId.massageToObjectId(obj.get("_id"));
+		return insertDocument(obj, WriteProfile.FIRE_AND_FORGET);
 	}
 	
 	/**
@@ -262,36 +593,42 @@ public class BlackboardClient {
 	 * @throws GeneralMongoException A MongoException occurred.
 	 **/
 	public void insertDocuments(DBObject... objs) throws InvalidDBNamespaceException, GeneralMongoException {
-		if (currentCollection == null) {
+		insertDocuments(WriteProfile.ACKNOWLEDGED, objs);
+	}
+	
+	/**
+	 * Inserts a number of documents into the currently selected collection, using the write concern of the given
+	 * profile.
+	 * 
+	 * @param profile The write profile used for this insert, ignored by clients using a {@link BlackboardBackend}.
+	 * @param objs DBObjects that should be inserted into the database.
+	 * @throws InvalidDBNamespaceException No collection has been selected.
+	 * @throws GeneralMongoException A MongoException occurred.
+	 **/
+	public void insertDocuments(WriteProfile profile, DBObject... objs) throws InvalidDBNamespaceException, GeneralMongoException {
+		if (currentNamespace == null) {
 			throw new InvalidDBNamespaceException("No collection has been selected.");
 		}
-		try {
-			currentCollection.insert(objs);
-		} catch (MongoException mongoException) {
-			throw new GeneralMongoException("An error occurred attempting to insert.", mongoException);
+		if (backend != null) {
+			for (DBObject obj : objs) {
+				backend.insert(currentNamespace, obj);
+			}
+			return;
 		}
+		insertDocuments(connection, currentCollection, getCache(), objs, profile);
 	}
 	
 	/**
 	 * Inserts a number of documents into the currently selected collection.
 	 * Does not wait for the server to perform write to disk, nor does it check for errors other than networks errors.
+	 * Equivalent to {@link #insertDocuments(WriteProfile, DBObject...)} with {@link WriteProfile#FIRE_AND_FORGET}.
 	 *
 	 * @param objs DBObjects that should be inserted into the database.
 	 * @throws InvalidDBNamespaceException No collection has been selected.
 	 * @throws GeneralMongoException A MongoException occurred.
 	 **/
 	public void insertDocumentsUnsafe(DBObject... objs) throws InvalidDBNamespaceException, GeneralMongoException {
-		if (currentCollection == null) {
-			throw new InvalidDBNamespaceException("No collection has been selected.");
-		}
-		try {
-			WriteConcern oldConcern = currentCollection.getWriteConcern();
-			currentCollection.setWriteConcern(WriteConcern.NORMAL);
-			currentCollection.insert(objs);
-			currentCollection.setWriteConcern(oldConcern);
-		} catch (MongoException mongoException) {
-			throw new GeneralMongoException("An error occurred attempting to insert.", mongoException);
-		}
+		insertDocuments(WriteProfile.FIRE_AND_FORGET, objs);
 	}
 	
 	/**
@@ -317,40 +654,96 @@ public class BlackboardClient {
 	 * @throws GeneralMongoException A MongoException occurred.
 	 **/
 	public int removeDocuments(DBObject query) throws InvalidDBNamespaceException, GeneralMongoException {
-		if (currentCollection == null) {
+		return removeDocuments(query, WriteProfile.ACKNOWLEDGED);
+	}
+	
+	/**
+	 * Removes all documents matching the provided query from the currently selected collection, using the write
+	 * concern of the given profile.
+	 * 
+	 * @param query DBObject representing the query used for deleting documents.
+	 * @param profile The write profile used for this removal, ignored by clients using a {@link BlackboardBackend}.
+	 * @return The amount of records that have been removed, or {@link BulkWriteResult#UNKNOWN} if the profile is not
+	 * acknowledged.
+	 * @throws InvalidDBNamespaceException No collection has been selected.
+	 * @throws GeneralMongoException A MongoException occurred.
+	 **/
+	public int removeDocuments(DBObject query, WriteProfile profile) throws InvalidDBNamespaceException, GeneralMongoException {
+		if (currentNamespace == null) {
 			throw new InvalidDBNamespaceException("No collection has been selected.");
 		}
-		
+		if (backend != null) {
+			return backend.remove(currentNamespace, query);
+		}
+		return removeDocuments(connection, currentCollection, getCache(), query, profile);
+	}
+	
+	/**
+	 * Implementation of {@link #removeDocuments(DBObject, WriteProfile)} for the given collection, shared with the
+	 * asynchronous variant.
+	 **/
+	private static int removeDocuments(MongoDBConnection connection, DBCollection collection, DocumentCache cache, DBObject query, WriteProfile profile) throws GeneralMongoException {
 		try {
-			WriteResult res = currentCollection.remove(query);
+			connection.acquireConnection(collection.getDB(), null);
+			WriteResult res = collection.remove(query, profile.getWriteConcern());
+			if (!profile.isAcknowledged()) {
+				if (cache != null) {
+					cache.invalidate(query);
+				}
+				return BulkWriteResult.UNKNOWN;
+			}
+			if (cache != null) {
+				cache.removed(query);
+			}
 			return res.getN();
 		} catch (MongoException mongoException) {
 			throw new GeneralMongoException("An error occurred attempting to remove.", mongoException);
+		} finally {
+			connection.releaseConnection(collection.getDB());
 		}
 		
 	}
 	
+	/**
+	 * Asynchronously removes all documents matching the provided query from the currently selected collection.
+	 *
+	 * @param query DBObject representing the query used for deleting documents.
+	 * @return The pending result of the operation.
+	 * @throws InvalidDBNamespaceException No collection has been selected.
+	 **/
+	public BlackboardFuture<Integer> removeDocumentsAsync(final DBObject query) throws InvalidDBNamespaceException {
+		if (currentNamespace == null) {
+			throw new InvalidDBNamespaceException("No collection has been selected.");
+		}
+		if (backend != null) {
+			return submit(new Callable<Integer>() {
+				@Override
+				public Integer call() throws InvalidDBNamespaceException, GeneralMongoException {
+					return removeDocuments(query);
+				}
+			});
+		}
+		final DBCollection collection = currentCollection;
+		final DocumentCache cache = getCache();
+		return submit(new Callable<Integer>() {
+			@Override
+			public Integer call() throws GeneralMongoException {
+				return removeDocuments(connection, collection, cache, query, WriteProfile.ACKNOWLEDGED);
+			}
+		});
+	}
+	
 	/**
 	 * Removes all documents matching the provided query from the currently selected collection.
 	 * Does not wait for the server to perform write to disk, nor does it check for errors other than networks errors.
+	 * Equivalent to {@link #removeDocuments(DBObject, WriteProfile)} with {@link WriteProfile#FIRE_AND_FORGET}.
 	 *
 	 * @param query DBObject representing the query used for deleting documents.
 	 * @throws InvalidDBNamespaceException No collection has been selected.
 	 * @throws GeneralMongoException A MongoException occurred.
 	 **/
 	public void removeDocumentsUnsafe(DBObject query) throws InvalidDBNamespaceException, GeneralMongoException {
-		if (currentCollection == null) {
-			throw new InvalidDBNamespaceException("No collection has been selected.");
-		}
-		
-		try {
-			WriteConcern oldConcern = currentCollection.getWriteConcern();
-			currentCollection.setWriteConcern(WriteConcern.NORMAL);
-			currentCollection.remove(query);
-			currentCollection.setWriteConcern(oldConcern);
-		} catch (MongoException mongoException) {
-			throw new GeneralMongoException("An error occurred attempting to remove.", mongoException);
-		}
+		removeDocuments(query, WriteProfile.FIRE_AND_FORGET);
 	}
 	
 	/**
@@ -376,19 +769,82 @@ public class BlackboardClient {
 	 * @throws GeneralMongoException A MongoException occurred.
 	 **/
 	public DBObject findDocumentById(ObjectId objId) throws InvalidDBNamespaceException, GeneralMongoException {
-		if (currentCollection == null) {
+		if (currentNamespace == null) {
 			throw new InvalidDBNamespaceException("No collection has been selected.");
 		}
+		if (backend != null) {
+			List<DBObject> found = backend.find(currentNamespace, new BasicDBObject("_id", objId), null, null, 0, 1);
+			return found.isEmpty() ? null : found.get(0);
+		}
+		return findDocumentById(connection, currentCollection, getCache(), objId, currentReadPreference);
+	}
+	
+	/**
+	 * Implementation of {@link #findDocumentById(ObjectId)} for the given collection, shared with the asynchronous variant.
+	 * The read preference is only used when there is no cache.
+	 **/
+	private static DBObject findDocumentById(MongoDBConnection connection, DBCollection collection, DocumentCache cache, ObjectId objId,
+			ReadPreference readPreference) throws GeneralMongoException {
+		if (cache != null) {
+			DBObject cached = cache.get(objId);
+			if (cached != null) {
+				return cached;
+			}
+		}
 		
 		try {
-			DBObject found = currentCollection.findOne(QueryBuilder.start("_id").is(objId).get());
+			long generation = cache == null ? 0 : cache.getGeneration();
+			DBObject query = QueryBuilder.start("_id").is(objId).get();
+			DBObject found;
+			if (cache == null && readPreference != null) {
+				connection.acquireConnection(collection.getDB(), readPreference);
+				found = collection.findOne(query, null, readPreference);
+			} else {
+				connection.acquireConnection(collection.getDB(), null);
+				found = collection.findOne(query);
+			}
+			if (cache != null && found != null) {
+				cache.load(found, generation);
+			}
 			return found;
 		} catch (MongoException mongoException){
 			throw new GeneralMongoException("An error occurred attempting to remove.", mongoException);
+		} finally {
+			connection.releaseConnection(collection.getDB());
 		}
 		
 	}
 	
+	/**
+	 * Asynchronously retrieves the document corresponding to the given ObjectId.
+	 *
+	 * @param objId ObjectId of the requested object.
+	 * @return The pending result of the operation.
+	 * @throws InvalidDBNamespaceException No collection has been selected.
+	 **/
+	public BlackboardFuture<DBObject> findDocumentByIdAsync(final ObjectId objId) throws InvalidDBNamespaceException {
+		if (currentNamespace == null) {
+			throw new InvalidDBNamespaceException("No collection has been selected.");
+		}
+		if (backend != null) {
+			return submit(new Callable<DBObject>() {
+				@Override
+				public DBObject call() throws InvalidDBNamespaceException, GeneralMongoException {
+					return findDocumentById(objId);
+				}
+			});
+		}
+		final DBCollection collection = currentCollection;
+		final DocumentCache cache = getCache();
+		final ReadPreference readPreference = currentReadPreference;
+		return submit(new Callable<DBObject>() {
+			@Override
+			public DBObject call() throws GeneralMongoException {
+				return findDocumentById(connection, collection, cache, objId, readPreference);
+			}
+		});
+	}
+	
 	/**
 	 * Retrieves all documents matching the provided query from the currently selected collection.
 	 *
@@ -398,16 +854,82 @@ public class BlackboardClient {
 	 * @throws GeneralMongoException A MongoException occurred.
 	 **/
 	public List<DBObject> findDocuments(DBObject query) throws InvalidDBNamespaceException, GeneralMongoException {
-		if (currentCollection == null) {
+		if (currentNamespace == null) {
 			throw new InvalidDBNamespaceException("No collection has been selected.");
 		}
-		
+		if (backend != null) {
+			return backend.find(currentNamespace, query, null, null, 0, 0);
+		}
+		return findDocuments(connection, currentCollection, query, currentReadPreference);
+	}
+	
+	/**
+	 * Implementation of {@link #findDocuments(DBObject)} for the given collection, shared with the asynchronous variant.
+	 * Queries are always sent to the server, the cache only serves lookups by _id.
+	 **/
+	private static List<DBObject> findDocuments(MongoDBConnection connection, DBCollection collection, DBObject query,
+			ReadPreference readPreference) throws GeneralMongoException {
 		try {
-			List<DBObject> found = currentCollection.find(query).toArray();
+			connection.acquireConnection(collection.getDB(), readPreference);
+			DBCursor cursor = collection.find(query);
+			if (readPreference != null) {
+				cursor.setReadPreference(readPreference);
+			}
+			BlackboardIndexes.checkForCollectionScan(collection, cursor, query, null);
+			List<DBObject> found = cursor.toArray();
 			return found;
 		} catch (MongoException mongoException) {
 			throw new GeneralMongoException("An error occurred attempting to execute find query.", mongoException);
+		} finally {
+			connection.releaseConnection(collection.getDB());
+		}
+	}
+	
+	/**
+	 * Asynchronously retrieves all documents matching the provided query from the currently selected collection.
+	 *
+	 * @param query DBObject representing the query.
+	 * @return The pending result of the operation.
+	 * @throws InvalidDBNamespaceException No collection has been selected.
+	 **/
+	public BlackboardFuture<List<DBObject>> findDocumentsAsync(final DBObject query) throws InvalidDBNamespaceException {
+		if (currentNamespace == null) {
+			throw new InvalidDBNamespaceException("No collection has been selected.");
+		}
+		if (backend != null) {
+			return submit(new Callable<List<DBObject>>() {
+				@Override
+				public List<DBObject> call() throws InvalidDBNamespaceException, GeneralMongoException {
+					return findDocuments(query);
+				}
+			});
+		}
+		final DBCollection collection = currentCollection;
+		final ReadPreference readPreference = currentReadPreference;
+		return submit(new Callable<List<DBObject>>() {
+			@Override
+			public List<DBObject> call() throws GeneralMongoException {
+				return findDocuments(connection, collection, query, readPreference);
+			}
+		});
+	}
+	
+	/**
+	 * Starts a query on the currently selected collection. Projection, sort order, skip, limit and index hint can be
+	 * set on the returned builder before executing it.
+	 *
+	 * @param query DBObject representing the query.
+	 * @return A query builder for the currently selected collection.
+	 * @throws InvalidDBNamespaceException No collection has been selected.
+	 **/
+	public BlackboardQuery query(DBObject query) throws InvalidDBNamespaceException {
+		if (currentNamespace == null) {
+			throw new InvalidDBNamespaceException("No collection has been selected.");
 		}
+		if (backend != null) {
+			return new BlackboardQuery(backend, currentNamespace, query);
+		}
+		return new BlackboardQuery(connection, currentCollection, query).readPreference(currentReadPreference);
 	}
 	
 	/**
@@ -435,14 +957,23 @@ public class BlackboardClient {
 	 * @throws GeneralMongoException A MongoException occurred.
 	 **/
 	public Object[] findDistinctValues(String distinctField, DBObject query) throws InvalidDBNamespaceException, GeneralMongoException {
-		if (currentCollection == null) {
+		if (currentNamespace == null) {
 			throw new InvalidDBNamespaceException("No collection has been selected.");
 		}
 		
+		if (backend != null) {
+			return backend.distinct(currentNamespace, distinctField, query).toArray();
+		}
 		try {
+			connection.acquireConnection(currentCollection.getDB(), currentReadPreference);
+			if (currentReadPreference != null) {
+				return currentCollection.distinct(distinctField, query, currentReadPreference).toArray();
+			}
 			return currentCollection.distinct(distinctField, query).toArray(); 
 		} catch (MongoException mongoException) {
 			throw new GeneralMongoException("An error occurred attempting to execute distinct query.", mongoException);
+		} finally {
+			connection.releaseConnection(currentCollection.getDB());
 		}
 	}
 	
@@ -472,42 +1003,100 @@ public class BlackboardClient {
 	 * @throws GeneralMongoException A MongoException occurred.
 	 **/
 	public int updateDocuments(DBObject searchQuery, DBObject updateQuery) throws InvalidDBNamespaceException, GeneralMongoException {
-		if (currentCollection == null) {
+		return updateDocuments(searchQuery, updateQuery, WriteProfile.ACKNOWLEDGED);
+	}
+	
+	/**
+	 * Updates all documents matching the provided search query within the currently selected collection, using the
+	 * write concern of the given profile.
+	 * Documents are updated according to the query specified in updateQuery.
+	 * 
+	 * @param searchQuery The query that should be used to select the target documents.
+	 * @param updateQuery The query that should be used to update the target documents.
+	 * @param profile The write profile used for this update, ignored by clients using a {@link BlackboardBackend}.
+	 * @return The amount of documents that have been updated, or {@link BulkWriteResult#UNKNOWN} if the profile is not
+	 * acknowledged.
+	 * @throws InvalidDBNamespaceException No collection has been selected.
+	 * @throws GeneralMongoException A MongoException occurred.
+	 **/
+	public int updateDocuments(DBObject searchQuery, DBObject updateQuery, WriteProfile profile) throws InvalidDBNamespaceException, GeneralMongoException {
+		if (currentNamespace == null) {
 			throw new InvalidDBNamespaceException("No collection has been selected.");
 		}
-		
+		if (backend != null) {
+			return backend.update(currentNamespace, searchQuery, updateQuery);
+		}
+		return updateDocuments(connection, currentCollection, getCache(), searchQuery, updateQuery, profile);
+	}
+	
+	/**
+	 * Implementation of {@link #updateDocuments(DBObject, DBObject, WriteProfile)} for the given collection, shared with
+	 * the asynchronous variant.
+	 **/
+	private static int updateDocuments(MongoDBConnection connection, DBCollection collection, DocumentCache cache, DBObject searchQuery, DBObject updateQuery, WriteProfile profile) throws GeneralMongoException {
 		try {
-			WriteResult res = currentCollection.updateMulti(searchQuery, updateQuery);
+			connection.acquireConnection(collection.getDB(), null);
+			WriteResult res = collection.update(searchQuery, updateQuery, false, true, profile.getWriteConcern());
+			if (!profile.isAcknowledged()) {
+				if (cache != null) {
+					cache.invalidate(searchQuery);
+				}
+				return BulkWriteResult.UNKNOWN;
+			}
+			if (cache != null) {
+				cache.updated(searchQuery, updateQuery);
+			}
 			return res.getN();
 		} catch (MongoException mongoException) {
 			throw new GeneralMongoException("An error occurred attempting to update.", mongoException);
+		} finally {
+			connection.releaseConnection(collection.getDB());
 		}
 	}
 	
+	/**
+	 * Asynchronously updates all documents matching the provided search query within the currently selected collection.
+	 *
+	 * @param searchQuery The query that should be used to select the target documents.
+	 * @param updateQuery The query that should be used to update the target documents.
+	 * @return The pending result of the operation.
+	 * @throws InvalidDBNamespaceException No collection has been selected.
+	 **/
+	public BlackboardFuture<Integer> updateDocumentsAsync(final DBObject searchQuery, final DBObject updateQuery) throws InvalidDBNamespaceException {
+		if (currentNamespace == null) {
+			throw new InvalidDBNamespaceException("No collection has been selected.");
+		}
+		if (backend != null) {
+			return submit(new Callable<Integer>() {
+				@Override
+				public Integer call() throws InvalidDBNamespaceException, GeneralMongoException {
+					return updateDocuments(searchQuery, updateQuery);
+				}
+			});
+		}
+		final DBCollection collection = currentCollection;
+		final DocumentCache cache = getCache();
+		return submit(new Callable<Integer>() {
+			@Override
+			public Integer call() throws GeneralMongoException {
+				return updateDocuments(connection, collection, cache, searchQuery, updateQuery, WriteProfile.ACKNOWLEDGED);
+			}
+		});
+	}
+	
 	/**
 	 * Updates all documents matching the provided search query within the currently selected collection.
 	 * Documents are updated according to the query specified in updateQuery.
 	 * Does not wait for the server to perform write to disk, nor does it check for errors other than networks errors.
+	 * Equivalent to {@link #updateDocuments(DBObject, DBObject, WriteProfile)} with {@link WriteProfile#FIRE_AND_FORGET}.
 	 * 
 	 * @param searchQuery The query that should be used to select the target documents.
 	 * @param updateQuery The query that should be used to update the target documents.
-	 * @return The amount of documents that have been updated.
 	 * @throws InvalidDBNamespaceException No collection has been selected.
 	 * @throws GeneralMongoException A MongoException occurred.
 	 **/
 	public void updateDocumentsUnsafe(DBObject searchQuery, DBObject updateQuery) throws InvalidDBNamespaceException, GeneralMongoException {
-		if (currentCollection == null) {
-			throw new InvalidDBNamespaceException("No collection has been selected.");
-		}
-		
-		try {
-			WriteConcern oldConcern = currentCollection.getWriteConcern();
-			currentCollection.setWriteConcern(WriteConcern.NORMAL);
-			currentCollection.updateMulti(searchQuery, updateQuery);
-			currentCollection.setWriteConcern(oldConcern);
-		} catch (MongoException mongoException) {
-			throw new GeneralMongoException("An error occurred attempting to update.", mongoException);
-		}
+		updateDocuments(searchQuery, updateQuery, WriteProfile.FIRE_AND_FORGET);
 	}
 	
 	/**
@@ -528,6 +1117,23 @@ public class BlackboardClient {
 		return updateDocuments(searchQuery, updateQuery);
 	}
 	
+	/**
+	 * Starts a batch of writes on the currently selected collection. The operations are queued on the returned builder
+	 * and sent together when {@link BulkWrite#execute()} is called.
+	 * 
+	 * @return An empty batch for the currently selected collection.
+	 * @throws InvalidDBNamespaceException No collection has been selected.
+	 **/
+	public BulkWrite bulk() throws InvalidDBNamespaceException {
+		if (currentNamespace == null) {
+			throw new InvalidDBNamespaceException("No collection has been selected.");
+		}
+		if (backend != null) {
+			return new BulkWrite(backend, currentNamespace);
+		}
+		return new BulkWrite(connection, currentCollection, getCache());
+	}
+	
 	/**
 	 * Subscribes to the specified CRUD operation in the current database and collection.
 	 * 
@@ -536,18 +1142,28 @@ public class BlackboardClient {
 	 * @return true if subscription was successful. false otherwise.
 	 **/
 	public boolean subscribe(BlackboardSubscription sub) throws InvalidDBNamespaceException {
-		if (currentCollection == null) {
+		if (currentNamespace == null) {
 			throw new InvalidDBNamespaceException("No collection selected");
 		}
-		subscriptions.add(sub);
+		if (backend != null) {
+			// The backend notifies the subscriber itself, the registration only keeps track of the subscription.
+			OplogMultiplexer.Registration registration = new OplogMultiplexer.Registration(currentNamespace, sub, null);
+			backend.subscribe(currentNamespace, sub);
+			registrations.add(registration);
+			metrics.register();
+			return true;
+		}
 		
-		// Attempt to create a new thread for the current subscriptions.
-		boolean creationSuccessfull = createNewMonitorThread();
-		if (!creationSuccessfull) {
-			subscriptions.remove(sub);
+		OplogMultiplexer.Registration registration =
+				new OplogMultiplexer.Registration(currentNamespace, sub, getCallbackDispatcher());
+		boolean registrationSuccessfull = oplogMultiplexer.register(registration);
+		if (registrationSuccessfull) {
+			registrations.add(registration);
+			// Only clients with subscriptions are registered in JMX, so short-lived query clients are not kept alive.
+			metrics.register();
 		}
 		
-		return creationSuccessfull;
+		return registrationSuccessfull;
 	}
 	
 	/**
@@ -556,74 +1172,59 @@ public class BlackboardClient {
 	 * @param sub Subscription that should be removed.
 	 **/
 	public void unsubscribe(BlackboardSubscription sub) {
-		// Only create a new thread if a subscription was actually removed.
-		if (subscriptions.remove(sub)) {
-			if (subscriptions.size() > 0) {
-				createNewMonitorThread();
-			} else if (oplogMonitorThread != null) {
-				oplogMonitorThread.interrupt();
+		for (OplogMultiplexer.Registration registration : registrations) {
+			if (registration.getSubscription().equals(sub)) {
+				registrations.remove(registration);
+				unregister(registration);
+				if (registrations.isEmpty()) {
+					metrics.unregister();
+				}
+				return;
 			}
 		}
 	}
 	
 	/**
-	 * Closes and cleans up any open resources for this client.
-	 * Should be called before disposing of the BlackboardClient object.
+	 * Returns the registrations through which the subscriptions made on this client receive oplog entries.
+	 * @return A copy of the registrations of the subscriptions made on this client, or an empty array if the client
+	 * uses a backend, which notifies the subscribers itself.
 	 **/
-	public void close() {
-		
-		// Stop the monitor thread.
-		if (oplogMonitorThread != null) {
-			oplogMonitorThread.interrupt();
+	OplogMultiplexer.Registration[] getRegistrations() {
+		if (backend != null) {
+			return new OplogMultiplexer.Registration[0];
 		}
+		return registrations.toArray(new OplogMultiplexer.Registration[registrations.size()]);
 	}
-
+	
 	/**
-	 * Attempts to create and start a new monitor thread.
-	 * If creation of a new thread fails, the old thread will be kept alive.
-	 * @return true if the new thread was created successfully, false otherwise.
+	 * Removes a subscription from the oplog monitor or the backend.
+	 * @param registration The registration of the subscription.
 	 **/
-	private boolean createNewMonitorThread() {
-		OplogMonitorThread newThread = null;
-		
-		// Create a query that will select all documents matching one of the queries of the subscribers within the
-		// selected database/collection combination.
-		DBObject[] subs = new DBObject[subscriptions.size()];
-		for (int i = 0 ; i < subscriptions.size() ; ++i) {
-			subs[i] = subscriptions.get(i).getQuery();
+	private void unregister(OplogMultiplexer.Registration registration) {
+		if (backend != null) {
+			backend.unsubscribe(registration.getNamespace(), registration.getSubscription());
+		} else {
+			oplogMultiplexer.unregister(registration);
 		}
-		
-		DBObject query = 
-				// If namespace is current database and collection.
-				QueryBuilder.start("ns").is(currentDatabase.getName() + "." + currentCollection.getName())
-				// And it matches one of the subscriptions
-				.and(QueryBuilder.start().or(subs).get()).get();
-
-		try {
-			if (oplogUser != null) {
-				newThread = new OplogMonitorThread(
-						mongo,
-						OPLOG_DATABASE_NAME,
-						OPLOG_COLLECTION_NAME,
-						oplogUser,
-						oplogPassword,
-						query);
-			} else {
-				newThread = new OplogMonitorThread(mongo, OPLOG_DATABASE_NAME, OPLOG_COLLECTION_NAME, query);
-			}
-		} catch (MongoException ex) {
-			// This can happen when the database has not been configured properly and the Oplog collection does not exist.
-			// Creating a tailed cursor on a non-existing collection throws a MongoException.
-			return false;
+	}
+	
+	/**
+	 * Closes and cleans up any open resources for this client.
+	 * Should be called before disposing of the BlackboardClient object.
+	 **/
+	public void close() {
+		// Remove the subscriptions from the shared oplog monitor.
+		for (OplogMultiplexer.Registration registration : registrations) {
+			unregister(registration);
 		}
-		
-		if (oplogMonitorThread != null) {
-			oplogMonitorThread.interrupt();
+		registrations.clear();
+		for (OplogMultiplexer.CacheRegistration registration : caches.values()) {
+			oplogMultiplexer.unregister(registration);
 		}
-		oplogMonitorThread = newThread;
-		oplogMonitorThread.setSubscriptions(subscriptions);
-		oplogMonitorThread.start();
-		
-		return true;
+		caches.clear();
+		if (callbackDispatcher != null) {
+			callbackDispatcher.shutdown();
+		}
+		metrics.unregister();
 	}
-}
\ No newline at end of file
+}
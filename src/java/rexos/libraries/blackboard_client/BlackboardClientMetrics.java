@@ -0,0 +1,516 @@
+/**
+ * @file rexos/libraries/blackboard_client/BlackboardClientMetrics.java
+ * @brief Oplog lag and callback dispatch metrics of a BlackboardClient, available through JMX and getters.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Metrics of the path an oplog entry takes through a {@link BlackboardClient}: the lag between the write and the oplog
+ * monitor reading it, the depth of the callback queue, the time callbacks wait in that queue and the time subscribers
+ * spend handling them. Together they show whether a slow reaction is caused by Mongo and the tailed cursor (receive
+ * lag), by a saturated dispatcher (queue depth and wait) or by the subscriber itself (execution time).
+ * 
+ * The metrics are available through the getters of this class and, while the client has at least one subscription,
+ * through JMX, under the domain {@value #JMX_DOMAIN} with type BlackboardClient. Every subscriber that received a callback gets a
+ * {@link SubscriberMetrics} bean of type BlackboardSubscriber next to it.
+ **/
+public class BlackboardClientMetrics implements BlackboardClientMetricsMBean {
+	/**
+	 * @var String JMX_DOMAIN
+	 * The domain the metric beans are registered in.
+	 **/
+	public static final String JMX_DOMAIN = "rexos.libraries.blackboard_client";
+	
+	/**
+	 * @var long RATE_INTERVAL
+	 * The length in milliseconds of the window over which the entry rate is measured.
+	 **/
+	private static final long RATE_INTERVAL = 1000;
+	
+	/**
+	 * @var AtomicInteger clientCount
+	 * Counter used for naming the client beans.
+	 **/
+	private static final AtomicInteger clientCount = new AtomicInteger();
+	
+	/**
+	 * @var String name
+	 * The name of the client in JMX.
+	 **/
+	private final String name;
+	
+	/**
+	 * @var String namespace
+	 * The namespace currently selected by the client.
+	 **/
+	private volatile String namespace;
+	
+	/**
+	 * @var OplogCallbackDispatcher dispatcher
+	 * The dispatcher currently used by the client.
+	 **/
+	private volatile OplogCallbackDispatcher dispatcher;
+	
+	/**
+	 * @var LatencyHistogram receiveLag
+	 * Time in milliseconds between a write and the oplog monitor reading it.
+	 **/
+	private final LatencyHistogram receiveLag;
+	
+	/**
+	 * @var LatencyHistogram queueDepth
+	 * The amount of queued callbacks every time a callback is added.
+	 **/
+	private final LatencyHistogram queueDepth;
+	
+	/**
+	 * @var LatencyHistogram queueWait
+	 * Time in microseconds callbacks waited in the queue, over all subscribers.
+	 **/
+	private final LatencyHistogram queueWait;
+	
+	/**
+	 * @var LatencyHistogram executionTime
+	 * Time in microseconds subscribers spent handling callbacks.
+	 **/
+	private final LatencyHistogram executionTime;
+	
+	/**
+	 * @var AtomicLong entryCount
+	 * The amount of entries handed to the dispatcher.
+	 **/
+	private final AtomicLong entryCount;
+	
+	/**
+	 * @var long rateWindowStart
+	 * The time in milliseconds at which the current rate window started.
+	 **/
+	private long rateWindowStart;
+	
+	/**
+	 * @var long rateWindowCount
+	 * The amount of entries in the current rate window.
+	 **/
+	private long rateWindowCount;
+	
+	/**
+	 * @var double entriesPerSecond
+	 * The entry rate measured over the last completed window.
+	 **/
+	private double entriesPerSecond;
+	
+	/**
+	 * @var ConcurrentHashMap<BlackboardSubscriber, SubscriberMetrics> subscribers
+	 * The metrics of every subscriber that received a callback.
+	 **/
+	private final ConcurrentHashMap<BlackboardSubscriber, SubscriberMetrics> subscribers;
+	
+	/**
+	 * @var boolean registered
+	 * Whether or not the beans are registered with the platform MBean server.
+	 **/
+	private volatile boolean registered;
+	
+	/**
+	 * Constructs empty metrics for a new client.
+	 **/
+	BlackboardClientMetrics() {
+		this.name = "client-" + clientCount.incrementAndGet();
+		this.receiveLag = new LatencyHistogram();
+		this.queueDepth = new LatencyHistogram();
+		this.queueWait = new LatencyHistogram();
+		this.executionTime = new LatencyHistogram();
+		this.entryCount = new AtomicLong();
+		this.subscribers = new ConcurrentHashMap<BlackboardSubscriber, SubscriberMetrics>();
+		this.rateWindowStart = System.currentTimeMillis();
+	}
+	
+	/**
+	 * Returns the name under which the client is registered in JMX.
+	 * @return The name of the client.
+	 **/
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Sets the namespace currently selected by the client.
+	 * @param namespace The selected namespace.
+	 **/
+	void setNamespace(String namespace) {
+		this.namespace = namespace;
+	}
+	
+	/**
+	 * Sets the dispatcher currently used by the client.
+	 * @param dispatcher The dispatcher of the client.
+	 **/
+	void setDispatcher(OplogCallbackDispatcher dispatcher) {
+		this.dispatcher = dispatcher;
+	}
+	
+	/**
+	 * Records an entry handed to the dispatcher.
+	 * @param entry The entry.
+	 * @param depth The amount of callbacks queued at that moment.
+	 **/
+	void entryQueued(OplogEntry entry, int depth) {
+		receiveLag.record(entry.getReceiveLag());
+		queueDepth.record(depth);
+		entryCount.incrementAndGet();
+		
+		long now = System.currentTimeMillis();
+		synchronized (this) {
+			long elapsed = now - rateWindowStart;
+			if (elapsed >= RATE_INTERVAL) {
+				entriesPerSecond = rateWindowCount * 1000.0 / elapsed;
+				rateWindowStart = now;
+				rateWindowCount = 0;
+			}
+			++rateWindowCount;
+		}
+	}
+	
+	/**
+	 * Records a callback delivered to a subscriber.
+	 * @param subscriber The subscriber that handled the callback.
+	 * @param waitNanos Time in nanoseconds the callback waited in the queue.
+	 * @param executionNanos Time in nanoseconds the subscriber spent handling the callback.
+	 * @param failed Whether or not the subscriber threw an exception.
+	 **/
+	void callbackDelivered(BlackboardSubscriber subscriber, long waitNanos, long executionNanos, boolean failed) {
+		queueWait.record(waitNanos / 1000);
+		executionTime.record(executionNanos / 1000);
+		
+		SubscriberMetrics metrics = subscribers.get(subscriber);
+		if (metrics == null) {
+			metrics = new SubscriberMetrics(subscriber);
+			SubscriberMetrics existing = subscribers.putIfAbsent(subscriber, metrics);
+			if (existing != null) {
+				metrics = existing;
+			} else if (registered) {
+				registerBean(metrics, getSubscriberObjectName(metrics));
+			}
+		}
+		metrics.record(waitNanos, executionNanos, failed);
+	}
+	
+	/**
+	 * Returns the metrics of the given subscriber.
+	 * @param subscriber The subscriber.
+	 * @return The metrics of the subscriber, or null if it has not received any callbacks yet.
+	 **/
+	public SubscriberMetrics getSubscriberMetrics(BlackboardSubscriber subscriber) {
+		return subscribers.get(subscriber);
+	}
+	
+	/**
+	 * Returns the metrics of all subscribers that received a callback.
+	 * @return A list containing the metrics of every subscriber.
+	 **/
+	public List<SubscriberMetrics> getAllSubscriberMetrics() {
+		return new ArrayList<SubscriberMetrics>(subscribers.values());
+	}
+	
+	/**
+	 * Returns the histogram of the time in milliseconds between a write and the oplog monitor reading it.
+	 * @return The receive lag histogram.
+	 **/
+	public LatencyHistogram getReceiveLagHistogram() {
+		return receiveLag;
+	}
+	
+	/**
+	 * Returns the histogram of the amount of queued callbacks, sampled every time a callback is added.
+	 * @return The queue depth histogram.
+	 **/
+	public LatencyHistogram getQueueDepthHistogram() {
+		return queueDepth;
+	}
+	
+	/**
+	 * Returns the histogram of the time in microseconds callbacks waited in the queue, over all subscribers.
+	 * @return The queue wait histogram.
+	 **/
+	public LatencyHistogram getQueueWaitHistogram() {
+		return queueWait;
+	}
+	
+	/**
+	 * Returns the histogram of the time in microseconds subscribers spent handling callbacks.
+	 * @return The execution time histogram.
+	 **/
+	public LatencyHistogram getExecutionTimeHistogram() {
+		return executionTime;
+	}
+	
+	/**
+	 * Registers the beans of the client and its subscribers with the platform MBean server, unless they are registered
+	 * already. Failures are logged, they do not affect the client.
+	 **/
+	synchronized void register() {
+		if (registered) {
+			return;
+		}
+		registered = true;
+		registerBean(this, getObjectName());
+		for (SubscriberMetrics metrics : subscribers.values()) {
+			registerBean(metrics, getSubscriberObjectName(metrics));
+		}
+	}
+	
+	/**
+	 * Removes the beans of the client and its subscribers from the platform MBean server.
+	 **/
+	synchronized void unregister() {
+		if (!registered) {
+			return;
+		}
+		registered = false;
+		unregisterBean(getObjectName());
+		for (SubscriberMetrics metrics : subscribers.values()) {
+			unregisterBean(getSubscriberObjectName(metrics));
+		}
+	}
+	
+	/**
+	 * Returns the JMX name of this client.
+	 * @return The name of the client bean.
+	 **/
+	private String getObjectName() {
+		return JMX_DOMAIN + ":type=BlackboardClient,name=" + name;
+	}
+	
+	/**
+	 * Returns the JMX name of the given subscriber metrics.
+	 * @param metrics The metrics of a subscriber of this client.
+	 * @return The name of the subscriber bean.
+	 **/
+	private String getSubscriberObjectName(SubscriberMetrics metrics) {
+		return JMX_DOMAIN + ":type=BlackboardSubscriber,client=" + name + ",name=" + ObjectName.quote(metrics.getSubscriber());
+	}
+	
+	/**
+	 * Registers a bean with the platform MBean server.
+	 * @param bean The bean to register.
+	 * @param objectName The name of the bean.
+	 **/
+	static void registerBean(Object bean, String objectName) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName beanName = new ObjectName(objectName);
+			if (!server.isRegistered(beanName)) {
+				server.registerMBean(bean, beanName);
+			}
+		} catch (JMException ex) {
+			rexos.libraries.log.Logger.log("Registering %s failed:\n%s\n", objectName, ex.getMessage());
+		}
+	}
+	
+	/**
+	 * Removes a bean from the platform MBean server.
+	 * @param objectName The name of the bean.
+	 **/
+	static void unregisterBean(String objectName) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName beanName = new ObjectName(objectName);
+			if (server.isRegistered(beanName)) {
+				server.unregisterMBean(beanName);
+			}
+		} catch (JMException ex) {
+			rexos.libraries.log.Logger.log("Unregistering %s failed:\n%s\n", objectName, ex.getMessage());
+		}
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardClientMetricsMBean#getNamespace()
+	 **/
+	@Override
+	public String getNamespace() {
+		return namespace;
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardClientMetricsMBean#getEntryCount()
+	 **/
+	@Override
+	public long getEntryCount() {
+		return entryCount.get();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardClientMetricsMBean#getEntriesPerSecond()
+	 **/
+	@Override
+	public synchronized double getEntriesPerSecond() {
+		long elapsed = System.currentTimeMillis() - rateWindowStart;
+		if (elapsed >= RATE_INTERVAL) {
+			// No entries arrived since the window ended, so report the rate over the window so far.
+			return rateWindowCount * 1000.0 / elapsed;
+		}
+		return entriesPerSecond;
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardClientMetricsMBean#getQueueDepth()
+	 **/
+	@Override
+	public int getQueueDepth() {
+		OplogCallbackDispatcher currentDispatcher = dispatcher;
+		return currentDispatcher == null ? 0 : currentDispatcher.getQueueSize();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardClientMetricsMBean#getQueueDepthMax()
+	 **/
+	@Override
+	public long getQueueDepthMax() {
+		return queueDepth.getMax();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardClientMetricsMBean#getQueueDepth99thPercentile()
+	 **/
+	@Override
+	public long getQueueDepth99thPercentile() {
+		return queueDepth.getPercentile(99);
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardClientMetricsMBean#getDroppedCallbackCount()
+	 **/
+	@Override
+	public long getDroppedCallbackCount() {
+		OplogCallbackDispatcher currentDispatcher = dispatcher;
+		return currentDispatcher == null ? 0 : currentDispatcher.getDroppedCallbackCount();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardClientMetricsMBean#getCoalescedCallbackCount()
+	 **/
+	@Override
+	public long getCoalescedCallbackCount() {
+		OplogCallbackDispatcher currentDispatcher = dispatcher;
+		return currentDispatcher == null ? 0 : currentDispatcher.getCoalescedCallbackCount();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardClientMetricsMBean#getReceiveLagMeanMillis()
+	 **/
+	@Override
+	public double getReceiveLagMeanMillis() {
+		return receiveLag.getMean();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardClientMetricsMBean#getReceiveLag99thPercentileMillis()
+	 **/
+	@Override
+	public long getReceiveLag99thPercentileMillis() {
+		return receiveLag.getPercentile(99);
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardClientMetricsMBean#getReceiveLagMaxMillis()
+	 **/
+	@Override
+	public long getReceiveLagMaxMillis() {
+		return receiveLag.getMax();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardClientMetricsMBean#getQueueWaitMeanMicros()
+	 **/
+	@Override
+	public double getQueueWaitMeanMicros() {
+		return queueWait.getMean();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardClientMetricsMBean#getQueueWait99thPercentileMicros()
+	 **/
+	@Override
+	public long getQueueWait99thPercentileMicros() {
+		return queueWait.getPercentile(99);
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardClientMetricsMBean#getQueueWaitMaxMicros()
+	 **/
+	@Override
+	public long getQueueWaitMaxMicros() {
+		return queueWait.getMax();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardClientMetricsMBean#getExecutionTimeMeanMicros()
+	 **/
+	@Override
+	public double getExecutionTimeMeanMicros() {
+		return executionTime.getMean();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardClientMetricsMBean#getExecutionTime99thPercentileMicros()
+	 **/
+	@Override
+	public long getExecutionTime99thPercentileMicros() {
+		return executionTime.getPercentile(99);
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardClientMetricsMBean#getExecutionTimeMaxMicros()
+	 **/
+	@Override
+	public long getExecutionTimeMaxMicros() {
+		return executionTime.getMax();
+	}
+	
+	/**
+	 * Returns a summary of the metrics of the client.
+	 * @return A string describing the client metrics.
+	 **/
+	@Override
+	public String toString() {
+		return String.format("%s (%s): entries=%d rate=%.1f/s depth=%d lag[%s] queueWait[%s] execution[%s]",
+				name, namespace, getEntryCount(), getEntriesPerSecond(), getQueueDepth(),
+				receiveLag, queueWait, executionTime);
+	}
+}
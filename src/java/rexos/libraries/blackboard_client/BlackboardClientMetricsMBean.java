@@ -0,0 +1,138 @@
+/**
+ * @file rexos/libraries/blackboard_client/BlackboardClientMetricsMBean.java
+ * @brief JMX interface exposing the oplog and dispatch metrics of a BlackboardClient.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+/**
+ * Management interface of {@link BlackboardClientMetrics}.
+ * Receive lag is in milliseconds, queue wait and execution times are in microseconds.
+ **/
+public interface BlackboardClientMetricsMBean {
+	/**
+	 * Returns the namespace (database.collection) currently selected by the client.
+	 * @return The selected namespace, or null if no collection has been selected.
+	 **/
+	public String getNamespace();
+	
+	/**
+	 * Returns the amount of oplog entries handed to the dispatcher of the client, one per matching subscription.
+	 * @return The amount of entries.
+	 **/
+	public long getEntryCount();
+	
+	/**
+	 * Returns the rate at which entries were handed to the dispatcher during the last second.
+	 * @return The amount of entries per second.
+	 **/
+	public double getEntriesPerSecond();
+	
+	/**
+	 * Returns the amount of callbacks currently waiting for a worker.
+	 * @return The current queue depth.
+	 **/
+	public int getQueueDepth();
+	
+	/**
+	 * Returns the largest queue depth seen when a callback was added.
+	 * @return The largest queue depth.
+	 **/
+	public long getQueueDepthMax();
+	
+	/**
+	 * Returns the approximate 99th percentile of the queue depth seen when a callback was added.
+	 * @return The 99th percentile of the queue depth.
+	 **/
+	public long getQueueDepth99thPercentile();
+	
+	/**
+	 * Returns the amount of callbacks discarded because the queue was full.
+	 * @return The amount of dropped callbacks.
+	 **/
+	public long getDroppedCallbackCount();
+	
+	/**
+	 * Returns the amount of callbacks merged into an already queued callback.
+	 * @return The amount of coalesced callbacks.
+	 **/
+	public long getCoalescedCallbackCount();
+	
+	/**
+	 * Returns the mean time between a write and the monitor reading it from the oplog.
+	 * @return The mean receive lag.
+	 **/
+	public double getReceiveLagMeanMillis();
+	
+	/**
+	 * Returns the approximate 99th percentile of the receive lag.
+	 * @return The 99th percentile of the receive lag.
+	 **/
+	public long getReceiveLag99thPercentileMillis();
+	
+	/**
+	 * Returns the largest receive lag.
+	 * @return The largest receive lag.
+	 **/
+	public long getReceiveLagMaxMillis();
+	
+	/**
+	 * Returns the mean time callbacks waited in the queue, over all subscribers.
+	 * @return The mean queue wait time.
+	 **/
+	public double getQueueWaitMeanMicros();
+	
+	/**
+	 * Returns the approximate 99th percentile of the queue wait time, over all subscribers.
+	 * @return The 99th percentile of the queue wait time.
+	 **/
+	public long getQueueWait99thPercentileMicros();
+	
+	/**
+	 * Returns the longest queue wait time, over all subscribers.
+	 * @return The longest queue wait time.
+	 **/
+	public long getQueueWaitMaxMicros();
+	
+	/**
+	 * Returns the mean time subscribers spent handling a callback.
+	 * @return The mean execution time.
+	 **/
+	public double getExecutionTimeMeanMicros();
+	
+	/**
+	 * Returns the approximate 99th percentile of the execution time, over all subscribers.
+	 * @return The 99th percentile of the execution time.
+	 **/
+	public long getExecutionTime99thPercentileMicros();
+	
+	/**
+	 * Returns the longest execution time, over all subscribers.
+	 * @return The longest execution time.
+	 **/
+	public long getExecutionTimeMaxMicros();
+}
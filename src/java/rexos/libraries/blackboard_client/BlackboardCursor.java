@@ -0,0 +1,121 @@
+/**
+ * @file rexos/libraries/blackboard_client/BlackboardCursor.java
+ * @brief Closeable iterator fetching the results of a query in batches.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+
+/**
+ * Iterator over the results of a {@link BlackboardQuery} that fetches them from the server in batches while iterating,
+ * instead of loading all of them at once. Only the current batch is kept in memory.
+ * 
+ * The cursor holds resources on the server until it is exhausted or closed, so it should always be closed, preferably
+ * with a try-with-resources statement. Errors while fetching a batch are thrown as the unchecked MongoException of the
+ * driver, since Iterator does not allow checked exceptions; use {@link BlackboardQuery#forEach(DocumentHandler)} to
+ * get a GeneralMongoException instead.
+ **/
+public class BlackboardCursor implements Iterator<DBObject>, Iterable<DBObject>, Closeable {
+	/**
+	 * @var DBCursor cursor
+	 * The driver cursor fetching the batches, or null if the results are already in memory.
+	 **/
+	private DBCursor cursor;
+	
+	/**
+	 * @var Iterator<DBObject> results
+	 * The iterator the results are taken from.
+	 **/
+	private Iterator<DBObject> results;
+	
+	/**
+	 * Constructs a cursor for the given driver cursor.
+	 * @param cursor The driver cursor fetching the batches.
+	 **/
+	BlackboardCursor(DBCursor cursor) {
+		this.cursor = cursor;
+		this.results = cursor;
+	}
+	
+	/**
+	 * Constructs a cursor over results that are already in memory, used for clients with a {@link BlackboardBackend}.
+	 * @param results The results.
+	 **/
+	BlackboardCursor(Iterator<DBObject> results) {
+		this.results = results;
+	}
+	
+	/**
+	 * Returns whether or not there are more results, fetching the next batch if needed.
+	 * @return true if there are more results.
+	 **/
+	@Override
+	public boolean hasNext() {
+		return results.hasNext();
+	}
+	
+	/**
+	 * Returns the next result, fetching the next batch if needed.
+	 * @return The next result.
+	 **/
+	@Override
+	public DBObject next() {
+		return results.next();
+	}
+	
+	/**
+	 * Not supported, documents are removed with {@link BlackboardClient#removeDocuments(DBObject)}.
+	 **/
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("Use BlackboardClient.removeDocuments to remove documents.");
+	}
+	
+	/**
+	 * Returns this cursor, so it can be used in a for-each loop. The results can only be iterated once.
+	 * @return This cursor.
+	 **/
+	@Override
+	public Iterator<DBObject> iterator() {
+		return this;
+	}
+	
+	/**
+	 * Closes the cursor, releasing its resources on the server.
+	 **/
+	@Override
+	public void close() {
+		if (cursor != null) {
+			cursor.close();
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/**
+ * @file rexos/libraries/blackboard_client/BlackboardFuture.java
+ * @brief The pending result of an asynchronous blackboard operation.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * The pending result of an asynchronous {@link BlackboardClient} operation.
+ * 
+ * Besides the usual {@link java.util.concurrent.Future} methods, listeners can be added that are run as soon as the
+ * operation has completed, which allows an agent to be woken up instead of polling or blocking on the result.
+ * 
+ * @param <V> The type of the result of the operation.
+ **/
+public class BlackboardFuture<V> extends FutureTask<V> {
+	/**
+	 * @var ArrayList<Runnable> listeners
+	 * The listeners that have to be run on completion, or null once they have been run.
+	 **/
+	private ArrayList<Runnable> listeners;
+	
+	/**
+	 * Constructs a future for the given operation.
+	 * @param operation The operation that produces the result.
+	 **/
+	BlackboardFuture(Callable<V> operation) {
+		super(operation);
+		this.listeners = new ArrayList<Runnable>();
+	}
+	
+	/**
+	 * Adds a listener that is run once the operation has completed, succeeded, failed or was cancelled. The listener is
+	 * run by the thread that completed the operation, or immediately by the calling thread if the operation has already
+	 * completed, and should therefore be short.
+	 * @param listener The listener to run on completion.
+	 **/
+	public void addListener(Runnable listener) {
+		synchronized (this) {
+			if (listeners != null) {
+				listeners.add(listener);
+				return;
+			}
+		}
+		listener.run();
+	}
+	
+	/**
+	 * Waits for the operation to complete and returns its result, rethrowing the exception of a failed operation as
+	 * thrown by the synchronous counterpart of the operation.
+	 * @return The result of the operation.
+	 * @throws InvalidDBNamespaceException The namespace of the operation is invalid.
+	 * @throws GeneralMongoException A MongoException occurred or the wait was interrupted.
+	 **/
+	public V getResult() throws InvalidDBNamespaceException, GeneralMongoException {
+		try {
+			return get();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new GeneralMongoException("Interrupted while waiting for a blackboard operation.", ex);
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof InvalidDBNamespaceException) {
+				throw (InvalidDBNamespaceException) cause;
+			} else if (cause instanceof GeneralMongoException) {
+				throw (GeneralMongoException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new GeneralMongoException("A blackboard operation failed.", cause);
+		}
+	}
+	
+	/**
+	 * Runs the listeners once the operation has completed.
+	 * @see FutureTask#done()
+	 **/
+	@Override
+	protected void done() {
+		ArrayList<Runnable> completedListeners;
+		synchronized (this) {
+			completedListeners = listeners;
+			listeners = null;
+		}
+		for (Runnable listener : completedListeners) {
+			try {
+				listener.run();
+			} catch (RuntimeException ex) {
+				rexos.libraries.log.Logger.log(ex);
+			}
+		}
+	}
+}
@@ -0,0 +1,206 @@
+/**
+ * @file rexos/libraries/blackboard_client/BlackboardIndexes.java
+ * @brief Declared indexes of the blackboard collections and a diagnostic for collection scans.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import rexos.libraries.log.Logger;
+
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+/**
+ * Registry of the indexes the blackboard collections require. Indexes are declared per collection name, independent of
+ * the database the collection lives in, and are ensured by {@link BlackboardClient#setCollection(String)}.
+ * 
+ * When collection scan logging is enabled, every query executed by a BlackboardClient is explained first and logged
+ * if the server answers it without an index. Every query shape is logged once per collection. Explaining a query costs
+ * a second round trip, so this is meant for diagnostics only. It can be enabled at startup with the system property
+ * {@value #SCAN_LOGGING_PROPERTY}.
+ **/
+public final class BlackboardIndexes {
+	/**
+	 * @var String SCAN_LOGGING_PROPERTY
+	 * The system property that enables collection scan logging when set to true.
+	 **/
+	public static final String SCAN_LOGGING_PROPERTY = "rexos.blackboard.logCollectionScans";
+	
+	/**
+	 * @var ConcurrentHashMap<String, List<DBObject>> declaredIndexes
+	 * The index keys declared for every collection name.
+	 **/
+	private static final ConcurrentHashMap<String, List<DBObject>> declaredIndexes =
+			new ConcurrentHashMap<String, List<DBObject>>();
+	
+	/**
+	 * @var Set<String> loggedScans
+	 * The namespaces and query shapes for which a collection scan has already been logged.
+	 **/
+	private static final Set<String> loggedScans =
+			Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	
+	/**
+	 * @var boolean scanLogging
+	 * Whether or not queries are checked for collection scans.
+	 **/
+	private static volatile boolean scanLogging = Boolean.getBoolean(SCAN_LOGGING_PROPERTY);
+	
+	/**
+	 * Prevents instantiation, this class only has static members.
+	 **/
+	private BlackboardIndexes() {
+	}
+	
+	/**
+	 * Declares an index that the collection with the given name requires. Declaring the same index twice has no effect.
+	 * Collections that are selected after the declaration get the index created if it does not exist yet.
+	 * @param collection The name of the collection, without the database name.
+	 * @param keys The keys of the index, for example { "status" : 1, "scheduleData.startTime" : 1 }.
+	 **/
+	public static void declare(String collection, DBObject keys) {
+		List<DBObject> indexes = declaredIndexes.get(collection);
+		if (indexes == null) {
+			List<DBObject> newIndexes = new CopyOnWriteArrayList<DBObject>();
+			indexes = declaredIndexes.putIfAbsent(collection, newIndexes);
+			if (indexes == null) {
+				indexes = newIndexes;
+			}
+		}
+		((CopyOnWriteArrayList<DBObject>) indexes).addIfAbsent(keys);
+	}
+	
+	/**
+	 * Returns the indexes declared for the collection with the given name.
+	 * @param collection The name of the collection, without the database name.
+	 * @return The keys of the declared indexes, in the order they were declared.
+	 **/
+	public static DBObject[] getDeclaredIndexes(String collection) {
+		List<DBObject> indexes = declaredIndexes.get(collection);
+		if (indexes == null) {
+			return new DBObject[0];
+		}
+		return indexes.toArray(new DBObject[indexes.size()]);
+	}
+	
+	/**
+	 * Enables or disables logging of queries that are answered by a collection scan.
+	 * @param enabled true to explain and check every query, false to execute queries as they are.
+	 **/
+	public static void setCollectionScanLogging(boolean enabled) {
+		scanLogging = enabled;
+	}
+	
+	/**
+	 * Returns whether or not queries are checked for collection scans.
+	 * @return true if collection scan logging is enabled.
+	 **/
+	public static boolean isCollectionScanLogging() {
+		return scanLogging;
+	}
+	
+	/**
+	 * Creates the declared indexes of the given collection that do not exist yet. The driver remembers the indexes it
+	 * ensured, so calling this again for the same collection does not contact the server. Failures are logged rather
+	 * than thrown, since the collection can still be used without its indexes.
+	 * @param collection The collection for which the indexes should exist.
+	 **/
+	static void ensure(DBCollection collection) {
+		for (DBObject keys : getDeclaredIndexes(collection.getName())) {
+			try {
+				collection.ensureIndex(keys);
+			} catch (MongoException mongoException) {
+				Logger.log("Blackboard client - unable to ensure index %s on %s%n", keys, collection.getFullName());
+				Logger.log(mongoException);
+			}
+		}
+	}
+	
+	/**
+	 * Explains the query of the given cursor and logs it if the server would answer it with a collection scan. Does
+	 * nothing unless collection scan logging is enabled. Queries without a filter and without a sort are expected to
+	 * read the complete collection and are not logged.
+	 * @param collection The queried collection.
+	 * @param cursor The cursor of the query, which has not been iterated yet. The cursor itself is left untouched.
+	 * @param query The filter of the query, or null.
+	 * @param orderBy The sort order of the query, or null.
+	 **/
+	static void checkForCollectionScan(DBCollection collection, DBCursor cursor, DBObject query, DBObject orderBy) {
+		if (!scanLogging) {
+			return;
+		}
+		boolean filtered = query != null && !query.keySet().isEmpty();
+		boolean sorted = orderBy != null && !orderBy.keySet().isEmpty();
+		if (!filtered && !sorted) {
+			return;
+		}
+		String shape = collection.getFullName() + " " + (filtered ? query.keySet() : "[]")
+				+ (sorted ? " sorted by " + orderBy.keySet() : "");
+		if (loggedScans.contains(shape)) {
+			return;
+		}
+		try {
+			DBObject plan = cursor.explain();
+			if (isCollectionScan(plan)) {
+				loggedScans.add(shape);
+				Logger.log("Blackboard client - collection scan on %s for query %s sorted by %s (%s documents scanned)%n",
+						collection.getFullName(), query, orderBy, plan.get("nscanned"));
+			}
+		} catch (MongoException mongoException) {
+			// The query itself reports the error once it is executed.
+		}
+	}
+	
+	/**
+	 * Returns whether or not the given query plan reads documents without using an index.
+	 * @param plan The result of explaining a query.
+	 * @return true if the plan, or any clause of an $or plan, is a collection scan.
+	 **/
+	private static boolean isCollectionScan(DBObject plan) {
+		Object cursorType = plan.get("cursor");
+		if (cursorType != null && cursorType.toString().startsWith("BasicCursor")) {
+			return true;
+		}
+		Object clauses = plan.get("clauses");
+		if (clauses instanceof List) {
+			for (Object clause : (List<?>) clauses) {
+				if (clause instanceof DBObject && isCollectionScan((DBObject) clause)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+}
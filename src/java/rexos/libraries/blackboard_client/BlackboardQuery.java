@@ -0,0 +1,382 @@
+/**
+ * @file rexos/libraries/blackboard_client/BlackboardQuery.java
+ * @brief Builder for a find query with projection, sort, limit, skip and index hint.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+import java.util.List;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+import com.mongodb.ReadPreference;
+
+/**
+ * Builder for a find query on a single collection, obtained through {@link BlackboardClient#query(DBObject)}.
+ * 
+ * Next to the selection, a query can specify which fields are returned, the order of the results, how many results
+ * are skipped and returned and which index the server should use. Restricting the fields and the amount of results
+ * keeps the server from sending complete documents that are mostly thrown away. These queries are always sent to the
+ * server; the document cache is bypassed.
+ **/
+public class BlackboardQuery {
+	/**
+	 * @var MongoDBConnection connection
+	 * The connection whose pool provides the connection for the query, or null when a backend is queried.
+	 **/
+	private final MongoDBConnection connection;
+	
+	/**
+	 * @var DBCollection collection
+	 * The collection that is queried.
+	 **/
+	private final DBCollection collection;
+	
+	/**
+	 * @var BlackboardBackend backend
+	 * The backend that is queried instead of the collection, or null.
+	 **/
+	private final BlackboardBackend backend;
+	
+	/**
+	 * @var String namespace
+	 * The namespace of the queried collection within the backend.
+	 **/
+	private final String namespace;
+	
+	/**
+	 * @var DBObject query
+	 * The query selecting the documents.
+	 **/
+	private final DBObject query;
+	
+	/**
+	 * @var BasicDBObject projection
+	 * The fields that are returned, or null for complete documents.
+	 **/
+	private BasicDBObject projection;
+	
+	/**
+	 * @var BasicDBObject sort
+	 * The sort order of the results, or null for natural order.
+	 **/
+	private BasicDBObject sort;
+	
+	/**
+	 * @var Object hint
+	 * The name or the key pattern of the index the server should use, or null.
+	 **/
+	private Object hint;
+	
+	/**
+	 * @var ReadPreference readPreference
+	 * The members of a replica set the query may be sent to, or null for the primary.
+	 **/
+	private ReadPreference readPreference;
+	
+	/**
+	 * @var int skip
+	 * The amount of results skipped.
+	 **/
+	private int skip;
+	
+	/**
+	 * @var int limit
+	 * The maximum amount of results, 0 for no limit.
+	 **/
+	private int limit;
+	
+	/**
+	 * @var int batchSize
+	 * The amount of results fetched per round trip when iterating, 0 for the server default.
+	 **/
+	private int batchSize;
+	
+	/**
+	 * Constructs a query for the given collection.
+	 * @param connection The connection whose pool provides the connection for the query.
+	 * @param collection The collection that is queried.
+	 * @param query The query selecting the documents.
+	 **/
+	BlackboardQuery(MongoDBConnection connection, DBCollection collection, DBObject query) {
+		this.connection = connection;
+		this.collection = collection;
+		this.backend = null;
+		this.namespace = collection.getFullName();
+		this.query = query;
+	}
+	
+	/**
+	 * Constructs a query for a collection of the given backend. Index hints, batch sizes and read preferences are ignored.
+	 * @param backend The backend that is queried.
+	 * @param namespace The namespace of the queried collection.
+	 * @param query The query selecting the documents.
+	 **/
+	BlackboardQuery(BlackboardBackend backend, String namespace, DBObject query) {
+		this.connection = null;
+		this.collection = null;
+		this.backend = backend;
+		this.namespace = namespace;
+		this.query = query;
+	}
+	
+	/**
+	 * Restricts the returned documents to the given fields. The _id is always returned.
+	 * Dotted names can be used to select fields of embedded documents, e.g. "scheduleData.startTime".
+	 * @param fields The names of the fields that should be returned.
+	 * @return This query.
+	 **/
+	public BlackboardQuery fields(String... fields) {
+		if (projection == null) {
+			projection = new BasicDBObject();
+		}
+		for (String field : fields) {
+			projection.append(field, 1);
+		}
+		return this;
+	}
+	
+	/**
+	 * Excludes the given fields from the returned documents. Cannot be combined with {@link #fields(String...)},
+	 * except for excluding _id.
+	 * @param fields The names of the fields that should not be returned.
+	 * @return This query.
+	 **/
+	public BlackboardQuery excludeFields(String... fields) {
+		if (projection == null) {
+			projection = new BasicDBObject();
+		}
+		for (String field : fields) {
+			projection.append(field, 0);
+		}
+		return this;
+	}
+	
+	/**
+	 * Adds a sort key. Results are sorted on the keys in the order they were added.
+	 * @param field The name of the field to sort on.
+	 * @param direction 1 for ascending, -1 for descending order.
+	 * @return This query.
+	 **/
+	public BlackboardQuery sort(String field, int direction) {
+		if (sort == null) {
+			sort = new BasicDBObject();
+		}
+		sort.append(field, direction);
+		return this;
+	}
+	
+	/**
+	 * Sets the amount of results that are skipped.
+	 * @param skip The amount of results that are skipped.
+	 * @return This query.
+	 **/
+	public BlackboardQuery skip(int skip) {
+		this.skip = skip;
+		return this;
+	}
+	
+	/**
+	 * Sets the maximum amount of results.
+	 * @param limit The maximum amount of results, 0 for no limit.
+	 * @return This query.
+	 **/
+	public BlackboardQuery limit(int limit) {
+		this.limit = limit;
+		return this;
+	}
+	
+	/**
+	 * Sets the amount of results fetched per round trip by {@link #iterator()} and {@link #forEach(DocumentHandler)}.
+	 * Smaller batches keep less in memory at the cost of more round trips.
+	 * @param batchSize The amount of results per batch, 0 for the server default.
+	 * @return This query.
+	 **/
+	public BlackboardQuery batchSize(int batchSize) {
+		this.batchSize = batchSize;
+		return this;
+	}
+	
+	/**
+	 * Tells the server to use the index with the given name.
+	 * @param indexName The name of the index.
+	 * @return This query.
+	 **/
+	public BlackboardQuery hint(String indexName) {
+		this.hint = indexName;
+		return this;
+	}
+	
+	/**
+	 * Tells the server to use the index with the given key pattern.
+	 * @param indexKeys The key pattern of the index, e.g. { "status" : 1 }.
+	 * @return This query.
+	 **/
+	public BlackboardQuery hint(DBObject indexKeys) {
+		this.hint = indexKeys;
+		return this;
+	}
+	
+	/**
+	 * Sets the members of a replica set the query may be sent to. Defaults to the read preference set for the
+	 * collection on the client.
+	 * @param readPreference The read preference, or null for the primary.
+	 * @return This query.
+	 **/
+	public BlackboardQuery readPreference(ReadPreference readPreference) {
+		this.readPreference = readPreference;
+		return this;
+	}
+	
+	/**
+	 * Executes the query and returns all results.
+	 * @return List of the documents matching the query.
+	 * @throws GeneralMongoException A MongoException occurred.
+	 **/
+	public List<DBObject> find() throws GeneralMongoException {
+		if (backend != null) {
+			return backend.find(namespace, query, projection, sort, skip, limit);
+		}
+		DBCursor cursor = null;
+		try {
+			connection.acquireConnection(collection.getDB(), readPreference);
+			cursor = createCursor();
+			return cursor.toArray();
+		} catch (MongoException mongoException) {
+			throw new GeneralMongoException("An error occurred attempting to execute find query.", mongoException);
+		} finally {
+			if (cursor != null) {
+				cursor.close();
+			}
+			connection.releaseConnection(collection.getDB());
+		}
+	}
+	
+	/**
+	 * Executes the query and returns the first result only.
+	 * @return The first document matching the query, or null if no document matches.
+	 * @throws GeneralMongoException A MongoException occurred.
+	 **/
+	public DBObject findOne() throws GeneralMongoException {
+		if (backend != null) {
+			List<DBObject> found = backend.find(namespace, query, projection, sort, skip, 1);
+			return found.isEmpty() ? null : found.get(0);
+		}
+		DBCursor cursor = null;
+		try {
+			connection.acquireConnection(collection.getDB(), readPreference);
+			cursor = createCursor().limit(-1);
+			return cursor.hasNext() ? cursor.next() : null;
+		} catch (MongoException mongoException) {
+			throw new GeneralMongoException("An error occurred attempting to execute find query.", mongoException);
+		} finally {
+			if (cursor != null) {
+				cursor.close();
+			}
+			connection.releaseConnection(collection.getDB());
+		}
+	}
+	
+	/**
+	 * Executes the query and returns a cursor that fetches the results in batches while they are iterated.
+	 * The cursor has to be closed when it is no longer used.
+	 * @return A cursor over the results.
+	 * @throws GeneralMongoException A MongoException occurred.
+	 **/
+	public BlackboardCursor iterator() throws GeneralMongoException {
+		if (backend != null) {
+			return new BlackboardCursor(find().iterator());
+		}
+		try {
+			return new BlackboardCursor(createCursor());
+		} catch (MongoException mongoException) {
+			throw new GeneralMongoException("An error occurred attempting to execute find query.", mongoException);
+		}
+	}
+	
+	/**
+	 * Executes the query and passes the results to the handler one by one, fetching them in batches.
+	 * Only the current batch is kept in memory, so this is suitable for walking through complete collections.
+	 * @param handler The handler receiving the results.
+	 * @throws InvalidDBNamespaceException Thrown by the handler.
+	 * @throws GeneralMongoException A MongoException occurred or was thrown by the handler.
+	 **/
+	public void forEach(DocumentHandler handler) throws InvalidDBNamespaceException, GeneralMongoException {
+		if (backend != null) {
+			for (DBObject document : find()) {
+				handler.handle(document);
+			}
+			return;
+		}
+		DBCursor cursor = null;
+		try {
+			cursor = createCursor();
+			while (cursor.hasNext()) {
+				handler.handle(cursor.next());
+			}
+		} catch (MongoException mongoException) {
+			throw new GeneralMongoException("An error occurred attempting to iterate over the query results.", mongoException);
+		} finally {
+			if (cursor != null) {
+				cursor.close();
+			}
+		}
+	}
+	
+	/**
+	 * Creates a cursor for this query.
+	 * @return A cursor for this query.
+	 **/
+	DBCursor createCursor() {
+		DBCursor cursor = collection.find(query, projection);
+		if (sort != null) {
+			cursor.sort(sort);
+		}
+		if (hint instanceof String) {
+			cursor.hint((String) hint);
+		} else if (hint != null) {
+			cursor.hint((DBObject) hint);
+		}
+		if (skip > 0) {
+			cursor.skip(skip);
+		}
+		if (limit != 0) {
+			cursor.limit(limit);
+		}
+		if (batchSize > 0) {
+			cursor.batchSize(batchSize);
+		}
+		if (readPreference != null) {
+			cursor.setReadPreference(readPreference);
+		}
+		BlackboardIndexes.checkForCollectionScan(collection, cursor, query, sort);
+		return cursor;
+	}
+}
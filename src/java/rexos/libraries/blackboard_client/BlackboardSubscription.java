@@ -41,6 +41,12 @@ public abstract class BlackboardSubscription {
 	 **/
 	private BlackboardSubscriber subscriber;
 	
+	/**
+	 * @var boolean documentFetchingEnabled
+	 * Whether or not the target document should be made available through {@link OplogEntry#getDocument()}.
+	 **/
+	private boolean documentFetchingEnabled;
+	
 	/**
 	 * Creates the query associated with this subscription.
 	 * @return The query associated with this subscription.
@@ -70,6 +76,26 @@ public abstract class BlackboardSubscription {
 		return subscriber;
 	}
 	
+	/**
+	 * Enables or disables document fetching for this subscription. When enabled, the entries delivered to the subscriber
+	 * carry the current version of their target document, available through {@link OplogEntry#getDocument()}.
+	 * The document is fetched once per entry and shared with all other subscribers of that entry, and documents of
+	 * several entries are fetched together, which saves a findDocumentById call per subscriber per change.
+	 * Should be set before subscribing.
+	 * @param enabled true to enable document fetching.
+	 **/
+	public void setDocumentFetchingEnabled(boolean enabled) {
+		this.documentFetchingEnabled = enabled;
+	}
+	
+	/**
+	 * Returns whether or not document fetching is enabled for this subscription.
+	 * @return true if document fetching is enabled.
+	 **/
+	public boolean isDocumentFetchingEnabled() {
+		return documentFetchingEnabled;
+	}
+	
 	/**
 	 * Computes the hashcode for this object.
 	 * @return Hashcode for this object.
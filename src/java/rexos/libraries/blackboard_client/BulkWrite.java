@@ -0,0 +1,381 @@
+/**
+ * @file rexos/libraries/blackboard_client/BulkWrite.java
+ * @brief Builder for a batch of writes sent to a blackboard collection at once.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.types.ObjectId;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+import com.mongodb.WriteConcern;
+import com.mongodb.WriteResult;
+
+/**
+ * Builder for a batch of inserts, updates and removes on a single collection, obtained through
+ * {@link BlackboardClient#bulk()}.
+ * 
+ * Operations are queued and only sent when {@link #execute()} is called. Consecutive inserts are sent as a single
+ * message. In ordered mode (the default) every message is acknowledged according to the write concern before the next
+ * one is sent and execution stops at the first failing operation. The result holds the outcome of every operation,
+ * or, when an operation fails, the {@link BulkWriteException} holds the outcome of the operations before it.
+ * In unordered mode, or when the write concern does not require acknowledgement, all messages are pipelined over one
+ * connection without waiting for the server; an acknowledged unordered batch is confirmed with a single getLastError
+ * at the end, which only reports an error if the last operation failed. The outcome of the individual operations of a
+ * pipelined batch is unknown.
+ * 
+ * Inserted documents without an _id get one assigned when they are queued, so documents referring to each other (e.g.
+ * a chain of steps linked by their nextStep) can be built in a single batch.
+ **/
+public class BulkWrite {
+	/**
+	 * A single queued operation.
+	 **/
+	private static class Operation {
+		/**
+		 * @var MongoOperation type
+		 * The type of the operation.
+		 **/
+		private final MongoOperation type;
+		
+		/**
+		 * @var DBObject query
+		 * The inserted document for inserts, the search query for updates and removes.
+		 **/
+		private final DBObject query;
+		
+		/**
+		 * @var DBObject update
+		 * The update query for updates, null otherwise.
+		 **/
+		private final DBObject update;
+		
+		/**
+		 * Constructs an operation.
+		 * @param type The type of the operation.
+		 * @param query The inserted document for inserts, the search query for updates and removes.
+		 * @param update The update query for updates, null otherwise.
+		 **/
+		Operation(MongoOperation type, DBObject query, DBObject update) {
+			this.type = type;
+			this.query = query;
+			this.update = update;
+		}
+	}
+	
+	/**
+	 * @var DBCollection collection
+	 * The collection the operations are applied to.
+	 **/
+	private final DBCollection collection;
+	
+	/**
+	 * @var MongoDBConnection connection
+	 * The connection whose pool provides the connection for the batch, or null when a backend is used.
+	 **/
+	private final MongoDBConnection connection;
+	
+	/**
+	 * @var DocumentCache cache
+	 * The document cache of the collection, or null.
+	 **/
+	private final DocumentCache cache;
+	
+	/**
+	 * @var BlackboardBackend backend
+	 * The backend the operations are applied to instead of the collection, or null.
+	 **/
+	private final BlackboardBackend backend;
+	
+	/**
+	 * @var String namespace
+	 * The namespace of the collection within the backend.
+	 **/
+	private final String namespace;
+	
+	/**
+	 * @var ArrayList<Operation> operations
+	 * The queued operations.
+	 **/
+	private ArrayList<Operation> operations;
+	
+	/**
+	 * @var WriteConcern writeConcern
+	 * The write concern for the batch, or null to use the write concern of the collection.
+	 **/
+	private WriteConcern writeConcern;
+	
+	/**
+	 * @var boolean ordered
+	 * Whether or not every operation is acknowledged before the next one is sent.
+	 **/
+	private boolean ordered;
+	
+	/**
+	 * @var boolean executed
+	 * Whether or not the batch has been executed.
+	 **/
+	private boolean executed;
+	
+	/**
+	 * Constructs an empty, ordered batch for the given collection.
+	 * @param connection The connection whose pool provides the connection for the batch.
+	 * @param collection The collection the operations are applied to.
+	 * @param cache The document cache of the collection, or null.
+	 **/
+	BulkWrite(MongoDBConnection connection, DBCollection collection, DocumentCache cache) {
+		this.connection = connection;
+		this.collection = collection;
+		this.cache = cache;
+		this.backend = null;
+		this.namespace = collection.getFullName();
+		this.operations = new ArrayList<Operation>();
+		this.ordered = true;
+	}
+	
+	/**
+	 * Constructs an empty batch for a collection of the given backend. The operations are applied one by one and
+	 * always acknowledged; the write concern and ordering are ignored.
+	 * @param backend The backend the operations are applied to.
+	 * @param namespace The namespace of the collection.
+	 **/
+	BulkWrite(BlackboardBackend backend, String namespace) {
+		this.connection = null;
+		this.collection = null;
+		this.cache = null;
+		this.backend = backend;
+		this.namespace = namespace;
+		this.operations = new ArrayList<Operation>();
+		this.ordered = true;
+	}
+	
+	/**
+	 * Sets the write concern used for the batch. Defaults to the write concern of the collection.
+	 * @param writeConcern The write concern used for the batch.
+	 * @return This batch.
+	 **/
+	public BulkWrite setWriteConcern(WriteConcern writeConcern) {
+		this.writeConcern = writeConcern;
+		return this;
+	}
+	
+	/**
+	 * Sets the write concern used for the batch to the one of the given profile.
+	 * @param profile The write profile used for the batch.
+	 * @return This batch.
+	 **/
+	public BulkWrite setWriteProfile(WriteProfile profile) {
+		return setWriteConcern(profile.getWriteConcern());
+	}
+	
+	/**
+	 * Sets whether every operation should be acknowledged before the next one is sent.
+	 * @param ordered true for an ordered batch, false to pipeline all operations.
+	 * @return This batch.
+	 **/
+	public BulkWrite setOrdered(boolean ordered) {
+		this.ordered = ordered;
+		return this;
+	}
+	
+	/**
+	 * Queues the insertion of a document. If the document has no _id, a new ObjectId is assigned to it right away.
+	 * @param document The document to insert.
+	 * @return The _id of the document.
+	 **/
+	public ObjectId insert(DBObject document) {
+		Object id = document.get("_id");
+		if (id == null) {
+			id = new ObjectId();
+			document.put("_id", id);
+		}
+		operations.add(new Operation(MongoOperation.INSERT, document, null));
+		return ObjectId.massageToObjectId(id);
+	}
+	
+	/**
+	 * Queues an update of all documents matching the search query.
+	 * @param searchQuery The query that should be used to select the target documents.
+	 * @param updateQuery The query that should be used to update the target documents.
+	 * @return This batch.
+	 **/
+	public BulkWrite update(DBObject searchQuery, DBObject updateQuery) {
+		operations.add(new Operation(MongoOperation.UPDATE, searchQuery, updateQuery));
+		return this;
+	}
+	
+	/**
+	 * Queues the removal of all documents matching the query.
+	 * @param query The query used for removing documents.
+	 * @return This batch.
+	 **/
+	public BulkWrite remove(DBObject query) {
+		operations.add(new Operation(MongoOperation.DELETE, query, null));
+		return this;
+	}
+	
+	/**
+	 * Returns the amount of queued operations.
+	 * @return The amount of queued operations.
+	 **/
+	public int size() {
+		return operations.size();
+	}
+	
+	/**
+	 * Sends the queued operations to the server. A batch can only be executed once.
+	 * @return The outcome of the operations.
+	 * @throws BulkWriteException An operation failed. For ordered batches the operations before the failing one have
+	 * been applied, and their outcome is available from the exception.
+	 **/
+	public BulkWriteResult execute() throws BulkWriteException {
+		if (executed) {
+			throw new IllegalStateException("The batch has already been executed.");
+		}
+		executed = true;
+		if (backend != null) {
+			return executeOnBackend();
+		}
+		
+		WriteConcern concern = writeConcern == null ? collection.getWriteConcern() : writeConcern;
+		boolean acknowledged = concern.callGetLastError();
+		boolean pipelined = !ordered || !acknowledged;
+		WriteConcern messageConcern = pipelined ? WriteConcern.NORMAL : concern;
+		BulkWriteResult result = new BulkWriteResult(operations.size(), !pipelined);
+		
+		DB db = collection.getDB();
+		int index = 0;
+		try {
+			connection.acquireConnection(db, null);
+			while (index < operations.size()) {
+				Operation operation = operations.get(index);
+				switch (operation.type) {
+					case INSERT:
+						int end = index + 1;
+						while (end < operations.size() && operations.get(end).type == MongoOperation.INSERT) {
+							end++;
+						}
+						List<DBObject> documents = new ArrayList<DBObject>(end - index);
+						for (int i = index; i < end; i++) {
+							documents.add(operations.get(i).query);
+						}
+						collection.insert(documents, messageConcern);
+						if (!pipelined) {
+							for (int i = index; i < end; i++) {
+								result.setCount(i, 1);
+							}
+							if (cache != null) {
+								cache.inserted(documents.toArray(new DBObject[documents.size()]));
+							}
+						} else if (cache != null) {
+							for (DBObject document : documents) {
+								cache.invalidate(new BasicDBObject("_id", document.get("_id")));
+							}
+						}
+						index = end;
+						continue;
+					case UPDATE:
+						WriteResult updateResult =
+								collection.update(operation.query, operation.update, false, true, messageConcern);
+						if (!pipelined) {
+							result.setCount(index, updateResult.getN());
+							if (cache != null) {
+								cache.updated(operation.query, operation.update);
+							}
+						} else if (cache != null) {
+							cache.invalidate(operation.query);
+						}
+						break;
+					case DELETE:
+						WriteResult removeResult = collection.remove(operation.query, messageConcern);
+						if (!pipelined) {
+							result.setCount(index, removeResult.getN());
+							if (cache != null) {
+								cache.removed(operation.query);
+							}
+						} else if (cache != null) {
+							cache.invalidate(operation.query);
+						}
+						break;
+					default:
+						break;
+				}
+				index++;
+			}
+			
+			if (pipelined && acknowledged) {
+				// The getLastError only reports on the last operation.
+				index = operations.size() - 1;
+				db.getLastError(concern).throwOnError();
+			}
+		} catch (MongoException mongoException) {
+			throw new BulkWriteException("An error occurred attempting to execute a bulk write.", mongoException,
+					result, index);
+		} finally {
+			connection.releaseConnection(db);
+		}
+		return result;
+	}
+	
+	/**
+	 * Applies the queued operations to the backend, in order, stopping at the first failing operation.
+	 * @return The outcome of the operations.
+	 * @throws BulkWriteException An operation failed. The operations before it have been applied.
+	 **/
+	private BulkWriteResult executeOnBackend() throws BulkWriteException {
+		BulkWriteResult result = new BulkWriteResult(operations.size(), true);
+		for (int i = 0; i < operations.size(); i++) {
+			Operation operation = operations.get(i);
+			try {
+				switch (operation.type) {
+					case INSERT:
+						backend.insert(namespace, operation.query);
+						result.setCount(i, 1);
+						break;
+					case UPDATE:
+						result.setCount(i, backend.update(namespace, operation.query, operation.update));
+						break;
+					case DELETE:
+						result.setCount(i, backend.remove(namespace, operation.query));
+						break;
+					default:
+						break;
+				}
+			} catch (GeneralMongoException ex) {
+				throw new BulkWriteException("An error occurred attempting to execute a bulk write.", ex, result, i);
+			}
+		}
+		return result;
+	}
+}
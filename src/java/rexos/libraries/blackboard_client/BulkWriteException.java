@@ -0,0 +1,87 @@
+/**
+ * @file rexos/libraries/blackboard_client/BulkWriteException.java
+ * @brief Thrown when an operation of a BulkWrite fails, carrying the outcome of the operations before it.
+ * @date Created: 2026-10-18
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+/**
+ * Thrown by {@link BulkWrite#execute()} when an operation of the batch fails. The result holds the outcome of the
+ * operations that were applied before the failure; the counts of the failing operation and of those after it are
+ * {@link BulkWriteResult#UNKNOWN}.
+ **/
+public class BulkWriteException extends GeneralMongoException {
+	
+	/**
+	 * @var long serialVersionUID
+	 * SerialVersionUID for this class.
+	 **/
+	private static final long serialVersionUID = -4185526307453960273L;
+	
+	/**
+	 * @var BulkWriteResult result
+	 * The outcome of the operations up to the failure.
+	 **/
+	private final transient BulkWriteResult result;
+	
+	/**
+	 * @var int failedIndex
+	 * The index of the failing operation.
+	 **/
+	private final int failedIndex;
+	
+	/**
+	 * Constructs a new exception for a failed batch.
+	 * @param msg A message providing additional information about the exception.
+	 * @param cause The cause of this exception.
+	 * @param result The outcome of the operations up to the failure.
+	 * @param failedIndex The index of the failing operation.
+	 **/
+	public BulkWriteException(String msg, Throwable cause, BulkWriteResult result, int failedIndex) {
+		super(msg, cause);
+		this.result = result;
+		this.failedIndex = failedIndex;
+	}
+	
+	/**
+	 * Returns the outcome of the operations up to the failure.
+	 * @return The partial result of the batch.
+	 **/
+	public BulkWriteResult getResult() {
+		return result;
+	}
+	
+	/**
+	 * Returns the index of the failing operation, in the order the operations were queued. Consecutive inserts are
+	 * sent as a single message, so for a failing insert this is the index of the first insert of that message. For a
+	 * pipelined batch the operations before this index may have failed as well.
+	 * @return The index of the failing operation.
+	 **/
+	public int getFailedIndex() {
+		return failedIndex;
+	}
+}
@@ -0,0 +1,115 @@
+/**
+ * @file rexos/libraries/blackboard_client/BulkWriteResult.java
+ * @brief The outcome of a BulkWrite.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+import java.util.Arrays;
+
+/**
+ * The outcome of the operations of an executed {@link BulkWrite}, in the order they were queued.
+ **/
+public class BulkWriteResult {
+	/**
+	 * @var int UNKNOWN
+	 * The count of an operation whose outcome is unknown because it was pipelined.
+	 **/
+	public static final int UNKNOWN = -1;
+	
+	/**
+	 * @var int counts[]
+	 * The amount of documents affected by every operation.
+	 **/
+	private int[] counts;
+	
+	/**
+	 * @var boolean acknowledged
+	 * Whether or not every operation was acknowledged individually.
+	 **/
+	private boolean acknowledged;
+	
+	/**
+	 * Constructs a result for the given amount of operations, with all counts set to UNKNOWN.
+	 * @param size The amount of operations.
+	 * @param acknowledged Whether or not every operation is acknowledged individually.
+	 **/
+	BulkWriteResult(int size, boolean acknowledged) {
+		this.counts = new int[size];
+		this.acknowledged = acknowledged;
+		Arrays.fill(counts, UNKNOWN);
+	}
+	
+	/**
+	 * Sets the amount of documents affected by an operation.
+	 * @param index The index of the operation.
+	 * @param count The amount of affected documents.
+	 **/
+	void setCount(int index, int count) {
+		counts[index] = count;
+	}
+	
+	/**
+	 * Returns the amount of operations in the batch.
+	 * @return The amount of operations in the batch.
+	 **/
+	public int size() {
+		return counts.length;
+	}
+	
+	/**
+	 * Returns whether or not every operation was acknowledged individually, i.e. whether the counts are known.
+	 * @return true if every operation was acknowledged individually.
+	 **/
+	public boolean isAcknowledged() {
+		return acknowledged;
+	}
+	
+	/**
+	 * Returns the amount of documents affected by an operation. Inserts count as 1.
+	 * @param index The index of the operation, in the order it was queued.
+	 * @return The amount of affected documents, or UNKNOWN if the operation was pipelined.
+	 **/
+	public int getCount(int index) {
+		return counts[index];
+	}
+	
+	/**
+	 * Returns the total amount of documents affected by the batch.
+	 * @return The total amount of affected documents, or UNKNOWN if the operations were pipelined.
+	 **/
+	public int getTotalCount() {
+		if (!acknowledged) {
+			return UNKNOWN;
+		}
+		int total = 0;
+		for (int count : counts) {
+			total += count;
+		}
+		return total;
+	}
+}
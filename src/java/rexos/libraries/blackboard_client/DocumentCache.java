@@ -0,0 +1,395 @@
+/**
+ * @file rexos/libraries/blackboard_client/DocumentCache.java
+ * @brief In-memory copy of the documents of a collection, kept coherent with the oplog.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.bson.BSONObject;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+/**
+ * In-memory copy of the documents of a single collection, used by a {@link BlackboardClient} to serve reads locally.
+ * 
+ * Documents are added when they are read from the server and when they are inserted or updated by the owning client.
+ * The cache is registered with the oplog multiplexer of the server, which applies every oplog entry for the collection
+ * to it before the entry is delivered to any subscriber, so changes made by other clients are picked up as well.
+ * Lookups by _id are served as soon as the document has been read once. All other queries bypass the cache.
+ * 
+ * Changes made by other clients only reach the cache once the oplog monitor has read them, which can be later than
+ * other notifications of the change, like an ACL message sent by the writer. The cache should therefore only be
+ * enabled for collections that no other client writes to.
+ * 
+ * Documents are handed out as copies, so callers are free to modify them. The cache is not bounded and is meant for
+ * small collections that are read over and over again.
+ **/
+public class DocumentCache {
+	/**
+	 * @var String ID_FIELD
+	 * Name of the field containing the id of a document.
+	 **/
+	private static final String ID_FIELD = "_id";
+	
+	/**
+	 * @var String namespace
+	 * The namespace (database.collection) of the cached collection.
+	 **/
+	private final String namespace;
+	
+	/**
+	 * @var HashMap<Object, BasicDBObject> documents
+	 * The cached documents by their id.
+	 **/
+	private HashMap<Object, BasicDBObject> documents;
+	
+	/**
+	 * @var long generation
+	 * Incremented on every change made from the oplog, used to discard reads that raced with such a change.
+	 **/
+	private long generation;
+	
+	/**
+	 * @var long hitCount
+	 * The amount of reads served from the cache.
+	 **/
+	private long hitCount;
+	
+	/**
+	 * @var long missCount
+	 * The amount of cacheable reads that had to be sent to the server.
+	 **/
+	private long missCount;
+	
+	/**
+	 * Constructs an empty cache for the given namespace.
+	 * @param namespace The namespace (database.collection) of the cached collection.
+	 **/
+	DocumentCache(String namespace) {
+		this.namespace = namespace;
+		this.documents = new HashMap<Object, BasicDBObject>();
+	}
+	
+	/**
+	 * Returns the namespace of the cached collection.
+	 * @return The namespace (database.collection) of the cached collection.
+	 **/
+	public String getNamespace() {
+		return namespace;
+	}
+	
+	/**
+	 * Returns the amount of reads served from the cache.
+	 * @return The amount of reads served from the cache.
+	 **/
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+	
+	/**
+	 * Returns the amount of cacheable reads that had to be sent to the server.
+	 * @return The amount of cacheable reads that had to be sent to the server.
+	 **/
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+	
+	/**
+	 * Returns the amount of documents in the cache.
+	 * @return The amount of documents in the cache.
+	 **/
+	public synchronized int getSize() {
+		return documents.size();
+	}
+	
+	/**
+	 * Removes all documents from the cache. The hit and miss counts are kept.
+	 **/
+	public synchronized void clear() {
+		documents.clear();
+		++generation;
+	}
+	
+	/**
+	 * Returns the cached document with the given id and counts the lookup as a hit or a miss.
+	 * @param id The id of the document.
+	 * @return A copy of the document, or null if the document is not in the cache.
+	 **/
+	synchronized DBObject get(Object id) {
+		BasicDBObject document = documents.get(id);
+		if (document == null) {
+			++missCount;
+			return null;
+		}
+		++hitCount;
+		return (DBObject) document.copy();
+	}
+	
+	/**
+	 * Returns the current generation, which should be passed to {@link #load(DBObject, long)} once the document read
+	 * from the server has arrived.
+	 * @return The current generation.
+	 **/
+	synchronized long getGeneration() {
+		return generation;
+	}
+	
+	/**
+	 * Adds a document read from the server, unless the oplog changed the cache since the read was started.
+	 * @param document The document read from the server.
+	 * @param readGeneration The generation returned by {@link #getGeneration()} before the read was started.
+	 **/
+	synchronized void load(DBObject document, long readGeneration) {
+		if (readGeneration == generation) {
+			store(document);
+		}
+	}
+	
+	/**
+	 * Adds or replaces documents that have been inserted by the owning client.
+	 * @param insertedDocuments The inserted documents.
+	 **/
+	synchronized void inserted(DBObject... insertedDocuments) {
+		for (DBObject document : insertedDocuments) {
+			store(document);
+		}
+	}
+	
+	/**
+	 * Applies an update made by the owning client. The update is applied to the cached documents when the cache knows
+	 * exactly which documents were targeted and only $set and $unset were used; otherwise the targeted documents are
+	 * removed from the cache.
+	 * @param searchQuery The query used to select the updated documents.
+	 * @param updateQuery The update that was applied.
+	 **/
+	synchronized void updated(DBObject searchQuery, DBObject updateQuery) {
+		List<BasicDBObject> targets = getTargets(searchQuery);
+		if (targets == null) {
+			clear();
+			return;
+		}
+		for (BasicDBObject target : targets) {
+			if (!applyModifiers(target, updateQuery)) {
+				documents.remove(target.get(ID_FIELD));
+			}
+		}
+	}
+	
+	/**
+	 * Removes documents that have been removed by the owning client.
+	 * @param searchQuery The query used to select the removed documents.
+	 **/
+	synchronized void removed(DBObject searchQuery) {
+		List<BasicDBObject> targets = getTargets(searchQuery);
+		if (targets == null) {
+			clear();
+			return;
+		}
+		for (BasicDBObject target : targets) {
+			documents.remove(target.get(ID_FIELD));
+		}
+	}
+	
+	/**
+	 * Removes the documents matching the query, used when the outcome of a write made by the owning client is unknown.
+	 * @param searchQuery The query used to select the written documents.
+	 **/
+	synchronized void invalidate(DBObject searchQuery) {
+		List<BasicDBObject> targets = getTargets(searchQuery);
+		if (targets == null) {
+			clear();
+			return;
+		}
+		for (BasicDBObject target : targets) {
+			documents.remove(target.get(ID_FIELD));
+		}
+	}
+	
+	/**
+	 * Applies an oplog entry for the cached collection.
+	 * @param entry The oplog entry.
+	 **/
+	synchronized void apply(OplogEntry entry) {
+		MongoOperation operation = entry.getOperation();
+		DBObject document = entry.getUpdateDocument();
+		if (operation == null || document == null) {
+			return;
+		}
+		++generation;
+		
+		switch (operation) {
+			case INSERT:
+				store(document);
+				break;
+			case DELETE:
+				documents.remove(document.get(ID_FIELD));
+				break;
+			case UPDATE:
+				DBObject criteria = entry.getUpdateCriteria();
+				Object id = criteria == null ? null : criteria.get(ID_FIELD);
+				if (id == null) {
+					clear();
+				} else if (!isModifierDocument(document)) {
+					// The entry contains the complete new version of the document.
+					BasicDBObject replacement = copyOf(document);
+					replacement.put(ID_FIELD, id);
+					documents.put(id, replacement);
+				} else {
+					BasicDBObject target = documents.get(id);
+					if (target != null && !applyModifiers(target, document)) {
+						documents.remove(id);
+					}
+				}
+				break;
+			default:
+				break;
+		}
+	}
+	
+	/**
+	 * Determines which cached documents are targeted by a query.
+	 * @param searchQuery The query.
+	 * @return The targeted documents, or null if the cache cannot tell which documents are targeted, which is the case
+	 * for every query other than a lookup by _id.
+	 **/
+	private List<BasicDBObject> getTargets(DBObject searchQuery) {
+		Object id = searchQuery.get(ID_FIELD);
+		if (id == null || searchQuery.keySet().size() != 1 || id instanceof DBObject || id instanceof Pattern) {
+			return null;
+		}
+		ArrayList<BasicDBObject> targets = new ArrayList<BasicDBObject>(1);
+		BasicDBObject document = documents.get(id);
+		if (document != null) {
+			targets.add(document);
+		}
+		return targets;
+	}
+	
+	/**
+	 * Stores a copy of the document.
+	 * @param document The document to store.
+	 **/
+	private void store(DBObject document) {
+		Object id = document.get(ID_FIELD);
+		if (id != null) {
+			documents.put(id, copyOf(document));
+		}
+	}
+	
+	/**
+	 * Returns whether or not the update document consists of modifiers rather than a replacement document.
+	 * @param update The update document.
+	 * @return true if the update document consists of modifiers.
+	 **/
+	static boolean isModifierDocument(DBObject update) {
+		for (String key : update.keySet()) {
+			if (key.startsWith("$")) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Applies the $set and $unset modifiers of an update to a document. The oplog records all other modifiers as $set,
+	 * so this suffices for oplog entries.
+	 * @param document The document to update.
+	 * @param update The update document.
+	 * @return false if the update contains other modifiers or could not be applied, in which case the document may have
+	 * been partially updated and should be discarded.
+	 **/
+	static boolean applyModifiers(BasicDBObject document, DBObject update) {
+		for (String modifier : update.keySet()) {
+			if (!modifier.equals("$set") && !modifier.equals("$unset")) {
+				return false;
+			}
+			Object fields = update.get(modifier);
+			if (!(fields instanceof DBObject)) {
+				return false;
+			}
+			for (String path : ((DBObject) fields).keySet()) {
+				String[] parts = path.split("\\.");
+				BSONObject parent = document;
+				for (int i = 0; i < parts.length - 1; i++) {
+					Object child = parent.get(parts[i]);
+					if (child == null && modifier.equals("$set")) {
+						child = new BasicDBObject();
+						parent.put(parts[i], child);
+					}
+					if (!(child instanceof BSONObject)) {
+						if (child == null) {
+							// Unsetting a field below a missing field changes nothing.
+							parent = null;
+							break;
+						}
+						return false;
+					}
+					parent = (BSONObject) child;
+				}
+				if (parent == null) {
+					continue;
+				}
+				if (modifier.equals("$set")) {
+					parent.put(parts[parts.length - 1], copyValue(((DBObject) fields).get(path)));
+				} else {
+					parent.removeField(parts[parts.length - 1]);
+				}
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Returns a deep copy of a document.
+	 * @param document The document to copy.
+	 * @return A deep copy of the document.
+	 **/
+	static BasicDBObject copyOf(DBObject document) {
+		if (document instanceof BasicDBObject) {
+			return (BasicDBObject) ((BasicDBObject) document).copy();
+		}
+		@SuppressWarnings("unchecked")
+		Map<String, Object> map = document.toMap();
+		return (BasicDBObject) new BasicDBObject(map).copy();
+	}
+	
+	/**
+	 * Returns a deep copy of a value if it is a document.
+	 * @param value The value to copy.
+	 * @return A copy of the value, or the value itself if it is not a document.
+	 **/
+	static Object copyValue(Object value) {
+		return value instanceof DBObject ? copyOf((DBObject) value) : value;
+	}
+}
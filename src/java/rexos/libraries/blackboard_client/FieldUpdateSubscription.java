@@ -95,6 +95,12 @@ public class FieldUpdateSubscription extends BasicOperationSubscription {
 	 **/
 	EnumSet<MongoUpdateLogOperation> subscribedOperations;
 	
+	/**
+	 * @var boolean coalescing
+	 * Whether or not a queued callback for a document is replaced by newer entries for the same document.
+	 **/
+	private volatile boolean coalescing;
+	
 	/**
 	 * Creates a subscription for updates to the specified field.
 	 * The desired operations to monitor should be added after construction using the addOperation method.
@@ -123,6 +129,42 @@ public class FieldUpdateSubscription extends BasicOperationSubscription {
 		subscribedOperations.remove(operation);
 	}
 	
+	/**
+	 * Returns the name of the field that is monitored for updates.
+	 * @return The name of the field that is monitored for updates.
+	 **/
+	public String getFieldName() {
+		return fieldName;
+	}
+	
+	/**
+	 * Returns the update operations that are monitored for the field.
+	 * @return A copy of the set of monitored update operations.
+	 **/
+	public EnumSet<MongoUpdateLogOperation> getOperations() {
+		return EnumSet.copyOf(subscribedOperations);
+	}
+	
+	/**
+	 * Enables or disables coalescing for this subscription. When enabled, an entry for a document that still has a
+	 * callback waiting to be delivered replaces the entry of that callback instead of being queued after it. The
+	 * subscriber then handles a burst of changes to one document once, with the latest entry. Use this for fields
+	 * whose latest value is all that matters, such as status fields; combined with document fetching the subscriber
+	 * sees the most recent version of the document.
+	 * @param coalescing true to enable coalescing.
+	 **/
+	public void setCoalescing(boolean coalescing) {
+		this.coalescing = coalescing;
+	}
+	
+	/**
+	 * Returns whether or not coalescing is enabled for this subscription.
+	 * @return true if coalescing is enabled.
+	 **/
+	public boolean isCoalescing() {
+		return coalescing;
+	}
+	
 	/**
 	 * Generates the field string that can be used in an exists query.
 	 * 
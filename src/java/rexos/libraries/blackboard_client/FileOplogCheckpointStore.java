@@ -0,0 +1,92 @@
+/**
+ * @file rexos/libraries/blackboard_client/FileOplogCheckpointStore.java
+ * @brief Stores the oplog checkpoint in a file.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.bson.types.BSONTimestamp;
+
+/**
+ * Stores the oplog checkpoint in a file as "time inc". The file is replaced atomically on every save.
+ **/
+public class FileOplogCheckpointStore implements OplogCheckpointStore {
+	/**
+	 * @var File file
+	 * The file the checkpoint is stored in.
+	 **/
+	private File file;
+	
+	/**
+	 * Constructs a store that uses the specified file.
+	 * 
+	 * @param file The file the checkpoint is stored in.
+	 **/
+	public FileOplogCheckpointStore(File file) {
+		this.file = file;
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.OplogCheckpointStore#load()
+	 **/
+	@Override
+	public synchronized BSONTimestamp load() {
+		if (!file.exists()) {
+			return null;
+		}
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			String[] parts = reader.readLine().trim().split(" ");
+			return new BSONTimestamp(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+		} catch (IOException | RuntimeException ex) {
+			rexos.libraries.log.Logger.log("Could not read oplog checkpoint from %s:\n%s\n", file, ex.getMessage());
+			return null;
+		}
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.OplogCheckpointStore#save(org.bson.types.BSONTimestamp)
+	 **/
+	@Override
+	public synchronized void save(BSONTimestamp timestamp) {
+		File tempFile = new File(file.getPath() + ".tmp");
+		try (FileWriter writer = new FileWriter(tempFile)) {
+			writer.write(timestamp.getTime() + " " + timestamp.getInc() + "\n");
+		} catch (IOException ex) {
+			rexos.libraries.log.Logger.log("Could not write oplog checkpoint to %s:\n%s\n", tempFile, ex.getMessage());
+			return;
+		}
+		if (!tempFile.renameTo(file)) {
+			rexos.libraries.log.Logger.log("Could not replace oplog checkpoint %s\n", file);
+		}
+	}
+}
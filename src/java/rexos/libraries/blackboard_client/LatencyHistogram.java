@@ -0,0 +1,198 @@
+/**
+ * @file rexos/libraries/blackboard_client/LatencyHistogram.java
+ * @brief Lock-free histogram with power-of-two buckets, used for the blackboard pipeline metrics.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of non-negative values, such as latencies, that can be recorded concurrently without locking.
+ * 
+ * Values are counted in buckets with power-of-two bounds: bucket 0 holds 0, bucket i holds the values from 2^(i-1) up
+ * to and including 2^i - 1. Percentiles are therefore approximations, reported as the upper bound of the bucket they
+ * fall in (but never more than the largest recorded value). The unit of the values is up to the user of the histogram.
+ **/
+public class LatencyHistogram {
+	/**
+	 * @var int BUCKET_COUNT
+	 * The amount of buckets, enough to hold any non-negative long.
+	 **/
+	public static final int BUCKET_COUNT = 64;
+	
+	/**
+	 * @var AtomicLongArray buckets
+	 * The amount of recorded values per bucket.
+	 **/
+	private final AtomicLongArray buckets;
+	
+	/**
+	 * @var AtomicLong count
+	 * The total amount of recorded values.
+	 **/
+	private final AtomicLong count;
+	
+	/**
+	 * @var AtomicLong sum
+	 * The sum of all recorded values.
+	 **/
+	private final AtomicLong sum;
+	
+	/**
+	 * @var AtomicLong max
+	 * The largest recorded value.
+	 **/
+	private final AtomicLong max;
+	
+	/**
+	 * Constructs an empty histogram.
+	 **/
+	public LatencyHistogram() {
+		buckets = new AtomicLongArray(BUCKET_COUNT);
+		count = new AtomicLong();
+		sum = new AtomicLong();
+		max = new AtomicLong();
+	}
+	
+	/**
+	 * Returns the index of the bucket the given value is counted in.
+	 * @param value The value, negative values are counted as 0.
+	 * @return The index of the bucket.
+	 **/
+	private static int getBucketIndex(long value) {
+		return value <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(value);
+	}
+	
+	/**
+	 * Returns the largest value that is counted in the given bucket.
+	 * @param index The index of the bucket.
+	 * @return The upper bound of the bucket.
+	 **/
+	public static long getBucketUpperBound(int index) {
+		return index >= 63 ? Long.MAX_VALUE : (1L << index) - 1;
+	}
+	
+	/**
+	 * Records a value. Negative values are recorded as 0.
+	 * @param value The value to record.
+	 **/
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		buckets.incrementAndGet(getBucketIndex(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+		long currentMax = max.get();
+		while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+			currentMax = max.get();
+		}
+	}
+	
+	/**
+	 * Returns the amount of recorded values.
+	 * @return The amount of recorded values.
+	 **/
+	public long getCount() {
+		return count.get();
+	}
+	
+	/**
+	 * Returns the sum of all recorded values.
+	 * @return The sum of all recorded values.
+	 **/
+	public long getSum() {
+		return sum.get();
+	}
+	
+	/**
+	 * Returns the largest recorded value.
+	 * @return The largest recorded value, or 0 if nothing has been recorded.
+	 **/
+	public long getMax() {
+		return max.get();
+	}
+	
+	/**
+	 * Returns the mean of the recorded values.
+	 * @return The mean of the recorded values, or 0 if nothing has been recorded.
+	 **/
+	public double getMean() {
+		long currentCount = count.get();
+		return currentCount == 0 ? 0 : (double) sum.get() / currentCount;
+	}
+	
+	/**
+	 * Returns an approximation of the given percentile of the recorded values.
+	 * @param percentile The percentile, between 0 and 100.
+	 * @return The upper bound of the bucket containing the percentile, or 0 if nothing has been recorded.
+	 **/
+	public long getPercentile(double percentile) {
+		long[] counts = getBucketCounts();
+		long total = 0;
+		for (long bucketCount : counts) {
+			total += bucketCount;
+		}
+		if (total == 0) {
+			return 0;
+		}
+		
+		long rank = (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100.0);
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank && counts[i] > 0) {
+				return Math.min(getBucketUpperBound(i), max.get());
+			}
+		}
+		return max.get();
+	}
+	
+	/**
+	 * Returns a copy of the amount of recorded values per bucket.
+	 * @return The amount of recorded values per bucket, indexed as described in the class documentation.
+	 **/
+	public long[] getBucketCounts() {
+		long[] counts = new long[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] = buckets.get(i);
+		}
+		return counts;
+	}
+	
+	/**
+	 * Returns a short summary of the histogram.
+	 * @return A string containing the count, mean, median, 99th percentile and maximum.
+	 **/
+	@Override
+	public String toString() {
+		return String.format("count=%d mean=%.1f p50=%d p99=%d max=%d",
+				getCount(), getMean(), getPercentile(50), getPercentile(99), getMax());
+	}
+}
@@ -0,0 +1,818 @@
+/**
+ * @file rexos/libraries/blackboard_client/MemoryBlackboardBackend.java
+ * @brief In-process blackboard backend keeping documents in memory, with synchronous change notification.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.bson.BSONObject;
+import org.bson.types.BSONTimestamp;
+import org.bson.types.ObjectId;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.util.JSON;
+import com.mongodb.util.JSONParseException;
+
+/**
+ * Blackboard backend that keeps all documents in the memory of the current process. Agents running in the same JVM
+ * that share an instance exchange documents without any network round trips, and tests can run without a MongoDB
+ * server.
+ * 
+ * Supported are equality conditions (on dotted fields as well, matching array elements like MongoDB does), the
+ * comparison operators $gt, $gte, $lt, $lte, $ne, $in, $nin and $exists, and $or and $and. Updates can use $set and
+ * $unset. Results can be sorted with $orderby, either wrapped around the query or passed separately.
+ * 
+ * Subscribers are notified synchronously: onMessage is called on the thread that made the change, after the change
+ * has been applied and before the write method returns. The entries carry the changed document, so
+ * {@link OplogEntry#getDocument()} never needs a read. Changes made concurrently by different threads may be
+ * delivered in a different order than they were applied.
+ * 
+ * Optionally every change is appended to a journal file, which is replayed when a backend is constructed for the same
+ * file. The journal is never compacted.
+ **/
+public class MemoryBlackboardBackend implements BlackboardBackend, Closeable {
+	/**
+	 * @var String ID_FIELD
+	 * Name of the field holding the id of a document.
+	 **/
+	private static final String ID_FIELD = "_id";
+	
+	/**
+	 * @var Object MISSING
+	 * Marks a field that does not exist in a document, as opposed to a field holding null.
+	 **/
+	private static final Object MISSING = new Object();
+	
+	/**
+	 * @var HashMap<String, LinkedHashMap<Object, BasicDBObject>> collections
+	 * The documents of every collection by their id, in insertion order, keyed by namespace.
+	 **/
+	private final HashMap<String, LinkedHashMap<Object, BasicDBObject>> collections;
+	
+	/**
+	 * @var HashMap<String, ArrayList<BlackboardSubscription>> subscriptions
+	 * The subscriptions of every collection, keyed by namespace.
+	 **/
+	private final HashMap<String, ArrayList<BlackboardSubscription>> subscriptions;
+	
+	/**
+	 * @var Writer journal
+	 * Writer appending changes to the journal file, or null if the backend is not persisted.
+	 **/
+	private Writer journal;
+	
+	/**
+	 * @var int timestampTime
+	 * The time in seconds of the last timestamp given to an entry.
+	 **/
+	private int timestampTime;
+	
+	/**
+	 * @var int timestampIncrement
+	 * The increment of the last timestamp given to an entry.
+	 **/
+	private int timestampIncrement;
+	
+	/**
+	 * Constructs an empty backend that is not persisted.
+	 **/
+	public MemoryBlackboardBackend() {
+		this.collections = new HashMap<String, LinkedHashMap<Object, BasicDBObject>>();
+		this.subscriptions = new HashMap<String, ArrayList<BlackboardSubscription>>();
+	}
+	
+	/**
+	 * Constructs a backend persisted in the given journal file. If the file exists, its changes are replayed first.
+	 * @param journalFile The file the changes are appended to.
+	 * @throws GeneralMongoException The journal could not be read or opened.
+	 **/
+	public MemoryBlackboardBackend(File journalFile) throws GeneralMongoException {
+		this();
+		if (journalFile.exists()) {
+			replay(journalFile);
+		}
+		try {
+			journal = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(journalFile, true), "UTF-8"));
+		} catch (IOException ex) {
+			throw new GeneralMongoException("An error occurred opening the journal " + journalFile + ".", ex);
+		}
+	}
+	
+	/**
+	 * Replays the changes in a journal file.
+	 * @param journalFile The journal file.
+	 * @throws GeneralMongoException The journal could not be read.
+	 **/
+	private void replay(File journalFile) throws GeneralMongoException {
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new InputStreamReader(new FileInputStream(journalFile), "UTF-8"));
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty()) {
+					continue;
+				}
+				DBObject record;
+				try {
+					record = (DBObject) JSON.parse(line);
+				} catch (JSONParseException ex) {
+					// A write that was interrupted halfway, nothing after it was applied.
+					rexos.libraries.log.Logger.log("Ignoring incomplete journal record in %s\n", journalFile);
+					break;
+				}
+				LinkedHashMap<Object, BasicDBObject> documents = getCollection((String) record.get(OplogEntry.NAMESPACE_FIELD));
+				DBObject document = (DBObject) record.get(OplogEntry.UPDATE_DOC_FIELD);
+				if (MongoOperation.get((String) record.get(OplogEntry.OPERATION_FIELD)) == MongoOperation.DELETE) {
+					documents.remove(document.get(ID_FIELD));
+				} else {
+					documents.put(document.get(ID_FIELD), DocumentCache.copyOf(document));
+				}
+			}
+		} catch (IOException ex) {
+			throw new GeneralMongoException("An error occurred reading the journal " + journalFile + ".", ex);
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (IOException ex) {
+					rexos.libraries.log.Logger.log(ex);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Closes the journal file. Changes made afterwards are no longer persisted.
+	 **/
+	@Override
+	public synchronized void close() {
+		if (journal != null) {
+			try {
+				journal.close();
+			} catch (IOException ex) {
+				rexos.libraries.log.Logger.log(ex);
+			}
+			journal = null;
+		}
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardBackend#insert(java.lang.String, com.mongodb.DBObject)
+	 **/
+	@Override
+	public void insert(String namespace, DBObject document) throws GeneralMongoException {
+		OplogEntry entry;
+		List<BlackboardSubscription> subscribers;
+		synchronized (this) {
+			if (document.get(ID_FIELD) == null) {
+				document.put(ID_FIELD, new ObjectId());
+			}
+			LinkedHashMap<Object, BasicDBObject> documents = getCollection(namespace);
+			Object id = document.get(ID_FIELD);
+			if (documents.containsKey(id)) {
+				throw new GeneralMongoException("A document with _id " + id + " already exists in " + namespace + ".", null);
+			}
+			
+			BasicDBObject stored = DocumentCache.copyOf(document);
+			writeJournal(MongoOperation.INSERT, namespace, Collections.singletonList(stored));
+			documents.put(id, stored);
+			
+			entry = createEntry(MongoOperation.INSERT, namespace, DocumentCache.copyOf(stored), null);
+			entry.setDocument(entry.getUpdateDocument());
+			subscribers = getSubscriptions(namespace);
+		}
+		notify(subscribers, Collections.singletonList(entry));
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardBackend#update(java.lang.String, com.mongodb.DBObject, com.mongodb.DBObject)
+	 **/
+	@Override
+	public int update(String namespace, DBObject searchQuery, DBObject updateQuery) throws GeneralMongoException {
+		if (!DocumentCache.isModifierDocument(updateQuery)) {
+			throw new GeneralMongoException("Only updates using $set and $unset are supported, not " + updateQuery + ".", null);
+		}
+		
+		ArrayList<OplogEntry> entries = new ArrayList<OplogEntry>();
+		List<BlackboardSubscription> subscribers;
+		synchronized (this) {
+			LinkedHashMap<Object, BasicDBObject> documents = getCollection(namespace);
+			ArrayList<BasicDBObject> updated = new ArrayList<BasicDBObject>();
+			for (BasicDBObject document : documents.values()) {
+				if (matches(searchQuery, document)) {
+					BasicDBObject copy = DocumentCache.copyOf(document);
+					if (!DocumentCache.applyModifiers(copy, updateQuery)) {
+						throw new GeneralMongoException("Only updates using $set and $unset are supported, not " + updateQuery + ".", null);
+					}
+					updated.add(copy);
+				}
+			}
+			
+			writeJournal(MongoOperation.UPDATE, namespace, updated);
+			for (BasicDBObject document : updated) {
+				Object id = document.get(ID_FIELD);
+				documents.put(id, document);
+				OplogEntry entry = createEntry(MongoOperation.UPDATE, namespace, DocumentCache.copyOf(updateQuery),
+						new BasicDBObject(ID_FIELD, id));
+				entry.setDocument(DocumentCache.copyOf(document));
+				entries.add(entry);
+			}
+			subscribers = getSubscriptions(namespace);
+		}
+		notify(subscribers, entries);
+		return entries.size();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardBackend#remove(java.lang.String, com.mongodb.DBObject)
+	 **/
+	@Override
+	public int remove(String namespace, DBObject query) throws GeneralMongoException {
+		ArrayList<OplogEntry> entries = new ArrayList<OplogEntry>();
+		List<BlackboardSubscription> subscribers;
+		synchronized (this) {
+			LinkedHashMap<Object, BasicDBObject> documents = getCollection(namespace);
+			ArrayList<BasicDBObject> removed = new ArrayList<BasicDBObject>();
+			for (BasicDBObject document : documents.values()) {
+				if (query == null || matches(query, document)) {
+					removed.add(new BasicDBObject(ID_FIELD, document.get(ID_FIELD)));
+				}
+			}
+			
+			writeJournal(MongoOperation.DELETE, namespace, removed);
+			for (BasicDBObject key : removed) {
+				documents.remove(key.get(ID_FIELD));
+				OplogEntry entry = createEntry(MongoOperation.DELETE, namespace, key, null);
+				entry.setDocument(null);
+				entries.add(entry);
+			}
+			subscribers = getSubscriptions(namespace);
+		}
+		notify(subscribers, entries);
+		return entries.size();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardBackend#find(java.lang.String, com.mongodb.DBObject, com.mongodb.DBObject, com.mongodb.DBObject, int, int)
+	 **/
+	@Override
+	public List<DBObject> find(String namespace, DBObject query, DBObject fields, DBObject orderBy, int skip, int limit)
+			throws GeneralMongoException {
+		if (query != null && query.containsField("$query")) {
+			if (orderBy == null) {
+				orderBy = (DBObject) query.get("$orderby");
+			}
+			query = (DBObject) query.get("$query");
+		}
+		
+		ArrayList<DBObject> found = new ArrayList<DBObject>();
+		synchronized (this) {
+			LinkedHashMap<Object, BasicDBObject> documents = collections.get(namespace);
+			if (documents != null) {
+				for (BasicDBObject document : documents.values()) {
+					if (query == null || matches(query, document)) {
+						found.add(document);
+					}
+				}
+			}
+			if (orderBy != null) {
+				Collections.sort(found, new DocumentComparator(orderBy));
+			}
+			
+			int end = limit > 0 ? Math.min(found.size(), skip + Math.abs(limit)) : found.size();
+			ArrayList<DBObject> results = new ArrayList<DBObject>(Math.max(0, end - skip));
+			for (int i = skip; i < end; i++) {
+				results.add(fields == null ? DocumentCache.copyOf(found.get(i)) : project(found.get(i), fields));
+			}
+			return results;
+		}
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardBackend#distinct(java.lang.String, java.lang.String, com.mongodb.DBObject)
+	 **/
+	@Override
+	public List<Object> distinct(String namespace, String field, DBObject query) throws GeneralMongoException {
+		ArrayList<Object> values = new ArrayList<Object>();
+		for (DBObject document : find(namespace, query, null, null, 0, 0)) {
+			Object value = getField(document, field);
+			List<?> candidates = value instanceof List ? (List<?>) value : Collections.singletonList(value);
+			for (Object candidate : candidates) {
+				if (candidate != MISSING && !containsValue(values, candidate)) {
+					values.add(candidate);
+				}
+			}
+		}
+		return values;
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardBackend#subscribe(java.lang.String, rexos.libraries.blackboard_client.BlackboardSubscription)
+	 **/
+	@Override
+	public synchronized void subscribe(String namespace, BlackboardSubscription subscription) {
+		ArrayList<BlackboardSubscription> namespaceSubscriptions = subscriptions.get(namespace);
+		if (namespaceSubscriptions == null) {
+			namespaceSubscriptions = new ArrayList<BlackboardSubscription>();
+			subscriptions.put(namespace, namespaceSubscriptions);
+		}
+		namespaceSubscriptions.add(subscription);
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.BlackboardBackend#unsubscribe(java.lang.String, rexos.libraries.blackboard_client.BlackboardSubscription)
+	 **/
+	@Override
+	public synchronized void unsubscribe(String namespace, BlackboardSubscription subscription) {
+		ArrayList<BlackboardSubscription> namespaceSubscriptions = subscriptions.get(namespace);
+		if (namespaceSubscriptions != null) {
+			// Subscriptions are equal when their subscribers are, so compare identities.
+			Iterator<BlackboardSubscription> it = namespaceSubscriptions.iterator();
+			while (it.hasNext()) {
+				if (it.next() == subscription) {
+					it.remove();
+					break;
+				}
+			}
+			if (namespaceSubscriptions.isEmpty()) {
+				subscriptions.remove(namespace);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the documents of a collection, creating the collection if it does not exist.
+	 * @param namespace The namespace of the collection.
+	 * @return The documents of the collection by their id.
+	 **/
+	private LinkedHashMap<Object, BasicDBObject> getCollection(String namespace) {
+		LinkedHashMap<Object, BasicDBObject> documents = collections.get(namespace);
+		if (documents == null) {
+			documents = new LinkedHashMap<Object, BasicDBObject>();
+			collections.put(namespace, documents);
+		}
+		return documents;
+	}
+	
+	/**
+	 * Returns a copy of the subscriptions of a collection, to be notified after the lock has been released.
+	 * @param namespace The namespace of the collection.
+	 * @return The subscriptions of the collection.
+	 **/
+	private List<BlackboardSubscription> getSubscriptions(String namespace) {
+		ArrayList<BlackboardSubscription> namespaceSubscriptions = subscriptions.get(namespace);
+		if (namespaceSubscriptions == null) {
+			return Collections.emptyList();
+		}
+		return new ArrayList<BlackboardSubscription>(namespaceSubscriptions);
+	}
+	
+	/**
+	 * Creates an entry shaped like an entry of the MongoDB oplog.
+	 * @param operation The operation.
+	 * @param namespace The namespace of the collection.
+	 * @param document The inserted document, update query or id of the removed document.
+	 * @param criteria The id of the updated document, null for other operations.
+	 * @return The entry.
+	 **/
+	private OplogEntry createEntry(MongoOperation operation, String namespace, DBObject document, DBObject criteria) {
+		int now = (int) (System.currentTimeMillis() / 1000);
+		if (now == timestampTime) {
+			++timestampIncrement;
+		} else {
+			timestampTime = now;
+			timestampIncrement = 1;
+		}
+		
+		BasicDBObject entry = new BasicDBObject(OplogEntry.TIMESTAMP_FIELD, new BSONTimestamp(timestampTime, timestampIncrement))
+				.append(OplogEntry.OPERATION_FIELD, operation.getOpCode())
+				.append(OplogEntry.NAMESPACE_FIELD, namespace)
+				.append(OplogEntry.UPDATE_DOC_FIELD, document);
+		if (criteria != null) {
+			entry.append(OplogEntry.UPDATE_CRITERIA_FIELD, criteria);
+		}
+		return new OplogEntry(entry);
+	}
+	
+	/**
+	 * Delivers entries to the subscriptions they match, on the calling thread.
+	 * @param subscribers The subscriptions of the collection the entries belong to.
+	 * @param entries The entries.
+	 **/
+	private static void notify(List<BlackboardSubscription> subscribers, List<OplogEntry> entries) {
+		if (subscribers.isEmpty()) {
+			return;
+		}
+		for (OplogEntry entry : entries) {
+			for (BlackboardSubscription subscription : subscribers) {
+				if (!subscription.matchesWithEntry(entry)) {
+					continue;
+				}
+				try {
+					subscription.getSubscriber().onMessage(entry.getOperation(), entry);
+				} catch (RuntimeException ex) {
+					rexos.libraries.log.Logger.log("%s thrown by subscriber callback:\n%s\n", ex.getClass().getName(), ex.getMessage());
+					rexos.libraries.log.Logger.log(ex);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Appends changed documents to the journal, if the backend is persisted.
+	 * @param operation The operation applied to the documents.
+	 * @param namespace The namespace of the collection.
+	 * @param documents The complete documents after an insert or update, the ids of removed documents.
+	 * @throws GeneralMongoException The journal could not be written; the change has not been applied.
+	 **/
+	private void writeJournal(MongoOperation operation, String namespace, List<BasicDBObject> documents)
+			throws GeneralMongoException {
+		if (journal == null || documents.isEmpty()) {
+			return;
+		}
+		try {
+			for (BasicDBObject document : documents) {
+				BasicDBObject record = new BasicDBObject(OplogEntry.OPERATION_FIELD, operation.getOpCode())
+						.append(OplogEntry.NAMESPACE_FIELD, namespace)
+						.append(OplogEntry.UPDATE_DOC_FIELD, document);
+				journal.write(JSON.serialize(record));
+				journal.write('\n');
+			}
+			journal.flush();
+		} catch (IOException ex) {
+			throw new GeneralMongoException("An error occurred writing to the journal.", ex);
+		}
+	}
+	
+	/**
+	 * Returns whether or not a document matches a query.
+	 * @param query The query.
+	 * @param document The document.
+	 * @return true if the document matches the query.
+	 * @throws GeneralMongoException The query uses an unsupported operator.
+	 **/
+	static boolean matches(DBObject query, DBObject document) throws GeneralMongoException {
+		for (String key : query.keySet()) {
+			Object condition = query.get(key);
+			if (key.equals("$or") || key.equals("$and")) {
+				if (!(condition instanceof List)) {
+					throw new GeneralMongoException(key + " requires an array.", null);
+				}
+				boolean any = false;
+				boolean all = true;
+				for (Object clause : (List<?>) condition) {
+					boolean clauseMatches = matches((DBObject) clause, document);
+					any |= clauseMatches;
+					all &= clauseMatches;
+				}
+				if (key.equals("$or") ? !any : !all) {
+					return false;
+				}
+			} else if (key.startsWith("$")) {
+				throw new GeneralMongoException("Unsupported query operator " + key + ".", null);
+			} else if (!matchesCondition(getField(document, key), condition)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Returns whether or not the value of a field satisfies the condition for that field in a query.
+	 * @param value The value of the field, or MISSING.
+	 * @param condition An operator document such as { $gt : 5 }, or a value the field should equal.
+	 * @return true if the value satisfies the condition.
+	 * @throws GeneralMongoException The condition uses an unsupported operator.
+	 **/
+	private static boolean matchesCondition(Object value, Object condition) throws GeneralMongoException {
+		if (!isOperatorDocument(condition)) {
+			return anyMatches(value, "$eq", condition);
+		}
+		DBObject operators = (DBObject) condition;
+		for (String operator : operators.keySet()) {
+			Object operand = operators.get(operator);
+			boolean satisfied;
+			if (operator.equals("$exists")) {
+				satisfied = (value != MISSING) == Boolean.TRUE.equals(operand);
+			} else if (operator.equals("$ne")) {
+				satisfied = !anyMatches(value, "$eq", operand);
+			} else if (operator.equals("$nin")) {
+				satisfied = !anyMatches(value, "$in", operand);
+			} else if (operator.equals("$gt") || operator.equals("$gte") || operator.equals("$lt")
+					|| operator.equals("$lte") || operator.equals("$in")) {
+				satisfied = anyMatches(value, operator, operand);
+			} else {
+				throw new GeneralMongoException("Unsupported query operator " + operator + ".", null);
+			}
+			if (!satisfied) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Applies a comparison to a value, or to each element if the value is an array. Like MongoDB, an array matches if
+	 * the array itself or any of its elements does.
+	 * @param value The value of the field, or MISSING.
+	 * @param operator $eq, $gt, $gte, $lt, $lte or $in.
+	 * @param operand The operand of the comparison.
+	 * @return true if the value or one of its elements satisfies the comparison.
+	 **/
+	private static boolean anyMatches(Object value, String operator, Object operand) {
+		if (compare(value, operator, operand)) {
+			return true;
+		}
+		if (value instanceof List) {
+			for (Object element : (List<?>) value) {
+				if (compare(element, operator, operand)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Applies a comparison to a single value. Ordering comparisons only match values of the same type.
+	 * @param value The value, or MISSING.
+	 * @param operator $eq, $gt, $gte, $lt, $lte or $in.
+	 * @param operand The operand of the comparison.
+	 * @return true if the value satisfies the comparison.
+	 **/
+	private static boolean compare(Object value, String operator, Object operand) {
+		if (operator.equals("$in")) {
+			if (operand instanceof List) {
+				for (Object option : (List<?>) operand) {
+					if (compare(value, "$eq", option)) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+		if (operator.equals("$eq")) {
+			return valueEquals(operand, value == MISSING ? null : value);
+		}
+		if (value == MISSING || value == null || operand == null || getTypeOrder(value) != getTypeOrder(operand)) {
+			return false;
+		}
+		int comparison = compareValues(value, operand);
+		if (operator.equals("$gt")) {
+			return comparison > 0;
+		} else if (operator.equals("$gte")) {
+			return comparison >= 0;
+		} else if (operator.equals("$lt")) {
+			return comparison < 0;
+		}
+		return comparison <= 0;
+	}
+	
+	/**
+	 * Returns the position of the type of a value in the MongoDB sort order.
+	 * @param value The value.
+	 * @return A number that is lower for types that sort first.
+	 **/
+	private static int getTypeOrder(Object value) {
+		if (value == null || value == MISSING) {
+			return 0;
+		} else if (value instanceof Number) {
+			return 1;
+		} else if (value instanceof String) {
+			return 2;
+		} else if (value instanceof List) {
+			return 4;
+		} else if (value instanceof BSONObject) {
+			return 3;
+		} else if (value instanceof ObjectId) {
+			return 5;
+		} else if (value instanceof Boolean) {
+			return 6;
+		} else if (value instanceof Date) {
+			return 7;
+		}
+		return 8;
+	}
+	
+	/**
+	 * Compares two values following the MongoDB sort order. Documents and arrays are considered equal to each other.
+	 * @param first The first value.
+	 * @param second The second value.
+	 * @return A negative number, zero or a positive number if the first value sorts before, together with or after the
+	 * second value.
+	 **/
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static int compareValues(Object first, Object second) {
+		int firstOrder = getTypeOrder(first);
+		int secondOrder = getTypeOrder(second);
+		if (firstOrder != secondOrder) {
+			return firstOrder < secondOrder ? -1 : 1;
+		}
+		if (first instanceof Number) {
+			return Double.compare(((Number) first).doubleValue(), ((Number) second).doubleValue());
+		} else if (first instanceof Comparable && first.getClass() == second.getClass()) {
+			return ((Comparable) first).compareTo(second);
+		}
+		return 0;
+	}
+	
+	/**
+	 * Returns whether or not a value is an operator document such as { $gt : 5 }.
+	 * @param value The value.
+	 * @return true if the value is a document of which the first key is an operator.
+	 **/
+	private static boolean isOperatorDocument(Object value) {
+		if (!(value instanceof DBObject) || value instanceof List) {
+			return false;
+		}
+		Iterator<String> keys = ((DBObject) value).keySet().iterator();
+		return keys.hasNext() && keys.next().startsWith("$");
+	}
+	
+	/**
+	 * Returns the value of a possibly dotted field.
+	 * @param document The document.
+	 * @param path The name of the field, e.g. "scheduleData.startTime".
+	 * @return The value of the field, or MISSING if the field does not exist.
+	 **/
+	private static Object getField(BSONObject document, String path) {
+		Object value = document;
+		for (String part : path.split("\\.")) {
+			if (!(value instanceof BSONObject) || value instanceof List || !((BSONObject) value).containsField(part)) {
+				return MISSING;
+			}
+			value = ((BSONObject) value).get(part);
+		}
+		return value;
+	}
+	
+	/**
+	 * Returns whether or not two values are equal in the sense of a MongoDB equality query.
+	 * @param expected The value from the query.
+	 * @param actual The value from the document.
+	 * @return true if the values are equal.
+	 **/
+	private static boolean valueEquals(Object expected, Object actual) {
+		if (expected instanceof Number && actual instanceof Number) {
+			return ((Number) expected).doubleValue() == ((Number) actual).doubleValue();
+		}
+		return expected == null ? actual == null : expected.equals(actual);
+	}
+	
+	/**
+	 * Returns whether or not a list contains a value, comparing numbers by value.
+	 * @param values The list.
+	 * @param value The value.
+	 * @return true if the list contains the value.
+	 **/
+	private static boolean containsValue(List<Object> values, Object value) {
+		for (Object candidate : values) {
+			if (valueEquals(candidate, value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Returns a copy of a document restricted to the fields of a projection. The _id is included unless excluded.
+	 * @param document The document.
+	 * @param fields The projection, e.g. { "scheduleData.startTime" : 1 } or { "log" : 0 }.
+	 * @return The projected copy.
+	 **/
+	private static DBObject project(DBObject document, DBObject fields) {
+		boolean inclusive = false;
+		for (String field : fields.keySet()) {
+			if (!field.equals(ID_FIELD) && isTrue(fields.get(field))) {
+				inclusive = true;
+			}
+		}
+		
+		BasicDBObject result;
+		if (inclusive) {
+			result = new BasicDBObject();
+			if (!fields.containsField(ID_FIELD) || isTrue(fields.get(ID_FIELD))) {
+				result.put(ID_FIELD, document.get(ID_FIELD));
+			}
+			for (String field : fields.keySet()) {
+				Object value = getField(document, field);
+				if (!field.equals(ID_FIELD) && value != MISSING) {
+					DBObject parent = result;
+					String[] parts = field.split("\\.");
+					for (int i = 0; i < parts.length - 1; i++) {
+						Object child = parent.get(parts[i]);
+						if (!(child instanceof DBObject)) {
+							child = new BasicDBObject();
+							parent.put(parts[i], child);
+						}
+						parent = (DBObject) child;
+					}
+					parent.put(parts[parts.length - 1], DocumentCache.copyValue(value));
+				}
+			}
+		} else {
+			result = DocumentCache.copyOf(document);
+			for (String field : fields.keySet()) {
+				DBObject parent = result;
+				String[] parts = field.split("\\.");
+				for (int i = 0; i < parts.length - 1 && parent != null; i++) {
+					Object child = parent.get(parts[i]);
+					parent = child instanceof DBObject ? (DBObject) child : null;
+				}
+				if (parent != null) {
+					parent.removeField(parts[parts.length - 1]);
+				}
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns whether or not a projection value includes its field.
+	 * @param value The projection value, e.g. 1 or true.
+	 * @return true if the field is included.
+	 **/
+	private static boolean isTrue(Object value) {
+		return value instanceof Number ? ((Number) value).doubleValue() != 0 : Boolean.TRUE.equals(value);
+	}
+	
+	/**
+	 * Orders documents according to a $orderby document such as { "scheduleData.startTime" : 1 }.
+	 **/
+	private static class DocumentComparator implements Comparator<DBObject> {
+		/**
+		 * @var DBObject orderBy
+		 * The sort keys and their directions.
+		 **/
+		private final DBObject orderBy;
+		
+		/**
+		 * Constructs a comparator for the given sort order.
+		 * @param orderBy The sort keys and their directions, 1 for ascending and -1 for descending.
+		 **/
+		DocumentComparator(DBObject orderBy) {
+			this.orderBy = orderBy;
+		}
+		
+		/**
+		 * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
+		 **/
+		@Override
+		public int compare(DBObject first, DBObject second) {
+			for (String field : orderBy.keySet()) {
+				Object direction = orderBy.get(field);
+				boolean descending = direction instanceof Number
+						? ((Number) direction).intValue() < 0 : "-1".equals(String.valueOf(direction));
+				int comparison = compareValues(getField(first, field), getField(second, field));
+				if (comparison != 0) {
+					return descending ? -comparison : comparison;
+				}
+			}
+			return 0;
+		}
+	}
+}
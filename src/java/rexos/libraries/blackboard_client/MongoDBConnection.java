@@ -30,29 +30,78 @@
 
 package rexos.libraries.blackboard_client;
 
-import java.util.Hashtable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.management.ObjectName;
+
+import com.mongodb.DB;
+import com.mongodb.DBPortPool;
 import com.mongodb.Mongo;
 import com.mongodb.MongoException;
+import com.mongodb.MongoOptions;
+import com.mongodb.ReadPreference;
 import com.mongodb.ServerAddress;
 import com.mongodb.WriteConcern;
 
 /**
  * Helper class for managing Mongo connections.
+ * 
+ * There is a single connection, with a single connection pool, per server address or replica set seed list in the
+ * process. A connection to a replica set sends writes to the primary and reads according to the read preference of
+ * the operation, see {@link BlackboardClient#setReadPreference(String, com.mongodb.ReadPreference)}. The pool is
+ * configured with the options set through {@link #setDefaultOptions(MongoOptions)} or, if none have been set, the
+ * properties file named by the BLACKBOARD_PROPERTIES environment variable. The following properties are read, all of
+ * them optional: connectionsPerHost, threadsAllowedToBlockForConnectionMultiplier, maxWaitTime (ms),
+ * connectTimeout (ms), socketTimeout (ms), socketKeepAlive and autoConnectRetry. The statistics of each pool are
+ * available through the getters and through JMX. The pool sizes come from the driver, the amount of waiting threads
+ * and the time spent waiting are measured by the clients, which bind a connection through
+ * {@link #acquireConnection(DB, ReadPreference)} before every operation.
  **/
-public class MongoDBConnection {
+public class MongoDBConnection implements MongoDBConnectionMBean {
 	/**
-	 * @var Hashtable<ServerAddress, MongoDBConnection> databaseConnections
-	 * Hashmap storing the active Mongo connection for each host.
+	 * @var String PROPERTIES_ENVIRONMENT_VARIABLE
+	 * The environment variable that holds the path to the properties file with the pool configuration.
 	 **/
-	private static Hashtable<ServerAddress, MongoDBConnection> databaseConnections;
+	private static final String PROPERTIES_ENVIRONMENT_VARIABLE = "BLACKBOARD_PROPERTIES";
 	
 	/**
-	 * Initializes the databaseConnections Hashtable.
+	 * @var int ASYNC_THREAD_COUNT
+	 * The amount of threads executing the asynchronous operations of the clients using a connection.
 	 **/
-	static {
-		databaseConnections = new Hashtable<>();
-	}
+	private static final int ASYNC_THREAD_COUNT = 4;
+	
+	/**
+	 * @var int ASYNC_QUEUE_CAPACITY
+	 * The maximum amount of asynchronous operations waiting for a thread. When full, the submitting thread executes
+	 * the operation itself.
+	 **/
+	private static final int ASYNC_QUEUE_CAPACITY = 256;
+	
+	/**
+	 * @var ConcurrentHashMap<List<ServerAddress>, MongoDBConnection> databaseConnections
+	 * Map storing the active Mongo connection for each host or seed list.
+	 **/
+	private static final ConcurrentHashMap<List<ServerAddress>, MongoDBConnection> databaseConnections =
+			new ConcurrentHashMap<List<ServerAddress>, MongoDBConnection>();
+	
+	/**
+	 * @var MongoOptions defaultOptions
+	 * The options used for new connections, or null if they have not been loaded yet.
+	 **/
+	private static MongoOptions defaultOptions;
 	
 	/**
 	 * @var Mongo mongoClient
@@ -62,37 +111,179 @@ public class MongoDBConnection {
 	
 	/**
 	 * @var ServerAddress address
-	 * The host address to which this client is connected.
+	 * The host address to which this client is connected, or the first seed of the replica set.
 	 **/
 	private ServerAddress address;
 	
 	/**
-	 * Creates a new Mongo client for the specified address.
-	 * @param address The ServerAddress where the host resides.
+	 * @var List<ServerAddress> seeds
+	 * The seed list of the replica set, or a list holding only the address when connected to a single server.
+	 **/
+	private List<ServerAddress> seeds;
+	
+	/**
+	 * @var OplogMultiplexer oplogMultiplexer
+	 * The multiplexer sharing a single tailed oplog cursor between all clients using this connection.
+	 **/
+	private OplogMultiplexer oplogMultiplexer;
+	
+	/**
+	 * @var ThreadPoolExecutor asyncExecutor
+	 * The executor for asynchronous operations, created when it is first needed.
+	 **/
+	private ThreadPoolExecutor asyncExecutor;
+	
+	/**
+	 * @var AtomicInteger waitingThreads
+	 * The amount of threads currently waiting in {@link #acquireConnection(DB, ReadPreference)}.
+	 **/
+	private final AtomicInteger waitingThreads = new AtomicInteger();
+	
+	/**
+	 * @var LatencyHistogram connectionWait
+	 * The time in microseconds the clients waited for a connection of the pool.
+	 **/
+	private final LatencyHistogram connectionWait = new LatencyHistogram();
+	
+	/**
+	 * Creates a new Mongo client for the specified seed list. A single address is connected to directly, more
+	 * addresses are treated as the members of a replica set.
+	 * @param seeds The addresses of the server or the replica set members.
+	 * @param options The options configuring the connection pool.
 	 * @throws GeneralMongoException Connecting to the database server failed.
 	 **/
-	private MongoDBConnection(ServerAddress address) throws GeneralMongoException {
+	private MongoDBConnection(List<ServerAddress> seeds, MongoOptions options) throws GeneralMongoException {
 		try {
-			mongoClient = new Mongo(address);
+			if (seeds.size() == 1) {
+				mongoClient = new Mongo(seeds.get(0), options);
+			} else {
+				mongoClient = new Mongo(seeds, options);
+			}
 			mongoClient.setWriteConcern(WriteConcern.SAFE);
 		} catch (MongoException mongoException) {
 			throw new GeneralMongoException("A mongo exception occurred while connecting.", mongoException);
 		}
-		this.address = address;
+		this.address = seeds.get(0);
+		this.seeds = seeds;
+		this.oplogMultiplexer = new OplogMultiplexer(mongoClient);
 	}
 	
 	/**
-	 * Returns a {@link MongoDBConnection} instance for the specified host.
+	 * Returns a {@link MongoDBConnection} instance for the specified host. Concurrent calls for the same host always
+	 * return the same instance.
 	 * @param address The ServerAddress where the host resides.
 	 * @return A {@link MongoDBConnection} instance for the specified host.
-	 * @throws MongoConnectionException Connecting to the database server failed.
+	 * @throws GeneralMongoException Connecting to the database server failed or the pool configuration is invalid.
 	 **/
 	public static MongoDBConnection getInstanceForHost(ServerAddress address) throws GeneralMongoException {
-		if (!databaseConnections.containsKey(address)) {
-			databaseConnections.put(address, new MongoDBConnection(address));
+		return getInstance(Collections.singletonList(address));
+	}
+	
+	/**
+	 * Returns a {@link MongoDBConnection} instance for the replica set with the specified seed list. The seeds do not
+	 * have to include every member, the driver discovers the others. Concurrent calls for the same seed list always
+	 * return the same instance.
+	 * @param seeds The addresses of one or more members of the replica set.
+	 * @return A {@link MongoDBConnection} instance for the replica set.
+	 * @throws GeneralMongoException Connecting to the replica set failed or the pool configuration is invalid.
+	 **/
+	public static MongoDBConnection getInstanceForReplicaSet(List<ServerAddress> seeds) throws GeneralMongoException {
+		if (seeds.isEmpty()) {
+			throw new GeneralMongoException("The seed list of the replica set is empty.", null);
+		}
+		return getInstance(Collections.unmodifiableList(new ArrayList<ServerAddress>(seeds)));
+	}
+	
+	/**
+	 * Returns the instance for the specified seed list, creating it if it does not exist yet.
+	 * @param seeds The addresses of the server or the replica set members, which will not be modified.
+	 * @return The {@link MongoDBConnection} instance for the seed list.
+	 * @throws GeneralMongoException Connecting failed or the pool configuration is invalid.
+	 **/
+	private static MongoDBConnection getInstance(List<ServerAddress> seeds) throws GeneralMongoException {
+		MongoDBConnection connection = databaseConnections.get(seeds);
+		if (connection != null) {
+			return connection;
 		}
 		
-		return databaseConnections.get(address);
+		synchronized (databaseConnections) {
+			connection = databaseConnections.get(seeds);
+			if (connection == null) {
+				connection = new MongoDBConnection(seeds, getDefaultOptions());
+				databaseConnections.put(seeds, connection);
+				BlackboardClientMetrics.registerBean(connection, connection.getObjectName());
+			}
+			return connection;
+		}
+	}
+	
+	/**
+	 * Sets the options used for connections created from now on, replacing those from the properties file.
+	 * Should be called before the first client is created.
+	 * @param options The options configuring the connection pool and timeouts.
+	 **/
+	public static void setDefaultOptions(MongoOptions options) {
+		synchronized (databaseConnections) {
+			defaultOptions = options.copy();
+		}
+	}
+	
+	/**
+	 * Returns the options used for new connections, loading them from the properties file on first use.
+	 * @return The options used for new connections.
+	 * @throws GeneralMongoException The properties file could not be read or contains an invalid value.
+	 **/
+	private static MongoOptions getDefaultOptions() throws GeneralMongoException {
+		synchronized (databaseConnections) {
+			if (defaultOptions == null) {
+				defaultOptions = loadOptions(System.getenv(PROPERTIES_ENVIRONMENT_VARIABLE));
+			}
+			return defaultOptions.copy();
+		}
+	}
+	
+	/**
+	 * Reads connection options from a properties file. Options missing from the file keep the driver defaults.
+	 * @param propertyFilePath The path to the properties file, or null to use the driver defaults.
+	 * @return The connection options.
+	 * @throws GeneralMongoException The file could not be read or contains an invalid value.
+	 **/
+	private static MongoOptions loadOptions(String propertyFilePath) throws GeneralMongoException {
+		MongoOptions options = new MongoOptions();
+		if (propertyFilePath == null) {
+			return options;
+		}
+		
+		Properties properties = new Properties();
+		try {
+			InputStream in = new FileInputStream(propertyFilePath);
+			try {
+				properties.load(in);
+			} finally {
+				in.close();
+			}
+			
+			options.connectionsPerHost = Integer.parseInt(properties.getProperty("connectionsPerHost",
+					String.valueOf(options.connectionsPerHost)));
+			options.threadsAllowedToBlockForConnectionMultiplier = Integer.parseInt(properties.getProperty(
+					"threadsAllowedToBlockForConnectionMultiplier",
+					String.valueOf(options.threadsAllowedToBlockForConnectionMultiplier)));
+			options.maxWaitTime = Integer.parseInt(properties.getProperty("maxWaitTime",
+					String.valueOf(options.maxWaitTime)));
+			options.connectTimeout = Integer.parseInt(properties.getProperty("connectTimeout",
+					String.valueOf(options.connectTimeout)));
+			options.socketTimeout = Integer.parseInt(properties.getProperty("socketTimeout",
+					String.valueOf(options.socketTimeout)));
+			options.socketKeepAlive = Boolean.parseBoolean(properties.getProperty("socketKeepAlive",
+					String.valueOf(options.socketKeepAlive)));
+			options.autoConnectRetry = Boolean.parseBoolean(properties.getProperty("autoConnectRetry",
+					String.valueOf(options.autoConnectRetry)));
+		} catch (IOException ex) {
+			throw new GeneralMongoException("Failed to read the blackboard properties file " + propertyFilePath + ".", ex);
+		} catch (NumberFormatException ex) {
+			throw new GeneralMongoException("Invalid number in the blackboard properties file " + propertyFilePath + ".", ex);
+		}
+		return options;
 	}
 	
 	/**
@@ -105,9 +296,217 @@ public class MongoDBConnection {
 	
 	/**
 	 * Returns the ServerAddress for this connection.
-	 * @return The ServerAddress for this connection.
+	 * @return The ServerAddress for this connection, or the first seed when connected to a replica set.
 	 **/
 	public ServerAddress getServerAddress() {
 		return address;
 	}
+	
+	/**
+	 * Returns the seed list of this connection.
+	 * @return The seed list of the replica set, or a list holding only the server address.
+	 **/
+	public List<ServerAddress> getSeeds() {
+		return seeds;
+	}
+	
+	/**
+	 * Returns the oplog multiplexer for this connection.
+	 * @return The oplog multiplexer for this connection.
+	 **/
+	OplogMultiplexer getOplogMultiplexer() {
+		return oplogMultiplexer;
+	}
+	
+	/**
+	 * Returns the bounded executor running the asynchronous operations of the clients using this connection.
+	 * @return The executor for asynchronous operations.
+	 **/
+	synchronized Executor getAsyncExecutor() {
+		if (asyncExecutor == null) {
+			asyncExecutor = new ThreadPoolExecutor(ASYNC_THREAD_COUNT, ASYNC_THREAD_COUNT, 0, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<Runnable>(ASYNC_QUEUE_CAPACITY), new ThreadFactory() {
+						@Override
+						public Thread newThread(Runnable runnable) {
+							Thread thread = new Thread(runnable, "BlackboardIO-" + address);
+							thread.setDaemon(true);
+							return thread;
+						}
+					}, new ThreadPoolExecutor.CallerRunsPolicy());
+		}
+		return asyncExecutor;
+	}
+	
+	/**
+	 * Binds a connection of the pool to the calling thread for the next operations on the database, recording how
+	 * long the thread had to wait for it. Has to be followed by {@link #releaseConnection(DB)}, also when the
+	 * operation fails. Reads with a read preference other than primary are not bound, because the driver would send
+	 * them to the bound connection of the primary; the driver selects their connection itself.
+	 * @param db The database the operations are performed on.
+	 * @param readPreference The read preference of the operation, or null for the primary.
+	 * @throws MongoException No connection became available within the maximum wait time.
+	 **/
+	void acquireConnection(DB db, ReadPreference readPreference) {
+		if (readPreference != null && readPreference.isSlaveOk()) {
+			return;
+		}
+		db.requestStart();
+		waitingThreads.incrementAndGet();
+		long start = System.nanoTime();
+		try {
+			db.requestEnsureConnection();
+		} catch (RuntimeException ex) {
+			db.requestDone();
+			throw ex;
+		} finally {
+			waitingThreads.decrementAndGet();
+			connectionWait.record((System.nanoTime() - start) / 1000);
+		}
+	}
+	
+	/**
+	 * Returns the connection bound by {@link #acquireConnection(DB, ReadPreference)} to the pool.
+	 * Does nothing if no connection is bound.
+	 * @param db The database the operations were performed on.
+	 **/
+	void releaseConnection(DB db) {
+		db.requestDone();
+	}
+	
+	/**
+	 * Returns the time the clients waited for a connection of the pool.
+	 * @return The histogram of the wait times in microseconds.
+	 **/
+	public LatencyHistogram getConnectionWaitHistogram() {
+		return connectionWait;
+	}
+	
+	/**
+	 * Returns the JMX name of this connection.
+	 * @return The name of the connection bean.
+	 **/
+	private String getObjectName() {
+		return BlackboardClientMetrics.JMX_DOMAIN + ":type=MongoDBConnection,name=" + ObjectName.quote(getAddress());
+	}
+	
+	/**
+	 * Returns the connection pool of the driver for the server, or for the current primary of a replica set.
+	 * @return The connection pool.
+	 **/
+	private DBPortPool getPool() {
+		ServerAddress primary = seeds.size() > 1 ? mongoClient.getAddress() : null;
+		return mongoClient.getConnector().getDBPortPool(primary != null ? primary : address);
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.MongoDBConnectionMBean#getAddress()
+	 **/
+	@Override
+	public String getAddress() {
+		StringBuilder builder = new StringBuilder();
+		for (ServerAddress seed : seeds) {
+			if (builder.length() > 0) {
+				builder.append(',');
+			}
+			builder.append(seed.getHost()).append(':').append(seed.getPort());
+		}
+		return builder.toString();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.MongoDBConnectionMBean#getMaxConnections()
+	 **/
+	@Override
+	public int getMaxConnections() {
+		return mongoClient.getMongoOptions().connectionsPerHost;
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.MongoDBConnectionMBean#getMaxWaitingThreads()
+	 **/
+	@Override
+	public int getMaxWaitingThreads() {
+		MongoOptions options = mongoClient.getMongoOptions();
+		return options.connectionsPerHost * options.threadsAllowedToBlockForConnectionMultiplier;
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.MongoDBConnectionMBean#getConnectionsTotal()
+	 **/
+	@Override
+	public int getConnectionsTotal() {
+		return getPool().getTotal();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.MongoDBConnectionMBean#getConnectionsInUse()
+	 **/
+	@Override
+	public int getConnectionsInUse() {
+		return getPool().getInUse();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.MongoDBConnectionMBean#getConnectionsAvailable()
+	 **/
+	@Override
+	public int getConnectionsAvailable() {
+		return getPool().getAvailable();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.MongoDBConnectionMBean#getWaitingThreads()
+	 **/
+	@Override
+	public int getWaitingThreads() {
+		return waitingThreads.get();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.MongoDBConnectionMBean#getConnectionWaitMeanMicros()
+	 **/
+	@Override
+	public double getConnectionWaitMeanMicros() {
+		return connectionWait.getMean();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.MongoDBConnectionMBean#getConnectionWait99thPercentileMicros()
+	 **/
+	@Override
+	public long getConnectionWait99thPercentileMicros() {
+		return connectionWait.getPercentile(99);
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.MongoDBConnectionMBean#getConnectionWaitMaxMicros()
+	 **/
+	@Override
+	public long getConnectionWaitMaxMicros() {
+		return connectionWait.getMax();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.MongoDBConnectionMBean#isOpen()
+	 **/
+	@Override
+	public boolean isOpen() {
+		return mongoClient.getConnector().isOpen();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.MongoDBConnectionMBean#ping()
+	 **/
+	@Override
+	public long ping() {
+		long start = System.currentTimeMillis();
+		try {
+			if (!mongoClient.getDB("admin").command("ping").ok()) {
+				return -1;
+			}
+		} catch (MongoException ex) {
+			return -1;
+		}
+		return System.currentTimeMillis() - start;
+	}
 }
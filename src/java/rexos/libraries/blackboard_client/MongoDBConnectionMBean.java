@@ -0,0 +1,107 @@
+/**
+ * @file rexos/libraries/blackboard_client/MongoDBConnectionMBean.java
+ * @brief JMX interface exposing the connection pool statistics of a MongoDBConnection.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+/**
+ * Management interface of {@link MongoDBConnection}.
+ **/
+public interface MongoDBConnectionMBean {
+	/**
+	 * Returns the address of the server.
+	 * @return The host and port of the server, or of every seed of a replica set separated by commas.
+	 **/
+	public String getAddress();
+	
+	/**
+	 * Returns the maximum amount of connections in the pool.
+	 * @return The maximum pool size.
+	 **/
+	public int getMaxConnections();
+	
+	/**
+	 * Returns the maximum amount of threads that may wait for a connection before the driver starts refusing them.
+	 * @return The maximum amount of waiting threads.
+	 **/
+	public int getMaxWaitingThreads();
+	
+	/**
+	 * Returns the amount of connections that are currently open.
+	 * @return The amount of open connections.
+	 **/
+	public int getConnectionsTotal();
+	
+	/**
+	 * Returns the amount of connections that are currently used by a thread.
+	 * @return The amount of connections in use.
+	 **/
+	public int getConnectionsInUse();
+	
+	/**
+	 * Returns the amount of open connections that are currently idle.
+	 * @return The amount of idle connections.
+	 **/
+	public int getConnectionsAvailable();
+	
+	/**
+	 * Returns the amount of client threads currently waiting for a connection because all connections are in use.
+	 * @return The amount of waiting threads.
+	 **/
+	public int getWaitingThreads();
+	
+	/**
+	 * Returns the mean time the clients waited for a connection.
+	 * @return The mean wait time in microseconds.
+	 **/
+	public double getConnectionWaitMeanMicros();
+	
+	/**
+	 * Returns the approximate 99th percentile of the time the clients waited for a connection.
+	 * @return The 99th percentile of the wait time in microseconds.
+	 **/
+	public long getConnectionWait99thPercentileMicros();
+	
+	/**
+	 * Returns the longest time a client waited for a connection.
+	 * @return The maximum wait time in microseconds.
+	 **/
+	public long getConnectionWaitMaxMicros();
+	
+	/**
+	 * Returns whether or not the connection has not been closed.
+	 * @return true if the connection is open.
+	 **/
+	public boolean isOpen();
+	
+	/**
+	 * Sends a ping command to the server.
+	 * @return The round trip time in milliseconds, or -1 if the server did not respond.
+	 **/
+	public long ping();
+}
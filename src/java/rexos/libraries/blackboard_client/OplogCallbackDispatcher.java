@@ -0,0 +1,677 @@
+/**
+ * @file rexos/libraries/blackboard_client/OplogCallbackDispatcher.java
+ * @brief Dispatches oplog callbacks to subscribers using a bounded queue and a pool of workers.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bson.types.ObjectId;
+
+/**
+ * Simple data object used to store information about a callback.
+ **/
+class Callback {
+	/**
+	 * @var BlackboardSubscriber subscriber
+	 * The subscriber that should receive a callback.
+	 **/
+	BlackboardSubscriber subscriber;
+	
+	/**
+	 * @var OplogEntry entry
+	 * The OplogEntry describing the event that triggered this callback.
+	 **/
+	OplogEntry entry;
+	
+	/**
+	 * @var Object orderingKey
+	 * Key of the lane this callback is queued in. Callbacks sharing a key are delivered in order.
+	 **/
+	Object orderingKey;
+	
+	/**
+	 * @var long queuedTime
+	 * The value of System.nanoTime() when this callback was queued.
+	 **/
+	final long queuedTime;
+	
+	/**
+	 * Constructs a callback with the specified subscriber and entry.
+	 * 
+	 * @param subscriber The subscriber that should receive a callback.
+	 * @param entry The OplogEntry describing the event that triggered this callback.
+	 * @param orderingKey Key of the lane this callback is queued in.
+	 **/
+	public Callback(BlackboardSubscriber subscriber, OplogEntry entry, Object orderingKey) {
+		this.subscriber = subscriber;
+		this.entry = entry;
+		this.orderingKey = orderingKey;
+		this.queuedTime = System.nanoTime();
+	}
+
+	/**
+	 * Returns the subscriber for this callback.
+	 * @return The subscriber for this callback.
+	 **/
+	public BlackboardSubscriber getSubscriber() {
+		return subscriber;
+	}
+
+	/**
+	 * Returns the entry for this callback.
+	 * 
+	 * @return The entry for this callback.
+	 **/
+	public OplogEntry getEntry() {
+		return entry;
+	}
+	
+	/**
+	 * Returns whether or not this callback is for the given subscriber and concerns the given document.
+	 * 
+	 * @param subscriber The subscriber to check.
+	 * @param id The id of the document to check.
+	 * @return true if this callback is for the given subscriber and document, false otherwise.
+	 **/
+	boolean targets(BlackboardSubscriber subscriber, ObjectId id) {
+		return this.subscriber == subscriber && id != null && id.equals(entry.getTargetObjectId());
+	}
+	
+	/**
+	 * Returns whether or not the given entry describes the same kind of change to the same document for the same
+	 * subscriber as this callback, meaning this callback can carry the given entry instead of its own.
+	 * 
+	 * @param subscriber The subscriber of the other callback.
+	 * @param other The entry of the other callback.
+	 * @return true if both callbacks can be coalesced, false otherwise.
+	 **/
+	boolean canCoalesceWith(BlackboardSubscriber subscriber, OplogEntry other) {
+		if (this.subscriber != subscriber || entry.getOperation() != other.getOperation()) {
+			return false;
+		}
+		ObjectId id = entry.getTargetObjectId();
+		return id != null && id.equals(other.getTargetObjectId());
+	}
+}
+
+/**
+ * Dispatches oplog callbacks to subscribers.
+ * 
+ * Callbacks are queued in a bounded FIFO queue and executed by a pool of worker threads, so the thread that adds
+ * callbacks (the oplog monitor) never waits for a subscriber to finish handling a message. Callbacks are divided in
+ * lanes according to the {@link OrderingMode}; callbacks within a single lane are delivered one at a time in the order
+ * they were added, while different lanes are handled concurrently by the workers.
+ * 
+ * The oplog monitor is shared by all clients connected to the same server, so it must not wait for a full queue of
+ * one of them. It offers its callbacks with {@link #offerCallback(BlackboardSubscriber, OplogEntry, boolean)}, which
+ * holds callbacks back in a backlog instead of waiting, see {@link BackpressurePolicy#BLOCK}.
+ **/
+public class OplogCallbackDispatcher {
+	/**
+	 * Determines what happens when a callback is added while the queue is full.
+	 **/
+	public static enum BackpressurePolicy {
+		/**
+		 * The adding thread waits until a queued callback has been handed to a worker. Callbacks offered by the oplog
+		 * monitor are held back in a backlog of the same capacity instead and queued as soon as there is room. When the
+		 * backlog is full as well, its oldest callback is discarded.
+		 **/
+		BLOCK,
+		
+		/**
+		 * The oldest queued callback is discarded to make room for the new one.
+		 **/
+		DROP_OLDEST,
+		
+		/**
+		 * If a queued callback exists for the same subscriber, operation and document, the new entry replaces the one in
+		 * that callback. Otherwise the callback is handled as it would be with {@link #BLOCK}.
+		 **/
+		COALESCE
+	}
+	
+	/**
+	 * Determines which callbacks are guaranteed to be delivered in order.
+	 **/
+	public static enum OrderingMode {
+		/**
+		 * All callbacks for a subscriber are delivered in order, one at a time.
+		 **/
+		PER_SUBSCRIBER,
+		
+		/**
+		 * Callbacks for a subscriber concerning the same document (_id) are delivered in order, one at a time.
+		 * Callbacks concerning different documents may be delivered concurrently, so subscribers must be thread safe.
+		 **/
+		PER_OBJECT
+	}
+	
+	/**
+	 * Ordering key used for {@link OrderingMode#PER_OBJECT}, combining the subscriber and the document id.
+	 **/
+	private static final class ObjectOrderingKey {
+		/**
+		 * @var BlackboardSubscriber subscriber
+		 * The subscriber that receives the callbacks.
+		 **/
+		private final BlackboardSubscriber subscriber;
+		
+		/**
+		 * @var ObjectId objectId
+		 * The id of the document targeted by the callbacks.
+		 **/
+		private final ObjectId objectId;
+		
+		/**
+		 * Constructs a key for the given subscriber and document.
+		 * @param subscriber The subscriber that receives the callbacks.
+		 * @param objectId The id of the document targeted by the callbacks.
+		 **/
+		ObjectOrderingKey(BlackboardSubscriber subscriber, ObjectId objectId) {
+			this.subscriber = subscriber;
+			this.objectId = objectId;
+		}
+		
+		/**
+		 * Computes the hashcode for this object.
+		 * @return Hashcode for this object.
+		 **/
+		@Override
+		public int hashCode() {
+			return 31 * subscriber.hashCode() + objectId.hashCode();
+		}
+		
+		/**
+		 * Checks whether two keys are equal.
+		 * @return Whether or not the two objects are equal.
+		 **/
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof ObjectOrderingKey)) {
+				return false;
+			}
+			ObjectOrderingKey other = (ObjectOrderingKey) obj;
+			return subscriber.equals(other.subscriber) && objectId.equals(other.objectId);
+		}
+	}
+	
+	/**
+	 * A lane of callbacks that have to be delivered in order. At most one worker handles a lane at any time.
+	 **/
+	private class CallbackLane implements Runnable {
+		/**
+		 * @var ArrayDeque<Callback> pending
+		 * The callbacks in this lane that have not yet been handed to a worker.
+		 **/
+		private final ArrayDeque<Callback> pending = new ArrayDeque<Callback>();
+		
+		/**
+		 * @var Object key
+		 * The ordering key of this lane.
+		 **/
+		private final Object key;
+		
+		/**
+		 * Constructs an empty lane for the given key.
+		 * @param key The ordering key of this lane.
+		 **/
+		CallbackLane(Object key) {
+			this.key = key;
+		}
+		
+		/**
+		 * Delivers the next callback of this lane and reschedules the lane if more callbacks are pending.
+		 * Only a single callback is delivered per run so lanes take turns on the workers.
+		 **/
+		@Override
+		public void run() {
+			Callback callback = takeNext(this);
+			if (callback == null) {
+				return;
+			}
+			
+			long startTime = System.nanoTime();
+			boolean failed = false;
+			try {
+				callback.getSubscriber().onMessage(callback.getEntry().getOperation(), callback.getEntry());
+			} catch (RuntimeException ex) {
+				failed = true;
+				rexos.libraries.log.Logger.log("%s thrown by subscriber callback:\n%s\n", ex.getClass().getName(), ex.getMessage());
+				rexos.libraries.log.Logger.log(ex);
+			} finally {
+				BlackboardClientMetrics currentMetrics = metrics;
+				if (currentMetrics != null) {
+					currentMetrics.callbackDelivered(callback.getSubscriber(), startTime - callback.queuedTime,
+							System.nanoTime() - startTime, failed);
+				}
+				finished(this);
+			}
+		}
+	}
+	
+	/**
+	 * @var int DEFAULT_WORKER_COUNT
+	 * The amount of workers used when none is specified.
+	 **/
+	public static final int DEFAULT_WORKER_COUNT = 2;
+	
+	/**
+	 * @var int DEFAULT_CAPACITY
+	 * The maximum amount of queued callbacks used when none is specified.
+	 **/
+	public static final int DEFAULT_CAPACITY = 1024;
+	
+	/**
+	 * @var AtomicInteger dispatcherCount
+	 * Counter used for naming the worker threads.
+	 **/
+	private static final AtomicInteger dispatcherCount = new AtomicInteger();
+	
+	/**
+	 * @var int capacity
+	 * The maximum amount of callbacks waiting for a worker.
+	 **/
+	private final int capacity;
+	
+	/**
+	 * @var BackpressurePolicy policy
+	 * The policy applied when a callback is added while the queue is full.
+	 **/
+	private final BackpressurePolicy policy;
+	
+	/**
+	 * @var OrderingMode orderingMode
+	 * Determines which callbacks share a lane.
+	 **/
+	private final OrderingMode orderingMode;
+	
+	/**
+	 * @var ExecutorService workers
+	 * The worker threads executing the callbacks.
+	 **/
+	private final ExecutorService workers;
+	
+	/**
+	 * @var HashMap<Object, CallbackLane> lanes
+	 * The lanes that currently have callbacks queued or being delivered.
+	 **/
+	private final HashMap<Object, CallbackLane> lanes;
+	
+	/**
+	 * @var LinkedHashSet<Callback> queued
+	 * All callbacks that have not yet been handed to a worker, in the order in which they were added.
+	 **/
+	private final LinkedHashSet<Callback> queued;
+	
+	/**
+	 * @var ArrayDeque<Callback> backlog
+	 * Callbacks offered by the oplog monitor while the queue was full, in the order in which they were offered. They are
+	 * moved into the queue as workers take callbacks from it.
+	 **/
+	private final ArrayDeque<Callback> backlog;
+	
+	/**
+	 * @var long droppedCallbacks
+	 * The amount of callbacks discarded by the {@link BackpressurePolicy#DROP_OLDEST} policy.
+	 **/
+	private long droppedCallbacks;
+	
+	/**
+	 * @var long coalescedCallbacks
+	 * The amount of callbacks merged into an already queued callback.
+	 **/
+	private long coalescedCallbacks;
+	
+	/**
+	 * @var BlackboardClientMetrics metrics
+	 * The metrics in which queueing and delivery of callbacks are recorded, or null.
+	 **/
+	private volatile BlackboardClientMetrics metrics;
+	
+	/**
+	 * @var boolean running
+	 * Current running state of the dispatcher.
+	 **/
+	private boolean running = true;
+	
+	/**
+	 * Constructs a dispatcher using the default worker count and capacity, blocking when full and delivering the
+	 * callbacks of each subscriber in order.
+	 **/
+	public OplogCallbackDispatcher() {
+		this(DEFAULT_WORKER_COUNT, DEFAULT_CAPACITY, BackpressurePolicy.BLOCK, OrderingMode.PER_SUBSCRIBER);
+	}
+	
+	/**
+	 * Constructs a dispatcher and starts its workers.
+	 * 
+	 * @param workerCount The amount of worker threads used for delivering callbacks.
+	 * @param capacity The maximum amount of callbacks waiting for a worker.
+	 * @param policy The policy applied when a callback is added while the queue is full.
+	 * @param orderingMode Determines which callbacks are guaranteed to be delivered in order.
+	 **/
+	public OplogCallbackDispatcher(int workerCount, int capacity, BackpressurePolicy policy, OrderingMode orderingMode) {
+		if (workerCount < 1 || capacity < 1) {
+			throw new IllegalArgumentException("Worker count and capacity must be at least 1.");
+		}
+		this.capacity = capacity;
+		this.policy = policy;
+		this.orderingMode = orderingMode;
+		this.lanes = new HashMap<Object, CallbackLane>();
+		this.queued = new LinkedHashSet<Callback>();
+		this.backlog = new ArrayDeque<Callback>();
+		
+		final String namePrefix = "OplogCallbackDispatcher-" + dispatcherCount.incrementAndGet() + "-worker-";
+		workers = Executors.newFixedThreadPool(workerCount, new ThreadFactory() {
+			private int threadCount = 0;
+			
+			@Override
+			public synchronized Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, namePrefix + (++threadCount));
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+	
+	/**
+	 * Queues a callback for the given subscriber. Depending on the {@link BackpressurePolicy} this method may block
+	 * while the queue is full. If the calling thread is interrupted while waiting, the callback is discarded and the
+	 * interrupted status of the thread is restored.
+	 * 
+	 * @param subscriber The subscriber that should receive a callback.
+	 * @param entry The OplogEntry describing the event that triggered this callback.
+	 **/
+	public void addCallback(BlackboardSubscriber subscriber, OplogEntry entry) {
+		addCallback(subscriber, entry, false);
+	}
+	
+	/**
+	 * Queues a callback for the given subscriber. When latestValueOnly is true and a callback for the same subscriber
+	 * and document is still waiting for a worker, that callback carries the given entry instead of queueing a new one,
+	 * so the subscriber only handles the most recent change of a burst. Otherwise this method behaves like
+	 * {@link #addCallback(BlackboardSubscriber, OplogEntry)}.
+	 * 
+	 * @param subscriber The subscriber that should receive a callback.
+	 * @param entry The OplogEntry describing the event that triggered this callback.
+	 * @param latestValueOnly Whether or not a queued callback for the same document may be replaced.
+	 **/
+	public synchronized void addCallback(BlackboardSubscriber subscriber, OplogEntry entry, boolean latestValueOnly) {
+		if (running && metrics != null) {
+			metrics.entryQueued(entry, queued.size());
+		}
+		if (latestValueOnly && running && coalesce(subscriber, entry)) {
+			return;
+		}
+		while (running && queued.size() >= capacity) {
+			if (policy == BackpressurePolicy.DROP_OLDEST) {
+				dropOldest();
+			} else if (policy == BackpressurePolicy.COALESCE && coalesce(subscriber, entry)) {
+				return;
+			} else {
+				try {
+					wait();
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+		if (!running) {
+			return;
+		}
+		enqueue(new Callback(subscriber, entry, getOrderingKey(subscriber, entry)));
+	}
+	
+	/**
+	 * Queues a callback for the given subscriber like {@link #addCallback(BlackboardSubscriber, OplogEntry, boolean)},
+	 * but never waits. Used by the oplog monitor, which is shared by the clients of all dispatchers. When the queue is
+	 * full and the {@link BackpressurePolicy} would make the caller wait, the callback is held back in the backlog
+	 * until the workers have made room for it.
+	 * 
+	 * @param subscriber The subscriber that should receive a callback.
+	 * @param entry The OplogEntry describing the event that triggered this callback.
+	 * @param latestValueOnly Whether or not a queued callback for the same document may be replaced.
+	 **/
+	synchronized void offerCallback(BlackboardSubscriber subscriber, OplogEntry entry, boolean latestValueOnly) {
+		if (!running) {
+			return;
+		}
+		if (metrics != null) {
+			metrics.entryQueued(entry, queued.size() + backlog.size());
+		}
+		if (latestValueOnly && coalesce(subscriber, entry)) {
+			return;
+		}
+		if (backlog.isEmpty()) {
+			if (queued.size() >= capacity && policy == BackpressurePolicy.DROP_OLDEST) {
+				dropOldest();
+			} else if (queued.size() >= capacity && policy == BackpressurePolicy.COALESCE && coalesce(subscriber, entry)) {
+				return;
+			}
+			if (queued.size() < capacity) {
+				enqueue(new Callback(subscriber, entry, getOrderingKey(subscriber, entry)));
+				return;
+			}
+			rexos.libraries.log.Logger.log("OplogCallbackDispatcher queue full, holding back callbacks until the subscribers catch up\n");
+		} else if (backlog.size() >= capacity) {
+			Callback oldest = backlog.poll();
+			++droppedCallbacks;
+			rexos.libraries.log.Logger.log("OplogCallbackDispatcher backlog full, dropped callback for %s\n", oldest.getEntry());
+		}
+		backlog.add(new Callback(subscriber, entry, getOrderingKey(subscriber, entry)));
+	}
+	
+	/**
+	 * Sets the metrics in which queueing and delivery of callbacks are recorded.
+	 * @param metrics The metrics of the client using this dispatcher, or null to stop recording.
+	 **/
+	void setMetrics(BlackboardClientMetrics metrics) {
+		this.metrics = metrics;
+	}
+	
+	/**
+	 * Stops the dispatcher. Callbacks that have not yet been handed to a worker are discarded, callbacks that are
+	 * currently being delivered are allowed to finish.
+	 **/
+	public synchronized void shutdown() {
+		running = false;
+		queued.clear();
+		backlog.clear();
+		lanes.clear();
+		workers.shutdown();
+		notifyAll();
+	}
+	
+	/**
+	 * Returns the amount of callbacks that are waiting for a worker.
+	 * @return The amount of callbacks that are waiting for a worker.
+	 **/
+	public synchronized int getQueueSize() {
+		return queued.size();
+	}
+	
+	/**
+	 * Returns the amount of callbacks offered by the oplog monitor that are held back because the queue is full.
+	 * @return The amount of callbacks that are held back.
+	 **/
+	public synchronized int getBacklogSize() {
+		return backlog.size();
+	}
+	
+	/**
+	 * Returns the amount of callbacks discarded because the queue or the backlog was full.
+	 * @return The amount of callbacks discarded because the queue or the backlog was full.
+	 **/
+	public synchronized long getDroppedCallbackCount() {
+		return droppedCallbacks;
+	}
+	
+	/**
+	 * Returns the amount of callbacks that were merged into an already queued callback.
+	 * @return The amount of callbacks that were merged into an already queued callback.
+	 **/
+	public synchronized long getCoalescedCallbackCount() {
+		return coalescedCallbacks;
+	}
+	
+	/**
+	 * Returns the key of the lane a callback for the given subscriber and entry belongs to.
+	 * @param subscriber The subscriber that should receive the callback.
+	 * @param entry The entry that triggered the callback.
+	 * @return The ordering key for the callback.
+	 **/
+	private Object getOrderingKey(BlackboardSubscriber subscriber, OplogEntry entry) {
+		if (orderingMode == OrderingMode.PER_OBJECT) {
+			ObjectId id = entry.getTargetObjectId();
+			if (id != null) {
+				return new ObjectOrderingKey(subscriber, id);
+			}
+		}
+		return subscriber;
+	}
+	
+	/**
+	 * Adds a callback to the queue and to its lane, scheduling the lane if it was idle.
+	 * @param callback The callback to queue.
+	 **/
+	private void enqueue(Callback callback) {
+		queued.add(callback);
+		
+		CallbackLane lane = lanes.get(callback.orderingKey);
+		if (lane == null) {
+			lane = new CallbackLane(callback.orderingKey);
+			lanes.put(callback.orderingKey, lane);
+			lane.pending.add(callback);
+			workers.execute(lane);
+		} else {
+			lane.pending.add(callback);
+		}
+	}
+	
+	/**
+	 * Attempts to replace the entry of a queued or held back callback for the same subscriber, operation and document.
+	 * Only the most recently added callback for the document is considered, so entries never overtake a different
+	 * kind of change to the same document. The callback keeps its position in the queue.
+	 * @param subscriber The subscriber that should receive the callback.
+	 * @param entry The new entry.
+	 * @return true if the entry was merged into a queued callback, false otherwise.
+	 **/
+	private boolean coalesce(BlackboardSubscriber subscriber, OplogEntry entry) {
+		Iterator<Callback> it = backlog.descendingIterator();
+		while (it.hasNext()) {
+			Callback callback = it.next();
+			if (callback.canCoalesceWith(subscriber, entry)) {
+				callback.entry = entry;
+				++coalescedCallbacks;
+				return true;
+			} else if (callback.targets(subscriber, entry.getTargetObjectId())) {
+				return false;
+			}
+		}
+		
+		CallbackLane lane = lanes.get(getOrderingKey(subscriber, entry));
+		if (lane == null) {
+			return false;
+		}
+		it = lane.pending.descendingIterator();
+		while (it.hasNext()) {
+			Callback callback = it.next();
+			if (callback.canCoalesceWith(subscriber, entry)) {
+				callback.entry = entry;
+				++coalescedCallbacks;
+				return true;
+			} else if (callback.targets(subscriber, entry.getTargetObjectId())) {
+				return false;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Discards the callback that has been waiting the longest.
+	 **/
+	private void dropOldest() {
+		Iterator<Callback> it = queued.iterator();
+		Callback oldest = it.next();
+		it.remove();
+		
+		CallbackLane lane = lanes.get(oldest.orderingKey);
+		lane.pending.remove(oldest);
+		++droppedCallbacks;
+		rexos.libraries.log.Logger.log("OplogCallbackDispatcher queue full, dropped callback for %s\n", oldest.getEntry());
+	}
+	
+	/**
+	 * Hands the next callback of a lane to the calling worker.
+	 * @param lane The lane that is being run.
+	 * @return The next callback or null if the lane has nothing left to deliver.
+	 **/
+	private synchronized Callback takeNext(CallbackLane lane) {
+		if (!running) {
+			return null;
+		}
+		Callback callback = lane.pending.poll();
+		if (callback == null) {
+			if (lanes.get(lane.key) == lane) {
+				lanes.remove(lane.key);
+			}
+			return null;
+		}
+		queued.remove(callback);
+		while (!backlog.isEmpty() && queued.size() < capacity) {
+			enqueue(backlog.poll());
+		}
+		notifyAll();
+		return callback;
+	}
+	
+	/**
+	 * Called by a worker after delivering a callback. Reschedules the lane when more callbacks are pending, removes it
+	 * otherwise.
+	 * @param lane The lane that has been run.
+	 **/
+	private synchronized void finished(CallbackLane lane) {
+		if (!running) {
+			return;
+		}
+		if (lane.pending.isEmpty()) {
+			lanes.remove(lane.key);
+		} else {
+			workers.execute(lane);
+		}
+	}
+}
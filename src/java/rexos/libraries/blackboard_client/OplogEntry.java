@@ -31,6 +31,7 @@
 
 package rexos.libraries.blackboard_client;
 
+import org.bson.types.BSONTimestamp;
 import org.bson.types.ObjectId;
 
 import com.mongodb.BasicDBObject;
@@ -82,6 +83,30 @@ public class OplogEntry {
 	 * Internal DBObject representation of the oplog entry.
 	 **/
 	private DBObject oplogEntry;
+	
+	/**
+	 * @var PostImageLoader documentLoader
+	 * The loader responsible for fetching the target document, or null if no subscriber requested it.
+	 **/
+	private PostImageLoader documentLoader;
+	
+	/**
+	 * @var DBObject document
+	 * The target document as fetched by the documentLoader.
+	 **/
+	private DBObject document;
+	
+	/**
+	 * @var boolean documentLoaded
+	 * Whether or not the target document has been fetched.
+	 **/
+	private volatile boolean documentLoaded;
+	
+	/**
+	 * @var long receivedTime
+	 * The time in milliseconds at which this entry was constructed, i.e. read from the oplog.
+	 **/
+	private long receivedTime;
 
 	/**
 	 * Construct an OplogEntry object based on the specified entry.
@@ -89,6 +114,28 @@ public class OplogEntry {
 	 **/
 	public OplogEntry(DBObject oplogEntry) {
 		this.oplogEntry = oplogEntry;
+		this.receivedTime = System.currentTimeMillis();
+	}
+	
+	/**
+	 * Returns the time at which this entry was read from the oplog.
+	 * @return The time in milliseconds at which this entry was read from the oplog.
+	 **/
+	public long getReceivedTime() {
+		return receivedTime;
+	}
+	
+	/**
+	 * Returns the time between the write described by this entry and the moment it was read from the oplog.
+	 * The oplog timestamp only has a resolution of one second, so the lag may be up to a second too high.
+	 * @return The receive lag in milliseconds, or 0 if the entry has no timestamp or the clocks disagree.
+	 **/
+	public long getReceiveLag() {
+		BSONTimestamp timestamp = getTimestamp();
+		if (timestamp == null) {
+			return 0;
+		}
+		return Math.max(0, receivedTime - timestamp.getTime() * 1000L);
 	}
 	
 	/**
@@ -100,6 +147,14 @@ public class OplogEntry {
 		return MongoOperation.get((String)obj);
 	}
 	
+	/**
+	 * Returns the timestamp of this oplog entry.
+	 * @return the timestamp of this oplog entry.
+	 **/
+	public BSONTimestamp getTimestamp() {
+		return (BSONTimestamp)oplogEntry.get(TIMESTAMP_FIELD);
+	}
+	
 	/**
 	 * Returns the namespace of this oplog entry.
 	 * @return the namespace of this oplog entry.
@@ -151,4 +206,57 @@ public class OplogEntry {
 	
 		return id;
 	}
+	
+	/**
+	 * Returns the document targeted by this entry, as it was when it was fetched after the operation.
+	 * The document is only available when the entry was delivered for a subscription with document fetching enabled
+	 * (see {@link BlackboardSubscription#setDocumentFetchingEnabled(boolean)}). It is fetched once, on the first call,
+	 * and shared between all subscribers receiving this entry. For inserts the inserted document is returned.
+	 * 
+	 * @return The target document or null if fetching was not requested, the operation was a delete or the document
+	 * no longer exists.
+	 * @throws GeneralMongoException A MongoException occurred while fetching the document.
+	 **/
+	public DBObject getDocument() throws GeneralMongoException {
+		if (!documentLoaded) {
+			if (documentLoader == null) {
+				return null;
+			}
+			documentLoader.load(this);
+		}
+		return document;
+	}
+	
+	/**
+	 * Returns the loader responsible for fetching the target document.
+	 * @return The loader responsible for fetching the target document, or null.
+	 **/
+	PostImageLoader getDocumentLoader() {
+		return documentLoader;
+	}
+	
+	/**
+	 * Sets the loader responsible for fetching the target document.
+	 * @param documentLoader The loader responsible for fetching the target document.
+	 **/
+	void setDocumentLoader(PostImageLoader documentLoader) {
+		this.documentLoader = documentLoader;
+	}
+	
+	/**
+	 * Returns whether or not the target document has been fetched.
+	 * @return true if the target document has been fetched.
+	 **/
+	boolean isDocumentLoaded() {
+		return documentLoaded;
+	}
+	
+	/**
+	 * Sets the fetched target document.
+	 * @param document The fetched target document, or null if it does not exist.
+	 **/
+	void setDocument(DBObject document) {
+		this.document = document;
+		this.documentLoaded = true;
+	}
 }
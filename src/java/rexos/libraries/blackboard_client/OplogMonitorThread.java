@@ -30,15 +30,20 @@
 package rexos.libraries.blackboard_client;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.bson.types.BSONTimestamp;
 
 import com.mongodb.Bytes;
-import com.mongodb.DB;
 import com.mongodb.DBCollection;
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
-import com.mongodb.Mongo;
 import com.mongodb.MongoException;
 import com.mongodb.MongoInterruptedException;
+import com.mongodb.QueryBuilder;
 
 /**
  * Class for the tailed oplog cursor thread within the client
@@ -52,6 +57,25 @@ class OplogMonitorThread extends Thread {
 	 * the thread will sleep for this interval when no more documents are available.
 	 **/
 	private static final int POLL_INTERVAL = 100;
+	
+	/**
+	 * @var int MAX_RETRY_INTERVAL
+	 * The maximum time in milliseconds to wait before reopening the cursor after it was lost.
+	 * The wait starts at POLL_INTERVAL and doubles after every consecutive failure.
+	 **/
+	private static final int MAX_RETRY_INTERVAL = 5000;
+	
+	/**
+	 * @var int CHECKPOINT_INTERVAL
+	 * The minimum interval in milliseconds between two saves of the checkpoint.
+	 **/
+	private static final int CHECKPOINT_INTERVAL = 1000;
+	
+	/**
+	 * @var DBCollection oplogCollection
+	 * The oplog collection that is being tailed.
+	 **/
+	private DBCollection oplogCollection;
 
 	/**
 	 * @var DBCursor tailedCursor
@@ -60,111 +84,252 @@ class OplogMonitorThread extends Thread {
 	private DBCursor tailedCursor;
 	
 	/**
-	 * @var BlackboardSubscription subscriptions[]
-	 * Link between subscribed topic name and MongoDbs BasicDBObjects
+	 * @var OplogMultiplexer multiplexer
+	 * The multiplexer providing the namespaces to tail and the registrations to deliver entries to.
 	 **/
-	private BlackboardSubscription[] subscriptions;
+	private OplogMultiplexer multiplexer;
 	
 	/**
-	 * @var OplogCallbackThread callbackThread
-	 * Thread used for executing callbacks.
-	 */
-	OplogCallbackThread callbackThread;
+	 * @var int namespaceVersion
+	 * The version of the multiplexer's namespace set the current cursor was created for.
+	 **/
+	private int namespaceVersion;
 	
 	/**
-	 * Constructor of OplogMonitorThread.
-	 * @param mongo The Mongo database connection that should be used.
-	 * @param oplogDBName The database in which the oplog collection resides.
-	 * @param oplogCollectionName The name of the oplog collection.
-	 * @param query The query that will be used in the tailed cursor.
+	 * @var BSONTimestamp lastTimestamp
+	 * Timestamp of the latest entry that was delivered, or the timestamp the monitor was started after.
 	 **/
-	public OplogMonitorThread(Mongo mongo, String oplogDBName, String oplogCollectionName, DBObject query) {
-		DB database = mongo.getDB(oplogDBName);
-		DBCollection collection = database.getCollection(oplogCollectionName);
-
-		tailedCursor = collection.find(query);
-		tailedCursor.addOption(Bytes.QUERYOPTION_TAILABLE);
-		tailedCursor.addOption(Bytes.QUERYOPTION_AWAITDATA);
-		tailedCursor.skip(tailedCursor.size());
-		callbackThread = new OplogCallbackThread();
-	}
+	private BSONTimestamp lastTimestamp;
+	
+	/**
+	 * @var BSONTimestamp cursorTimestamp
+	 * Timestamp of the last entry read from the current cursor, or the timestamp the cursor was started after. Lies
+	 * before lastTimestamp while entries are read again for a namespace that was added.
+	 **/
+	private BSONTimestamp cursorTimestamp;
+	
+	/**
+	 * @var HashSet<String> tailedNamespaces
+	 * The namespaces selected by the current cursor.
+	 **/
+	private HashSet<String> tailedNamespaces;
+	
+	/**
+	 * @var HashSet<String> replayedNamespaces
+	 * The added namespaces whose entries up to lastTimestamp are delivered while the cursor catches up. The entries
+	 * of the other namespaces up to lastTimestamp have been delivered already and are skipped.
+	 **/
+	private HashSet<String> replayedNamespaces;
 	
 	/**
-	 * Constructs a tailed cursor for the specified query on the oplog collection.
-	 * This constructor should be used when user authentication is required.
+	 * @var OplogCheckpointStore checkpointStore
+	 * Store in which the timestamp of the last delivered entry is saved, or null.
+	 **/
+	private OplogCheckpointStore checkpointStore;
+	
+	/**
+	 * @var long lastCheckpointTime
+	 * The time in milliseconds at which the checkpoint was last saved.
+	 **/
+	private long lastCheckpointTime;
+	
+	/**
+	 * @var boolean running
+	 * Whether or not the monitor should keep running. Cleared by {@link #shutdown()}.
+	 **/
+	private volatile boolean running = true;
+	
+	/**
+	 * @var ArrayList<OplogMultiplexer.Registration> matches
+	 * The registrations the current entry is offered to.
+	 **/
+	private ArrayList<OplogMultiplexer.Registration> matches;
+	
+	/**
+	 * Constructs a tailed cursor on the oplog collection that selects the entries of all namespaces known to the
+	 * multiplexer, starting after the given timestamp.
 	 * 
-	 * @param mongo The Mongo database connection that should be used.
-	 * @param oplogDBName The database in which the oplog collection resides.
-	 * @param oplogCollectionName The name of the oplog collection.
-	 * @param username Username that will be used to authenticate with the oplog database. This user should have read access.
-	 * @param password The password belonging to the specified user.
-	 * @param query The query that will be used in the tailed cursor.
-	 **/
-	public OplogMonitorThread(Mongo mongo, String oplogDBName, String oplogCollectionName,
-			String username, String password, DBObject query) {
-		DB database = mongo.getDB(oplogDBName);
-		database.authenticate(username, password.toCharArray());
-		DBCollection collection = database.getCollection(oplogCollectionName);
-
-		tailedCursor = collection.find(query);
+	 * @param oplogCollection The oplog collection.
+	 * @param multiplexer The multiplexer providing the namespaces and registrations.
+	 * @param startTimestamp Only entries after this timestamp are read.
+	 * @param checkpointStore Store in which the timestamp of the last delivered entry is saved, may be null.
+	 **/
+	public OplogMonitorThread(DBCollection oplogCollection, OplogMultiplexer multiplexer, BSONTimestamp startTimestamp,
+			OplogCheckpointStore checkpointStore) {
+		this.oplogCollection = oplogCollection;
+		this.multiplexer = multiplexer;
+		this.matches = new ArrayList<OplogMultiplexer.Registration>();
+		this.lastTimestamp = startTimestamp;
+		this.cursorTimestamp = startTimestamp;
+		this.tailedNamespaces = new HashSet<String>();
+		this.replayedNamespaces = new HashSet<String>();
+		this.checkpointStore = checkpointStore;
+		openCursor();
+	}
+	
+	/**
+	 * Stops the monitor. The cursor is killed by interrupting the thread.
+	 **/
+	public void shutdown() {
+		running = false;
+		interrupt();
+	}
+	
+	/**
+	 * Opens a tailed cursor for the current namespaces of the multiplexer, continuing after the last read entry.
+	 * When namespaces have been added that the previous cursor did not select, the cursor starts at the earliest start
+	 * timestamp of their registrations instead, so the entries written to them while the previous cursor was drained
+	 * are still delivered.
+	 * The OPLOGREPLAY option lets the server find the starting point from the ts condition directly, instead of
+	 * scanning the capped collection from the beginning.
+	 **/
+	private void openCursor() {
+		HashMap<String, BSONTimestamp> addedNamespaces = new HashMap<String, BSONTimestamp>();
+		namespaceVersion = multiplexer.getNamespaceVersion();
+		String[] namespaces = multiplexer.getNamespaces(addedNamespaces);
+		
+		for (Map.Entry<String, BSONTimestamp> added : addedNamespaces.entrySet()) {
+			if (!tailedNamespaces.contains(added.getKey())) {
+				replayedNamespaces.add(added.getKey());
+				if (added.getValue().compareTo(cursorTimestamp) < 0) {
+					cursorTimestamp = added.getValue();
+				}
+			}
+		}
+		tailedNamespaces.clear();
+		tailedNamespaces.addAll(Arrays.asList(namespaces));
+		
+		DBObject query = QueryBuilder.start(OplogEntry.TIMESTAMP_FIELD).greaterThan(cursorTimestamp)
+				.and(OplogEntry.NAMESPACE_FIELD).in(namespaces).get();
+		
+		tailedCursor = find(query);
 		tailedCursor.addOption(Bytes.QUERYOPTION_TAILABLE);
 		tailedCursor.addOption(Bytes.QUERYOPTION_AWAITDATA);
-		tailedCursor.skip(tailedCursor.size());
-		callbackThread = new OplogCallbackThread();
+		tailedCursor.addOption(Bytes.QUERYOPTION_OPLOGREPLAY);
 	}
 	
 	/**
-	 * Sets the subscriptions that are used for the query of this oplog monitor.
-	 * @param subscriptions ArrayList containing all the subscriptions this monitor will subscribe to.
+	 * Queries the oplog collection.
+	 * @param query The query selecting the entries.
+	 * @return The cursor over the selected entries.
 	 **/
-	public void setSubscriptions(ArrayList<BlackboardSubscription> subscriptions) {
-		this.subscriptions = new BlackboardSubscription[subscriptions.size()];
-		subscriptions.toArray(this.subscriptions);
+	DBCursor find(DBObject query) {
+		return oplogCollection.find(query);
+	}
+	
+	/**
+	 * Closes the current cursor.
+	 **/
+	private void closeCursor() {
+		try {
+			if (tailedCursor != null) {
+				tailedCursor.close();
+			}
+		} catch (Throwable t) {
+			// If closing the cursor throws something, it's most likely not something we can fix.
+			rexos.libraries.log.Logger.log("%s thrown while closing cursor:\n%s\n", t.getClass().getName(), t.getMessage());
+		}
+	}
+	
+	/**
+	 * Saves the timestamp of the last delivered entry if the checkpoint interval has passed, or always when forced.
+	 * @param force Save the checkpoint regardless of the interval.
+	 **/
+	private void saveCheckpoint(boolean force) {
+		if (checkpointStore == null || lastTimestamp == null) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		if (force || now - lastCheckpointTime >= CHECKPOINT_INTERVAL) {
+			checkpointStore.save(lastTimestamp);
+			lastCheckpointTime = now;
+		}
 	}
 	
 	/**
 	 * Run method for the TailedCursorThread.
-	 * This will check for changes within the cursor and calls the onMessage method of its subscriber.
+	 * This will check for changes within the cursor and offers them to the registrations of the multiplexer, which
+	 * call the onMessage method of their subscriber. When a namespace has been added to the multiplexer, the cursor is
+	 * replaced by one including the new namespace, see {@link #openCursor()}.
+	 * When the cursor died because there were no entries to read it is quietly reopened after the poll interval. When it
+	 * was lost because of an error (it was not found on the server or the connection failed) it is reopened with an
+	 * increasing retry interval. Either way it continues after the last delivered entry, so no entries are skipped.
 	 **/
 	@Override
 	public void run() {
+		int retryInterval = POLL_INTERVAL;
 		try {
-			do {
-				while (!Thread.interrupted() && tailedCursor.hasNext()) {
-					OplogEntry entry = new OplogEntry(tailedCursor.next());
-
-					for (BlackboardSubscription sub : subscriptions) {
-						if (sub.matchesWithEntry(entry)) {
-							callbackThread.addCallback(sub.getSubscriber(), entry);
+			while (running) {
+				try {
+					while (running && tailedCursor.hasNext()) {
+						OplogEntry entry = new OplogEntry(tailedCursor.next());
+						cursorTimestamp = entry.getTimestamp();
+						retryInterval = POLL_INTERVAL;
+						if (cursorTimestamp.compareTo(lastTimestamp) > 0) {
+							lastTimestamp = cursorTimestamp;
+							replayedNamespaces.clear();
+						} else if (!replayedNamespaces.contains(entry.getNamespace())) {
+							// Delivered before the cursor was reopened for an added namespace.
+							continue;
 						}
+	
+						multiplexer.getIndex().match(entry, matches);
+						for (OplogMultiplexer.Registration registration : matches) {
+							registration.offer(entry);
+						}
+						matches.clear();
+						saveCheckpoint(false);
+					}
+					
+					if (namespaceVersion != multiplexer.getNamespaceVersion()) {
+						closeCursor();
+						openCursor();
+					} else if (tailedCursor.getCursorId() == 0) {
+						/*
+						 * A tailable cursor whose initial result is empty is not kept alive by the server, which is
+						 * the normal state of an idle blackboard. This is not an error; simply reopen it after the
+						 * last delivered entry once the poll interval has passed.
+						 */
+						closeCursor();
+						Thread.sleep(POLL_INTERVAL);
+						openCursor();
+					} else {
+						Thread.sleep(POLL_INTERVAL);
+					}
+				} catch (MongoInterruptedException ex) {
+					/*
+					 * MongoInterruptedException is thrown by Mongo when interrupt is called while blocking on the
+					 * tailedCursor's hasNext method. When the monitor has been shut down, return from the run method to
+					 * kill the thread. Otherwise the interrupt did not come from us and the cursor is simply reopened.
+					 */
+					if (!running) {
+						break;
+					}
+					closeCursor();
+					openCursor();
+				} catch (MongoException ex) {
+					/*
+					 * MongoException.CursorNotFound indicates the cursor was killed while blocking on hasNext.
+					 * We purposely kill the cursor when the OplogMonitorThread is interrupted, thus expect this to happen.
+					 * In any other case the cursor was lost (e.g. it timed out or the connection failed), resume after the
+					 * last delivered entry.
+					 */
+					if (!running) {
+						break;
 					}
+					rexos.libraries.log.Logger.log("OplogMonitorThread resuming after %s in %d ms:\n%s\n",
+							ex.getClass().getName(), retryInterval, ex.getMessage());
+					closeCursor();
+					Thread.sleep(retryInterval);
+					retryInterval = Math.min(retryInterval * 2, MAX_RETRY_INTERVAL);
+					openCursor();
 				}
-				
-				Thread.sleep(POLL_INTERVAL);
-			} while (!Thread.interrupted() && tailedCursor.getCursorId() != 0);
-		} catch (MongoInterruptedException | MongoException.CursorNotFound | InterruptedException ex) {
-			/*
-			 * MongoInterruptedException is thrown by Mongo when interrupt is called while blocking on the
-			 * tailedCursor's hasNext method. When this happens, return from the run method to kill the thread.
-			 */
-			
-			/*
-			 * MongoException.CursorNotFound indicates the cursor was killed while blocking on hasNext.
-			 * We purposely kill the cursor when the OplogMonitorThread is interrupted, thus expect this to happen.
-			 */
-			
+			}
+		} catch (InterruptedException ex) {
 			rexos.libraries.log.Logger.log("OplogMonitorThread ending due to %s:\n%s\n", ex.getClass().getName(), ex.getMessage());
 		} finally {
-			try {
-				if (tailedCursor != null) {
-					tailedCursor.close();
-				}
-			} catch (Throwable t) {
-				// If closing the cursor throws something, it's most likely not something we can fix.
-				rexos.libraries.log.Logger.log("%s thrown while closing cursor:\n%s\n", t.getClass().getName(), t.getMessage());
-			}
+			saveCheckpoint(true);
+			closeCursor();
 		}
-		
-		callbackThread.shutdown();
 	}
 }
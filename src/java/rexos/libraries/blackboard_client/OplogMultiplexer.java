@@ -0,0 +1,535 @@
+/**
+ * @file rexos/libraries/blackboard_client/OplogMultiplexer.java
+ * @brief Shares a single tailed oplog cursor between all blackboard clients connected to the same server.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.bson.types.BSONTimestamp;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.Mongo;
+import com.mongodb.MongoException;
+
+/**
+ * Shares a single tailed oplog cursor between all blackboard clients connected to the same server.
+ * Every {@link MongoDBConnection} owns one multiplexer. Clients register their subscriptions with the namespace they
+ * apply to; the multiplexer runs one {@link OplogMonitorThread} that routes matching entries to the dispatcher of the
+ * client that registered the subscription.
+ * 
+ * The tailed cursor only filters on namespace. Subscriptions are matched in memory using a {@link SubscriptionIndex},
+ * so adding or removing a subscription does not touch the cursor. Only when a subscription is registered for a namespace that is not yet
+ * being tailed, the monitor replaces its cursor by one including the new namespace. The new cursor starts at the
+ * earliest start of the new registrations rather than after the last entry read, because the monitor may have read on
+ * in the other namespaces before it noticed the new one; entries it already delivered are not delivered again.
+ **/
+class OplogMultiplexer {
+	/**
+	 * A subscription registered by a client for a specific namespace.
+	 **/
+	static class Registration {
+		/**
+		 * @var String namespace
+		 * The namespace (database.collection) the subscription applies to.
+		 **/
+		private final String namespace;
+		
+		/**
+		 * @var BlackboardSubscription subscription
+		 * The registered subscription.
+		 **/
+		private final BlackboardSubscription subscription;
+		
+		/**
+		 * @var OplogCallbackDispatcher dispatcher
+		 * The dispatcher of the client that registered the subscription.
+		 **/
+		private volatile OplogCallbackDispatcher dispatcher;
+		
+		/**
+		 * @var BSONTimestamp startTimestamp
+		 * Entries up to and including this timestamp were written before the subscription was made and are ignored.
+		 * Null if all entries read by the monitor should be offered.
+		 **/
+		private volatile BSONTimestamp startTimestamp;
+		
+		/**
+		 * @var PostImageLoader documentLoader
+		 * The loader fetching target documents for the subscriber, or null if document fetching is disabled.
+		 **/
+		private PostImageLoader documentLoader;
+		
+		/**
+		 * Constructs a registration of a subscription for the specified namespace.
+		 * @param namespace The namespace (database.collection) the subscription applies to.
+		 * @param subscription The registered subscription.
+		 * @param dispatcher The dispatcher that will deliver the callbacks for this subscription.
+		 **/
+		Registration(String namespace, BlackboardSubscription subscription, OplogCallbackDispatcher dispatcher) {
+			this.namespace = namespace;
+			this.subscription = subscription;
+			this.dispatcher = dispatcher;
+		}
+		
+		/**
+		 * Returns the namespace the subscription applies to.
+		 * @return The namespace the subscription applies to.
+		 **/
+		String getNamespace() {
+			return namespace;
+		}
+		
+		/**
+		 * Returns the registered subscription.
+		 * @return The registered subscription.
+		 **/
+		BlackboardSubscription getSubscription() {
+			return subscription;
+		}
+		
+		/**
+		 * Returns the dispatcher that delivers the callbacks for this subscription.
+		 * @return The dispatcher that delivers the callbacks for this subscription.
+		 **/
+		OplogCallbackDispatcher getDispatcher() {
+			return dispatcher;
+		}
+		
+		/**
+		 * Sets the dispatcher that delivers the callbacks for this subscription.
+		 * @param dispatcher The dispatcher that delivers the callbacks for this subscription.
+		 **/
+		void setDispatcher(OplogCallbackDispatcher dispatcher) {
+			this.dispatcher = dispatcher;
+		}
+		
+		/**
+		 * Delivers an entry that matches the namespace and subscription, unless it was written before the subscription
+		 * was made.
+		 * @param entry The oplog entry read from the tailed cursor.
+		 **/
+		void offer(OplogEntry entry) {
+			if (startTimestamp != null) {
+				if (entry.getTimestamp().compareTo(startTimestamp) <= 0) {
+					return;
+				}
+				startTimestamp = null;
+			}
+			deliver(entry);
+		}
+		
+		/**
+		 * Delivers a matching entry that was written after the subscription was made. The entry is offered to the
+		 * dispatcher without waiting, so a client with a full queue cannot hold up the monitor shared by all clients.
+		 * @param entry The oplog entry read from the tailed cursor.
+		 **/
+		void deliver(OplogEntry entry) {
+			if (documentLoader != null) {
+				documentLoader.add(entry);
+			}
+			boolean latestValueOnly = subscription instanceof FieldUpdateSubscription
+					&& ((FieldUpdateSubscription) subscription).isCoalescing();
+			dispatcher.offerCallback(subscription.getSubscriber(), entry, latestValueOnly);
+		}
+	}
+	
+	/**
+	 * Registration of a document cache. Entries are applied to the cache on the monitor thread, before they are handed
+	 * to the dispatchers of the subscriptions.
+	 **/
+	static class CacheRegistration extends Registration {
+		/**
+		 * @var DocumentCache cache
+		 * The registered cache.
+		 **/
+		private final DocumentCache cache;
+		
+		/**
+		 * Constructs a registration for the given cache.
+		 * @param cache The cache to keep coherent with the oplog.
+		 **/
+		CacheRegistration(DocumentCache cache) {
+			super(cache.getNamespace(), null, null);
+			this.cache = cache;
+		}
+		
+		/**
+		 * Returns the registered cache.
+		 * @return The registered cache.
+		 **/
+		DocumentCache getCache() {
+			return cache;
+		}
+		
+		/**
+		 * Applies the entry to the cache.
+		 * @param entry The oplog entry read from the tailed cursor.
+		 **/
+		@Override
+		void deliver(OplogEntry entry) {
+			cache.apply(entry);
+		}
+	}
+	
+	/**
+	 * @var String OPLOG_COLLECTION_NAME
+	 * Operation log collection name of MongoDB.
+	 **/
+	static final String OPLOG_COLLECTION_NAME = "oplog.rs";
+
+	/**
+	 * @var String OPLOG_DATABASE_NAME
+	 * Local database name of MongoDB.
+	 **/
+	static final String OPLOG_DATABASE_NAME = "local";
+	
+	/**
+	 * @var Mongo mongo
+	 * Connection object to MongoDB.
+	 **/
+	private Mongo mongo;
+	
+	/**
+	 * @var DB oplogDatabase
+	 * The database in which the oplog collection resides.
+	 **/
+	private DB oplogDatabase;
+	
+	/**
+	 * @var String oplogUser
+	 * The username for the oplog database.
+	 **/
+	private String oplogUser = null;
+	
+	/**
+	 * @var String oplogPassword
+	 * The password to be used for the oplog database.
+	 **/
+	private String oplogPassword = null;
+	
+	/**
+	 * @var OplogCheckpointStore checkpointStore
+	 * Store used for resuming the monitor after a restart of the process, or null.
+	 **/
+	private OplogCheckpointStore checkpointStore = null;
+	
+	/**
+	 * @var Registration registrations[]
+	 * All subscriptions currently registered with this multiplexer.
+	 **/
+	private Registration[] registrations;
+	
+	/**
+	 * @var SubscriptionIndex index
+	 * Index of the registrations. The index is replaced, never modified, so the monitor thread can use it without
+	 * locking.
+	 **/
+	private volatile SubscriptionIndex index;
+	
+	/**
+	 * @var HashMap<String, Integer> namespaceCounts
+	 * The amount of registrations for every namespace that is being tailed.
+	 **/
+	private HashMap<String, Integer> namespaceCounts;
+	
+	/**
+	 * @var int namespaceVersion
+	 * Incremented every time a namespace is added to the set of tailed namespaces.
+	 **/
+	private volatile int namespaceVersion;
+	
+	/**
+	 * @var HashMap<String, BSONTimestamp> addedNamespaces
+	 * The namespaces added since the monitor last opened its cursor, with the start timestamp of their first
+	 * registration.
+	 **/
+	private HashMap<String, BSONTimestamp> addedNamespaces;
+	
+	/**
+	 * @var OplogMonitorThread oplogMonitorThread
+	 * Thread for tracking tailable cursor on operation log of MongoDB
+	 **/
+	private OplogMonitorThread oplogMonitorThread;
+	
+	/**
+	 * @var HashMap<String, PostImageLoader> documentLoaders
+	 * The document loader for every namespace that has subscriptions with document fetching enabled.
+	 **/
+	private HashMap<String, PostImageLoader> documentLoaders;
+	
+	/**
+	 * Constructs a multiplexer for the oplog of the server the given client is connected to.
+	 * @param mongo Connection object to MongoDB.
+	 **/
+	OplogMultiplexer(Mongo mongo) {
+		this.mongo = mongo;
+		this.oplogDatabase = mongo.getDB(OPLOG_DATABASE_NAME);
+		this.documentLoaders = new HashMap<String, PostImageLoader>();
+		this.registrations = new Registration[0];
+		this.index = SubscriptionIndex.empty();
+		this.namespaceCounts = new HashMap<String, Integer>();
+		this.addedNamespaces = new HashMap<String, BSONTimestamp>();
+	}
+	
+	/**
+	 * Sets the username and password that will be used for connecting to the Oplog database.
+	 * @param username Username for the oplog database.
+	 * @param password Password for the oplog database.
+	 **/
+	synchronized void setOplogCredentials(String username, String password) {
+		this.oplogUser = username;
+		this.oplogPassword = password;
+	}
+	
+	/**
+	 * Sets the store used to persist the position of the monitor. When the monitor is started and the store holds a
+	 * checkpoint, tailing resumes after the checkpoint instead of at the latest entry, and the subscriptions registered
+	 * at that moment receive the entries written while no monitor was running.
+	 * @param checkpointStore The store to use, or null to disable checkpointing.
+	 **/
+	synchronized void setCheckpointStore(OplogCheckpointStore checkpointStore) {
+		this.checkpointStore = checkpointStore;
+	}
+	
+	/**
+	 * Returns the index of the registrations entries should be offered to.
+	 * @return The index of the registrations.
+	 **/
+	SubscriptionIndex getIndex() {
+		return index;
+	}
+	
+	/**
+	 * Returns the version of the set of tailed namespaces.
+	 * @return The version of the set of tailed namespaces.
+	 **/
+	int getNamespaceVersion() {
+		return namespaceVersion;
+	}
+	
+	/**
+	 * Returns the namespaces that should be tailed and hands over the namespaces added since the previous call.
+	 * @param added Map to which the added namespaces are copied, with the start timestamp of their first registration.
+	 * @return The namespaces that should be tailed.
+	 **/
+	synchronized String[] getNamespaces(Map<String, BSONTimestamp> added) {
+		added.putAll(addedNamespaces);
+		addedNamespaces.clear();
+		return namespaceCounts.keySet().toArray(new String[namespaceCounts.size()]);
+	}
+	
+	/**
+	 * Registers a subscription. The subscription will receive the entries written after this call, even when its
+	 * namespace is already being tailed and the cursor is still behind.
+	 * @param registration The subscription to register.
+	 * @return true if the registration was successful, false otherwise.
+	 **/
+	synchronized boolean register(Registration registration) {
+		String namespace = registration.getNamespace();
+		Integer count = namespaceCounts.get(namespace);
+		boolean startMonitor = !isMonitorRunning();
+		BSONTimestamp startTimestamp;
+		
+		try {
+			startTimestamp = getLatestTimestamp();
+			if (startTimestamp == null) {
+				// The oplog does not exist or is empty, the database has not been configured as a replica set.
+				return false;
+			}
+			if (startMonitor && checkpointStore != null) {
+				startTimestamp = getResumeTimestamp(startTimestamp);
+			}
+		} catch (MongoException ex) {
+			return false;
+		}
+		
+		registration.startTimestamp = startTimestamp;
+		if (startMonitor) {
+			// A new monitor starts at startTimestamp for every namespace, nothing has to be read again.
+			addedNamespaces.clear();
+		}
+		if (count == null) {
+			namespaceCounts.put(namespace, 1);
+			if (!addedNamespaces.containsKey(namespace)) {
+				addedNamespaces.put(namespace, startTimestamp);
+			}
+			++namespaceVersion;
+		} else {
+			namespaceCounts.put(namespace, count + 1);
+		}
+		Registration[] newRegistrations = new Registration[registrations.length + 1];
+		if (registration instanceof CacheRegistration) {
+			// Caches go first, so they have applied an entry before any subscriber hears about it.
+			newRegistrations[0] = registration;
+			System.arraycopy(registrations, 0, newRegistrations, 1, registrations.length);
+		} else {
+			if (registration.getSubscription().isDocumentFetchingEnabled()) {
+				registration.documentLoader = getDocumentLoader(namespace);
+			}
+			System.arraycopy(registrations, 0, newRegistrations, 0, registrations.length);
+			newRegistrations[registrations.length] = registration;
+		}
+		registrations = newRegistrations;
+		index = new SubscriptionIndex(registrations);
+		
+		if (startMonitor) {
+			try {
+				oplogMonitorThread = createMonitorThread(startTimestamp);
+				oplogMonitorThread.start();
+			} catch (MongoException ex) {
+				unregister(registration);
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Removes a registration. The tailed cursor is stopped when no registrations are left.
+	 * @param registration The registration to remove.
+	 **/
+	synchronized void unregister(Registration registration) {
+		int index = Arrays.asList(registrations).indexOf(registration);
+		if (index < 0) {
+			return;
+		}
+		Registration[] newRegistrations = new Registration[registrations.length - 1];
+		System.arraycopy(registrations, 0, newRegistrations, 0, index);
+		System.arraycopy(registrations, index + 1, newRegistrations, index, newRegistrations.length - index);
+		registrations = newRegistrations;
+		this.index = new SubscriptionIndex(registrations);
+		
+		String namespace = registration.getNamespace();
+		int count = namespaceCounts.get(namespace);
+		if (count > 1) {
+			namespaceCounts.put(namespace, count - 1);
+		} else {
+			// The cursor keeps selecting this namespace until it is replaced; the entries are simply not offered to anyone.
+			namespaceCounts.remove(namespace);
+			addedNamespaces.remove(namespace);
+		}
+		
+		if (registrations.length == 0 && oplogMonitorThread != null) {
+			oplogMonitorThread.shutdown();
+			oplogMonitorThread = null;
+		}
+	}
+	
+	/**
+	 * Returns the document loader for the given namespace, creating it if needed.
+	 * @param namespace The namespace (database.collection) of the documents.
+	 * @return The document loader for the given namespace.
+	 **/
+	private PostImageLoader getDocumentLoader(String namespace) {
+		PostImageLoader loader = documentLoaders.get(namespace);
+		if (loader == null) {
+			int separator = namespace.indexOf('.');
+			DBCollection collection =
+					mongo.getDB(namespace.substring(0, separator)).getCollection(namespace.substring(separator + 1));
+			loader = new PostImageLoader(collection);
+			documentLoaders.put(namespace, loader);
+		}
+		return loader;
+	}
+	
+	/**
+	 * Creates the monitor thread tailing the oplog for this multiplexer.
+	 * @param startTimestamp Only entries after this timestamp are read.
+	 * @return The monitor thread, not yet started.
+	 **/
+	OplogMonitorThread createMonitorThread(BSONTimestamp startTimestamp) {
+		return new OplogMonitorThread(oplogDatabase.getCollection(OPLOG_COLLECTION_NAME), this, startTimestamp,
+				checkpointStore);
+	}
+	
+	/**
+	 * Returns whether or not the monitor thread is running.
+	 * @return true if the monitor thread is running, false otherwise.
+	 **/
+	private boolean isMonitorRunning() {
+		return oplogMonitorThread != null && oplogMonitorThread.isAlive();
+	}
+	
+	/**
+	 * Determines where a starting monitor should resume, using the stored checkpoint if there is one.
+	 * @param latestTimestamp The timestamp of the latest entry in the oplog.
+	 * @return The stored checkpoint, or latestTimestamp if no checkpoint was stored.
+	 **/
+	private BSONTimestamp getResumeTimestamp(BSONTimestamp latestTimestamp) {
+		BSONTimestamp checkpoint = checkpointStore.load();
+		if (checkpoint == null || checkpoint.compareTo(latestTimestamp) > 0) {
+			return latestTimestamp;
+		}
+		
+		BSONTimestamp oldestTimestamp = getBoundaryTimestamp(1);
+		if (oldestTimestamp != null && checkpoint.compareTo(oldestTimestamp) < 0) {
+			rexos.libraries.log.Logger.log("Oplog checkpoint %s is older than the oldest oplog entry %s, entries have been lost.\n",
+					checkpoint, oldestTimestamp);
+		}
+		return checkpoint;
+	}
+	
+	/**
+	 * Returns the timestamp of the latest entry in the oplog.
+	 * @return The timestamp of the latest entry in the oplog or null if the oplog is empty.
+	 **/
+	BSONTimestamp getLatestTimestamp() {
+		return getBoundaryTimestamp(-1);
+	}
+	
+	/**
+	 * Returns the timestamp of the first or last entry in the oplog, authenticating with the oplog database if required.
+	 * @param direction 1 for the oldest entry, -1 for the latest entry.
+	 * @return The timestamp of the entry or null if the oplog is empty.
+	 **/
+	private BSONTimestamp getBoundaryTimestamp(int direction) {
+		if (oplogUser != null && !oplogDatabase.isAuthenticated()) {
+			oplogDatabase.authenticate(oplogUser, oplogPassword.toCharArray());
+		}
+		DBCollection oplogCollection = oplogDatabase.getCollection(OPLOG_COLLECTION_NAME);
+		DBCursor cursor = oplogCollection.find(new BasicDBObject(), new BasicDBObject(OplogEntry.TIMESTAMP_FIELD, 1))
+				.sort(new BasicDBObject("$natural", direction)).limit(1);
+		try {
+			if (!cursor.hasNext()) {
+				return null;
+			}
+			DBObject latest = cursor.next();
+			return (BSONTimestamp) latest.get(OplogEntry.TIMESTAMP_FIELD);
+		} finally {
+			cursor.close();
+		}
+	}
+}
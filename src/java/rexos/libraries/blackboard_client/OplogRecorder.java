@@ -0,0 +1,287 @@
+/**
+ * @file rexos/libraries/blackboard_client/OplogRecorder.java
+ * @brief Records the oplog entries of a set of namespaces to a file for replaying.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.UnknownHostException;
+
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.BSONTimestamp;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.Bytes;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBEncoder;
+import com.mongodb.DBObject;
+import com.mongodb.DefaultDBEncoder;
+import com.mongodb.MongoException;
+import com.mongodb.MongoInterruptedException;
+import com.mongodb.QueryBuilder;
+import com.mongodb.ServerAddress;
+
+/**
+ * Records the oplog entries of a set of namespaces, as they are written, to a file that can be replayed into the
+ * subscriptions of BlackboardClients with {@link OplogReplayer}.
+ * 
+ * The file starts with a header (magic number, format version and the wall clock time the recording started). Every
+ * entry follows as the amount of milliseconds since the previous entry was received, followed by the oplog document
+ * in its BSON encoding.
+ * 
+ * Usage: java rexos.libraries.blackboard_client.OplogRecorder host port file seconds namespace...
+ **/
+public class OplogRecorder implements Closeable {
+	/**
+	 * @var int MAGIC
+	 * The number every recording starts with.
+	 **/
+	static final int MAGIC = 0x52584f4c;
+	
+	/**
+	 * @var int VERSION
+	 * The version of the file format.
+	 **/
+	static final int VERSION = 1;
+	
+	/**
+	 * @var MongoDBConnection connection
+	 * The connection to the server whose oplog is recorded.
+	 **/
+	private MongoDBConnection connection;
+	
+	/**
+	 * @var String[] namespaces
+	 * The namespaces (database.collection) whose entries are recorded.
+	 **/
+	private String[] namespaces;
+	
+	/**
+	 * @var DataOutputStream out
+	 * The stream the recording is written to.
+	 **/
+	private DataOutputStream out;
+	
+	/**
+	 * @var String oplogUser
+	 * Username for the oplog database, or null if no authentication is required.
+	 **/
+	private String oplogUser;
+	
+	/**
+	 * @var String oplogPassword
+	 * Password for the oplog database.
+	 **/
+	private String oplogPassword;
+	
+	/**
+	 * @var int entryCount
+	 * The amount of entries recorded so far.
+	 **/
+	private volatile int entryCount;
+	
+	/**
+	 * @var Thread recordingThread
+	 * The thread executing {@link #record(long)}, or null when not recording.
+	 **/
+	private volatile Thread recordingThread;
+	
+	/**
+	 * @var boolean stopped
+	 * Whether or not {@link #close()} has been called.
+	 **/
+	private volatile boolean stopped;
+	
+	/**
+	 * Constructs a recorder for the oplog of the given server. The file is created right away.
+	 * @param host The host of the MongoDB server, which must be a member of a replica set.
+	 * @param port The port of the MongoDB server.
+	 * @param file The file the recording is written to. An existing file is overwritten.
+	 * @param namespaces The namespaces (database.collection) whose entries are recorded.
+	 * @throws UnknownHostException The host is unknown.
+	 * @throws GeneralMongoException Connecting to the server failed.
+	 * @throws IOException The file could not be created.
+	 **/
+	public OplogRecorder(String host, int port, File file, String... namespaces)
+			throws UnknownHostException, GeneralMongoException, IOException {
+		this.connection = MongoDBConnection.getInstanceForHost(new ServerAddress(host, port));
+		this.namespaces = namespaces.clone();
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+	}
+	
+	/**
+	 * Sets the username and password used for reading the oplog.
+	 * @param username Username for the oplog database.
+	 * @param password Password for the oplog database.
+	 **/
+	public void setOplogCredentials(String username, String password) {
+		this.oplogUser = username;
+		this.oplogPassword = password;
+	}
+	
+	/**
+	 * Returns the amount of entries recorded so far.
+	 * @return The amount of entries recorded so far.
+	 **/
+	public int getEntryCount() {
+		return entryCount;
+	}
+	
+	/**
+	 * Records the entries written from now on, until the given time has passed or {@link #close()} is called from
+	 * another thread. The file is closed when recording ends.
+	 * @param duration The time to record in milliseconds, or 0 to record until closed.
+	 * @return The amount of entries recorded.
+	 * @throws GeneralMongoException A MongoException occurred while reading the oplog.
+	 * @throws IOException Writing the recording failed.
+	 **/
+	public int record(long duration) throws GeneralMongoException, IOException {
+		recordingThread = Thread.currentThread();
+		long startTime = System.currentTimeMillis();
+		long endTime = duration > 0 ? startTime + duration : Long.MAX_VALUE;
+		DBCursor cursor = null;
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(startTime);
+			
+			DB oplogDatabase = connection.getMongoClient().getDB(OplogMultiplexer.OPLOG_DATABASE_NAME);
+			if (oplogUser != null && !oplogDatabase.isAuthenticated()) {
+				oplogDatabase.authenticate(oplogUser, oplogPassword.toCharArray());
+			}
+			DBCollection oplog = oplogDatabase.getCollection(OplogMultiplexer.OPLOG_COLLECTION_NAME);
+			BSONTimestamp latest = getLatestTimestamp(oplog);
+			if (latest == null) {
+				throw new GeneralMongoException("The oplog is empty, the server is not a member of a replica set.", null);
+			}
+			
+			cursor = oplog.find(QueryBuilder.start(OplogEntry.TIMESTAMP_FIELD).greaterThan(latest)
+					.and(OplogEntry.NAMESPACE_FIELD).in(namespaces).get());
+			cursor.addOption(Bytes.QUERYOPTION_TAILABLE);
+			cursor.addOption(Bytes.QUERYOPTION_AWAITDATA);
+			cursor.addOption(Bytes.QUERYOPTION_OPLOGREPLAY);
+			
+			DBEncoder encoder = DefaultDBEncoder.FACTORY.create();
+			long previousTime = startTime;
+			// hasNext blocks for a few seconds at most when no entries are written, so the end time is noticed.
+			while (!stopped && System.currentTimeMillis() < endTime && cursor.hasNext()) {
+				DBObject entry = cursor.next();
+				long receivedTime = System.currentTimeMillis();
+				out.writeInt((int) Math.min(receivedTime - previousTime, Integer.MAX_VALUE));
+				previousTime = receivedTime;
+				BasicOutputBuffer buffer = new BasicOutputBuffer();
+				encoder.writeObject(buffer, entry);
+				buffer.pipe((OutputStream) out);
+				++entryCount;
+			}
+			if (!stopped && System.currentTimeMillis() < endTime) {
+				throw new GeneralMongoException("The tailed cursor on the oplog is no longer alive.", null);
+			}
+		} catch (MongoInterruptedException ex) {
+			if (!stopped) {
+				throw new GeneralMongoException("Interrupted while recording the oplog.", ex);
+			}
+		} catch (MongoException mongoException) {
+			if (!stopped) {
+				throw new GeneralMongoException("An error occurred attempting to record the oplog.", mongoException);
+			}
+		} finally {
+			recordingThread = null;
+			if (stopped) {
+				// Clear the interrupt used by close to wake this thread up.
+				Thread.interrupted();
+			}
+			if (cursor != null) {
+				cursor.close();
+			}
+			out.close();
+		}
+		return entryCount;
+	}
+	
+	/**
+	 * Stops recording and closes the file. A call to {@link #record(long)} that is in progress returns the amount of
+	 * entries recorded.
+	 * @throws IOException Closing the file failed.
+	 **/
+	@Override
+	public void close() throws IOException {
+		stopped = true;
+		Thread thread = recordingThread;
+		if (thread != null) {
+			// Wakes the thread up from the blocking cursor, which then closes the file.
+			thread.interrupt();
+		} else {
+			out.close();
+		}
+	}
+	
+	/**
+	 * Returns the timestamp of the latest entry in the oplog.
+	 * @param oplog The oplog collection.
+	 * @return The timestamp of the latest entry or null if the oplog is empty.
+	 **/
+	private static BSONTimestamp getLatestTimestamp(DBCollection oplog) {
+		DBCursor cursor = oplog.find(new BasicDBObject(), new BasicDBObject(OplogEntry.TIMESTAMP_FIELD, 1))
+				.sort(new BasicDBObject("$natural", -1)).limit(1);
+		try {
+			return cursor.hasNext() ? (BSONTimestamp) cursor.next().get(OplogEntry.TIMESTAMP_FIELD) : null;
+		} finally {
+			cursor.close();
+		}
+	}
+	
+	/**
+	 * Records the oplog of a server to a file.
+	 * @param args The host, port, file, amount of seconds to record and the namespaces to record.
+	 **/
+	public static void main(String[] args) {
+		if (args.length < 5) {
+			System.err.println("Usage: OplogRecorder host port file seconds namespace...");
+			System.exit(1);
+		}
+		String[] namespaces = new String[args.length - 4];
+		System.arraycopy(args, 4, namespaces, 0, namespaces.length);
+		try {
+			OplogRecorder recorder = new OplogRecorder(args[0], Integer.parseInt(args[1]), new File(args[2]), namespaces);
+			int count = recorder.record(Long.parseLong(args[3]) * 1000);
+			System.out.printf("Recorded %d entries to %s%n", count, args[2]);
+		} catch (IOException | GeneralMongoException ex) {
+			rexos.libraries.log.Logger.log(ex);
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,214 @@
+/**
+ * @file rexos/libraries/blackboard_client/OplogReplayer.java
+ * @brief Replays a recorded oplog stream into the subscriptions of BlackboardClients.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.bson.types.BSONTimestamp;
+
+import com.mongodb.DBCollection;
+import com.mongodb.DBDecoder;
+import com.mongodb.DBObject;
+import com.mongodb.DefaultDBDecoder;
+
+/**
+ * Replays a recording made by {@link OplogRecorder} into the subscriptions of one or more BlackboardClients. Entries
+ * are matched and delivered exactly like entries read from the oplog: through the subscription index, the document
+ * loaders and the callback dispatcher of every client, so the real subscribers and their handlers are exercised.
+ * Document caches of the clients are not touched, and clients using a {@link BlackboardBackend} receive no entries.
+ * 
+ * The entries are replayed with the gaps between them as recorded, divided by the speed: 1 replays in real time, 10
+ * ten times as fast and {@link #MAXIMUM_SPEED} without any waiting. The timestamps of the entries are replaced by the
+ * replay time, so the lag measured by {@link BlackboardClientMetrics} reflects the replay rather than the recording.
+ **/
+public class OplogReplayer {
+	/**
+	 * @var double MAXIMUM_SPEED
+	 * Speed at which entries are replayed as fast as possible.
+	 **/
+	public static final double MAXIMUM_SPEED = Double.POSITIVE_INFINITY;
+	
+	/**
+	 * @var File file
+	 * The recording that is replayed.
+	 **/
+	private File file;
+	
+	/**
+	 * @var List<BlackboardClient> clients
+	 * The clients whose subscriptions receive the replayed entries.
+	 **/
+	private List<BlackboardClient> clients;
+	
+	/**
+	 * @var HashMap<String, String> namespaceMapping
+	 * Namespaces of the recording that are replayed as another namespace.
+	 **/
+	private HashMap<String, String> namespaceMapping;
+	
+	/**
+	 * @var double speed
+	 * The factor by which the gaps between the entries are shortened.
+	 **/
+	private double speed;
+	
+	/**
+	 * @var long elapsedTime
+	 * The time in milliseconds the last replay took.
+	 **/
+	private long elapsedTime;
+	
+	/**
+	 * Constructs a replayer for the given recording, replaying in real time.
+	 * @param file The recording made by an OplogRecorder.
+	 **/
+	public OplogReplayer(File file) {
+		this.file = file;
+		this.clients = new ArrayList<BlackboardClient>();
+		this.namespaceMapping = new HashMap<String, String>();
+		this.speed = 1;
+	}
+	
+	/**
+	 * Adds a client whose subscriptions should receive the replayed entries. The subscriptions made on the client
+	 * before {@link #replay()} is called are used.
+	 * @param client The client whose subscriptions receive the entries.
+	 **/
+	public void addClient(BlackboardClient client) {
+		clients.add(client);
+	}
+	
+	/**
+	 * Replays the entries of a recorded namespace as entries of another namespace, for example to replay the traffic
+	 * of a production database into a test database.
+	 * @param recordedNamespace The namespace (database.collection) in the recording.
+	 * @param replayedNamespace The namespace the entries are replayed as.
+	 **/
+	public void mapNamespace(String recordedNamespace, String replayedNamespace) {
+		namespaceMapping.put(recordedNamespace, replayedNamespace);
+	}
+	
+	/**
+	 * Sets the speed of the replay.
+	 * @param speed 1 for real time, a higher value to replay faster or {@link #MAXIMUM_SPEED}.
+	 **/
+	public void setSpeed(double speed) {
+		if (speed <= 0) {
+			throw new IllegalArgumentException("The speed must be positive.");
+		}
+		this.speed = speed;
+	}
+	
+	/**
+	 * Returns the time the last replay took.
+	 * @return The time in milliseconds from the first until the last entry of the last replay was handed to the
+	 * dispatchers.
+	 **/
+	public long getElapsedTime() {
+		return elapsedTime;
+	}
+	
+	/**
+	 * Replays the recording. Returns once every entry has been handed to the callback dispatchers of the clients; the
+	 * callbacks themselves may still be running.
+	 * @return The amount of entries replayed.
+	 * @throws IOException The recording could not be read.
+	 * @throws InterruptedException Interrupted while waiting for the next entry.
+	 **/
+	public int replay() throws IOException, InterruptedException {
+		ArrayList<OplogMultiplexer.Registration> registrations = new ArrayList<OplogMultiplexer.Registration>();
+		for (BlackboardClient client : clients) {
+			Collections.addAll(registrations, client.getRegistrations());
+		}
+		SubscriptionIndex index =
+				new SubscriptionIndex(registrations.toArray(new OplogMultiplexer.Registration[registrations.size()]));
+		ArrayList<OplogMultiplexer.Registration> matches = new ArrayList<OplogMultiplexer.Registration>();
+		DBDecoder decoder = DefaultDBDecoder.FACTORY.create();
+		int count = 0;
+		
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if (in.readInt() != OplogRecorder.MAGIC || in.readInt() != OplogRecorder.VERSION) {
+				throw new IOException(file + " is not an oplog recording.");
+			}
+			in.readLong();
+			
+			long startTime = System.currentTimeMillis();
+			double recordedTime = 0;
+			int lastSecond = 0;
+			int increment = 0;
+			while (true) {
+				int gap;
+				try {
+					gap = in.readInt();
+				} catch (EOFException ex) {
+					break;
+				}
+				DBObject document = decoder.decode(in, (DBCollection) null);
+				
+				recordedTime += gap;
+				long delay = startTime + (long) (recordedTime / speed) - System.currentTimeMillis();
+				if (delay > 0) {
+					Thread.sleep(delay);
+				}
+				
+				String namespace = namespaceMapping.get(document.get(OplogEntry.NAMESPACE_FIELD));
+				if (namespace != null) {
+					document.put(OplogEntry.NAMESPACE_FIELD, namespace);
+				}
+				int second = (int) (System.currentTimeMillis() / 1000);
+				increment = second == lastSecond ? increment + 1 : 0;
+				lastSecond = second;
+				document.put(OplogEntry.TIMESTAMP_FIELD, new BSONTimestamp(second, increment));
+				
+				OplogEntry entry = new OplogEntry(document);
+				index.match(entry, matches);
+				for (OplogMultiplexer.Registration registration : matches) {
+					registration.deliver(entry);
+				}
+				matches.clear();
+				++count;
+			}
+			elapsedTime = System.currentTimeMillis() - startTime;
+		} finally {
+			in.close();
+		}
+		return count;
+	}
+}
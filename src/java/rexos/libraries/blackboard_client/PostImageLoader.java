@@ -0,0 +1,203 @@
+/**
+ * @file rexos/libraries/blackboard_client/PostImageLoader.java
+ * @brief Fetches the current version of documents targeted by oplog entries, in batches.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.bson.types.ObjectId;
+
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+import com.mongodb.QueryBuilder;
+
+/**
+ * Fetches the current version of the documents targeted by oplog entries for a single namespace.
+ * 
+ * Entries are added by the oplog monitor as they are read. Nothing is fetched until a subscriber asks an entry for
+ * its document; at that point the documents of all entries that are still waiting are fetched with a single $in query
+ * (up to MAX_BATCH_SIZE ids). Every entry is fetched at most once, no matter how many subscribers ask for it.
+ * Only the newest entry for a document is kept waiting; an older entry for the same document fetches it when it is
+ * asked for it, together with the entries that are still waiting.
+ **/
+class PostImageLoader {
+	/**
+	 * @var int MAX_BATCH_SIZE
+	 * The maximum amount of documents fetched with a single query.
+	 **/
+	private static final int MAX_BATCH_SIZE = 100;
+	
+	/**
+	 * @var int MAX_PENDING_SIZE
+	 * The maximum amount of entries waiting to be fetched. When exceeded, the entry for the document that was changed
+	 * least recently is forgotten; it fetches its document on its own if it is ever asked for it.
+	 **/
+	private static final int MAX_PENDING_SIZE = 1000;
+	
+	/**
+	 * @var DBCollection collection
+	 * The collection the documents are fetched from.
+	 **/
+	private DBCollection collection;
+	
+	/**
+	 * @var LinkedHashMap<ObjectId, OplogEntry> pending
+	 * The newest entry of every document that has not yet been fetched, by document id, the least recently changed
+	 * document first.
+	 **/
+	private LinkedHashMap<ObjectId, OplogEntry> pending;
+	
+	/**
+	 * @var HashSet<OplogEntry> inFlight
+	 * The entries whose documents are currently being fetched.
+	 **/
+	private HashSet<OplogEntry> inFlight;
+	
+	/**
+	 * Constructs a loader for the specified collection.
+	 * @param collection The collection the documents are fetched from.
+	 **/
+	PostImageLoader(DBCollection collection) {
+		this.collection = collection;
+		this.pending = new LinkedHashMap<ObjectId, OplogEntry>();
+		this.inFlight = new HashSet<OplogEntry>();
+	}
+	
+	/**
+	 * Adds an entry whose document should be available to its subscribers. Inserted documents are taken from the entry
+	 * itself and deleted documents are not fetched at all. An update replaces the waiting entry for the same document.
+	 * @param entry The entry that should carry a document.
+	 **/
+	synchronized void add(OplogEntry entry) {
+		if (entry.getDocumentLoader() != null) {
+			return;
+		}
+		entry.setDocumentLoader(this);
+		
+		ObjectId id = entry.getTargetObjectId();
+		if (entry.getOperation() == MongoOperation.UPDATE && id != null) {
+			// Removed first so the document moves to the end of the eviction order.
+			pending.remove(id);
+			pending.put(id, entry);
+			
+			if (pending.size() > MAX_PENDING_SIZE) {
+				Iterator<ObjectId> it = pending.keySet().iterator();
+				it.next();
+				it.remove();
+			}
+		} else if (entry.getOperation() == MongoOperation.INSERT) {
+			entry.setDocument(entry.getUpdateDocument());
+		} else {
+			entry.setDocument(null);
+		}
+	}
+	
+	/**
+	 * Makes sure the document of the given entry has been fetched, together with the other pending documents.
+	 * Waits if the document is being fetched by another thread.
+	 * @param entry The entry that needs its document.
+	 * @throws GeneralMongoException A MongoException occurred.
+	 **/
+	void load(OplogEntry entry) throws GeneralMongoException {
+		ArrayList<OplogEntry> batch = new ArrayList<OplogEntry>();
+		HashSet<ObjectId> ids = new HashSet<ObjectId>();
+		synchronized (this) {
+			while (!entry.isDocumentLoaded() && inFlight.contains(entry)) {
+				// Another thread is fetching this document.
+				try {
+					wait();
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new GeneralMongoException("Interrupted while waiting for a document.", ex);
+				}
+			}
+			if (entry.isDocumentLoaded()) {
+				return;
+			}
+			
+			ObjectId id = entry.getTargetObjectId();
+			OplogEntry newest = pending.remove(id);
+			if (newest != null && newest != entry) {
+				// The entry was replaced by a newer one for the same document, which shares the read.
+				batch.add(newest);
+			}
+			batch.add(entry);
+			ids.add(id);
+			
+			Iterator<Map.Entry<ObjectId, OplogEntry>> it = pending.entrySet().iterator();
+			while (it.hasNext() && ids.size() < MAX_BATCH_SIZE) {
+				Map.Entry<ObjectId, OplogEntry> next = it.next();
+				ids.add(next.getKey());
+				batch.add(next.getValue());
+				it.remove();
+			}
+			inFlight.addAll(batch);
+		}
+		
+		HashMap<Object, DBObject> documents = new HashMap<Object, DBObject>();
+		try {
+			DBCursor cursor = collection.find(QueryBuilder.start("_id").in(ids).get());
+			try {
+				while (cursor.hasNext()) {
+					DBObject document = cursor.next();
+					documents.put(document.get("_id"), document);
+				}
+			} finally {
+				cursor.close();
+			}
+		} catch (MongoException mongoException) {
+			synchronized (this) {
+				// Put the batch back so the next request retries it, unless a newer entry has been added meanwhile.
+				inFlight.removeAll(batch);
+				for (OplogEntry batchEntry : batch) {
+					if (!pending.containsKey(batchEntry.getTargetObjectId())) {
+						pending.put(batchEntry.getTargetObjectId(), batchEntry);
+					}
+				}
+				notifyAll();
+			}
+			throw new GeneralMongoException("An error occurred attempting to fetch documents.", mongoException);
+		}
+		
+		synchronized (this) {
+			for (OplogEntry batchEntry : batch) {
+				batchEntry.setDocument(documents.get(batchEntry.getTargetObjectId()));
+			}
+			inFlight.removeAll(batch);
+			notifyAll();
+		}
+	}
+}
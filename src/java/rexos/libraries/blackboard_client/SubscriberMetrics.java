@@ -0,0 +1,195 @@
+/**
+ * @file rexos/libraries/blackboard_client/SubscriberMetrics.java
+ * @brief Dispatch metrics of a single subscriber of a BlackboardClient.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queue wait and execution times of the callbacks delivered to one subscriber of a {@link BlackboardClient}.
+ * Obtained through {@link BlackboardClientMetrics#getSubscriberMetrics(BlackboardSubscriber)} and registered as an MBean
+ * next to the metrics of its client.
+ **/
+public class SubscriberMetrics implements SubscriberMetricsMBean {
+	/**
+	 * @var String subscriber
+	 * Description of the subscriber.
+	 **/
+	private final String subscriber;
+	
+	/**
+	 * @var LatencyHistogram queueWait
+	 * Time in microseconds between queueing a callback and a worker picking it up.
+	 **/
+	private final LatencyHistogram queueWait;
+	
+	/**
+	 * @var LatencyHistogram executionTime
+	 * Time in microseconds spent in the onMessage method of the subscriber.
+	 **/
+	private final LatencyHistogram executionTime;
+	
+	/**
+	 * @var AtomicLong failedCallbacks
+	 * The amount of callbacks in which the subscriber threw an exception.
+	 **/
+	private final AtomicLong failedCallbacks;
+	
+	/**
+	 * Constructs empty metrics for the given subscriber.
+	 * @param subscriber The subscriber the metrics are recorded for.
+	 **/
+	SubscriberMetrics(BlackboardSubscriber subscriber) {
+		this.subscriber = describe(subscriber);
+		this.queueWait = new LatencyHistogram();
+		this.executionTime = new LatencyHistogram();
+		this.failedCallbacks = new AtomicLong();
+	}
+	
+	/**
+	 * Returns a description of the subscriber that is unique for as long as the subscriber exists.
+	 * @param subscriber The subscriber to describe.
+	 * @return The class name and identity hash of the subscriber.
+	 **/
+	static String describe(BlackboardSubscriber subscriber) {
+		return subscriber.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(subscriber));
+	}
+	
+	/**
+	 * Records a delivered callback.
+	 * @param waitNanos Time in nanoseconds the callback waited in the queue.
+	 * @param executionNanos Time in nanoseconds the subscriber spent handling the callback.
+	 * @param failed Whether or not the subscriber threw an exception.
+	 **/
+	void record(long waitNanos, long executionNanos, boolean failed) {
+		queueWait.record(waitNanos / 1000);
+		executionTime.record(executionNanos / 1000);
+		if (failed) {
+			failedCallbacks.incrementAndGet();
+		}
+	}
+	
+	/**
+	 * Returns the histogram of the time in microseconds callbacks waited in the queue.
+	 * @return The queue wait histogram.
+	 **/
+	public LatencyHistogram getQueueWaitHistogram() {
+		return queueWait;
+	}
+	
+	/**
+	 * Returns the histogram of the time in microseconds the subscriber spent handling callbacks.
+	 * @return The execution time histogram.
+	 **/
+	public LatencyHistogram getExecutionTimeHistogram() {
+		return executionTime;
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.SubscriberMetricsMBean#getSubscriber()
+	 **/
+	@Override
+	public String getSubscriber() {
+		return subscriber;
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.SubscriberMetricsMBean#getCallbackCount()
+	 **/
+	@Override
+	public long getCallbackCount() {
+		return executionTime.getCount();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.SubscriberMetricsMBean#getFailedCallbackCount()
+	 **/
+	@Override
+	public long getFailedCallbackCount() {
+		return failedCallbacks.get();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.SubscriberMetricsMBean#getQueueWaitMeanMicros()
+	 **/
+	@Override
+	public double getQueueWaitMeanMicros() {
+		return queueWait.getMean();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.SubscriberMetricsMBean#getQueueWait99thPercentileMicros()
+	 **/
+	@Override
+	public long getQueueWait99thPercentileMicros() {
+		return queueWait.getPercentile(99);
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.SubscriberMetricsMBean#getQueueWaitMaxMicros()
+	 **/
+	@Override
+	public long getQueueWaitMaxMicros() {
+		return queueWait.getMax();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.SubscriberMetricsMBean#getExecutionTimeMeanMicros()
+	 **/
+	@Override
+	public double getExecutionTimeMeanMicros() {
+		return executionTime.getMean();
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.SubscriberMetricsMBean#getExecutionTime99thPercentileMicros()
+	 **/
+	@Override
+	public long getExecutionTime99thPercentileMicros() {
+		return executionTime.getPercentile(99);
+	}
+	
+	/**
+	 * @see rexos.libraries.blackboard_client.SubscriberMetricsMBean#getExecutionTimeMaxMicros()
+	 **/
+	@Override
+	public long getExecutionTimeMaxMicros() {
+		return executionTime.getMax();
+	}
+	
+	/**
+	 * Returns a short summary of the metrics.
+	 * @return A string describing the subscriber, queue wait and execution times.
+	 **/
+	@Override
+	public String toString() {
+		return String.format("%s: queueWait[%s] execution[%s] failed=%d",
+				subscriber, queueWait, executionTime, failedCallbacks.get());
+	}
+}
@@ -0,0 +1,89 @@
+/**
+ * @file rexos/libraries/blackboard_client/SubscriberMetricsMBean.java
+ * @brief JMX interface exposing the dispatch metrics of a single subscriber.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+/**
+ * Management interface of {@link SubscriberMetrics}. All times are in microseconds.
+ **/
+public interface SubscriberMetricsMBean {
+	/**
+	 * Returns a description of the subscriber.
+	 * @return The class name and identity hash of the subscriber.
+	 **/
+	public String getSubscriber();
+	
+	/**
+	 * Returns the amount of callbacks delivered to the subscriber.
+	 * @return The amount of delivered callbacks.
+	 **/
+	public long getCallbackCount();
+	
+	/**
+	 * Returns the amount of callbacks in which the subscriber threw an exception.
+	 * @return The amount of failed callbacks.
+	 **/
+	public long getFailedCallbackCount();
+	
+	/**
+	 * Returns the mean time callbacks waited in the queue before a worker picked them up.
+	 * @return The mean queue wait time.
+	 **/
+	public double getQueueWaitMeanMicros();
+	
+	/**
+	 * Returns the approximate 99th percentile of the queue wait time.
+	 * @return The 99th percentile of the queue wait time.
+	 **/
+	public long getQueueWait99thPercentileMicros();
+	
+	/**
+	 * Returns the longest queue wait time.
+	 * @return The longest queue wait time.
+	 **/
+	public long getQueueWaitMaxMicros();
+	
+	/**
+	 * Returns the mean time the subscriber spent handling a callback.
+	 * @return The mean execution time.
+	 **/
+	public double getExecutionTimeMeanMicros();
+	
+	/**
+	 * Returns the approximate 99th percentile of the execution time.
+	 * @return The 99th percentile of the execution time.
+	 **/
+	public long getExecutionTime99thPercentileMicros();
+	
+	/**
+	 * Returns the longest execution time.
+	 * @return The longest execution time.
+	 **/
+	public long getExecutionTimeMaxMicros();
+}
@@ -0,0 +1,230 @@
+/**
+ * @file rexos/libraries/blackboard_client/SubscriptionIndex.java
+ * @brief Index of the registered subscriptions by namespace, operation and updated field.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+
+import com.mongodb.DBObject;
+
+import rexos.libraries.blackboard_client.FieldUpdateSubscription.MongoUpdateLogOperation;
+
+/**
+ * Immutable index of the registrations of an {@link OplogMultiplexer}, used to find the registrations an oplog entry
+ * should be offered to without evaluating every subscription.
+ * 
+ * Registrations are grouped by namespace and operation. {@link BasicOperationSubscription}s match every entry of their
+ * group. {@link FieldUpdateSubscription}s are additionally keyed by the field they watch for every update operation
+ * they subscribed to, so an update entry only visits the subscriptions of the fields it contains. Caches receive every
+ * entry of their namespace. Subscriptions of any other type are evaluated with
+ * {@link BlackboardSubscription#matchesWithEntry(OplogEntry)} as before.
+ * 
+ * The index is built from the subscriptions as they are when they are registered; the operations of a
+ * FieldUpdateSubscription should therefore be added before subscribing.
+ **/
+class SubscriptionIndex {
+	/**
+	 * The registrations for a single namespace.
+	 **/
+	private static class NamespaceIndex {
+		/**
+		 * @var ArrayList<OplogMultiplexer.Registration> caches
+		 * The cache registrations, receiving every entry.
+		 **/
+		private ArrayList<OplogMultiplexer.Registration> caches = new ArrayList<OplogMultiplexer.Registration>();
+		
+		/**
+		 * @var EnumMap<MongoOperation, ArrayList<OplogMultiplexer.Registration>> byOperation
+		 * The registrations matching every entry of an operation.
+		 **/
+		private EnumMap<MongoOperation, ArrayList<OplogMultiplexer.Registration>> byOperation =
+				new EnumMap<MongoOperation, ArrayList<OplogMultiplexer.Registration>>(MongoOperation.class);
+		
+		/**
+		 * @var EnumMap<MongoUpdateLogOperation, HashMap<String, ArrayList<OplogMultiplexer.Registration>>> byField
+		 * The field update registrations by update operation and field name.
+		 **/
+		private EnumMap<MongoUpdateLogOperation, HashMap<String, ArrayList<OplogMultiplexer.Registration>>> byField =
+				new EnumMap<MongoUpdateLogOperation, HashMap<String, ArrayList<OplogMultiplexer.Registration>>>(
+						MongoUpdateLogOperation.class);
+		
+		/**
+		 * @var ArrayList<OplogMultiplexer.Registration> others
+		 * The registrations that have to be evaluated for every entry.
+		 **/
+		private ArrayList<OplogMultiplexer.Registration> others = new ArrayList<OplogMultiplexer.Registration>();
+	}
+	
+	/**
+	 * @var HashMap<String, NamespaceIndex> namespaces
+	 * The index of every namespace with registrations.
+	 **/
+	private HashMap<String, NamespaceIndex> namespaces;
+	
+	/**
+	 * Builds the index for the given registrations.
+	 * @param registrations The registrations to index, cache registrations first.
+	 **/
+	SubscriptionIndex(OplogMultiplexer.Registration[] registrations) {
+		namespaces = new HashMap<String, NamespaceIndex>();
+		for (OplogMultiplexer.Registration registration : registrations) {
+			NamespaceIndex namespaceIndex = namespaces.get(registration.getNamespace());
+			if (namespaceIndex == null) {
+				namespaceIndex = new NamespaceIndex();
+				namespaces.put(registration.getNamespace(), namespaceIndex);
+			}
+			add(namespaceIndex, registration);
+		}
+	}
+	
+	/**
+	 * Adds a registration to the index of its namespace.
+	 * @param namespaceIndex The index of the namespace of the registration.
+	 * @param registration The registration to add.
+	 **/
+	private static void add(NamespaceIndex namespaceIndex, OplogMultiplexer.Registration registration) {
+		BlackboardSubscription subscription = registration.getSubscription();
+		if (registration instanceof OplogMultiplexer.CacheRegistration) {
+			namespaceIndex.caches.add(registration);
+		} else if (subscription.getClass() == BasicOperationSubscription.class) {
+			MongoOperation operation = ((BasicOperationSubscription) subscription).getOperation();
+			ArrayList<OplogMultiplexer.Registration> list = namespaceIndex.byOperation.get(operation);
+			if (list == null) {
+				list = new ArrayList<OplogMultiplexer.Registration>();
+				namespaceIndex.byOperation.put(operation, list);
+			}
+			list.add(registration);
+		} else if (subscription.getClass() == FieldUpdateSubscription.class) {
+			FieldUpdateSubscription fieldSubscription = (FieldUpdateSubscription) subscription;
+			for (MongoUpdateLogOperation operation : fieldSubscription.getOperations()) {
+				HashMap<String, ArrayList<OplogMultiplexer.Registration>> fields = namespaceIndex.byField.get(operation);
+				if (fields == null) {
+					fields = new HashMap<String, ArrayList<OplogMultiplexer.Registration>>();
+					namespaceIndex.byField.put(operation, fields);
+				}
+				ArrayList<OplogMultiplexer.Registration> list = fields.get(fieldSubscription.getFieldName());
+				if (list == null) {
+					list = new ArrayList<OplogMultiplexer.Registration>();
+					fields.put(fieldSubscription.getFieldName(), list);
+				}
+				list.add(registration);
+			}
+		} else {
+			namespaceIndex.others.add(registration);
+		}
+	}
+	
+	/**
+	 * Collects the registrations the entry should be offered to: the caches of its namespace followed by the
+	 * registrations whose subscription matches the entry. Every registration is collected at most once.
+	 * @param entry The oplog entry.
+	 * @param matches The list the registrations are added to.
+	 **/
+	void match(OplogEntry entry, List<OplogMultiplexer.Registration> matches) {
+		NamespaceIndex namespaceIndex = namespaces.get(entry.getNamespace());
+		if (namespaceIndex == null) {
+			return;
+		}
+		matches.addAll(namespaceIndex.caches);
+		
+		MongoOperation operation = entry.getOperation();
+		if (operation != null) {
+			ArrayList<OplogMultiplexer.Registration> list = namespaceIndex.byOperation.get(operation);
+			if (list != null) {
+				matches.addAll(list);
+			}
+		}
+		
+		if (operation == MongoOperation.UPDATE && !namespaceIndex.byField.isEmpty()) {
+			int start = matches.size();
+			DBObject updateDocument = entry.getUpdateDocument();
+			boolean replaced = true;
+			for (MongoUpdateLogOperation updateOperation : MongoUpdateLogOperation.values()) {
+				String operator = updateOperation.getOperatorString();
+				if (operator != null && updateDocument.containsField(operator)) {
+					replaced = false;
+					addFieldMatches(namespaceIndex, updateOperation, (DBObject) updateDocument.get(operator), matches, start);
+				}
+			}
+			if (replaced) {
+				addFieldMatches(namespaceIndex, MongoUpdateLogOperation.REPLACE, updateDocument, matches, start);
+			}
+		}
+		
+		for (OplogMultiplexer.Registration registration : namespaceIndex.others) {
+			if (registration.getSubscription().matchesWithEntry(entry)) {
+				matches.add(registration);
+			}
+		}
+	}
+	
+	/**
+	 * Adds the field update registrations for the fields of an update operator.
+	 * @param namespaceIndex The index of the namespace of the entry.
+	 * @param operation The update operation.
+	 * @param fields The document containing the updated fields.
+	 * @param matches The list the registrations are added to.
+	 * @param start The index in matches of the first field update registration, used to skip duplicates.
+	 **/
+	private static void addFieldMatches(NamespaceIndex namespaceIndex, MongoUpdateLogOperation operation, DBObject fields,
+			List<OplogMultiplexer.Registration> matches, int start) {
+		HashMap<String, ArrayList<OplogMultiplexer.Registration>> registrationsByField = namespaceIndex.byField.get(operation);
+		if (registrationsByField == null) {
+			return;
+		}
+		for (String field : fields.keySet()) {
+			ArrayList<OplogMultiplexer.Registration> list = registrationsByField.get(field);
+			if (list == null) {
+				continue;
+			}
+			if (matches.size() == start) {
+				matches.addAll(list);
+			} else {
+				// A subscription can watch several operations and fields; deliver the entry only once.
+				int end = matches.size();
+				for (OplogMultiplexer.Registration registration : list) {
+					if (!matches.subList(start, end).contains(registration)) {
+						matches.add(registration);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns an empty index.
+	 * @return An index without registrations.
+	 **/
+	static SubscriptionIndex empty() {
+		return new SubscriptionIndex(new OplogMultiplexer.Registration[0]);
+	}
+}
@@ -0,0 +1,224 @@
+/**
+ * @file rexos/libraries/blackboard_client/SubscriptionIndexBenchmark.java
+ * @brief Microbenchmark comparing the subscription index with evaluating every subscription.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.bson.types.BSONTimestamp;
+import org.bson.types.ObjectId;
+
+import rexos.libraries.blackboard_client.FieldUpdateSubscription.MongoUpdateLogOperation;
+
+import com.mongodb.BasicDBObject;
+
+/**
+ * Microbenchmark measuring how many oplog entries per second can be matched against 10, 100 and 1000 subscriptions,
+ * using the {@link SubscriptionIndex} and using a linear scan calling matchesWithEntry on every subscription, which is
+ * what the monitor did before the index existed. No connection to MongoDB is needed.
+ * 
+ * Usage: java rexos.libraries.blackboard_client.SubscriptionIndexBenchmark [entries]
+ **/
+public class SubscriptionIndexBenchmark {
+	/**
+	 * @var String NAMESPACE
+	 * The namespace of the generated entries and subscriptions.
+	 **/
+	private static final String NAMESPACE = "benchmark.ProductStepsBlackBoard";
+	
+	/**
+	 * @var int[] SUBSCRIPTION_COUNTS
+	 * The amounts of subscriptions that are measured.
+	 **/
+	private static final int[] SUBSCRIPTION_COUNTS = { 10, 100, 1000 };
+	
+	/**
+	 * @var int DEFAULT_ENTRY_COUNT
+	 * The default amount of entries matched per measurement.
+	 **/
+	private static final int DEFAULT_ENTRY_COUNT = 200000;
+	
+	/**
+	 * Runs the benchmark.
+	 * @param args Optionally the amount of entries matched per measurement.
+	 **/
+	public static void main(String[] args) {
+		int entryCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ENTRY_COUNT;
+		
+		System.out.printf("%14s %16s %16s %10s%n", "subscriptions", "linear entries/s", "index entries/s", "speedup");
+		for (int subscriptionCount : SUBSCRIPTION_COUNTS) {
+			Random random = new Random(subscriptionCount);
+			OplogMultiplexer.Registration[] registrations = createRegistrations(subscriptionCount, random);
+			OplogEntry[] entries = createEntries(subscriptionCount, random);
+			SubscriptionIndex index = new SubscriptionIndex(registrations);
+			
+			// Warm up both paths and check that they agree.
+			long linearMatches = runLinear(registrations, entries, entries.length);
+			long indexMatches = runIndex(index, entries, entries.length);
+			if (linearMatches != indexMatches) {
+				throw new IllegalStateException(String.format(
+						"Linear scan matched %d times, index matched %d times.", linearMatches, indexMatches));
+			}
+			runLinear(registrations, entries, entryCount / 4);
+			runIndex(index, entries, entryCount / 4);
+			
+			long start = System.nanoTime();
+			runLinear(registrations, entries, entryCount);
+			double linearRate = entryCount / ((System.nanoTime() - start) / 1e9);
+			
+			start = System.nanoTime();
+			runIndex(index, entries, entryCount);
+			double indexRate = entryCount / ((System.nanoTime() - start) / 1e9);
+			
+			System.out.printf("%14d %16.0f %16.0f %9.1fx%n", subscriptionCount, linearRate, indexRate,
+					indexRate / linearRate);
+		}
+	}
+	
+	/**
+	 * Creates registrations resembling those of the agents: mostly subscriptions to $set on one of several fields,
+	 * some watching $unset as well and some subscriptions to inserts.
+	 * @param count The amount of registrations.
+	 * @param random The random generator.
+	 * @return The registrations.
+	 **/
+	private static OplogMultiplexer.Registration[] createRegistrations(int count, Random random) {
+		BlackboardSubscriber subscriber = new BlackboardSubscriber() {
+			@Override
+			public void onMessage(MongoOperation operation, OplogEntry entry) {
+				// Entries are only matched, never delivered.
+			}
+		};
+		
+		OplogMultiplexer.Registration[] registrations = new OplogMultiplexer.Registration[count];
+		for (int i = 0; i < count; i++) {
+			BlackboardSubscription subscription;
+			if (i % 10 == 0) {
+				subscription = new BasicOperationSubscription(MongoOperation.INSERT, subscriber);
+			} else {
+				FieldUpdateSubscription fieldSubscription =
+						new FieldUpdateSubscription(fieldName(random.nextInt(fieldCount(count))), subscriber);
+				fieldSubscription.addOperation(MongoUpdateLogOperation.SET);
+				if (i % 10 == 1) {
+					fieldSubscription.addOperation(MongoUpdateLogOperation.UNSET);
+				}
+				subscription = fieldSubscription;
+			}
+			registrations[i] = new OplogMultiplexer.Registration(NAMESPACE, subscription, null);
+		}
+		return registrations;
+	}
+	
+	/**
+	 * Creates update entries setting one or two random fields, with an insert every tenth entry.
+	 * @param subscriptionCount The amount of subscriptions, which determines the amount of distinct fields.
+	 * @param random The random generator.
+	 * @return The entries.
+	 **/
+	private static OplogEntry[] createEntries(int subscriptionCount, Random random) {
+		OplogEntry[] entries = new OplogEntry[1000];
+		for (int i = 0; i < entries.length; i++) {
+			ObjectId id = new ObjectId();
+			BasicDBObject entry = new BasicDBObject(OplogEntry.TIMESTAMP_FIELD, new BSONTimestamp(i, 0))
+					.append(OplogEntry.NAMESPACE_FIELD, NAMESPACE);
+			if (i % 10 == 0) {
+				entry.append(OplogEntry.OPERATION_FIELD, MongoOperation.INSERT.getOpCode())
+						.append(OplogEntry.UPDATE_DOC_FIELD, new BasicDBObject("_id", id).append("status", "NEW"));
+			} else {
+				BasicDBObject fields = new BasicDBObject(fieldName(random.nextInt(fieldCount(subscriptionCount))), 1);
+				if (i % 3 == 0) {
+					fields.append(fieldName(random.nextInt(fieldCount(subscriptionCount))), 2);
+				}
+				entry.append(OplogEntry.OPERATION_FIELD, MongoOperation.UPDATE.getOpCode())
+						.append(OplogEntry.UPDATE_CRITERIA_FIELD, new BasicDBObject("_id", id))
+						.append(OplogEntry.UPDATE_DOC_FIELD, new BasicDBObject("$set", fields));
+			}
+			entries[i] = new OplogEntry(entry);
+		}
+		return entries;
+	}
+	
+	/**
+	 * Returns the amount of distinct fields watched for the given amount of subscriptions.
+	 * @param subscriptionCount The amount of subscriptions.
+	 * @return The amount of distinct fields.
+	 **/
+	private static int fieldCount(int subscriptionCount) {
+		return Math.max(4, subscriptionCount / 4);
+	}
+	
+	/**
+	 * Returns the name of a field.
+	 * @param number The number of the field.
+	 * @return The name of the field.
+	 **/
+	private static String fieldName(int number) {
+		return number == 0 ? "status" : "field" + number;
+	}
+	
+	/**
+	 * Matches entries by evaluating every subscription.
+	 * @param registrations The registrations.
+	 * @param entries The entries, reused cyclically.
+	 * @param count The amount of entries to match.
+	 * @return The total amount of matches.
+	 **/
+	private static long runLinear(OplogMultiplexer.Registration[] registrations, OplogEntry[] entries, int count) {
+		long matched = 0;
+		for (int i = 0; i < count; i++) {
+			OplogEntry entry = entries[i % entries.length];
+			for (OplogMultiplexer.Registration registration : registrations) {
+				if (registration.getNamespace().equals(entry.getNamespace())
+						&& registration.getSubscription().matchesWithEntry(entry)) {
+					matched++;
+				}
+			}
+		}
+		return matched;
+	}
+	
+	/**
+	 * Matches entries using the index.
+	 * @param index The index.
+	 * @param entries The entries, reused cyclically.
+	 * @param count The amount of entries to match.
+	 * @return The total amount of matches.
+	 **/
+	private static long runIndex(SubscriptionIndex index, OplogEntry[] entries, int count) {
+		long matched = 0;
+		ArrayList<OplogMultiplexer.Registration> matches = new ArrayList<OplogMultiplexer.Registration>();
+		for (int i = 0; i < count; i++) {
+			index.match(entries[i % entries.length], matches);
+			matched += matches.size();
+			matches.clear();
+		}
+		return matched;
+	}
+}
@@ -0,0 +1,83 @@
+/**
+ * @file rexos/libraries/blackboard_client/WriteProfile.java
+ * @brief Named write concerns for blackboard writes.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+import com.mongodb.WriteConcern;
+
+/**
+ * Named write concerns that can be passed to the write operations of {@link BlackboardClient}. The profile is applied
+ * to the single operation it is passed to, so clients sharing a collection never see each other's write concern.
+ **/
+public enum WriteProfile {
+	/**
+	 * Does not wait for the server to acknowledge the write, nor does it check for errors other than network errors.
+	 * Meant for hot writes whose loss is not critical, such as log appends.
+	 **/
+	FIRE_AND_FORGET(WriteConcern.NORMAL),
+	/**
+	 * Waits for the server to acknowledge the write. Meant for writes other agents act upon, such as status transitions.
+	 **/
+	ACKNOWLEDGED(WriteConcern.SAFE),
+	/**
+	 * Waits for the server to commit the write to its journal. Meant for writes that must survive a crash of the
+	 * server, such as schedule commits.
+	 **/
+	JOURNALED(WriteConcern.JOURNAL_SAFE);
+	
+	/**
+	 * @var WriteConcern writeConcern
+	 * The write concern used for writes with this profile.
+	 **/
+	private final WriteConcern writeConcern;
+	
+	/**
+	 * Constructs the WriteProfile with the specified write concern.
+	 * @param writeConcern The write concern used for writes with this profile.
+	 **/
+	private WriteProfile(WriteConcern writeConcern) {
+		this.writeConcern = writeConcern;
+	}
+	
+	/**
+	 * Returns the write concern used for writes with this profile.
+	 * @return The write concern used for writes with this profile.
+	 **/
+	public WriteConcern getWriteConcern() {
+		return writeConcern;
+	}
+	
+	/**
+	 * Returns whether or not the server reports the outcome of writes with this profile.
+	 * @return true if the outcome is reported, false if the write is sent without waiting for a reply.
+	 **/
+	public boolean isAcknowledged() {
+		return writeConcern.callGetLastError();
+	}
+}
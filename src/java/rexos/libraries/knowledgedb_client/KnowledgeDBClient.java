@@ -28,20 +28,31 @@ package rexos.libraries.knowledgedb_client;
 
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
-import com.mysql.jdbc.Connection;
-import com.mysql.jdbc.JDBC4PreparedStatement;
-
 /**
  * A client to communicate with knowledge database.
+ *
+ * The client is shared by every agent in the process and is safe to use from multiple threads. Every query borrows a
+ * connection from a {@link KnowledgeDBConnectionPool} for its duration, so queries from different threads run
+ * concurrently. The pool is configured with the optional pool properties in the properties file, see
+ * {@link KnowledgeDBConnectionPool}.
+ *
+ * The results of the queries for software, modules, services and part properties, which rarely change, are cached
+ * for queryCacheTimeToLive milliseconds (10 minutes by default) in a {@link QueryCache} holding at most
+ * queryCacheSize results. Other queries can be cached, or given a different time to live, through
+ * {@link #getQueryCache()}.
  **/
 public class KnowledgeDBClient {
     /**
@@ -56,14 +67,38 @@ public class KnowledgeDBClient {
      *
      * The only rexos.libraries.knowledgedb_client.KnowledgeDBClient instance.
      **/
-    private static KnowledgeDBClient client;
+    private static volatile KnowledgeDBClient client;
+
+    /**
+     * @var String[] STATIC_QUERIES
+     *
+     * The queries whose results are cached by default.
+     **/
+    private static final String[] STATIC_QUERIES = new String[]{Queries.SOFTWARE_FOR_MODULE,
+            Queries.SOFTWARE_FOR_SERVICE, Queries.MODULES_PER_EQUIPLET, Queries.POSSIBLE_SERVICES_PER_EQUIPLET,
+            Queries.MODULEGROUPS_REQUIRED_PER_SERVICE, Queries.PART_PROPERTY, Queries.SERVICES_FOR_STEP_FOR_EQUIPLET,
+            Queries.SOFTWARE_FOR_MODULES, Queries.SOFTWARE_FOR_SERVICES};
 
     /**
-     * @var Connection connection
+     * @var int MAX_IN_LIST_SIZE
      *
-     * The mysql connection.
+     * The maximum amount of keys in the IN list of a single query of a batched select.
      **/
-    private Connection connection;
+    private static final int MAX_IN_LIST_SIZE = 64;
+
+    /**
+     * @var KnowledgeDBConnectionPool pool
+     *
+     * The pool of mysql connections.
+     **/
+    private KnowledgeDBConnectionPool pool;
+
+    /**
+     * @var QueryCache queryCache
+     *
+     * The cache for the results of queries that rarely change.
+     **/
+    private QueryCache queryCache;
 
     /**
      * Get current rexos.libraries.knowledgedb_client.KnowledgeDBClient instance.
@@ -71,16 +106,23 @@ public class KnowledgeDBClient {
      * @return The current rexos.libraries.knowledgedb_client.KnowledgeDBClient.
      * @throws KnowledgeException Creating a connection to the knowledge database has failed.
      **/
-    public static synchronized KnowledgeDBClient getClient() throws KnowledgeException {
-        if (client == null) {
-            client = new KnowledgeDBClient();
+    public static KnowledgeDBClient getClient() throws KnowledgeException {
+        KnowledgeDBClient instance = client;
+        if (instance == null) {
+            synchronized (KnowledgeDBClient.class) {
+                instance = client;
+                if (instance == null) {
+                    instance = new KnowledgeDBClient();
+                    client = instance;
+                }
+            }
         }
 
-        return client;
+        return instance;
     }
 
     /**
-     * Private constructor to create a mysql connection.
+     * Private constructor to create the connection pool. A first connection is opened to verify the configuration.
      * @throws KnowledgeException Creating a connection to the knowledge database has failed.
      **/
     private KnowledgeDBClient() throws KnowledgeException {
@@ -106,14 +148,44 @@ public class KnowledgeDBClient {
                     + "/" + dbProperties.getProperty("db");
             in.close();
 
-            connection = (Connection) DriverManager.getConnection(url, dbProperties.getProperty("username"), dbProperties.getProperty("password"));
-        } catch (SQLException ex) {
-            throw new KnowledgeException("Failed to connect to the knowledge server.", ex);
+            queryCache = new QueryCache(Integer.parseInt(dbProperties.getProperty("queryCacheSize", "1024").trim()));
+            long timeToLive = Long.parseLong(dbProperties.getProperty("queryCacheTimeToLive", "600000").trim());
+            for (String query : STATIC_QUERIES) {
+                queryCache.setTimeToLive(query, timeToLive);
+            }
+
+            // The evictor and the beans are only started once the server has proven to be reachable.
+            pool = new KnowledgeDBConnectionPool(url, dbProperties);
+            pool.release(pool.borrow(), false);
+            pool.start();
+            KnowledgeDBConnectionPool.registerBean(queryCache,
+                    KnowledgeDBConnectionPool.JMX_DOMAIN + ":type=QueryCache");
         } catch (IOException ex) {
             throw new KnowledgeException("Failed to read from the properties file.", ex);
+        } catch (NumberFormatException ex) {
+            throw new KnowledgeException("Invalid number in the knowledge database properties file.", ex);
         }
     }
 
+    /**
+     * Returns the connection pool used by this client, which provides the pool statistics.
+     *
+     * @return The connection pool.
+     **/
+    public KnowledgeDBConnectionPool getConnectionPool() {
+        return pool;
+    }
+
+    /**
+     * Returns the cache for the results of queries that rarely change, which provides the cache statistics and
+     * allows invalidating results after the knowledge database has been changed.
+     *
+     * @return The query cache.
+     **/
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
     /**
      * Creates an array of rows from the given ResultSet.
      * @param result The ResultSet that needs to be converted.
@@ -121,9 +193,11 @@ public class KnowledgeDBClient {
      * @throws SQLException Reading from the ResultSet failed.
      **/
 	private Row[] createRowArrayFromResultSet(ResultSet result) throws SQLException {
+		// All rows of the result share one header.
+		RowHeader header = new RowHeader(result.getMetaData());
 		ArrayList<Row> rowList = new ArrayList<Row>();
 		while (result.next()) {
-			rowList.add(new Row(result));
+			rowList.add(new Row(header, result));
 		}
 
 		Row[] rows = new Row[rowList.size()];
@@ -131,6 +205,35 @@ public class KnowledgeDBClient {
 		return rows;
 	}
     
+    /**
+     * Binds the parameters of a statement with the setter matching their type, so numeric keys are sent as numbers
+     * instead of strings. Types without a matching setter are bound as their string representation.
+     * @param statement The statement to bind the parameters of.
+     * @param parameters The parameters in a consecutive order.
+     * @throws SQLException Binding a parameter failed.
+     **/
+    private static void bindParameters(PreparedStatement statement, Object[] parameters) throws SQLException {
+        for (int i = 0; i < parameters.length; i++) {
+            Object parameter = parameters[i];
+            int index = i + 1;
+            if (parameter == null) {
+                statement.setNull(index, Types.NULL);
+            } else if (parameter instanceof Integer || parameter instanceof Short || parameter instanceof Byte) {
+                statement.setInt(index, ((Number) parameter).intValue());
+            } else if (parameter instanceof Long) {
+                statement.setLong(index, (Long) parameter);
+            } else if (parameter instanceof Double || parameter instanceof Float) {
+                statement.setDouble(index, ((Number) parameter).doubleValue());
+            } else if (parameter instanceof Boolean) {
+                statement.setBoolean(index, (Boolean) parameter);
+            } else if (parameter instanceof byte[]) {
+                statement.setBytes(index, (byte[]) parameter);
+            } else {
+                statement.setString(index, parameter.toString());
+            }
+        }
+    }
+
     /**
      * Get column names in a string array.
      * @param resultSet The ResultSet from a statement execution.
@@ -165,25 +268,12 @@ public class KnowledgeDBClient {
      * @throws KnowledgeException Reading from the knowledge database failed.
      **/
     public Row[] executeSelectQuery(String query) throws KnowledgeException {
-    	Statement statement = null;
-    	ResultSet result = null;
-    	Row[] rows = null;
-    	try {
-	        statement = connection.createStatement();
-	        result = statement.executeQuery(query);
-	        rows = createRowArrayFromResultSet(result);
-    	} catch (SQLException ex) {
-    		throw new KnowledgeException("Error reading from the knowledge database.", ex);
-    	} finally {
-    		if (result != null)	try { result.close(); } catch (SQLException e) {}
-    		if (statement != null)	try { statement.close(); } catch (SQLException e) {}
-    	}
-        
-    	return rows;
+        return executeSelectQuery(query, new Object[0]);
     }
 
     /**
-     * Executes a single query statement with parameters.
+     * Executes a single query statement with parameters. The result of a cached query is served from the query cache
+     * if it has not expired yet.
      *
      * @param query The query to be executed.
      * @param parameters The parameters for the query in a consecutive order.
@@ -192,26 +282,144 @@ public class KnowledgeDBClient {
      * @throws KnowledgeException Reading from the knowledge database failed.
      **/
     public Row[] executeSelectQuery(String query, Object... parameters) throws KnowledgeException {
-        PreparedStatement statement = null;
-        ResultSet result = null;
-        Row[] rows = null;
-    	try {
-			statement = connection.prepareStatement(query);
-
-			for (int i = 0; i < parameters.length; i++) {
-			    statement.setString(i + 1, parameters[i].toString());
-			}
+        Row[] rows = queryCache.get(query, parameters);
+        if (rows == null) {
+            long generation = queryCache.getGeneration();
+            rows = readRows(query, parameters);
+            queryCache.put(query, parameters, rows, generation);
+        }
+        return rows;
+    }
 
-			result = statement.executeQuery();
-	        rows = createRowArrayFromResultSet(result);
-		} catch (SQLException ex) {
-    		throw new KnowledgeException("Error reading from the knowledge database.", ex);
-		} finally {
-			if (result != null)	try { result.close(); } catch (SQLException e) {}
-    		if (statement != null)	try { statement.close(); } catch (SQLException e) {}
-		}
-    	
-    	return rows;
+    /**
+     * Executes a query for several keys at once. The query contains {@link Queries#IN_LIST}, which is expanded to an IN
+     * list holding the keys, and returns the key each row belongs to in the key column. Keys are sent in chunks of at
+     * most MAX_IN_LIST_SIZE. If the query is cached, the result of every key is cached separately, so only the keys
+     * that are not in the cache are read from the server.
+     *
+     * @param query The batched query to be executed.
+     * @param keyColumn The name of the column holding the key of each row.
+     * @param keys The keys to read the rows for.
+     *
+     * @return The rows for every key in the order of the keys, with an empty array for keys without rows.
+     * @throws KnowledgeException Reading from the knowledge database failed or the query is not a batched query.
+     **/
+    public <K> Map<K, Row[]> executeBatchedSelectQuery(String query, String keyColumn, Collection<K> keys)
+            throws KnowledgeException {
+        if (!query.contains(Queries.IN_LIST)) {
+            throw new KnowledgeException("The query does not contain an IN list.");
+        }
+
+        LinkedHashMap<K, Row[]> results = new LinkedHashMap<K, Row[]>();
+        // The keys that are not cached, by their normalized value as they are compared with the key column.
+        LinkedHashMap<Object, K> missing = new LinkedHashMap<Object, K>();
+        for (K key : keys) {
+            Row[] rows = queryCache.get(query, new Object[]{key});
+            results.put(key, rows);
+            if (rows == null) {
+                missing.put(normalizeKey(key), key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return results;
+        }
+
+        long generation = queryCache.getGeneration();
+        HashMap<K, ArrayList<Row>> grouped = new HashMap<K, ArrayList<Row>>();
+        ArrayList<K> missingKeys = new ArrayList<K>(missing.values());
+        for (int start = 0; start < missingKeys.size(); start += MAX_IN_LIST_SIZE) {
+            List<K> chunk = missingKeys.subList(start, Math.min(start + MAX_IN_LIST_SIZE, missingKeys.size()));
+
+            // Pad the IN list to a power of two by repeating the last key, so only a few distinct statements are used.
+            int listSize = Integer.highestOneBit(chunk.size());
+            if (listSize < chunk.size()) {
+                listSize <<= 1;
+            }
+            Object[] parameters = new Object[listSize];
+            for (int i = 0; i < listSize; i++) {
+                parameters[i] = chunk.get(Math.min(i, chunk.size() - 1));
+            }
+
+            StringBuilder inList = new StringBuilder("(?");
+            for (int i = 1; i < listSize; i++) {
+                inList.append(", ?");
+            }
+            inList.append(')');
+
+            for (Row row : readRows(query.replace(Queries.IN_LIST, inList), parameters)) {
+                K key;
+                try {
+                    key = missing.get(normalizeKey(row.get(keyColumn)));
+                } catch (KeyNotFoundException ex) {
+                    throw new KnowledgeException("The result does not contain the key column " + keyColumn + ".", ex);
+                }
+                if (key != null) {
+                    ArrayList<Row> keyRows = grouped.get(key);
+                    if (keyRows == null) {
+                        keyRows = new ArrayList<Row>();
+                        grouped.put(key, keyRows);
+                    }
+                    keyRows.add(row);
+                }
+            }
+        }
+
+        for (K key : missingKeys) {
+            ArrayList<Row> keyRows = grouped.get(key);
+            Row[] rows = keyRows == null ? new Row[0] : keyRows.toArray(new Row[keyRows.size()]);
+            results.put(key, rows);
+            queryCache.put(query, new Object[]{key}, rows, generation);
+        }
+        return results;
+    }
+
+    /**
+     * Normalizes a key so integral numbers are equal regardless of their type.
+     *
+     * @param key A key passed to or returned by a batched query.
+     *
+     * @return The key as a Long if it is an integral number, otherwise the key itself.
+     **/
+    private static Object normalizeKey(Object key) {
+        if (key instanceof Integer || key instanceof Long || key instanceof Short || key instanceof Byte) {
+            return ((Number) key).longValue();
+        }
+        return key;
+    }
+
+    /**
+     * Reads the result of a query from the knowledge database.
+     *
+     * @param query The query to be executed.
+     * @param parameters The parameters for the query in a consecutive order.
+     *
+     * @return The rows returned by the query.
+     * @throws KnowledgeException Reading from the knowledge database failed.
+     **/
+    private Row[] readRows(String query, Object[] parameters) throws KnowledgeException {
+        // A select can safely be repeated, so it is retried once on a new connection if the connection was lost.
+        for (int attempt = 1; ; attempt++) {
+            PooledConnection pooled = pool.borrow();
+            boolean broken = false;
+            PreparedStatement statement = null;
+            ResultSet result = null;
+            try {
+                statement = pooled.prepareStatement(query, false);
+                bindParameters(statement, parameters);
+
+                result = statement.executeQuery();
+                return createRowArrayFromResultSet(result);
+            } catch (SQLException ex) {
+                broken = KnowledgeDBConnectionPool.isConnectionFailure(ex);
+                if (!broken || attempt == 2) {
+                    throw new KnowledgeException("Error reading from the knowledge database.", ex);
+                }
+            } finally {
+                if (result != null)	try { result.close(); } catch (SQLException e) {}
+                if (statement != null)	pooled.releaseStatement(query, statement);
+                pool.release(pooled, broken);
+            }
+        }
     }
 
 
@@ -224,7 +432,7 @@ public class KnowledgeDBClient {
      * @throws KnowledgeException Reading from the knowledge database failed.
      **/
     public int executeUpdateQuery(String query) throws KnowledgeException{
-        return executeUpdateQuery(query, (Object) null);
+        return executeUpdateQuery(query, new Object[0]);
     }
 
     /**
@@ -237,31 +445,29 @@ public class KnowledgeDBClient {
      * @throws KnowledgeException Reading from the knowledge database failed.
      **/
     public int executeUpdateQuery(String query, Object... parameters) throws KnowledgeException {
+    	PooledConnection pooled = pool.borrow();
+    	boolean broken = false;
     	PreparedStatement statement = null;
     	ResultSet result = null;
     	int queryReturnValue = 0;
         try {
-			statement = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
-
-			if (parameters != null) {
-			    for (int i = 0; i < parameters.length; i++) {
-			        statement.setString(i + 1, parameters[i].toString());
-			    }
-			}
+			statement = pooled.prepareStatement(query, true);
+			bindParameters(statement, parameters);
 
 			statement.executeUpdate();
-			if (((JDBC4PreparedStatement) statement).getLastInsertID() > 0) {
-			    result = statement.getGeneratedKeys();
-			    result.next();
+			result = statement.getGeneratedKeys();
+			if (result.next()) {
 			    queryReturnValue = result.getInt(1);
 			} else {
 				queryReturnValue = 0;
 			}
 		} catch (SQLException ex) {
+			broken = KnowledgeDBConnectionPool.isConnectionFailure(ex);
 			throw new KnowledgeException("Error reading from the knowledge database.", ex);
 		} finally {
 			if (result != null)	try { result.close(); } catch (SQLException e) {}
-    		if (statement != null)	try { statement.close(); } catch (SQLException e) {}
+    		if (statement != null)	pooled.releaseStatement(query, statement);
+    		pool.release(pooled, broken);
 		}
         
         return queryReturnValue;
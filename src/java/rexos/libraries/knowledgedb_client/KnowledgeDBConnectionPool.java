@@ -0,0 +1,501 @@
+/**
+ * @file rexos/libraries/knowledgedb_client/KnowledgeDBConnectionPool.java
+ * @brief A bounded pool of connections to the knowledge database.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.knowledgedb_client;
+
+import java.lang.management.ManagementFactory;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * A bounded pool of connections to the knowledge database, shared by every thread using the {@link KnowledgeDBClient}.
+ * 
+ * Connections are opened when they are needed, up to maxConnections. A thread borrowing a connection while all of
+ * them are in use waits at most maxWaitTime milliseconds. Idle connections are handed out most recently used first;
+ * one that has been idle for at least validationInterval milliseconds is validated before it is handed out, and one
+ * that has been idle for maxIdleTime milliseconds is closed. When the server cannot be reached, new connections are
+ * attempted with a delay that doubles from reconnectDelay up to maxReconnectDelay milliseconds. Every connection caches
+ * up to statementCacheSize prepared statements, which are prepared on the server unless useServerPrepStmts is false.
+ * All of these are read from the knowledge database properties file and are optional. The statistics of the pool are
+ * available through the getters and through JMX.
+ **/
+public class KnowledgeDBConnectionPool implements KnowledgeDBConnectionPoolMBean {
+	/**
+	 * @var String JMX_DOMAIN
+	 * The JMX domain of the beans of the knowledge database client.
+	 **/
+	public static final String JMX_DOMAIN = "rexos.libraries.knowledgedb_client";
+	
+	/**
+	 * @var String url
+	 * The JDBC url of the knowledge database.
+	 **/
+	private String url;
+	
+	/**
+	 * @var Properties connectionProperties
+	 * The properties passed to the driver when opening a connection.
+	 **/
+	private Properties connectionProperties;
+	
+	/**
+	 * @var int maxConnections
+	 * The maximum amount of open connections.
+	 **/
+	private int maxConnections;
+	
+	/**
+	 * @var long maxWaitTime
+	 * The time in milliseconds a thread waits for a connection before giving up.
+	 **/
+	private long maxWaitTime;
+	
+	/**
+	 * @var long maxIdleTime
+	 * The time in milliseconds after which an idle connection is closed, or 0 to keep idle connections open.
+	 **/
+	private long maxIdleTime;
+	
+	/**
+	 * @var long validationInterval
+	 * The time in milliseconds a connection has to be idle before it is validated on borrow.
+	 **/
+	private long validationInterval;
+	
+	/**
+	 * @var int validationTimeout
+	 * The time in seconds to wait for the server when validating a connection.
+	 **/
+	private int validationTimeout;
+	
+	/**
+	 * @var long minReconnectDelay
+	 * The delay in milliseconds after the first failed attempt to open a connection.
+	 **/
+	private long minReconnectDelay;
+	
+	/**
+	 * @var long maxReconnectDelay
+	 * The maximum delay in milliseconds between attempts to open a connection.
+	 **/
+	private long maxReconnectDelay;
+	
+	/**
+	 * @var int statementCacheSize
+	 * The maximum amount of prepared statements cached per connection.
+	 **/
+	private int statementCacheSize;
+	
+	/**
+	 * @var ArrayDeque<PooledConnection> idle
+	 * The idle connections, the most recently used first.
+	 **/
+	private ArrayDeque<PooledConnection> idle;
+	
+	/**
+	 * @var int active
+	 * The amount of connections that are borrowed or being opened.
+	 **/
+	private int active;
+	
+	/**
+	 * @var int waiting
+	 * The amount of threads waiting for a connection.
+	 **/
+	private int waiting;
+	
+	/**
+	 * @var long reconnectDelay
+	 * The current delay between attempts to open a connection, or 0 if the last attempt succeeded.
+	 **/
+	private long reconnectDelay;
+	
+	/**
+	 * @var long nextConnectAttempt
+	 * The time in milliseconds before which no new connection is attempted.
+	 **/
+	private long nextConnectAttempt;
+	
+	/**
+	 * @var SQLException lastConnectFailure
+	 * The exception of the last failed attempt to open a connection.
+	 **/
+	private SQLException lastConnectFailure;
+	
+	/**
+	 * @var long borrowCount
+	 * The amount of times a connection has been borrowed.
+	 **/
+	private long borrowCount;
+	
+	/**
+	 * @var long totalWaitTime
+	 * The summed time in milliseconds threads waited for a connection.
+	 **/
+	private long totalWaitTime;
+	
+	/**
+	 * @var long longestWaitTime
+	 * The longest time in milliseconds a thread waited for a connection.
+	 **/
+	private long longestWaitTime;
+	
+	/**
+	 * @var long discardedConnections
+	 * The amount of connections closed because they were invalid, broken or idle for too long.
+	 **/
+	private long discardedConnections;
+	
+	/**
+	 * @var long connectFailures
+	 * The amount of failed attempts to open a connection.
+	 **/
+	private long connectFailures;
+	
+	/**
+	 * Creates a pool for the specified database. No connection is opened until one is borrowed, and no idle
+	 * connections are evicted until {@link #start()} has been called.
+	 * @param url The JDBC url of the knowledge database.
+	 * @param properties The contents of the properties file, containing the username, the password and optionally the
+	 * pool configuration.
+	 * @throws KnowledgeException The pool configuration contains an invalid value.
+	 **/
+	KnowledgeDBConnectionPool(String url, Properties properties) throws KnowledgeException {
+		this.url = url;
+		this.connectionProperties = new Properties();
+		connectionProperties.setProperty("user", properties.getProperty("username"));
+		connectionProperties.setProperty("password", properties.getProperty("password"));
+		// Prepare statements on the server, so executing a cached statement again skips parsing the query.
+		connectionProperties.setProperty("useServerPrepStmts", properties.getProperty("useServerPrepStmts", "true").trim());
+		
+		try {
+			maxConnections = Integer.parseInt(properties.getProperty("maxConnections", "8").trim());
+			maxWaitTime = Long.parseLong(properties.getProperty("maxWaitTime", "10000").trim());
+			maxIdleTime = Long.parseLong(properties.getProperty("maxIdleTime", "300000").trim());
+			validationInterval = Long.parseLong(properties.getProperty("validationInterval", "5000").trim());
+			validationTimeout = Integer.parseInt(properties.getProperty("validationTimeout", "2").trim());
+			minReconnectDelay = Long.parseLong(properties.getProperty("reconnectDelay", "250").trim());
+			maxReconnectDelay = Long.parseLong(properties.getProperty("maxReconnectDelay", "30000").trim());
+			statementCacheSize = Integer.parseInt(properties.getProperty("statementCacheSize", "32").trim());
+		} catch (NumberFormatException ex) {
+			throw new KnowledgeException("Invalid number in the knowledge database properties file.", ex);
+		}
+		if (maxConnections < 1) {
+			throw new KnowledgeException("Property maxConnections must be at least 1.");
+		}
+		
+		idle = new ArrayDeque<PooledConnection>(maxConnections);
+	}
+	
+	/**
+	 * Starts the eviction of idle connections and registers the pool with the platform MBean server. This is called
+	 * once the first connection has been opened, so a pool for an unreachable server leaves no thread or bean behind.
+	 **/
+	void start() {
+		if (maxIdleTime > 0) {
+			ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "KnowledgeDBEvictor");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			long interval = Math.max(1000, maxIdleTime / 2);
+			evictor.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					evictIdleConnections();
+				}
+			}, interval, interval, TimeUnit.MILLISECONDS);
+		}
+		
+		registerBean(this, JMX_DOMAIN + ":type=KnowledgeDBConnectionPool,name=" + ObjectName.quote(url));
+	}
+	
+	/**
+	 * Registers a bean with the platform MBean server.
+	 * @param bean The bean to register.
+	 * @param objectName The name of the bean.
+	 **/
+	static void registerBean(Object bean, String objectName) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName beanName = new ObjectName(objectName);
+			if (!server.isRegistered(beanName)) {
+				server.registerMBean(bean, beanName);
+			}
+		} catch (JMException ex) {
+			rexos.libraries.log.Logger.log("Registering %s failed:\n%s\n", objectName, ex.getMessage());
+		}
+	}
+	
+	/**
+	 * Checks whether an exception means the connection to the server has been lost, in which case the connection
+	 * should not be returned to the pool.
+	 * @param ex The exception thrown while using a connection.
+	 * @return true if the connection is no longer usable.
+	 **/
+	static boolean isConnectionFailure(SQLException ex) {
+		String state = ex.getSQLState();
+		return ex instanceof SQLRecoverableException || ex instanceof SQLNonTransientConnectionException
+				|| (state != null && state.startsWith("08"));
+	}
+	
+	/**
+	 * Takes a connection from the pool, opening a new one if none is idle and the pool is not full. Waits if the pool
+	 * is exhausted or the server is unreachable, at most maxWaitTime milliseconds.
+	 * @return A connection for the exclusive use of the calling thread, to be handed back with
+	 * {@link #release(PooledConnection, boolean)}.
+	 * @throws KnowledgeException No connection became available in time.
+	 **/
+	PooledConnection borrow() throws KnowledgeException {
+		long start = System.currentTimeMillis();
+		long deadline = start + maxWaitTime;
+		while (true) {
+			PooledConnection pooled = null;
+			synchronized (this) {
+				while (true) {
+					long now = System.currentTimeMillis();
+					if (!idle.isEmpty()) {
+						pooled = idle.pollFirst();
+						break;
+					}
+					if (active < maxConnections && now >= nextConnectAttempt) {
+						break;
+					}
+					
+					long timeout = deadline - now;
+					if (timeout <= 0) {
+						if (active < maxConnections && lastConnectFailure != null) {
+							throw new KnowledgeException("Failed to connect to the knowledge server.", lastConnectFailure);
+						}
+						throw new KnowledgeException("Timed out waiting for a knowledge database connection.");
+					}
+					if (active < maxConnections) {
+						timeout = Math.min(timeout, nextConnectAttempt - now);
+					}
+					waiting++;
+					try {
+						wait(timeout);
+					} catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+						throw new KnowledgeException("Interrupted while waiting for a knowledge database connection.", ex);
+					} finally {
+						waiting--;
+					}
+				}
+				active++;
+			}
+			
+			if (pooled == null) {
+				try {
+					pooled = new PooledConnection(DriverManager.getConnection(url, connectionProperties),
+							statementCacheSize);
+				} catch (SQLException ex) {
+					connectFailed(ex);
+					continue;
+				}
+				synchronized (this) {
+					reconnectDelay = 0;
+					lastConnectFailure = null;
+				}
+			} else if (System.currentTimeMillis() - pooled.getLastUsed() >= validationInterval
+					&& !pooled.isValid(validationTimeout)) {
+				discard(pooled);
+				continue;
+			}
+			
+			long waitTime = System.currentTimeMillis() - start;
+			synchronized (this) {
+				borrowCount++;
+				totalWaitTime += waitTime;
+				longestWaitTime = Math.max(longestWaitTime, waitTime);
+			}
+			return pooled;
+		}
+	}
+	
+	/**
+	 * Hands a borrowed connection back to the pool.
+	 * @param pooled The connection returned by {@link #borrow()}.
+	 * @param broken Whether the connection to the server was lost while using the connection, in which case it is
+	 * closed instead of reused.
+	 **/
+	void release(PooledConnection pooled, boolean broken) {
+		if (broken) {
+			discard(pooled);
+			return;
+		}
+		pooled.touch();
+		synchronized (this) {
+			active--;
+			idle.addFirst(pooled);
+			notify();
+		}
+	}
+	
+	/**
+	 * Closes a borrowed connection and frees its place in the pool.
+	 * @param pooled The connection that can no longer be used.
+	 **/
+	private void discard(PooledConnection pooled) {
+		pooled.close();
+		synchronized (this) {
+			active--;
+			discardedConnections++;
+			notifyAll();
+		}
+	}
+	
+	/**
+	 * Records a failed attempt to open a connection and postpones the next attempt.
+	 * @param ex The exception thrown by the driver.
+	 **/
+	private synchronized void connectFailed(SQLException ex) {
+		active--;
+		connectFailures++;
+		lastConnectFailure = ex;
+		reconnectDelay = reconnectDelay == 0 ? minReconnectDelay : Math.min(reconnectDelay * 2, maxReconnectDelay);
+		nextConnectAttempt = System.currentTimeMillis() + reconnectDelay;
+		rexos.libraries.log.Logger.log("Connecting to %s failed, retrying in %d ms: %s\n", url, reconnectDelay,
+				ex.getMessage());
+		notifyAll();
+	}
+	
+	/**
+	 * Closes the connections that have been idle for longer than maxIdleTime.
+	 **/
+	private void evictIdleConnections() {
+		ArrayList<PooledConnection> evicted = new ArrayList<PooledConnection>();
+		synchronized (this) {
+			long now = System.currentTimeMillis();
+			while (!idle.isEmpty() && now - idle.peekLast().getLastUsed() >= maxIdleTime) {
+				evicted.add(idle.pollLast());
+			}
+			discardedConnections += evicted.size();
+		}
+		for (PooledConnection pooled : evicted) {
+			pooled.close();
+		}
+	}
+	
+	/**
+	 * @see rexos.libraries.knowledgedb_client.KnowledgeDBConnectionPoolMBean#getUrl()
+	 **/
+	@Override
+	public String getUrl() {
+		return url;
+	}
+	
+	/**
+	 * @see rexos.libraries.knowledgedb_client.KnowledgeDBConnectionPoolMBean#getMaxConnections()
+	 **/
+	@Override
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+	
+	/**
+	 * @see rexos.libraries.knowledgedb_client.KnowledgeDBConnectionPoolMBean#getActiveConnections()
+	 **/
+	@Override
+	public synchronized int getActiveConnections() {
+		return active;
+	}
+	
+	/**
+	 * @see rexos.libraries.knowledgedb_client.KnowledgeDBConnectionPoolMBean#getIdleConnections()
+	 **/
+	@Override
+	public synchronized int getIdleConnections() {
+		return idle.size();
+	}
+	
+	/**
+	 * @see rexos.libraries.knowledgedb_client.KnowledgeDBConnectionPoolMBean#getWaitingThreads()
+	 **/
+	@Override
+	public synchronized int getWaitingThreads() {
+		return waiting;
+	}
+	
+	/**
+	 * @see rexos.libraries.knowledgedb_client.KnowledgeDBConnectionPoolMBean#getBorrowCount()
+	 **/
+	@Override
+	public synchronized long getBorrowCount() {
+		return borrowCount;
+	}
+	
+	/**
+	 * @see rexos.libraries.knowledgedb_client.KnowledgeDBConnectionPoolMBean#getAverageWaitTime()
+	 **/
+	@Override
+	public synchronized double getAverageWaitTime() {
+		return borrowCount == 0 ? 0 : (double) totalWaitTime / borrowCount;
+	}
+	
+	/**
+	 * @see rexos.libraries.knowledgedb_client.KnowledgeDBConnectionPoolMBean#getMaxWaitTime()
+	 **/
+	@Override
+	public synchronized long getMaxWaitTime() {
+		return longestWaitTime;
+	}
+	
+	/**
+	 * @see rexos.libraries.knowledgedb_client.KnowledgeDBConnectionPoolMBean#getDiscardedConnections()
+	 **/
+	@Override
+	public synchronized long getDiscardedConnections() {
+		return discardedConnections;
+	}
+	
+	/**
+	 * @see rexos.libraries.knowledgedb_client.KnowledgeDBConnectionPoolMBean#getConnectFailures()
+	 **/
+	@Override
+	public synchronized long getConnectFailures() {
+		return connectFailures;
+	}
+}
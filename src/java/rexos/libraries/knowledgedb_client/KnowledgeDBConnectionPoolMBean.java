@@ -0,0 +1,95 @@
+/**
+ * @file rexos/libraries/knowledgedb_client/KnowledgeDBConnectionPoolMBean.java
+ * @brief Management interface of the knowledge database connection pool.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.knowledgedb_client;
+
+/**
+ * Management interface of {@link KnowledgeDBConnectionPool}.
+ **/
+public interface KnowledgeDBConnectionPoolMBean {
+	/**
+	 * Returns the JDBC url of the knowledge database.
+	 * @return The url the connections are opened to.
+	 **/
+	public String getUrl();
+	
+	/**
+	 * Returns the maximum amount of connections in the pool.
+	 * @return The maximum pool size.
+	 **/
+	public int getMaxConnections();
+	
+	/**
+	 * Returns the amount of connections that are currently borrowed by a thread.
+	 * @return The amount of active connections.
+	 **/
+	public int getActiveConnections();
+	
+	/**
+	 * Returns the amount of open connections that are currently idle in the pool.
+	 * @return The amount of idle connections.
+	 **/
+	public int getIdleConnections();
+	
+	/**
+	 * Returns the amount of threads currently waiting for a connection.
+	 * @return The amount of waiting threads.
+	 **/
+	public int getWaitingThreads();
+	
+	/**
+	 * Returns the amount of times a connection has been borrowed.
+	 * @return The total amount of borrows.
+	 **/
+	public long getBorrowCount();
+	
+	/**
+	 * Returns the average time a thread had to wait for a connection.
+	 * @return The average wait time in milliseconds.
+	 **/
+	public double getAverageWaitTime();
+	
+	/**
+	 * Returns the longest time a thread had to wait for a connection.
+	 * @return The maximum wait time in milliseconds.
+	 **/
+	public long getMaxWaitTime();
+	
+	/**
+	 * Returns the amount of connections closed because they failed validation, broke or were idle for too long.
+	 * @return The amount of discarded connections.
+	 **/
+	public long getDiscardedConnections();
+	
+	/**
+	 * Returns the amount of failed attempts to open a connection.
+	 * @return The amount of connection failures.
+	 **/
+	public long getConnectFailures();
+}
@@ -0,0 +1,195 @@
+/**
+ * @file rexos/libraries/knowledgedb_client/PooledConnection.java
+ * @brief A connection to the knowledge database owned by a KnowledgeDBConnectionPool.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.knowledgedb_client;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A connection to the knowledge database owned by a {@link KnowledgeDBConnectionPool}. Used by one thread at a time
+ * between borrowing it from the pool and releasing it.
+ * 
+ * Prepared statements are kept open and reused, keyed by their SQL text, so a query that is executed repeatedly on the
+ * same connection is only prepared once. The least recently used statement is closed when the cache is full.
+ **/
+class PooledConnection {
+	/**
+	 * @var Connection connection
+	 * The underlying JDBC connection.
+	 **/
+	private Connection connection;
+	
+	/**
+	 * @var long lastUsed
+	 * The time in milliseconds at which the connection was last returned to the pool or created.
+	 **/
+	private long lastUsed;
+	
+	/**
+	 * @var LinkedHashMap<String, PreparedStatement> statements
+	 * The cached statements by SQL text, the least recently used first.
+	 **/
+	private LinkedHashMap<String, PreparedStatement> statements;
+	
+	/**
+	 * @var int statementCacheSize
+	 * The maximum amount of cached statements.
+	 **/
+	private int statementCacheSize;
+	
+	/**
+	 * Wraps a newly opened JDBC connection.
+	 * @param connection The JDBC connection.
+	 * @param statementCacheSize The maximum amount of cached statements, or 0 to close every statement after use.
+	 **/
+	PooledConnection(Connection connection, int statementCacheSize) {
+		this.connection = connection;
+		this.statementCacheSize = statementCacheSize;
+		this.lastUsed = System.currentTimeMillis();
+		this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+				if (size() > PooledConnection.this.statementCacheSize) {
+					closeStatement(eldest.getValue());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+	
+	/**
+	 * Returns a prepared statement for the specified SQL text, reusing the cached one if there is one. The statement
+	 * has to be handed back with {@link #releaseStatement(String, PreparedStatement)} instead of being closed.
+	 * @param sql The SQL text of the statement.
+	 * @param returnGeneratedKeys Whether the keys generated by an insert should be available. A statement is cached
+	 * with the flag it was first prepared with, so an SQL text should always be prepared with the same flag.
+	 * @return The prepared statement.
+	 * @throws SQLException Preparing the statement failed.
+	 **/
+	PreparedStatement prepareStatement(String sql, boolean returnGeneratedKeys) throws SQLException {
+		PreparedStatement statement = statements.get(sql);
+		if (statement == null) {
+			if (returnGeneratedKeys) {
+				statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+			} else {
+				statement = connection.prepareStatement(sql);
+			}
+			if (statementCacheSize > 0) {
+				statements.put(sql, statement);
+			}
+		}
+		return statement;
+	}
+	
+	/**
+	 * Hands back a statement obtained from {@link #prepareStatement(String, boolean)}. The statement is kept for
+	 * reuse if it is still cached, otherwise it is closed.
+	 * @param sql The SQL text of the statement.
+	 * @param statement The statement that is no longer used.
+	 **/
+	void releaseStatement(String sql, PreparedStatement statement) {
+		if (statements.get(sql) == statement) {
+			try {
+				statement.clearParameters();
+				return;
+			} catch (SQLException ex) {
+				statements.remove(sql);
+			}
+		}
+		closeStatement(statement);
+	}
+	
+	/**
+	 * Closes a statement, ignoring any errors.
+	 * @param statement The statement to close.
+	 **/
+	private static void closeStatement(PreparedStatement statement) {
+		try {
+			statement.close();
+		} catch (SQLException ex) {
+			// The statement is being discarded anyway.
+		}
+	}
+	
+	/**
+	 * Returns the underlying JDBC connection.
+	 * @return The JDBC connection.
+	 **/
+	Connection getConnection() {
+		return connection;
+	}
+	
+	/**
+	 * Returns the time at which the connection was last used.
+	 * @return The time in milliseconds at which the connection was last returned to the pool or created.
+	 **/
+	long getLastUsed() {
+		return lastUsed;
+	}
+	
+	/**
+	 * Marks the connection as used at the current time.
+	 **/
+	void touch() {
+		lastUsed = System.currentTimeMillis();
+	}
+	
+	/**
+	 * Checks whether the connection still reaches the server.
+	 * @param timeout The time in seconds to wait for the server to respond.
+	 * @return true if the connection is usable.
+	 **/
+	boolean isValid(int timeout) {
+		try {
+			return connection.isValid(timeout);
+		} catch (SQLException ex) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Closes the underlying JDBC connection and with it the cached statements, ignoring any errors.
+	 **/
+	void close() {
+		statements.clear();
+		try {
+			connection.close();
+		} catch (SQLException ex) {
+			// The connection is being discarded anyway.
+		}
+	}
+}
@@ -288,6 +288,56 @@ public class Queries {
     		" WHERE " + 
     		"    services.id = (?)";		
     
+    /**
+     * @var String IN_LIST
+     * 
+     * Placeholder for the IN list of a batched query, replaced by as many parameters as there are keys.
+     * See {@link KnowledgeDBClient#executeBatchedSelectQuery(String, String, java.util.Collection)}.
+     **/
+    public static final String IN_LIST = "(?...)";
+    
+    /**
+     * @var String SOFTWARE_FOR_MODULES
+     * 
+     * Batched SQL query for retrieving the software for several modules from the database.
+     * Expects the moduleIds as keys, which are returned in the module_id column.
+     **/
+    public static final String SOFTWARE_FOR_MODULES = "SELECT " + 
+    		"    modules.id AS module_id, " + 
+    		"    software.id AS id, " + 
+    		"    software.class_name AS class_name, " + 
+    		"    software.description AS description, " + 
+    		"    software.jar_location AS jar_location, " + 
+    		"    software.name AS name " + 
+    		" FROM " + 
+    		"    modules " + 
+    		"        INNER JOIN " + 
+    		"    module_types ON modules.module_type = module_types.id " + 
+    		"        INNER JOIN " + 
+    		"    software ON module_types.software = software.id " + 
+    		" WHERE " + 
+    		"    modules.id IN " + IN_LIST;
+    
+    /**
+     * @var String SOFTWARE_FOR_SERVICES
+     * 
+     * Batched SQL query for retrieving the software for several services from the database.
+     * Expects the serviceIds as keys, which are returned in the service_id column.
+     **/
+    public static final String SOFTWARE_FOR_SERVICES = "SELECT  " + 
+    		"    services.id AS service_id, " + 
+    		"    software.id AS id, " + 
+    		"    software.class_name AS class_name, " + 
+    		"    software.description AS description, " + 
+    		"    software.jar_location AS jar_location, " + 
+    		"    software.name AS name " + 
+    		" FROM " + 
+    		"    software " + 
+    		"        INNER JOIN " + 
+    		"    services ON services.software = software.id " + 
+    		" WHERE " + 
+    		"    services.id IN " + IN_LIST;
+    
     /**
      * @var String INSERT_PART_TYPE
      * 
@@ -0,0 +1,327 @@
+/**
+ * @file rexos/libraries/knowledgedb_client/QueryCache.java
+ * @brief Read-through cache for the results of knowledge database queries that rarely change.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.knowledgedb_client;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read-through cache for the results of knowledge database queries that rarely change, used by the
+ * {@link KnowledgeDBClient} to serve repeated selects without a round trip to the server.
+ * 
+ * Only queries that have been given a time to live with {@link #setTimeToLive(String, long)} are cached. Results are
+ * keyed by the query and its parameters and are dropped when their time to live has passed, when the query is
+ * invalidated or when the cache is full and the result is the least recently used one. Changes made to the knowledge
+ * database are not seen until the cached results expire or are invalidated.
+ **/
+public class QueryCache implements QueryCacheMBean {
+	/**
+	 * Key of a cached result, consisting of a query and its parameters.
+	 **/
+	private static final class Key {
+		/**
+		 * @var String query
+		 * The SQL text of the query.
+		 **/
+		private final String query;
+		
+		/**
+		 * @var Object[] parameters
+		 * The parameters of the query.
+		 **/
+		private final Object[] parameters;
+		
+		/**
+		 * @var int hash
+		 * The precomputed hash code of the key.
+		 **/
+		private final int hash;
+		
+		/**
+		 * Constructs the key for a query and its parameters.
+		 * @param query The SQL text of the query.
+		 * @param parameters The parameters of the query.
+		 **/
+		Key(String query, Object[] parameters) {
+			this.query = query;
+			this.parameters = parameters.clone();
+			this.hash = 31 * query.hashCode() + Arrays.hashCode(parameters);
+		}
+		
+		/**
+		 * @see java.lang.Object#hashCode()
+		 **/
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+		
+		/**
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 **/
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return hash == other.hash && query.equals(other.query) && Arrays.equals(parameters, other.parameters);
+		}
+	}
+	
+	/**
+	 * A cached result together with the time it expires.
+	 **/
+	private static final class CachedResult {
+		/**
+		 * @var Row[] rows
+		 * The result of the query.
+		 **/
+		private final Row[] rows;
+		
+		/**
+		 * @var long expires
+		 * The time in milliseconds at which the result expires.
+		 **/
+		private final long expires;
+		
+		/**
+		 * Constructs a cached result.
+		 * @param rows The result of the query.
+		 * @param expires The time in milliseconds at which the result expires.
+		 **/
+		CachedResult(Row[] rows, long expires) {
+			this.rows = rows;
+			this.expires = expires;
+		}
+	}
+	
+	/**
+	 * @var int maxEntries
+	 * The maximum amount of cached results.
+	 **/
+	private final int maxEntries;
+	
+	/**
+	 * @var HashMap<String, Long> timesToLive
+	 * The time to live in milliseconds of the results of each cached query.
+	 **/
+	private HashMap<String, Long> timesToLive;
+	
+	/**
+	 * @var LinkedHashMap<Key, CachedResult> entries
+	 * The cached results, the least recently used first.
+	 **/
+	private LinkedHashMap<Key, CachedResult> entries;
+	
+	/**
+	 * @var long generation
+	 * Incremented on every invalidation, used to discard results of reads that raced with an invalidation.
+	 **/
+	private long generation;
+	
+	/**
+	 * @var long hitCount
+	 * The amount of reads served from the cache.
+	 **/
+	private long hitCount;
+	
+	/**
+	 * @var long missCount
+	 * The amount of cacheable reads that had to be sent to the server.
+	 **/
+	private long missCount;
+	
+	/**
+	 * @var long evictionCount
+	 * The amount of results dropped because the cache was full.
+	 **/
+	private long evictionCount;
+	
+	/**
+	 * Constructs an empty cache without any cached queries.
+	 * @param maxEntries The maximum amount of cached results.
+	 **/
+	QueryCache(int maxEntries) {
+		this.maxEntries = maxEntries;
+		this.timesToLive = new HashMap<String, Long>();
+		this.entries = new LinkedHashMap<Key, CachedResult>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, CachedResult> eldest) {
+				if (size() > QueryCache.this.maxEntries) {
+					++evictionCount;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+	
+	/**
+	 * Sets how long the results of a query are cached. Results that are already cached keep their expiry time.
+	 * @param query The SQL text of the query, normally one of the constants in {@link Queries}.
+	 * @param timeToLive The time to live in milliseconds, or 0 to stop caching the query.
+	 **/
+	public synchronized void setTimeToLive(String query, long timeToLive) {
+		if (timeToLive > 0) {
+			timesToLive.put(query, timeToLive);
+		} else {
+			timesToLive.remove(query);
+			invalidate(query);
+		}
+	}
+	
+	/**
+	 * Returns how long the results of a query are cached.
+	 * @param query The SQL text of the query.
+	 * @return The time to live in milliseconds, or 0 if the query is not cached.
+	 **/
+	public synchronized long getTimeToLive(String query) {
+		Long timeToLive = timesToLive.get(query);
+		return timeToLive == null ? 0 : timeToLive;
+	}
+	
+	/**
+	 * Removes the cached results of a query for every set of parameters.
+	 * @param query The SQL text of the query.
+	 **/
+	public synchronized void invalidate(String query) {
+		Iterator<Key> it = entries.keySet().iterator();
+		while (it.hasNext()) {
+			if (it.next().query.equals(query)) {
+				it.remove();
+			}
+		}
+		++generation;
+	}
+	
+	/**
+	 * Removes all cached results. The hit, miss and eviction counts are kept.
+	 **/
+	@Override
+	public synchronized void clear() {
+		entries.clear();
+		++generation;
+	}
+	
+	/**
+	 * @see rexos.libraries.knowledgedb_client.QueryCacheMBean#getHitCount()
+	 **/
+	@Override
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+	
+	/**
+	 * @see rexos.libraries.knowledgedb_client.QueryCacheMBean#getMissCount()
+	 **/
+	@Override
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+	
+	/**
+	 * @see rexos.libraries.knowledgedb_client.QueryCacheMBean#getEvictionCount()
+	 **/
+	@Override
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+	
+	/**
+	 * @see rexos.libraries.knowledgedb_client.QueryCacheMBean#getSize()
+	 **/
+	@Override
+	public synchronized int getSize() {
+		return entries.size();
+	}
+	
+	/**
+	 * @see rexos.libraries.knowledgedb_client.QueryCacheMBean#getMaxEntries()
+	 **/
+	@Override
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+	
+	/**
+	 * Returns the cached result of a query. Lookups of cached queries are counted as a hit or a miss.
+	 * @param query The SQL text of the query.
+	 * @param parameters The parameters of the query.
+	 * @return A copy of the cached rows, or null if the query is not cached, there is no result or it has expired.
+	 **/
+	synchronized Row[] get(String query, Object[] parameters) {
+		if (!timesToLive.containsKey(query)) {
+			return null;
+		}
+		Key key = new Key(query, parameters);
+		CachedResult result = entries.get(key);
+		if (result != null && result.expires <= System.currentTimeMillis()) {
+			entries.remove(key);
+			result = null;
+		}
+		if (result == null) {
+			++missCount;
+			return null;
+		}
+		++hitCount;
+		return result.rows.clone();
+	}
+	
+	/**
+	 * Returns the current generation, which should be passed to {@link #put(String, Object[], Row[], long)} once the
+	 * result of the query has arrived.
+	 * @return The current generation.
+	 **/
+	synchronized long getGeneration() {
+		return generation;
+	}
+	
+	/**
+	 * Stores the result of a query, unless the query is not cached or the cache was invalidated since the read was
+	 * started.
+	 * @param query The SQL text of the query.
+	 * @param parameters The parameters of the query.
+	 * @param rows The result read from the server, which must not be modified afterwards.
+	 * @param readGeneration The generation returned by {@link #getGeneration()} before the read was started.
+	 **/
+	synchronized void put(String query, Object[] parameters, Row[] rows, long readGeneration) {
+		Long timeToLive = timesToLive.get(query);
+		if (timeToLive == null || readGeneration != generation) {
+			return;
+		}
+		entries.put(new Key(query, parameters), new CachedResult(rows.clone(), System.currentTimeMillis() + timeToLive));
+	}
+}
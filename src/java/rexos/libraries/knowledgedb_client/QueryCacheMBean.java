@@ -0,0 +1,70 @@
+/**
+ * @file rexos/libraries/knowledgedb_client/QueryCacheMBean.java
+ * @brief Management interface of the knowledge database query cache.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.knowledgedb_client;
+
+/**
+ * Management interface of {@link QueryCache}.
+ **/
+public interface QueryCacheMBean {
+	/**
+	 * Returns the amount of reads served from the cache.
+	 * @return The amount of reads served from the cache.
+	 **/
+	public long getHitCount();
+	
+	/**
+	 * Returns the amount of cacheable reads that had to be sent to the server.
+	 * @return The amount of cacheable reads that had to be sent to the server.
+	 **/
+	public long getMissCount();
+	
+	/**
+	 * Returns the amount of results dropped because the cache was full.
+	 * @return The amount of evicted results.
+	 **/
+	public long getEvictionCount();
+	
+	/**
+	 * Returns the amount of cached results, including expired results that have not been looked up since.
+	 * @return The amount of cached results.
+	 **/
+	public int getSize();
+	
+	/**
+	 * Returns the maximum amount of cached results.
+	 * @return The maximum amount of cached results.
+	 **/
+	public int getMaxEntries();
+	
+	/**
+	 * Removes all cached results.
+	 **/
+	public void clear();
+}
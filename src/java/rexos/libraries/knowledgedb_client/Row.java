@@ -26,22 +26,31 @@
  **/
 package rexos.libraries.knowledgedb_client;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * A class representing a database row.
+ *
+ * The values are stored in an array in the order of the columns of the result. The column names are kept in a header
+ * that is shared by all rows of the same result. Columns can be read by name or by their zero-based index, either as
+ * the object returned by the driver or converted to a specific type.
  **/
 public class Row {
     /**
-     * @var HashMap<String, Object> row
+     * @var RowHeader header
+     *
+     * The column names of the result this row belongs to.
+     **/
+    private final RowHeader header;
+
+    /**
+     * @var Object[] values
      *
-     * A hashmap containing the row data with column name as keys and values as object.
+     * The values of the row in the order of the columns.
      **/
-    private final HashMap<String, Object> row;
+    private final Object[] values;
 
     /**
      * A constructor for constructing a row from a ResultSet.
@@ -50,29 +59,197 @@ public class Row {
      * @throws SQLException Failed to read from the ResultSet.
      **/
     public Row(ResultSet resultSet) throws SQLException {
-        row = new HashMap<String, Object>();
+        this(new RowHeader(resultSet.getMetaData()), resultSet);
+    }
 
-        ResultSetMetaData metadata = resultSet.getMetaData();
-        for (int i = 1; i <= metadata.getColumnCount(); i++) {
-            row.put(metadata.getColumnLabel(i), resultSet.getObject(i));
+    /**
+     * A constructor for constructing a row from the current row of a ResultSet, sharing the header with the other
+     * rows of the result.
+     *
+     * @param header The header of the result.
+     * @param resultSet The ResultSet from a statement execution.
+     * @throws SQLException Failed to read from the ResultSet.
+     **/
+    Row(RowHeader header, ResultSet resultSet) throws SQLException {
+        this.header = header;
+        this.values = new Object[header.getColumnCount()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = resultSet.getObject(i + 1);
         }
     }
 
+    /**
+     * Get the amount of columns.
+     *
+     * @return The amount of columns in this row.
+     **/
+    public int getColumnCount() {
+        return values.length;
+    }
+
     /**
      * Get value from specific column.
      *
      * @param column The name of the column.
      *
      * @return The value of the column.
+     * @throws KeyNotFoundException There is no column with the given name.
      **/
     public Object get(String column) throws KeyNotFoundException {
-        if (!row.containsKey(column)) {
-            throw new KeyNotFoundException("No column with name " + column + " was found in this row.");
+        return values[header.indexOf(column)];
+    }
+
+    /**
+     * Get value from specific column.
+     *
+     * @param index The zero-based index of the column.
+     *
+     * @return The value of the column.
+     **/
+    public Object get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Get the value of a column as an int.
+     *
+     * @param column The name of the column.
+     *
+     * @return The value of the column, or 0 if it is NULL.
+     * @throws KeyNotFoundException There is no column with the given name.
+     * @throws NumberFormatException The value is a string that is not a number.
+     **/
+    public int getInt(String column) throws KeyNotFoundException {
+        return getInt(header.indexOf(column));
+    }
+
+    /**
+     * Get the value of a column as an int.
+     *
+     * @param index The zero-based index of the column.
+     *
+     * @return The value of the column, or 0 if it is NULL.
+     * @throws NumberFormatException The value is a string that is not a number.
+     **/
+    public int getInt(int index) {
+        Object value = values[index];
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
         }
+        return value == null ? 0 : Integer.parseInt(getString(index));
+    }
 
-        return row.get(column);
+    /**
+     * Get the value of a column as a long.
+     *
+     * @param column The name of the column.
+     *
+     * @return The value of the column, or 0 if it is NULL.
+     * @throws KeyNotFoundException There is no column with the given name.
+     * @throws NumberFormatException The value is a string that is not a number.
+     **/
+    public long getLong(String column) throws KeyNotFoundException {
+        return getLong(header.indexOf(column));
     }
 
+    /**
+     * Get the value of a column as a long.
+     *
+     * @param index The zero-based index of the column.
+     *
+     * @return The value of the column, or 0 if it is NULL.
+     * @throws NumberFormatException The value is a string that is not a number.
+     **/
+    public long getLong(int index) {
+        Object value = values[index];
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return value == null ? 0 : Long.parseLong(getString(index));
+    }
+
+    /**
+     * Get the value of a column as a double.
+     *
+     * @param column The name of the column.
+     *
+     * @return The value of the column, or 0 if it is NULL.
+     * @throws KeyNotFoundException There is no column with the given name.
+     * @throws NumberFormatException The value is a string that is not a number.
+     **/
+    public double getDouble(String column) throws KeyNotFoundException {
+        return getDouble(header.indexOf(column));
+    }
+
+    /**
+     * Get the value of a column as a double.
+     *
+     * @param index The zero-based index of the column.
+     *
+     * @return The value of the column, or 0 if it is NULL.
+     * @throws NumberFormatException The value is a string that is not a number.
+     **/
+    public double getDouble(int index) {
+        Object value = values[index];
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return value == null ? 0 : Double.parseDouble(getString(index));
+    }
+
+    /**
+     * Get the value of a column as a string.
+     *
+     * @param column The name of the column.
+     *
+     * @return The value of the column, or null if it is NULL.
+     * @throws KeyNotFoundException There is no column with the given name.
+     **/
+    public String getString(String column) throws KeyNotFoundException {
+        return getString(header.indexOf(column));
+    }
+
+    /**
+     * Get the value of a column as a string. Binary values are decoded as UTF-8.
+     *
+     * @param index The zero-based index of the column.
+     *
+     * @return The value of the column, or null if it is NULL.
+     **/
+    public String getString(int index) {
+        Object value = values[index];
+        if (value instanceof byte[]) {
+            return new String((byte[]) value, StandardCharsets.UTF_8);
+        }
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * Get the value of a column as bytes.
+     *
+     * @param column The name of the column.
+     *
+     * @return The value of the column, or null if it is NULL.
+     * @throws KeyNotFoundException There is no column with the given name.
+     **/
+    public byte[] getBytes(String column) throws KeyNotFoundException {
+        return getBytes(header.indexOf(column));
+    }
+
+    /**
+     * Get the value of a column as bytes. Other values than binary ones are encoded as UTF-8 strings.
+     *
+     * @param index The zero-based index of the column.
+     *
+     * @return The value of the column, or null if it is NULL.
+     **/
+    public byte[] getBytes(int index) {
+        Object value = values[index];
+        if (value == null || value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        return value.toString().getBytes(StandardCharsets.UTF_8);
+    }
 
     /**
      * Convert a row to a string representative.
@@ -83,15 +260,15 @@ public class Row {
     public String toString() {
         StringBuilder builder = new StringBuilder(Row.class.getName());
         builder.append("{ ");
-        for (Map.Entry<String, Object> entry : row.entrySet()) {
-            builder.append(entry.getKey());
+        for (int i = 0; i < values.length; i++) {
+            builder.append(header.getColumn(i));
             builder.append('=');
             builder.append('"');
-            builder.append(entry.getValue());
+            builder.append(values[i]);
             builder.append("\" ");
         }
         builder.append("}");
 
         return builder.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+/**
+ * @file rexos/libraries/knowledgedb_client/RowHeader.java
+ * @brief The column names of a result, shared by all of its rows.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.knowledgedb_client;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+
+/**
+ * The column names of a result, shared by all of its rows so the names are stored and hashed once per result instead
+ * of once per row.
+ **/
+class RowHeader {
+	/**
+	 * @var String[] columns
+	 * The column labels in the order of the result.
+	 **/
+	private final String[] columns;
+	
+	/**
+	 * @var HashMap<String, Integer> indexes
+	 * The index of each column label. When a label occurs more than once, the last column with that label is used.
+	 **/
+	private final HashMap<String, Integer> indexes;
+	
+	/**
+	 * Constructs the header for a result.
+	 * @param metadata The metadata of the result.
+	 * @throws SQLException Reading the metadata failed.
+	 **/
+	RowHeader(ResultSetMetaData metadata) throws SQLException {
+		int columnCount = metadata.getColumnCount();
+		columns = new String[columnCount];
+		indexes = new HashMap<String, Integer>(columnCount * 2);
+		for (int i = 0; i < columnCount; i++) {
+			columns[i] = metadata.getColumnLabel(i + 1);
+			indexes.put(columns[i], i);
+		}
+	}
+	
+	/**
+	 * Returns the amount of columns.
+	 * @return The amount of columns.
+	 **/
+	int getColumnCount() {
+		return columns.length;
+	}
+	
+	/**
+	 * Returns the label of a column.
+	 * @param index The zero-based index of the column.
+	 * @return The label of the column.
+	 **/
+	String getColumn(int index) {
+		return columns[index];
+	}
+	
+	/**
+	 * Returns the index of a column.
+	 * @param column The label of the column.
+	 * @return The zero-based index of the column.
+	 * @throws KeyNotFoundException There is no column with the label.
+	 **/
+	int indexOf(String column) throws KeyNotFoundException {
+		Integer index = indexes.get(column);
+		if (index == null) {
+			throw new KeyNotFoundException("No column with name " + column + " was found in this row.");
+		}
+		return index;
+	}
+}
@@ -0,0 +1,92 @@
+/**
+ * @file rexos/mas/behaviours/BehaviourWaker.java
+ * @brief Wakes a blocked behaviour when an asynchronous blackboard operation completes.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.mas.behaviours;
+
+import jade.core.behaviours.Behaviour;
+import rexos.libraries.blackboard_client.BlackboardFuture;
+
+/**
+ * Listener for a {@link BlackboardFuture} that restarts a blocked behaviour once the operation has completed.
+ * This lets a behaviour start blackboard operations and return, so the other behaviours of the agent keep running
+ * while the operations are in flight. When the behaviour runs again it checks <code>isDone()</code> on its futures
+ * and continues with the results that are available.
+ * 
+ * The behaviour is blocked by {@link #wakeOnCompletion(Behaviour, BlackboardFuture)} itself, before the listener is
+ * added, so the caller must not call <code>block()</code> afterwards. Otherwise a future that completed before that
+ * call would restart the behaviour too early and the wakeup would be lost.
+ * 
+ * <pre>
+ * future = BehaviourWaker.wakeOnCompletion(this, client.findDocumentByIdAsync(id));
+ * return;
+ * </pre>
+ */
+public class BehaviourWaker implements Runnable {
+	/**
+	 * @var Behaviour behaviour
+	 * The behaviour that is restarted.
+	 */
+	private Behaviour behaviour;
+
+	/**
+	 * Instantiates a waker for the specified behaviour.
+	 * 
+	 * @param behaviour
+	 *            The behaviour that should be restarted.
+	 */
+	public BehaviourWaker(Behaviour behaviour) {
+		this.behaviour = behaviour;
+	}
+
+	/**
+	 * Restarts the behaviour. Behaviour.restart() may be called from threads other than the agent thread.
+	 * 
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+		behaviour.restart();
+	}
+
+	/**
+	 * Blocks the behaviour and restarts it once the future has completed. When the future has already completed the
+	 * behaviour is restarted immediately, so it runs again as soon as the current action returns.
+	 * 
+	 * @param behaviour
+	 *            The behaviour that should be restarted.
+	 * @param future
+	 *            The future of the asynchronous operation.
+	 * @return The future, for convenience.
+	 */
+	public static <V> BlackboardFuture<V> wakeOnCompletion(Behaviour behaviour, BlackboardFuture<V> future) {
+		behaviour.block();
+		future.addListener(new BehaviourWaker(behaviour));
+		return future;
+	}
+}
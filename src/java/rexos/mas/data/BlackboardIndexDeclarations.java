@@ -0,0 +1,63 @@
+/**
+ * @file rexos/mas/data/BlackboardIndexDeclarations.java
+ * @brief Declares the indexes the agents' blackboard queries rely on.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.mas.data;
+
+import rexos.libraries.blackboard_client.BlackboardIndexes;
+
+import com.mongodb.BasicDBObject;
+
+/**
+ * Declares the indexes for the hot queries on the step blackboards and the equiplet directory. Agents call
+ * {@link #declare()} before selecting their collections, so the indexes are created when the collections are selected.
+ */
+public final class BlackboardIndexDeclarations {
+	/**
+	 * Prevents instantiation, this class only has static members.
+	 */
+	private BlackboardIndexDeclarations() {
+	}
+
+	/**
+	 * Declares the indexes. Calling this more than once has no effect.
+	 */
+	public static void declare() {
+		// service steps are looked up by the product step they belong to.
+		BlackboardIndexes.declare("ServiceStepsBlackBoard", new BasicDBObject("productStepId", 1));
+		// equiplet steps are looked up by the service step they belong to.
+		BlackboardIndexes.declare("EquipletStepsBlackBoard", new BasicDBObject("serviceStepID", 1));
+		// planned steps are filtered by status and sorted by start time, the schedule is a range on start time.
+		BlackboardIndexes.declare("ProductStepsBlackBoard",
+				new BasicDBObject("status", 1).append("scheduleData.startTime", 1));
+		BlackboardIndexes.declare("ProductStepsBlackBoard", new BasicDBObject("scheduleData.startTime", 1));
+		// equiplets are looked up by capability by the planner and by AID by the scheduler.
+		BlackboardIndexes.declare("EquipletDirectory", new BasicDBObject("capabilities", 1));
+		BlackboardIndexes.declare("EquipletDirectory", new BasicDBObject("AID", 1));
+	}
+}
@@ -0,0 +1,189 @@
+/**
+ * @file rexos/mas/data/DocumentDecoder.java
+ * @brief Typed field conversions for decoding MongoSaveable objects in a single pass.
+ * @date Created: 2026-10-17
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.mas.data;
+
+import org.bson.types.ObjectId;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+
+/**
+ * Converts the values of a document read from the driver to the types of the fields of a {@link MongoSaveable}.
+ * 
+ * The MongoSaveable implementations decode a document by walking its fields once and switching on the field name,
+ * instead of copying the document and removing every known field from the copy. A field that is not known to the
+ * object is reported by {@link #unknownField(String)}; a field with a value of the wrong type is reported by the
+ * conversion. Both throw an IllegalArgumentException naming the field, as required by
+ * {@link MongoSaveable#fromBasicDBObject(BasicDBObject)}.
+ */
+public final class DocumentDecoder {
+	/**
+	 * Prevents instantiation, this class only has static members.
+	 */
+	private DocumentDecoder() {
+	}
+
+	/**
+	 * Converts a numeric value to an int. Numbers of every size are accepted, since documents parsed from JSON may
+	 * hold a long or a double for a field that was written as an int.
+	 * 
+	 * @param field The name of the field, used in the error message.
+	 * @param value The value of the field.
+	 * @return The value as an int.
+	 * @throws IllegalArgumentException The value is not a number.
+	 */
+	public static int toInt(String field, Object value) throws IllegalArgumentException {
+		if (value instanceof Number) {
+			return ((Number) value).intValue();
+		}
+		throw invalidField(field, value);
+	}
+
+	/**
+	 * Converts a numeric value to a long.
+	 * 
+	 * @param field The name of the field, used in the error message.
+	 * @param value The value of the field.
+	 * @return The value as a long.
+	 * @throws IllegalArgumentException The value is not a number.
+	 */
+	public static long toLong(String field, Object value) throws IllegalArgumentException {
+		if (value instanceof Number) {
+			return ((Number) value).longValue();
+		}
+		throw invalidField(field, value);
+	}
+
+	/**
+	 * Converts a value to a String.
+	 * 
+	 * @param field The name of the field, used in the error message.
+	 * @param value The value of the field.
+	 * @return The value as a String.
+	 * @throws IllegalArgumentException The value is not a String.
+	 */
+	public static String toString(String field, Object value) throws IllegalArgumentException {
+		if (value instanceof String) {
+			return (String) value;
+		}
+		throw invalidField(field, value);
+	}
+
+	/**
+	 * Converts a value to an ObjectId. A null value is allowed, since optional references are stored as null.
+	 * 
+	 * @param field The name of the field, used in the error message.
+	 * @param value The value of the field.
+	 * @return The value as an ObjectId, or null.
+	 * @throws IllegalArgumentException The value is neither an ObjectId nor null.
+	 */
+	public static ObjectId toObjectId(String field, Object value) throws IllegalArgumentException {
+		if (value == null || value instanceof ObjectId) {
+			return (ObjectId) value;
+		}
+		throw invalidField(field, value);
+	}
+
+	/**
+	 * Converts a value to an embedded document. A null value is allowed.
+	 * 
+	 * @param field The name of the field, used in the error message.
+	 * @param value The value of the field.
+	 * @return The value as a BasicDBObject, or null.
+	 * @throws IllegalArgumentException The value is neither an embedded document nor null.
+	 */
+	public static BasicDBObject toDocument(String field, Object value) throws IllegalArgumentException {
+		if (value == null || value instanceof BasicDBObject) {
+			return (BasicDBObject) value;
+		}
+		throw invalidField(field, value);
+	}
+
+	/**
+	 * Converts a value to an array.
+	 * 
+	 * @param field The name of the field, used in the error message.
+	 * @param value The value of the field.
+	 * @return The value as a BasicDBList.
+	 * @throws IllegalArgumentException The value is not an array.
+	 */
+	public static BasicDBList toList(String field, Object value) throws IllegalArgumentException {
+		if (value instanceof BasicDBList) {
+			return (BasicDBList) value;
+		}
+		throw invalidField(field, value);
+	}
+
+	/**
+	 * Converts the name of a status code to the status code.
+	 * 
+	 * @param field The name of the field, used in the error message.
+	 * @param value The value of the field.
+	 * @return The status code.
+	 * @throws IllegalArgumentException The value is not the name of a status code.
+	 */
+	public static StepStatusCode toStatus(String field, Object value) throws IllegalArgumentException {
+		return StepStatusCode.valueOf(toString(field, value));
+	}
+
+	/**
+	 * Checks that a required field was present in the decoded document.
+	 * 
+	 * @param field The name of the field, used in the error message.
+	 * @param present Whether or not the field was present.
+	 * @throws IllegalArgumentException The field was not present.
+	 */
+	public static void require(String field, boolean present) throws IllegalArgumentException {
+		if (!present) {
+			throw new IllegalArgumentException("Missing field " + field);
+		}
+	}
+
+	/**
+	 * Creates the exception for a field that is not known to the decoded object.
+	 * 
+	 * @param field The name of the field.
+	 * @return The exception that should be thrown.
+	 */
+	public static IllegalArgumentException unknownField(String field) {
+		return new IllegalArgumentException("Unknown field " + field);
+	}
+
+	/**
+	 * Creates the exception for a field that holds a value of the wrong type.
+	 * 
+	 * @param field The name of the field.
+	 * @param value The value of the field.
+	 * @return The exception that should be thrown.
+	 */
+	private static IllegalArgumentException invalidField(String field, Object value) {
+		return new IllegalArgumentException("Invalid value for field " + field + ": " + value);
+	}
+}
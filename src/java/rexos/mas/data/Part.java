@@ -48,6 +48,7 @@
 package rexos.mas.data;
 
 import java.io.Serializable;
+import java.util.Map;
 
 import com.mongodb.BasicDBObject;
 
@@ -155,16 +156,28 @@ public class Part implements Serializable, MongoSaveable {
 	 **/
 	@Override
 	public void fromBasicDBObject(BasicDBObject object) {
-		BasicDBObject copy = (BasicDBObject) object.copy();
-		try {
-			type = (int) copy.remove("type");
-			id = (int) copy.remove("id");
-			if(!copy.isEmpty()){
-				throw new IllegalArgumentException();
-			}
-		} catch(ClassCastException | NullPointerException e) {
+		if(object == null) {
 			throw new IllegalArgumentException();
 		}
+		boolean hasType = false, hasId = false;
+		for(Map.Entry<String, Object> field : object.entrySet()) {
+			String name = field.getKey();
+			Object value = field.getValue();
+			switch(name) {
+				case "type":
+					type = DocumentDecoder.toInt(name, value);
+					hasType = true;
+					break;
+				case "id":
+					id = DocumentDecoder.toInt(name, value);
+					hasId = true;
+					break;
+				default:
+					throw DocumentDecoder.unknownField(name);
+			}
+		}
+		DocumentDecoder.require("type", hasType);
+		DocumentDecoder.require("id", hasId);
 	}
 
 	/**
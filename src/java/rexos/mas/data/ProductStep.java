@@ -50,6 +50,7 @@ package rexos.mas.data;
 import jade.core.AID;
 
 import java.io.Serializable;
+import java.util.Map;
 
 import org.bson.types.ObjectId;
 
@@ -411,37 +412,66 @@ public class ProductStep implements MongoSaveable, Serializable {
 	@Override
 	public void fromBasicDBObject(BasicDBObject object) {
 		if(object != null){
-			BasicDBObject copy = (BasicDBObject) object.copy();
-			_id = (ObjectId) copy.remove("_id");
-			productAgentId = new AID((String) copy.remove("productAgentId"), AID.ISGUID);
-			type = (int) copy.remove("type");
-			parameters = (BasicDBObject) copy.remove("parameters");
-			
-			BasicDBList tempInputParts = ((BasicDBList)copy.remove("inputParts"));
-			inputParts = new Part[tempInputParts.size()];
-			for(int i = 0; i < tempInputParts.size(); i++){
-				inputParts[i] = new Part((BasicDBObject)tempInputParts.get(i));
+			boolean hasProductAgentId = false, hasType = false, hasInputParts = false, hasStatus = false;
+			_id = null;
+			parameters = null;
+			outputPart = null;
+			statusData = null;
+			scheduleData = null;
+			for(Map.Entry<String, Object> field : object.entrySet()) {
+				String name = field.getKey();
+				Object value = field.getValue();
+				switch(name) {
+					case "_id":
+						_id = DocumentDecoder.toObjectId(name, value);
+						break;
+					case "productAgentId":
+						productAgentId = new AID(DocumentDecoder.toString(name, value), AID.ISGUID);
+						hasProductAgentId = true;
+						break;
+					case "type":
+						type = DocumentDecoder.toInt(name, value);
+						hasType = true;
+						break;
+					case "parameters":
+						parameters = DocumentDecoder.toDocument(name, value);
+						break;
+					case "inputParts":
+						BasicDBList tempInputParts = DocumentDecoder.toList(name, value);
+						inputParts = new Part[tempInputParts.size()];
+						for(int i = 0; i < tempInputParts.size(); i++){
+							inputParts[i] = new Part(DocumentDecoder.toDocument(name, tempInputParts.get(i)));
+						}
+						hasInputParts = true;
+						break;
+					case "outputPart":
+						outputPart = new Part(DocumentDecoder.toDocument(name, value));
+						break;
+					case "status":
+						status = DocumentDecoder.toStatus(name, value);
+						hasStatus = true;
+						break;
+					case "statusData":
+						statusData = DocumentDecoder.toDocument(name, value);
+						break;
+					case "scheduleData":
+						scheduleData = new ScheduleData(DocumentDecoder.toDocument(name, value));
+						break;
+					default:
+						Logger.log(object);
+						throw DocumentDecoder.unknownField(name);
+				}
 			}
-			if(copy.containsField("outputPart")){
-				outputPart = new Part((BasicDBObject)copy.remove("outputPart"));
-			}
-			status = StepStatusCode.valueOf((String) copy.remove("status"));
-	
-			if (copy.containsField("statusData")) {
-				statusData = (BasicDBObject) copy.remove("statusData");
-			} else {
+			DocumentDecoder.require("productAgentId", hasProductAgentId);
+			DocumentDecoder.require("type", hasType);
+			DocumentDecoder.require("inputParts", hasInputParts);
+			DocumentDecoder.require("status", hasStatus);
+			if (statusData == null) {
 				statusData = new BasicDBObject();
 			}
-			if (copy.containsField("scheduleData")) {
-				scheduleData = new ScheduleData(
-						(BasicDBObject) copy.remove("scheduleData"));
-			} else {
+			if (scheduleData == null) {
 				scheduleData = new ScheduleData();
 			}
-			if(!copy.isEmpty()){
-				Logger.log(copy);
-				throw new IllegalArgumentException();
-			}
 		}
 	}
 }
\ No newline at end of file
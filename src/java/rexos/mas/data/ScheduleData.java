@@ -31,6 +31,7 @@
 package rexos.mas.data;
 
 import java.io.Serializable;
+import java.util.Map;
 
 import com.mongodb.BasicDBObject;
 import com.mongodb.BasicDBObjectBuilder;
@@ -111,15 +112,25 @@ public class ScheduleData implements MongoSaveable, Serializable {
 	 **/
 	@Override
 	public void fromBasicDBObject(BasicDBObject object) {
-		BasicDBObject copy = (BasicDBObject) object.copy();
-		this.startTime = copy.getLong("startTime", -1);
-		copy.remove("startTime");
-		this.duration = copy.getLong("duration", -1);
-		copy.remove("duration");
-		this.deadline = copy.getLong("deadline", -1);
-		copy.remove("deadline");
-		if(!copy.isEmpty()){
-			throw new IllegalArgumentException();
+		this.startTime = -1;
+		this.duration = -1;
+		this.deadline = -1;
+		for(Map.Entry<String, Object> field : object.entrySet()) {
+			String name = field.getKey();
+			Object value = field.getValue();
+			switch(name) {
+				case "startTime":
+					this.startTime = DocumentDecoder.toLong(name, value);
+					break;
+				case "duration":
+					this.duration = DocumentDecoder.toLong(name, value);
+					break;
+				case "deadline":
+					this.deadline = DocumentDecoder.toLong(name, value);
+					break;
+				default:
+					throw DocumentDecoder.unknownField(name);
+			}
 		}
 	}
 
@@ -80,6 +80,7 @@ import rexos.libraries.knowledgedb_client.KnowledgeException;
 import rexos.libraries.knowledgedb_client.Queries;
 import rexos.libraries.knowledgedb_client.Row;
 import rexos.libraries.log.Logger;
+import rexos.mas.data.BlackboardIndexDeclarations;
 import rexos.mas.data.DbData;
 import rexos.mas.data.EquipletMode;
 import rexos.mas.data.EquipletState;
@@ -239,6 +240,7 @@ public class EquipletAgent extends Agent implements BlackboardSubscriber {
 	public void setup() {
 		try {
 			Logger.log("I spawned as a equiplet agent.");
+			BlackboardIndexDeclarations.declare();
 			// gets his IP and sets the equiplet blackboard IP.
 //			InetAddress IP = InetAddress.getLocalHost();
 //			equipletDbIp = IP.getHostAddress();
@@ -280,6 +282,8 @@ public class EquipletAgent extends Agent implements BlackboardSubscriber {
 			// subscribes on changes of the status field on the equiplet blackboard.
 			statusSubscription = new FieldUpdateSubscription("status", this);
 			statusSubscription.addOperation(MongoUpdateLogOperation.SET);
+			statusSubscription.setDocumentFetchingEnabled(true);
+			statusSubscription.setCoalescing(true);
 			productStepBBClient.subscribe(statusSubscription);
 			productStepBBClient.removeDocuments(new BasicDBObject());
 
@@ -289,6 +293,8 @@ public class EquipletAgent extends Agent implements BlackboardSubscriber {
 
 			modeUpdateSubscription = new FieldUpdateSubscription("mode", this);
 			modeUpdateSubscription.addOperation(MongoUpdateLogOperation.SET);
+			modeUpdateSubscription.setDocumentFetchingEnabled(true);
+			modeUpdateSubscription.setCoalescing(true);
 			stateBBClient.subscribe(modeUpdateSubscription);
 
 			desiredStateBBClient = new BlackboardClient(collectiveDbIp, collectiveDbPort);
@@ -379,7 +385,7 @@ public class EquipletAgent extends Agent implements BlackboardSubscriber {
 				case "ProductStepsBlackBoard":
 					// Get the productstep.
 					ObjectId productStepId = entry.getTargetObjectId();
-					ProductStep productStep = new ProductStep((BasicDBObject) productStepBBClient.findDocumentById(productStepId));
+					ProductStep productStep = new ProductStep((BasicDBObject) entry.getDocument());
 
 					// Gets the conversationId
 					String conversationId = getConversationId(productStepId);
@@ -476,9 +482,7 @@ public class EquipletAgent extends Agent implements BlackboardSubscriber {
 					send(responseMessage);
 					break;
 				case "equipletState":
-					EquipletStateEntry stateEntry =
-							new EquipletStateEntry((BasicDBObject) stateBBClient.findDocumentById(entry
-									.getTargetObjectId()));
+					EquipletStateEntry stateEntry = new EquipletStateEntry((BasicDBObject) entry.getDocument());
 					Logger.log("Equiplet agent - mode changed to %s%n", stateEntry.getEquipletMode());
 					EquipletMode mode = stateEntry.getEquipletMode();
 					switch(mode) {
@@ -36,7 +36,6 @@ package rexos.mas.equiplet_agent;
 import jade.core.AID;
 import jade.lang.acl.ACLMessage;
 
-import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
 
@@ -46,7 +45,6 @@ import rexos.libraries.blackboard_client.GeneralMongoException;
 import rexos.libraries.blackboard_client.InvalidDBNamespaceException;
 import rexos.libraries.log.Logger;
 import rexos.mas.data.ProductStep;
-import rexos.mas.data.ScheduleData;
 import rexos.mas.data.StepStatusCode;
 
 import com.mongodb.BasicDBObject;
@@ -173,18 +171,17 @@ public class NextProductStepTimer extends Timer {
 	 */
 	public void rescheduleTimer() {
 		try {
+			// only the id and start time of the earliest planned step are needed.
 			BasicDBObject query = new BasicDBObject("status", StepStatusCode.PLANNED.name());
-			BasicDBObject orderby = new BasicDBObject("scheduleData", new BasicDBObject("startTime", "1"));
-			BasicDBObject findquery = new BasicDBObject("$query", query).append("$orderby", orderby);
-			List<DBObject> objects = equipletAgent.getProductStepBBClient().findDocuments(findquery);
-			if(!objects.isEmpty()) {
-				ProductStep nextProductStep = new ProductStep((BasicDBObject) objects.get(0));
-				equipletAgent.setNextProductStep(nextProductStep.getId());
-				ScheduleData scheduleData = nextProductStep.getScheduleData();
-				if(nextUsedTimeSlot == -1 || scheduleData.getStartTime() < nextUsedTimeSlot) {
-					setNextUsedTimeSlot(scheduleData.getStartTime());
+			DBObject nextProductStep = equipletAgent.getProductStepBBClient().query(query)
+					.fields("scheduleData.startTime").sort("scheduleData.startTime", 1).findOne();
+			if(nextProductStep != null) {
+				equipletAgent.setNextProductStep((ObjectId) nextProductStep.get("_id"));
+				long startTime = ((BasicDBObject) nextProductStep.get("scheduleData")).getLong("startTime");
+				if(nextUsedTimeSlot == -1 || startTime < nextUsedTimeSlot) {
+					setNextUsedTimeSlot(startTime);
 				} else {
-					Logger.log("%d Equiplet agent - Earliest step is not before current step (%d)%n", EquipletAgent.getCurrentTimeSlot(), scheduleData.getStartTime());
+					Logger.log("%d Equiplet agent - Earliest step is not before current step (%d)%n", EquipletAgent.getCurrentTimeSlot(), startTime);
 				}
 			} else {
 				Logger.log("%d Equiplet agent - no more steps on PLANNED%n", EquipletAgent.getCurrentTimeSlot());
@@ -103,6 +103,7 @@ public class InitialisationFinished extends ReceiveOnceBehaviour implements Blac
 		equipletAgent = a;
 		stateUpdateSubscription = new FieldUpdateSubscription("state", this);
 		stateUpdateSubscription.addOperation(MongoUpdateLogOperation.SET);
+		stateUpdateSubscription.setDocumentFetchingEnabled(true);
 	}
 
 	/**
@@ -157,7 +158,7 @@ public class InitialisationFinished extends ReceiveOnceBehaviour implements Blac
 	public void onMessage(MongoOperation operation, OplogEntry entry) {
 		try {
 			// inserts himself on the collective blackboard equiplet directory.
-			DBObject dbObject = equipletAgent.getStateBBClient().findDocumentById(entry.getTargetObjectId());
+			DBObject dbObject = entry.getDocument();
 			EquipletStateEntry state = new EquipletStateEntry((BasicDBObject) dbObject);
 			switch(state.getEquipletState()) {
 				case STANDBY:
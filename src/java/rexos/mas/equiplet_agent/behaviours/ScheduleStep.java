@@ -46,6 +46,7 @@ import org.bson.types.ObjectId;
 import rexos.libraries.blackboard_client.BlackboardClient;
 import rexos.libraries.blackboard_client.GeneralMongoException;
 import rexos.libraries.blackboard_client.InvalidDBNamespaceException;
+import rexos.libraries.blackboard_client.WriteProfile;
 import rexos.libraries.log.Logger;
 import rexos.mas.behaviours.ReceiveBehaviour;
 import rexos.mas.data.ProductStep;
@@ -151,7 +152,7 @@ public class ScheduleStep extends ReceiveBehaviour {
 			if(fitsInSchedule) {
 				scheduleData.setStartTime(start);
 				productBBClient.updateDocuments(new BasicDBObject("_id", productStepId), new BasicDBObject("$set",
-						new BasicDBObject("scheduleData", scheduleData.toBasicDBObject())));
+						new BasicDBObject("scheduleData", scheduleData.toBasicDBObject())), WriteProfile.JOURNALED);
 
 				ACLMessage scheduleMessage = new ACLMessage(ACLMessage.REQUEST);
 				scheduleMessage.addReceiver(equipletAgent.getServiceAgent());
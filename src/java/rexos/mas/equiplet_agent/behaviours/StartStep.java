@@ -98,6 +98,7 @@ public class StartStep extends ReceiveBehaviour implements BlackboardSubscriber
 		equipletAgent = (EquipletAgent) a;
 		stateUpdateSubscription = new FieldUpdateSubscription("state", this);
 		stateUpdateSubscription.addOperation(MongoUpdateLogOperation.SET);
+		stateUpdateSubscription.setDocumentFetchingEnabled(true);
 	}
 
 	/**
@@ -141,7 +142,7 @@ public class StartStep extends ReceiveBehaviour implements BlackboardSubscriber
 	public void onMessage(MongoOperation operation, OplogEntry entry) {
 		try {
 			BlackboardClient stateBBClient = equipletAgent.getStateBBClient();
-			DBObject dbObject = stateBBClient.findDocumentById(entry.getTargetObjectId());
+			DBObject dbObject = entry.getDocument();
 			if(dbObject != null) {
 				EquipletStateEntry state = new EquipletStateEntry((BasicDBObject) dbObject);
 				if(state.getEquipletState() == EquipletState.NORMAL) {
@@ -36,8 +36,11 @@
  **/
 package rexos.mas.hardware_agent;
 
+import java.util.Map;
+
 import org.bson.types.ObjectId;
 
+import rexos.mas.data.DocumentDecoder;
 import rexos.mas.data.MongoSaveable;
 import rexos.mas.data.StepStatusCode;
 import rexos.mas.hardware_agent.EquipletStep;
@@ -304,21 +307,53 @@ public class EquipletStep implements MongoSaveable {
 	 */
 	@Override
 	public void fromBasicDBObject(BasicDBObject object) {
-		BasicDBObject copy = (BasicDBObject) object.copy();
-		_id = (ObjectId) copy.remove("_id");
-		nextStep = (ObjectId) copy.remove("nextStep");
-		serviceStepID = (ObjectId) copy.remove("serviceStepID");
-		moduleId = (int) copy.remove("moduleId");
-		instructionData = new InstructionData((BasicDBObject) copy.remove("instructionData"));
-		status = StepStatusCode.valueOf((String) copy.remove("status"));
-		if(copy.containsField("statusData")) {
-			statusData = (BasicDBObject) copy.remove("statusData");
-		} else {
-			statusData = new BasicDBObject();
+		boolean hasModuleId = false, hasInstructionData = false, hasStatus = false, hasTimeData = false;
+		_id = null;
+		nextStep = null;
+		serviceStepID = null;
+		statusData = null;
+		for(Map.Entry<String, Object> field : object.entrySet()) {
+			String name = field.getKey();
+			Object value = field.getValue();
+			switch(name) {
+				case "_id":
+					_id = DocumentDecoder.toObjectId(name, value);
+					break;
+				case "nextStep":
+					nextStep = DocumentDecoder.toObjectId(name, value);
+					break;
+				case "serviceStepID":
+					serviceStepID = DocumentDecoder.toObjectId(name, value);
+					break;
+				case "moduleId":
+					moduleId = DocumentDecoder.toInt(name, value);
+					hasModuleId = true;
+					break;
+				case "instructionData":
+					instructionData = new InstructionData(DocumentDecoder.toDocument(name, value));
+					hasInstructionData = true;
+					break;
+				case "status":
+					status = DocumentDecoder.toStatus(name, value);
+					hasStatus = true;
+					break;
+				case "statusData":
+					statusData = DocumentDecoder.toDocument(name, value);
+					break;
+				case "timeData":
+					timeData = new TimeData(DocumentDecoder.toDocument(name, value));
+					hasTimeData = true;
+					break;
+				default:
+					throw DocumentDecoder.unknownField(name);
+			}
 		}
-		timeData = new TimeData((BasicDBObject) copy.remove("timeData"));
-		if(!copy.isEmpty()){
-			throw new IllegalArgumentException();
+		DocumentDecoder.require("moduleId", hasModuleId);
+		DocumentDecoder.require("instructionData", hasInstructionData);
+		DocumentDecoder.require("status", hasStatus);
+		DocumentDecoder.require("timeData", hasTimeData);
+		if(statusData == null) {
+			statusData = new BasicDBObject();
 		}
 	}
 
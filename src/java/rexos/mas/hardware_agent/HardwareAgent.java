@@ -65,6 +65,7 @@ import org.bson.types.ObjectId;
 
 import rexos.libraries.blackboard_client.BlackboardClient;
 import rexos.libraries.blackboard_client.BlackboardSubscriber;
+import rexos.libraries.blackboard_client.DocumentHandler;
 import rexos.libraries.blackboard_client.FieldUpdateSubscription;
 import rexos.libraries.blackboard_client.FieldUpdateSubscription.MongoUpdateLogOperation;
 import rexos.libraries.blackboard_client.GeneralMongoException;
@@ -77,6 +78,7 @@ import rexos.libraries.knowledgedb_client.KnowledgeException;
 import rexos.libraries.knowledgedb_client.Queries;
 import rexos.libraries.knowledgedb_client.Row;
 import rexos.libraries.log.Logger;
+import rexos.mas.data.BlackboardIndexDeclarations;
 import rexos.mas.data.DbData;
 import rexos.mas.data.StepStatusCode;
 import rexos.mas.hardware_agent.behaviours.CheckForModules;
@@ -181,6 +183,7 @@ public class HardwareAgent extends Agent implements BlackboardSubscriber, Module
 	@Override
 	public void setup() {
 		Logger.log("Hardware agent " + this + " reporting.");
+		BlackboardIndexDeclarations.declare();
 		leadingModules = new HashMap<Integer, Integer>();
 
 		// gets the modulefactory and subscribes to updates.
@@ -214,6 +217,7 @@ public class HardwareAgent extends Agent implements BlackboardSubscriber, Module
 
 			stepStatusSubscription = new FieldUpdateSubscription("status", this);
 			stepStatusSubscription.addOperation(MongoUpdateLogOperation.SET);
+			stepStatusSubscription.setDocumentFetchingEnabled(true);
 
 			serviceStepBBClient = new BlackboardClient(dbData.getIp());
 			serviceStepBBClient.setDatabase(dbData.getName());
@@ -247,13 +251,14 @@ public class HardwareAgent extends Agent implements BlackboardSubscriber, Module
 		try {
 			KnowledgeDBClient client = KnowledgeDBClient.getClient();
 			Row[] rows = client.executeSelectQuery(Queries.MODULES_PER_EQUIPLET, equipletAgentAID.getLocalName());
-			Module module;
-			int id;
+			ArrayList<Integer> moduleIds = new ArrayList<Integer>(rows.length);
 			for(Row row : rows) {
-				id = (int) row.get("module");
-				module = moduleFactory.getModuleById(id);
-				for(int step : module.isLeadingForServices()) {
-					registerLeadingModule(step, id);
+				moduleIds.add(row.getInt("module"));
+			}
+			// Load the software of all modules with a single query.
+			for(Map.Entry<Integer, Module> entry : moduleFactory.getModulesById(moduleIds).entrySet()) {
+				for(int step : entry.getValue().isLeadingForServices()) {
+					registerLeadingModule(step, entry.getKey());
 				}
 			}
 		} catch(KnowledgeException | KeyNotFoundException e1) {
@@ -269,10 +274,15 @@ public class HardwareAgent extends Agent implements BlackboardSubscriber, Module
 	public void takeDown() {
 		try {
 			// Clears his own blackboard and removes his subscription on that blackboard.
-			for(DBObject object : serviceStepBBClient.findDocuments(new BasicDBObject())) {
-				serviceStepBBClient.updateDocuments(new BasicDBObject("_id", object.get("_id")), new BasicDBObject(
-						"$set", new BasicDBObject("statusData", buildLog((ObjectId) object.get("_id")))));
-			}
+			serviceStepBBClient.query(new BasicDBObject()).fields("_id").sort("_id", 1).batchSize(100)
+					.forEach(new DocumentHandler() {
+						@Override
+						public void handle(DBObject object) throws InvalidDBNamespaceException, GeneralMongoException {
+							serviceStepBBClient.updateDocuments(new BasicDBObject("_id", object.get("_id")),
+									new BasicDBObject("$set", new BasicDBObject("statusData",
+											buildLog((ObjectId) object.get("_id")))));
+						}
+					});
 
 			equipletStepBBClient.removeDocuments(new BasicDBObject());
 			equipletStepBBClient.unsubscribe(stepStatusSubscription);
@@ -313,7 +323,7 @@ public class HardwareAgent extends Agent implements BlackboardSubscriber, Module
 			DBObject dbObject;
 			switch(entry.getNamespace().split("\\.")[1]) {
 				case "ServiceStepsBlackBoard":
-					dbObject = serviceStepBBClient.findDocumentById(entry.getTargetObjectId());
+					dbObject = entry.getDocument();
 					if(dbObject != null) {
 						ServiceStep serviceStep = new ServiceStep((BasicDBObject) dbObject);
 						StepStatusCode status = serviceStep.getStatus();
@@ -357,7 +367,7 @@ public class HardwareAgent extends Agent implements BlackboardSubscriber, Module
 					}
 					break;
 				case "EquipletStepsBlackBoard":
-					dbObject = equipletStepBBClient.findDocumentById(entry.getTargetObjectId());
+					dbObject = entry.getDocument();
 					if(dbObject != null) {
 						EquipletStep equipletStep = new EquipletStep((BasicDBObject) dbObject);
 						ServiceStep serviceStep =
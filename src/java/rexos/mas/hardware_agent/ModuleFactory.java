@@ -30,7 +30,10 @@
 package rexos.mas.hardware_agent;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import rexos.libraries.dynamicloader.DynamicClassDescription;
 import rexos.libraries.dynamicloader.DynamicClassFactory;
@@ -85,14 +88,26 @@ public class ModuleFactory {
 			Row[] rows = knowledgeClient.executeSelectQuery(
 					Queries.SOFTWARE_FOR_MODULE,
 					new Object[]{moduleId});
-			
+			updateModuleInCache(moduleId, rows);
+		} catch (KnowledgeException e) {
+			Logger.log(e);
+		}
+	}
+	
+	/**
+	 * Updates the moduleCache with the given software retrieved from the knowledge database.
+	 * @param moduleId The id of the module that should be updated.
+	 * @param rows The rows describing the software of the module, or an empty array if there is none.
+	 **/
+	private void updateModuleInCache(int moduleId, Row[] rows) {
+		try {
 			if (rows.length > 0) {
 				DynamicClassDescription description = new DynamicClassDescription(
-						new Long((Integer)rows[0].get("id")),
-						(String)rows[0].get("name"),
-						(String)rows[0].get("description"),
-						(String)rows[0].get("class_name"),
-						(String)rows[0].get("jar_location"));
+						rows[0].getLong("id"),
+						rows[0].getString("name"),
+						rows[0].getString("description"),
+						rows[0].getString("class_name"),
+						rows[0].getString("jar_location"));
 				
 				Module oldSoftware = moduleCache.get(moduleId);
 				Module newSoftware = factory.createNewObjectIfOutdated(description, oldSoftware);
@@ -112,7 +127,7 @@ public class ModuleFactory {
 					}
 				}
 			}
-		} catch (InstantiateClassException | KnowledgeException | KeyNotFoundException e) {
+		} catch (InstantiateClassException | KeyNotFoundException e) {
 			Logger.log(e);
 		}
 	}
@@ -128,6 +143,32 @@ public class ModuleFactory {
 		return moduleCache.get(moduleId);
 	}
 	
+	/**
+	 * Returns objects representing the software required for the specified modules.
+	 * The software of all modules is read with a single batched query.
+	 * @param moduleIds The modules for which software should be loaded.
+	 * @return Map with the Module object for every module id, or null for modules for which no software could be loaded.
+	 *
+	 **/
+	public Map<Integer, Module> getModulesById(Collection<Integer> moduleIds) {
+		LinkedHashMap<Integer, Module> modules = new LinkedHashMap<Integer, Module>();
+		try {
+			KnowledgeDBClient knowledgeClient = KnowledgeDBClient.getClient();
+			Map<Integer, Row[]> software = knowledgeClient.executeBatchedSelectQuery(
+					Queries.SOFTWARE_FOR_MODULES, "module_id", moduleIds);
+			for (Map.Entry<Integer, Row[]> entry : software.entrySet()) {
+				updateModuleInCache(entry.getKey(), entry.getValue());
+			}
+		} catch (KnowledgeException e) {
+			Logger.log(e);
+		}
+		
+		for (Integer moduleId : moduleIds) {
+			modules.put(moduleId, moduleCache.get(moduleId));
+		}
+		return modules;
+	}
+	
 	/**
 	 * Subscribe to software updates.
 	 * The subscriber will be notified whenever a new version is loaded of a certain module.
@@ -29,6 +29,9 @@
  **/
 package rexos.mas.hardware_agent;
 
+import java.util.Map;
+
+import rexos.mas.data.DocumentDecoder;
 import rexos.mas.data.MongoSaveable;
 
 import com.mongodb.BasicDBObject;
@@ -95,10 +98,22 @@ public class TimeData implements MongoSaveable {
 	 */
 	@Override
 	public void fromBasicDBObject(BasicDBObject object) {
-		BasicDBObject copy = (BasicDBObject) object.copy();
-		duration = (int) copy.remove("duration");
-		if(!copy.isEmpty()){
+		if(object == null) {
 			throw new IllegalArgumentException();
 		}
+		boolean hasDuration = false;
+		for(Map.Entry<String, Object> field : object.entrySet()) {
+			String name = field.getKey();
+			Object value = field.getValue();
+			switch(name) {
+				case "duration":
+					duration = DocumentDecoder.toInt(name, value);
+					hasDuration = true;
+					break;
+				default:
+					throw DocumentDecoder.unknownField(name);
+			}
+		}
+		DocumentDecoder.require("duration", hasDuration);
 	}
 }
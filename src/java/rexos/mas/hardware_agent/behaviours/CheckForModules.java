@@ -99,7 +99,7 @@ public class CheckForModules extends ReceiveBehaviour {
 					client.executeSelectQuery(Queries.MODULES_PER_EQUIPLET, hardwareAgent.getEquipletAgentAID()
 							.getLocalName());
 			for(Row row : rows) {
-				availableModules.add((Integer) row.get("groupId"));
+				availableModules.add(row.getInt("groupId"));
 			}
 		} catch(KeyNotFoundException | KnowledgeException ex) {
 			// TODO:(Check this)Return the current (possibly empty) arraylist if reading from the knowledge db fails for
@@ -57,8 +57,10 @@ import java.io.IOException;
 import org.bson.types.ObjectId;
 
 import rexos.libraries.blackboard_client.BlackboardClient;
+import rexos.libraries.blackboard_client.BulkWrite;
 import rexos.libraries.blackboard_client.GeneralMongoException;
 import rexos.libraries.blackboard_client.InvalidDBNamespaceException;
+import rexos.libraries.blackboard_client.WriteProfile;
 import rexos.libraries.log.Logger;
 import rexos.mas.behaviours.ReceiveBehaviour;
 import rexos.mas.data.ScheduleData;
@@ -158,15 +160,17 @@ public class EvaluateDuration extends ReceiveBehaviour {
 			
 			if(equipletSteps.length > 0) {
 				BlackboardClient equipletStepsBBClient = hardwareAgent.getEquipletStepsBBClient();
+				BulkWrite insertSteps = equipletStepsBBClient.bulk().setWriteProfile(WriteProfile.FIRE_AND_FORGET);
 				ObjectId next = null;
-				// calculate the duration and put the steps on the blackboard
+				// calculate the duration and put the steps on the blackboard in a single batch
 				for(int i = equipletSteps.length - 1; i >= 0; i--) {
 					EquipletStep equipletStep = equipletSteps[i];
 					stepDuration += equipletStep.getTimeData().getDuration();
 					equipletStep.setServiceStepID(serviceStepId);
 					equipletStep.setNextStep(next);
-					next = equipletStepsBBClient.insertDocumentUnsafe(equipletStep.toBasicDBObject());
+					next = insertSteps.insert(equipletStep.toBasicDBObject());
 				}
+				insertSteps.execute();
 				
 				// get the scheduleData and add the duration.
 				ScheduleData schedule = serviceStep.getScheduleData();
@@ -59,8 +59,10 @@ import java.util.List;
 import org.bson.types.ObjectId;
 
 import rexos.libraries.blackboard_client.BlackboardClient;
+import rexos.libraries.blackboard_client.BulkWrite;
 import rexos.libraries.blackboard_client.GeneralMongoException;
 import rexos.libraries.blackboard_client.InvalidDBNamespaceException;
+import rexos.libraries.blackboard_client.WriteProfile;
 import rexos.libraries.log.Logger;
 import rexos.mas.behaviours.ReceiveBehaviour;
 import rexos.mas.hardware_agent.EquipletStep;
@@ -155,10 +157,12 @@ public class FillPlaceholders extends ReceiveBehaviour {
 			// Fill the placeholders
 			equipletSteps = module.fillPlaceHolders(equipletSteps, serviceStep.getParameters());
 			Logger.log("Hardware agent - Saving updated instructionData of %d equipletSteps%n", equipletSteps.length);
+			BulkWrite updateSteps = equipletStepBBClient.bulk().setWriteProfile(WriteProfile.FIRE_AND_FORGET);
 			for(EquipletStep step : equipletSteps) {
-				equipletStepBBClient.updateDocumentsUnsafe(new BasicDBObject("_id", step.getId()), new BasicDBObject("$set",
+				updateSteps.update(new BasicDBObject("_id", step.getId()), new BasicDBObject("$set",
 						new BasicDBObject("instructionData", step.getInstructionData().toBasicDBObject())));
 			}
+			updateSteps.execute();
 			// if the serviceStep has a nextStep fill the placeholders for that one to.
 			if(serviceStep.getNextStep() != null) {
 				FillStepPlaceholders(serviceStep.getNextStep());
@@ -52,6 +52,7 @@ import com.mongodb.BasicDBObject;
 import com.mongodb.util.JSON;
 
 import rexos.mas.data.AgentStatus;
+import rexos.mas.data.BlackboardIndexDeclarations;
 import rexos.mas.data.Callback;
 import rexos.mas.data.Product;
 import rexos.mas.data.ProductAgentProperties;
@@ -89,6 +90,7 @@ public class ProductAgent extends Agent {
 	@Override
 	protected void setup() {
 		try {
+			BlackboardIndexDeclarations.declare();
 			// Load all arguments
 			this.loadArguments();
 			// Create the Overview Behaviour and start it
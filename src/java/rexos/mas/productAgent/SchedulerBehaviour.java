@@ -190,8 +190,8 @@ public class SchedulerBehaviour extends Behaviour {
 		BlackboardClient bbc = new BlackboardClient("145.89.191.131");
 		bbc.setDatabase("CollectiveDb");
 		bbc.setCollection("TimeData");
-		BasicDBObject dbObject = (BasicDBObject) bbc.findDocuments(
-				new BasicDBObject()).get(0);
+		BasicDBObject dbObject = (BasicDBObject) bbc.query(
+				new BasicDBObject()).findOne();
 		long firstTimeSlot = dbObject.getLong("firstTimeSlot");
 		int timeSlotLength = dbObject.getInt("timeSlotLength");
 
@@ -229,11 +229,9 @@ public class SchedulerBehaviour extends Behaviour {
 					.greaterThan(-1).put("scheduleData.startTime")
 					.greaterThan((System.currentTimeMillis()) / timeSlotLength)
 					.get();
-			BasicDBObject orderby = new BasicDBObject("scheduleData",
-					new BasicDBObject("startTime", "1"));
-			BasicDBObject findquery = new BasicDBObject("$query", query)
-					.append("$orderby", orderby);
-			List<DBObject> plannedSteps = bbc.findDocuments(findquery);
+			List<DBObject> plannedSteps = bbc.query(query)
+					.fields("scheduleData.startTime", "scheduleData.duration")
+					.sort("scheduleData.startTime", 1).find();
 			for (int i = 0; i < plannedSteps.size(); i++) {
 				long startTime = ((BasicDBObject) plannedSteps.get(i).get(
 						"scheduleData")).getLong("startTime");
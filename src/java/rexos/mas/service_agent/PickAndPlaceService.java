@@ -103,7 +103,7 @@ public class PickAndPlaceService extends Service {
 		try {
 			KnowledgeDBClient client = KnowledgeDBClient.getClient();
 			Row[] partProperties = client.executeSelectQuery(Queries.PART_PROPERTY, part.getType(), "height");
-			ballHeight = Double.parseDouble((String) partProperties[0].get("value"));
+			ballHeight = partProperties[0].getDouble("value");
 		} catch(KnowledgeException | KeyNotFoundException e) {
 			Logger.log(e);
 		}
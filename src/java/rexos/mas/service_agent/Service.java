@@ -84,7 +84,7 @@ public abstract class Service {
 			Row[] moduleGroups = client.executeSelectQuery(Queries.MODULEGROUPS_REQUIRED_PER_SERVICE, name);
 			int[] moduleIds = new int[moduleGroups.length];
 			for(int i = 0; i < moduleGroups.length; i++) {
-				moduleIds[i] = (int) moduleGroups[i].get("module_id");
+				moduleIds[i] = moduleGroups[i].getInt("module_id");
 			}
 			return moduleIds;
 		} catch(KnowledgeException | KeyNotFoundException e) {
@@ -54,6 +54,7 @@ import org.bson.types.ObjectId;
 
 import rexos.libraries.blackboard_client.BlackboardClient;
 import rexos.libraries.blackboard_client.BlackboardSubscriber;
+import rexos.libraries.blackboard_client.DocumentHandler;
 import rexos.libraries.blackboard_client.FieldUpdateSubscription;
 import rexos.libraries.blackboard_client.FieldUpdateSubscription.MongoUpdateLogOperation;
 import rexos.libraries.blackboard_client.GeneralMongoException;
@@ -61,6 +62,7 @@ import rexos.libraries.blackboard_client.InvalidDBNamespaceException;
 import rexos.libraries.blackboard_client.MongoOperation;
 import rexos.libraries.blackboard_client.OplogEntry;
 import rexos.libraries.log.Logger;
+import rexos.mas.data.BlackboardIndexDeclarations;
 import rexos.mas.data.DbData;
 import rexos.mas.data.Part;
 import rexos.mas.data.ProductStep;
@@ -154,6 +156,7 @@ public class ServiceAgent extends Agent implements BlackboardSubscriber {
 	@Override
 	public void setup() {
 		Logger.log("I spawned as a service agent.");
+		BlackboardIndexDeclarations.declare();
 
 		// handle arguments given to this agent
 		Object[] args = getArguments();
@@ -180,6 +183,7 @@ public class ServiceAgent extends Agent implements BlackboardSubscriber {
 			// create blackboard clients, configure them and subscribe to status changes of any steps
 			statusSubscription = new FieldUpdateSubscription("status", this);
 			statusSubscription.addOperation(MongoUpdateLogOperation.SET);
+			statusSubscription.setDocumentFetchingEnabled(true);
 
 			// Needs to react on state changes of production steps to WAITING
 			productStepBBClient = new BlackboardClient(dbData.getIp());
@@ -228,19 +232,22 @@ public class ServiceAgent extends Agent implements BlackboardSubscriber {
 		serviceStepBBClient.unsubscribe(statusSubscription);
 		
 		try {
-			List<DBObject> productSteps = productStepBBClient.findDocuments(new BasicDBObject());
-			ObjectId id;
-			BasicDBObject update, statusData;
-			for(DBObject productStep : productSteps) {
-				id = (ObjectId) productStep.get("_id");
-				statusData = new BasicDBObject("source", "service agent")
-						.append("reason", "died")
-						.append("log", buildLog(id));
-				update = new BasicDBObject("status", StepStatusCode.FAILED.name());
-				update.append("statusData", statusData);
-				
-				productStepBBClient.updateDocuments(new BasicDBObject("_id", id), new BasicDBObject("$set", update));
-			}
+			// walks through the product steps in batches, only fetching their ids.
+			productStepBBClient.query(new BasicDBObject()).fields("_id").sort("_id", 1).batchSize(100)
+					.forEach(new DocumentHandler() {
+						@Override
+						public void handle(DBObject productStep) throws InvalidDBNamespaceException,
+								GeneralMongoException {
+							ObjectId id = (ObjectId) productStep.get("_id");
+							BasicDBObject statusData = new BasicDBObject("source", "service agent")
+									.append("reason", "died")
+									.append("log", buildLog(id));
+							BasicDBObject update = new BasicDBObject("status", StepStatusCode.FAILED.name());
+							update.append("statusData", statusData);
+							
+							productStepBBClient.updateDocuments(new BasicDBObject("_id", id), new BasicDBObject("$set", update));
+						}
+					});
 			
 			serviceStepBBClient.removeDocuments(new BasicDBObject());
 		} catch(InvalidDBNamespaceException | GeneralMongoException e) {
@@ -297,9 +304,7 @@ public class ServiceAgent extends Agent implements BlackboardSubscriber {
 		try {
 			switch(entry.getNamespace().split("\\.")[1]) {
 				case "ProductStepsBlackBoard":
-					ProductStep productionStep =
-							new ProductStep((BasicDBObject) productStepBBClient.findDocumentById(entry
-									.getTargetObjectId()));
+					ProductStep productionStep = new ProductStep((BasicDBObject) entry.getDocument());
 					switch(operation) {
 						case UPDATE:
 							StepStatusCode status = productionStep.getStatus();
@@ -347,8 +352,7 @@ public class ServiceAgent extends Agent implements BlackboardSubscriber {
 					break;
 				case "ServiceStepsBlackBoard":
 					ObjectId serviceStepId = entry.getTargetObjectId();
-					ServiceStep serviceStep =
-							new ServiceStep((BasicDBObject) serviceStepBBClient.findDocumentById(serviceStepId));
+					ServiceStep serviceStep = new ServiceStep((BasicDBObject) entry.getDocument());
 					ObjectId productStepId = serviceStep.getProductStepId();
 					switch(operation) {
 						case UPDATE:
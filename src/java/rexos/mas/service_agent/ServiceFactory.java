@@ -31,6 +31,7 @@ package rexos.mas.service_agent;
 
 import java.util.ArrayList;
 import java.util.Hashtable;
+import java.util.Map;
 
 import rexos.libraries.dynamicloader.DynamicClassDescription;
 import rexos.libraries.dynamicloader.DynamicClassFactory;
@@ -77,26 +78,25 @@ public class ServiceFactory {
 	/**
 	 * Returns a Service object for the given serviceID.
 	 * @param serviceID The serviceID for which software should be loaded.
-	 * @return The Service object for the given serviceID.
+	 * @param software The rows of the SOFTWARE_FOR_SERVICES query for the serviceID.
+	 * @return The Service object for the given serviceID, or null if no software could be loaded.
 	 */
-	private Service	getServiceByServiceID(int serviceID) {
+	private Service getServiceByServiceID(int serviceID, Row[] software) {
 		Service service = null;
 		try {
-			KnowledgeDBClient knowledgeClient = KnowledgeDBClient.getClient();
-			Row[] rows = knowledgeClient.executeSelectQuery(Queries.SOFTWARE_FOR_SERVICE, serviceID);
-			if (rows.length > 0) {
+			if (software.length > 0) {
 				DynamicClassDescription description = new DynamicClassDescription(
-						new Long((Integer)rows[0].get("id")),
-						(String)rows[0].get("name"),
-						(String)rows[0].get("description"),
-						(String)rows[0].get("class_name"),
-						(String)rows[0].get("jar_location"));
+						software[0].getLong("id"),
+						software[0].getString("name"),
+						software[0].getString("description"),
+						software[0].getString("class_name"),
+						software[0].getString("jar_location"));
 				service = factory.createNewObjectIfOutdated(description, serviceCache.get(description.getId()));
 				service.setId(serviceID);
 				service.setName(description.getName());
 				serviceCache.put(description.getId(), service);
 			}
-		} catch (KnowledgeException | InstantiateClassException | KeyNotFoundException e) {
+		} catch (InstantiateClassException | KeyNotFoundException e) {
 			Logger.log(e);
 		}
 		
@@ -105,6 +105,7 @@ public class ServiceFactory {
 	
 	/**
 	 * Returns an array of Service objects for the services that are capable of processing the given product step.
+	 * The software of all services is read with a single batched query.
 	 * @param stepType The type of the product step.
 	 * @return An array of Service objects capable of processing the given product step.
 	 */
@@ -116,12 +117,17 @@ public class ServiceFactory {
 					Queries.SERVICES_FOR_STEP_FOR_EQUIPLET,
 					equipletAID, stepType);
 			
-			for (int i = 0 ; i < rows.length ; ++i) {
-				
-				if(getServiceByServiceID((int)rows[i].get("id")) != null){
-				
-					servicesForStep.add(getServiceByServiceID((int)rows[i].get("id")));
-					
+			ArrayList<Integer> serviceIDs = new ArrayList<Integer>(rows.length);
+			for (Row row : rows) {
+				serviceIDs.add(row.getInt("id"));
+			}
+			
+			Map<Integer, Row[]> software = knowledgeClient.executeBatchedSelectQuery(
+					Queries.SOFTWARE_FOR_SERVICES, "service_id", serviceIDs);
+			for (Map.Entry<Integer, Row[]> entry : software.entrySet()) {
+				Service service = getServiceByServiceID(entry.getKey(), entry.getValue());
+				if (service != null) {
+					servicesForStep.add(service);
 				}
 			}
 		} catch (KnowledgeException | KeyNotFoundException ex) {
@@ -33,8 +33,11 @@
  **/
 package rexos.mas.service_agent;
 
+import java.util.Map;
+
 import org.bson.types.ObjectId;
 
+import rexos.mas.data.DocumentDecoder;
 import rexos.mas.data.MongoSaveable;
 import rexos.mas.data.ScheduleData;
 import rexos.mas.data.StepStatusCode;
@@ -225,27 +228,60 @@ public class ServiceStep implements MongoSaveable {
 	 */
 	@Override
 	public void fromBasicDBObject(BasicDBObject object) {
-		BasicDBObject copy = (BasicDBObject) object.copy();
-		_id = (ObjectId) copy.remove("_id");
-		nextStep = (ObjectId) copy.remove("nextStep");
-		serviceId = (int) copy.remove("serviceId");
-		type = (int) copy.remove("type");
-		productStepId = (ObjectId) copy.remove("productStepId");
-		parameters = (BasicDBObject) copy.remove("parameters");
-		status = StepStatusCode.valueOf((String) copy.remove("status"));
-		if(copy.containsField("statusData")) {
-			statusData = (BasicDBObject) copy.remove("statusData");
-		} else {
+		boolean hasServiceId = false, hasType = false, hasStatus = false;
+		_id = null;
+		nextStep = null;
+		productStepId = null;
+		parameters = null;
+		statusData = null;
+		scheduleData = null;
+		for(Map.Entry<String, Object> field : object.entrySet()) {
+			String name = field.getKey();
+			Object value = field.getValue();
+			switch(name) {
+				case "_id":
+					_id = DocumentDecoder.toObjectId(name, value);
+					break;
+				case "nextStep":
+					nextStep = DocumentDecoder.toObjectId(name, value);
+					break;
+				case "serviceId":
+					serviceId = DocumentDecoder.toInt(name, value);
+					hasServiceId = true;
+					break;
+				case "type":
+					type = DocumentDecoder.toInt(name, value);
+					hasType = true;
+					break;
+				case "productStepId":
+					productStepId = DocumentDecoder.toObjectId(name, value);
+					break;
+				case "parameters":
+					parameters = DocumentDecoder.toDocument(name, value);
+					break;
+				case "status":
+					status = DocumentDecoder.toStatus(name, value);
+					hasStatus = true;
+					break;
+				case "statusData":
+					statusData = DocumentDecoder.toDocument(name, value);
+					break;
+				case "scheduleData":
+					scheduleData = new ScheduleData(DocumentDecoder.toDocument(name, value));
+					break;
+				default:
+					throw DocumentDecoder.unknownField(name);
+			}
+		}
+		DocumentDecoder.require("serviceId", hasServiceId);
+		DocumentDecoder.require("type", hasType);
+		DocumentDecoder.require("status", hasStatus);
+		if(statusData == null) {
 			statusData = new BasicDBObject();
 		}
-		if(copy.containsField("scheduleData")) {
-			scheduleData = new ScheduleData((BasicDBObject) copy.remove("scheduleData"));
-		} else {
+		if(scheduleData == null) {
 			scheduleData = new ScheduleData();
 		}
-		if(!copy.isEmpty()){
-			throw new IllegalArgumentException();
-		}
 	}
 
 	/**
@@ -44,6 +44,7 @@ import jade.lang.acl.UnreadableException;
 import org.bson.types.ObjectId;
 
 import rexos.libraries.blackboard_client.BlackboardClient;
+import rexos.libraries.blackboard_client.BulkWrite;
 import rexos.libraries.blackboard_client.GeneralMongoException;
 import rexos.libraries.blackboard_client.InvalidDBNamespaceException;
 import rexos.libraries.log.Logger;
@@ -117,10 +118,12 @@ public class GetProductStepDuration extends ReceiveBehaviour {
 
 			ObjectId serviceStepId = null;
 			BlackboardClient serviceStepBB = agent.getServiceStepBBClient();
+			BulkWrite insertSteps = serviceStepBB.bulk();
 			for(int i = serviceSteps.length - 1; i >= 0; i--) {
 				serviceSteps[i].setNextStep(serviceStepId);
-				serviceStepId = serviceStepBB.insertDocument(serviceSteps[i].toBasicDBObject());
+				serviceStepId = insertSteps.insert(serviceSteps[i].toBasicDBObject());
 			}
+			insertSteps.execute();
 
 			ACLMessage askMessage = new ACLMessage(ACLMessage.QUERY_IF);
 			askMessage.addReceiver(agent.getHardwareAgentAID());
@@ -0,0 +1,403 @@
+/**
+ * @file rexos/libraries/blackboard_client/OplogMultiplexerTest.java
+ * @brief Tests the delivery of oplog entries to registrations made while the monitor is reading.
+ * @date Created: 2026-10-18
+ *
+ * @author Jan-Willem Willebrands
+ *
+ * @section LICENSE
+ * License: newBSD
+ *
+ * Copyright © 2026, HU University of Applied Sciences Utrecht.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of the HU University of Applied Sciences Utrecht nor the names of its contributors may be used to endorse or promote products derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE HU UNIVERSITY OF APPLIED SCIENCES UTRECHT
+ * BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ **/
+package rexos.libraries.blackboard_client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.types.BSONTimestamp;
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.Mongo;
+import com.mongodb.MongoInterruptedException;
+import com.mongodb.ServerAddress;
+
+/**
+ * Tests the OplogMultiplexer and its OplogMonitorThread against an oplog kept in memory, so no MongoDB server is
+ * needed. The oplog lets the test hold the monitor while it waits for entries, which makes the interleaving of a
+ * registration and the entries read by the monitor deterministic.
+ **/
+public class OplogMultiplexerTest {
+	/**
+	 * @var String FIRST_NAMESPACE
+	 * The namespace that is registered first.
+	 **/
+	private static final String FIRST_NAMESPACE = "test.first";
+	
+	/**
+	 * @var String SECOND_NAMESPACE
+	 * The namespace that is registered while the monitor is reading the first.
+	 **/
+	private static final String SECOND_NAMESPACE = "test.second";
+	
+	/**
+	 * @var long TIMEOUT
+	 * The time in milliseconds to wait for the monitor.
+	 **/
+	private static final long TIMEOUT = 5000;
+	
+	/**
+	 * In memory oplog. Cursors wait for new entries while the oplog is held.
+	 **/
+	private static class Oplog {
+		/**
+		 * @var List<DBObject> entries
+		 * The entries, in order of their timestamp.
+		 **/
+		private List<DBObject> entries = new ArrayList<DBObject>();
+		
+		/**
+		 * @var int time
+		 * The time of the last entry.
+		 **/
+		private int time = 1;
+		
+		/**
+		 * @var boolean held
+		 * Whether or not cursors should wait instead of returning new entries.
+		 **/
+		private boolean held;
+		
+		/**
+		 * @var boolean waiting
+		 * Whether or not a cursor is waiting because the oplog is held.
+		 **/
+		private boolean waiting;
+		
+		/**
+		 * Appends an insert entry for the given namespace.
+		 * @param namespace The namespace of the entry.
+		 * @return The timestamp of the entry.
+		 **/
+		synchronized BSONTimestamp append(String namespace) {
+			BSONTimestamp timestamp = new BSONTimestamp(++time, 0);
+			BasicDBObject entry = new BasicDBObject(OplogEntry.TIMESTAMP_FIELD, timestamp);
+			entry.put(OplogEntry.NAMESPACE_FIELD, namespace);
+			entry.put(OplogEntry.OPERATION_FIELD, MongoOperation.INSERT.getOpCode());
+			entry.put(OplogEntry.UPDATE_DOC_FIELD, new BasicDBObject("_id", new ObjectId()));
+			entries.add(entry);
+			return timestamp;
+		}
+		
+		/**
+		 * Returns the timestamp of the latest entry.
+		 * @return The timestamp of the latest entry.
+		 **/
+		synchronized BSONTimestamp getLatestTimestamp() {
+			return new BSONTimestamp(time, 0);
+		}
+		
+		/**
+		 * Lets cursors wait instead of returning new entries.
+		 **/
+		synchronized void hold() {
+			held = true;
+		}
+		
+		/**
+		 * Lets cursors return new entries again.
+		 **/
+		synchronized void release() {
+			held = false;
+			notifyAll();
+		}
+		
+		/**
+		 * Waits until a cursor waits for the oplog to be released.
+		 * @throws InterruptedException The thread was interrupted.
+		 **/
+		synchronized void awaitWaitingCursor() throws InterruptedException {
+			long deadline = System.currentTimeMillis() + TIMEOUT;
+			while (!waiting && System.currentTimeMillis() < deadline) {
+				wait(deadline - System.currentTimeMillis());
+			}
+			assertTrue("The monitor did not wait for entries.", waiting);
+		}
+		
+		/**
+		 * Returns the entry at the given position, waiting while the oplog is held.
+		 * @param position The position of the entry.
+		 * @return The entry or null if there is no entry at the position.
+		 **/
+		synchronized DBObject get(int position) {
+			try {
+				while (held) {
+					waiting = true;
+					notifyAll();
+					wait();
+				}
+			} catch (InterruptedException ex) {
+				throw new MongoInterruptedException(ex);
+			} finally {
+				waiting = false;
+			}
+			return position < entries.size() ? entries.get(position) : null;
+		}
+	}
+	
+	/**
+	 * Tailable cursor over the in memory oplog, selecting entries the way the monitor queries the oplog.
+	 **/
+	private static class OplogCursor extends DBCursor {
+		/**
+		 * @var Oplog oplog
+		 * The oplog that is read.
+		 **/
+		private Oplog oplog;
+		
+		/**
+		 * @var BSONTimestamp after
+		 * Only entries after this timestamp are selected.
+		 **/
+		private BSONTimestamp after;
+		
+		/**
+		 * @var Collection<?> namespaces
+		 * Only entries of these namespaces are selected.
+		 **/
+		private Collection<?> namespaces;
+		
+		/**
+		 * @var int position
+		 * The position of the next entry in the oplog.
+		 **/
+		private int position;
+		
+		/**
+		 * @var DBObject next
+		 * The next selected entry, or null if it has not been found yet.
+		 **/
+		private DBObject next;
+		
+		/**
+		 * Constructs a cursor for the query of the monitor.
+		 * @param collection The oplog collection the query was made on.
+		 * @param query The query of the monitor.
+		 * @param oplog The oplog that is read.
+		 **/
+		OplogCursor(DBCollection collection, DBObject query, Oplog oplog) {
+			super(collection, query, null, null);
+			this.oplog = oplog;
+			this.after = (BSONTimestamp) ((DBObject) query.get(OplogEntry.TIMESTAMP_FIELD)).get("$gt");
+			Object in = ((DBObject) query.get(OplogEntry.NAMESPACE_FIELD)).get("$in");
+			this.namespaces = in instanceof Object[] ? Arrays.asList((Object[]) in) : (Collection<?>) in;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			while (next == null) {
+				DBObject entry = oplog.get(position);
+				if (entry == null) {
+					return false;
+				}
+				++position;
+				BSONTimestamp timestamp = (BSONTimestamp) entry.get(OplogEntry.TIMESTAMP_FIELD);
+				if (timestamp.compareTo(after) > 0 && namespaces.contains(entry.get(OplogEntry.NAMESPACE_FIELD))) {
+					next = entry;
+				}
+			}
+			return true;
+		}
+		
+		@Override
+		public DBObject next() {
+			hasNext();
+			DBObject entry = next;
+			next = null;
+			return entry;
+		}
+		
+		@Override
+		public long getCursorId() {
+			return 1;
+		}
+		
+		@Override
+		public DBCursor addOption(int option) {
+			return this;
+		}
+		
+		@Override
+		public void close() {
+		}
+	}
+	
+	/**
+	 * Registration that records the entries delivered to it.
+	 **/
+	private static class RecordingRegistration extends OplogMultiplexer.Registration {
+		/**
+		 * @var List<BSONTimestamp> delivered
+		 * The timestamps of the delivered entries, in order of delivery.
+		 **/
+		private List<BSONTimestamp> delivered = new ArrayList<BSONTimestamp>();
+		
+		/**
+		 * Constructs a registration for every insert in the given namespace.
+		 * @param namespace The namespace (database.collection) of the registration.
+		 **/
+		RecordingRegistration(String namespace) {
+			super(namespace, new BasicOperationSubscription(MongoOperation.INSERT, null), null);
+		}
+		
+		@Override
+		synchronized void deliver(OplogEntry entry) {
+			delivered.add(entry.getTimestamp());
+			notifyAll();
+		}
+		
+		/**
+		 * Waits until the given amount of entries has been delivered and returns them.
+		 * @param count The amount of entries to wait for.
+		 * @return The timestamps of the delivered entries.
+		 * @throws InterruptedException The thread was interrupted.
+		 **/
+		synchronized List<BSONTimestamp> awaitDelivered(int count) throws InterruptedException {
+			long deadline = System.currentTimeMillis() + TIMEOUT;
+			while (delivered.size() < count && System.currentTimeMillis() < deadline) {
+				wait(deadline - System.currentTimeMillis());
+			}
+			return new ArrayList<BSONTimestamp>(delivered);
+		}
+	}
+	
+	/**
+	 * @var Oplog oplog
+	 * The oplog read by the multiplexer.
+	 **/
+	private Oplog oplog;
+	
+	/**
+	 * @var Mongo mongo
+	 * Connection object providing the oplog collection the cursors are made on. It is never connected.
+	 **/
+	private Mongo mongo;
+	
+	/**
+	 * @var OplogMultiplexer multiplexer
+	 * The multiplexer that is tested.
+	 **/
+	private OplogMultiplexer multiplexer;
+	
+	/**
+	 * Creates a multiplexer reading the in memory oplog.
+	 * @throws Exception The connection object could not be created.
+	 **/
+	@Before
+	public void setUp() throws Exception {
+		oplog = new Oplog();
+		mongo = new Mongo(new ServerAddress("localhost"));
+		final DBCollection oplogCollection = mongo.getDB(OplogMultiplexer.OPLOG_DATABASE_NAME)
+				.getCollection(OplogMultiplexer.OPLOG_COLLECTION_NAME);
+		multiplexer = new OplogMultiplexer(mongo) {
+			@Override
+			OplogMonitorThread createMonitorThread(BSONTimestamp startTimestamp) {
+				return new OplogMonitorThread(oplogCollection, this, startTimestamp, null) {
+					@Override
+					DBCursor find(DBObject query) {
+						return new OplogCursor(oplogCollection, query, oplog);
+					}
+				};
+			}
+			
+			@Override
+			BSONTimestamp getLatestTimestamp() {
+				return oplog.getLatestTimestamp();
+			}
+		};
+	}
+	
+	/**
+	 * Stops the monitor and closes the connection object.
+	 **/
+	@After
+	public void tearDown() {
+		oplog.release();
+		mongo.close();
+	}
+	
+	/**
+	 * Registers a second namespace while the monitor is reading entries of the first. The entries written to the
+	 * second namespace before the monitor noticed the registration must be delivered, and the entries of the first
+	 * namespace must not be delivered twice when the cursor is reopened for the second.
+	 * @throws InterruptedException The thread was interrupted.
+	 **/
+	@Test
+	public void testRegisterNamespaceWhileMonitorIsBusy() throws InterruptedException {
+		RecordingRegistration first = new RecordingRegistration(FIRST_NAMESPACE);
+		RecordingRegistration second = new RecordingRegistration(SECOND_NAMESPACE);
+		List<BSONTimestamp> firstExpected = new ArrayList<BSONTimestamp>();
+		List<BSONTimestamp> secondExpected = new ArrayList<BSONTimestamp>();
+		
+		assertTrue(multiplexer.register(first));
+		firstExpected.add(oplog.append(FIRST_NAMESPACE));
+		assertEquals(firstExpected, first.awaitDelivered(1));
+		
+		// Hold the monitor while it is waiting for entries of the first namespace, it cannot notice the registration.
+		oplog.hold();
+		oplog.awaitWaitingCursor();
+		assertTrue(multiplexer.register(second));
+		secondExpected.add(oplog.append(SECOND_NAMESPACE));
+		for (int i = 0; i < 10; ++i) {
+			firstExpected.add(oplog.append(FIRST_NAMESPACE));
+		}
+		secondExpected.add(oplog.append(SECOND_NAMESPACE));
+		oplog.release();
+		
+		assertEquals(secondExpected, second.awaitDelivered(secondExpected.size()));
+		
+		// Entries written after the cursor has caught up are delivered once to both registrations.
+		firstExpected.add(oplog.append(FIRST_NAMESPACE));
+		secondExpected.add(oplog.append(SECOND_NAMESPACE));
+		assertEquals(secondExpected, second.awaitDelivered(secondExpected.size()));
+		assertEquals(firstExpected, first.awaitDelivered(firstExpected.size()));
+		
+		// Give the monitor the chance to deliver duplicates before checking that it did not.
+		TimeUnit.MILLISECONDS.sleep(500);
+		assertEquals(firstExpected, first.awaitDelivered(firstExpected.size()));
+		assertEquals(secondExpected, second.awaitDelivered(secondExpected.size()));
+		
+		multiplexer.unregister(first);
+		multiplexer.unregister(second);
+	}
+}